@@ -65,8 +65,8 @@ public final class DiskBuilder extends Builder {
     DropDB.drop(dbName, sopts);
     sopts.dbPath(dbName).md();
 
-    elemNames = new Names(meta);
-    attrNames = new Names(meta);
+    elemNames = new Names(meta, true);
+    attrNames = new Names(meta, true);
     try {
       try {
         tout = new DataOutput(new TableOutput(meta, DATATBL));
@@ -81,6 +81,13 @@ public final class DiskBuilder extends Builder {
         if(sout != null) sout.close();
       }
 
+      // compress heap files
+      if(meta.compress) {
+        for(final String heap : new String[] { DATATXT, DATAATV }) {
+          BlockAccess.compress(meta.dbFile(heap), meta.dbFile(DATAZIP + heap));
+        }
+      }
+
       // copy temporary values into database table
       final IOFile tmpFile = meta.dbFile(DATATMP);
       try(DataInput in = new DataInput(tmpFile)) {
@@ -7,6 +7,7 @@ import org.basex.core.locks.*;
 import org.basex.core.users.*;
 import org.basex.data.*;
 import org.basex.io.random.*;
+import org.basex.query.*;
 import org.basex.query.util.pkg.*;
 import org.basex.query.value.seq.*;
 import org.basex.server.*;
@@ -48,6 +49,8 @@ public final class Context {
   public final Locking locking;
   /** Key/value store. */
   public final Store store;
+  /** Cache for parsed queries. */
+  public final QueryCache queries;
 
   /** External objects (HTTP context, HTTP requests). */
   private final HashSet<Object> external;
@@ -116,6 +119,7 @@ public final class Context {
     log = ctx.log;
     jobs = ctx.jobs;
     store = ctx.store;
+    queries = ctx.queries;
     external = new HashSet<>(ctx.external);
   }
 
@@ -138,6 +142,7 @@ public final class Context {
     jobs = new JobPool(soptions);
     external = new HashSet<>();
     store = new Store(this);
+    queries = new QueryCache(soptions);
     client = null;
   }
 
@@ -166,6 +171,7 @@ public final class Context {
     closed = true;
     store.close();
     jobs.close();
+    queries.clear();
     sessions.close();
     datas.close();
     log.close();
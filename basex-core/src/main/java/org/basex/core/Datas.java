@@ -56,6 +56,17 @@ public final class Datas {
     }
   }
 
+  /**
+   * Returns a snapshot of the database with the specified name if it is currently updated.
+   * @param name name of the database
+   * @return snapshot, or {@code null} if the database is not registered or not updated
+   * @see Data#snapshot()
+   */
+  public synchronized Data snapshot(final String name) {
+    final Entry<Data, Integer> entry = get(name);
+    return entry == null ? null : entry.getKey().snapshot();
+  }
+
   /**
    * Checks if the database with the specified name is pinned.
    * @param name name of the database
@@ -21,6 +21,20 @@ public final class MainOptions extends Options {
   public static final BooleanOption MAINMEM = new BooleanOption("MAINMEM", false);
   /** Flag for closing a database after creating it. */
   public static final BooleanOption CREATEONLY = new BooleanOption("CREATEONLY", false);
+  /** Flag for reading the table of disk-based databases via memory mapping. */
+  public static final BooleanOption MMAP = new BooleanOption("MMAP", false);
+  /** Number of buffered pages for the table and text files of a disk-based database. */
+  public static final NumberOption BUFFERS = new NumberOption("BUFFERS", 16);
+  /** Number of pages of disk-based databases that are read ahead during sequential scans. */
+  public static final NumberOption READAHEAD = new NumberOption("READAHEAD", 0);
+  /** Flag for storing the table of main memory databases in columns. */
+  public static final BooleanOption COLUMNAR = new BooleanOption("COLUMNAR", false);
+  /** Flag for storing the table and texts of main memory databases outside the Java heap. */
+  public static final BooleanOption OFFHEAP = new BooleanOption("OFFHEAP", false);
+  /** Flag for compressing the texts and attribute values of disk-based databases in blocks. */
+  public static final BooleanOption COMPRESSTEXTS = new BooleanOption("COMPRESSTEXTS", false);
+  /** Flag for storing checksums of the table pages of disk-based databases. */
+  public static final BooleanOption CHECKSUMS = new BooleanOption("CHECKSUMS", false);
 
   // Parsing
 
@@ -99,12 +113,16 @@ public final class MainOptions extends Options {
   public static final NumberOption MAXLEN = new NumberOption("MAXLEN", 96);
   /** Maximum number of name categories. */
   public static final NumberOption MAXCATS = new NumberOption("MAXCATS", 100);
+  /** Flag for indexing numeric keys of the text and attribute index. */
+  public static final BooleanOption NUMINDEX = new BooleanOption("NUMINDEX", false);
   /** Flag for activating incremental index structures. */
   public static final BooleanOption UPDINDEX = new BooleanOption("UPDINDEX", false);
   /** Flag for automatic index updates. */
   public static final BooleanOption AUTOOPTIMIZE = new BooleanOption("AUTOOPTIMIZE", false);
   /** Index split size. */
   public static final NumberOption SPLITSIZE = new NumberOption("SPLITSIZE", 0);
+  /** Number of threads for creating index structures (0: number of available processors). */
+  public static final NumberOption INDEXTHREADS = new NumberOption("INDEXTHREADS", 1);
 
   // Full-Text
 
@@ -133,6 +151,10 @@ public final class MainOptions extends Options {
   public static final NumberOption UNROLLLIMIT = new NumberOption("UNROLLLIMIT", 5);
   /** Flag for tail-call optimization. */
   public static final NumberOption TAILCALLS = new NumberOption("TAILCALLS", 256);
+  /** Maximum number of tuples sorted in main memory (-1: no limit, 0: until memory runs low). */
+  public static final NumberOption SORTLIMIT = new NumberOption("SORTLIMIT", -1);
+  /** Number of threads for sorting and grouping tuples (0: number of available processors). */
+  public static final NumberOption SORTTHREADS = new NumberOption("SORTTHREADS", 1);
   /** Look up documents in databases. */
   public static final BooleanOption WITHDB = new BooleanOption("WITHDB", true);
   /** Favor global database when opening resources. */
@@ -175,6 +197,8 @@ public final class MainOptions extends Options {
 
   /** Flushes the database after each update. */
   public static final BooleanOption AUTOFLUSH = new BooleanOption("AUTOFLUSH", true);
+  /** Logs the changes of updates on disk-based databases in a write-ahead log. */
+  public static final BooleanOption WAL = new BooleanOption("WAL", false);
   /** Writes original files back after updates. */
   public static final BooleanOption WRITEBACK = new BooleanOption("WRITEBACK", false);
   /** Maximum number of index occurrences to print. */
@@ -185,7 +209,7 @@ public final class MainOptions extends Options {
   /** Indexing options. */
   public static final Option<?>[] INDEXING = { MAXCATS, MAXLEN, SPLITSIZE, LANGUAGE, STOPWORDS,
     TEXTINDEX, ATTRINDEX, TOKENINDEX, FTINDEX, TEXTINCLUDE, ATTRINCLUDE, TOKENINCLUDE, FTINCLUDE,
-    STEMMING, CASESENS, DIACRITICS, UPDINDEX, AUTOOPTIMIZE };
+    STEMMING, CASESENS, DIACRITICS, UPDINDEX, AUTOOPTIMIZE, NUMINDEX };
 
   /** XML Parsing options. */
   private static final Option<?>[] XMLPARSING = { INTPARSE, STRIPWS, STRIPNS, DTD, DTDVALIDATION,
@@ -30,8 +30,12 @@ public final class StaticOptions extends Options {
   public static final StringOption LANG = new StringOption("LANG", Prop.language);
   /** Locking strategy. */
   public static final BooleanOption FAIRLOCK = new BooleanOption("FAIRLOCK", false);
+  /** Snapshot reads of databases that are currently updated. */
+  public static final BooleanOption SNAPSHOTS = new BooleanOption("SNAPSHOTS", false);
   /** Timeout (seconds) for remembering result of asynchronous queries. */
   public static final NumberOption CACHETIMEOUT = new NumberOption("CACHETIMEOUT", 3600);
+  /** Maximum number of parsed queries that are cached for repeated evaluation. */
+  public static final NumberOption QUERYCACHE = new NumberOption("QUERYCACHE", 0);
   /** Write store at shutdown. */
   public static final BooleanOption WRITESTORE = new BooleanOption("WRITESTORE", true);
 
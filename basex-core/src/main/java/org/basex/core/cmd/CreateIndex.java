@@ -3,6 +3,8 @@ package org.basex.core.cmd;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 
 import org.basex.core.*;
 import org.basex.core.parse.*;
@@ -37,10 +39,12 @@ public final class CreateIndex extends ACreate {
       case TEXT:
         type = IndexType.TEXT;
         data.meta.createtext = true;
+        data.meta.numindex = options.get(MainOptions.NUMINDEX);
         break;
       case ATTRIBUTE:
         type = IndexType.ATTRIBUTE;
         data.meta.createattr = true;
+        data.meta.numindex = options.get(MainOptions.NUMINDEX);
         break;
       case TOKEN:
         type = IndexType.TOKEN;
@@ -60,6 +64,7 @@ public final class CreateIndex extends ACreate {
     }
     data.meta.names(type, options);
     data.meta.splitsize = options.get(MainOptions.SPLITSIZE);
+    data.meta.indexthreads = options.get(MainOptions.INDEXTHREADS);
 
     return update(data, () -> {
       create(type, data, CreateIndex.this);
@@ -73,16 +78,39 @@ public final class CreateIndex extends ACreate {
   }
 
   /**
-   * Builds the index structures.
+   * Builds the index structures. The index structures of disk-based databases are built
+   * concurrently if several threads are available.
    * @param data data reference
    * @param cmd calling command
    * @throws IOException I/O exception
    */
   static void create(final Data data, final ACreate cmd) throws IOException {
-    if(data.meta.createtext) create(IndexType.TEXT, data, cmd);
-    if(data.meta.createattr) create(IndexType.ATTRIBUTE, data, cmd);
-    if(data.meta.createtoken) create(IndexType.TOKEN, data, cmd);
-    if(data.meta.createft) create(IndexType.FULLTEXT, data, cmd);
+    final MetaData meta = data.meta;
+    final ArrayList<IndexType> types = new ArrayList<>(4);
+    if(meta.createtext) types.add(IndexType.TEXT);
+    if(meta.createattr) types.add(IndexType.ATTRIBUTE);
+    if(meta.createtoken) types.add(IndexType.TOKEN);
+    if(meta.createft) types.add(IndexType.FULLTEXT);
+
+    final int ts = types.size(), threads = meta.indexthreads > 0 ? meta.indexthreads :
+      Runtime.getRuntime().availableProcessors();
+    if(ts < 2 || threads < 2 || data.inMemory()) {
+      for(final IndexType type : types) create(type, data, cmd);
+      return;
+    }
+
+    // distribute the available threads among the index builders
+    for(final IndexType type : types) DropIndex.drop(type, data);
+    final int tt = Math.max(1, threads / ts);
+    final ArrayList<Callable<Void>> tasks = new ArrayList<>(ts);
+    for(final IndexType type : types) {
+      tasks.add(() -> {
+        data.createIndex(type, tt, cmd);
+        return null;
+      });
+    }
+    IndexBuilder.run(tasks, () -> { if(cmd != null) cmd.stop(); });
+    for(final IndexType type : types) meta.index(type, true);
   }
 
   /**
@@ -94,7 +122,7 @@ public final class CreateIndex extends ACreate {
    */
   static void create(final IndexType type, final Data data, final ACreate cmd) throws IOException {
     DropIndex.drop(type, data);
-    data.createIndex(type, cmd);
+    data.createIndex(type, data.meta.indexthreads, cmd);
     data.meta.index(type, true);
   }
 }
@@ -106,6 +106,11 @@ public final class OptimizeAll extends ACreate {
     // adopt original index options
     options.set(MainOptions.MAXLEN, ometa.maxlen);
     options.set(MainOptions.MAXCATS, ometa.maxcats);
+    options.set(MainOptions.NUMINDEX, ometa.numindex);
+    // adopt original storage options
+    options.set(MainOptions.MMAP, ometa.mmap);
+    options.set(MainOptions.COMPRESSTEXTS, ometa.compress);
+    options.set(MainOptions.CHECKSUMS, ometa.checksums);
 
     // build database and index structures
     final StaticOptions sopts = context.soptions;
@@ -89,6 +89,14 @@ public abstract class Job {
     children.remove(children.size() - 1);
   }
 
+  /**
+   * Removes the specified child job. Can be called if child jobs are run concurrently.
+   * @param job child job
+   */
+  public final void popJob(final Job job) {
+    children.remove(job);
+  }
+
   /**
    * Stops a job or sub job.
    */
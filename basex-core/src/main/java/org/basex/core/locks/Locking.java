@@ -9,6 +9,7 @@ import java.util.concurrent.locks.*;
 
 import org.basex.core.*;
 import org.basex.core.jobs.*;
+import org.basex.data.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -19,6 +20,9 @@ import org.basex.util.list.*;
  *
  * (Non-)fair locking can be adjusted via the {@link StaticOptions#FAIRLOCK} option.
  *
+ * If {@link StaticOptions#SNAPSHOTS} is enabled, jobs without write locks will not lock
+ * databases that are currently updated. Instead, they read a snapshot of the last committed state.
+ *
  * This class prevents locking deadlocks by sorting all strings.
  *
  * Locks can only be released by the same thread which acquired it.
@@ -47,6 +51,8 @@ public final class Locking {
 
   /** Fair ordering policy; prevents starvation, but reduces parallelism. */
   private final boolean fair;
+  /** Static options. */
+  private final StaticOptions soptions;
 
   /** Locks assigned to threads. */
   private final ConcurrentMap<Long, Locks> locked = new ConcurrentHashMap<>();
@@ -71,6 +77,7 @@ public final class Locking {
    */
   public Locking(final StaticOptions soptions) {
     fair = soptions.get(StaticOptions.FAIRLOCK);
+    this.soptions = soptions;
     globalLocks = new ReentrantReadWriteLock(fair);
     final int parallel = Math.max(soptions.get(StaticOptions.PARALLEL), 1);
     queue = fair ? new FairLockQueue(parallel) : new NonfairLockQueue(parallel);
@@ -86,7 +93,9 @@ public final class Locking {
     job.addLocks();
     // prepare lock strings and acquire locks
     try {
-      acquire(job.jc().locks.finish(ctx));
+      final Locks locks = job.jc().locks.finish(ctx);
+      if(soptions.get(StaticOptions.SNAPSHOTS)) locks.snapshots(ctx);
+      acquire(locks);
     } catch(final InterruptedException ex) {
       throw Util.notExpected("Thread was interrupted: %", ex);
     }
@@ -171,6 +180,10 @@ public final class Locking {
 
     // allow next queued job to resume
     queue.release();
+
+    // release snapshots
+    for(final Data snapshot : locks.snapshots.values()) snapshot.close();
+    locks.snapshots.clear();
   }
 
   /**
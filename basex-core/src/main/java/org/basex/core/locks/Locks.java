@@ -1,5 +1,7 @@
 package org.basex.core.locks;
 
+import java.util.*;
+
 import org.basex.core.*;
 import org.basex.data.*;
 
@@ -14,6 +16,8 @@ public final class Locks {
   public final LockList reads = new LockList();
   /** Write locks. */
   public final LockList writes = new LockList();
+  /** Snapshots of databases that are currently updated, replacing read locks. */
+  public final HashMap<String, Data> snapshots = new HashMap<>();
 
   /**
    * Finalizes locks. Replaces context references with current database, sorts entries,
@@ -36,6 +40,27 @@ public final class Locks {
     return this;
   }
 
+  /**
+   * Replaces the read locks of databases that are currently updated with snapshots.
+   * Only applies to jobs without write locks. The currently opened database will always be locked.
+   * @param ctx database context
+   */
+  void snapshots(final Context ctx) {
+    if(writes.locking() || reads.global()) return;
+
+    final Data data = ctx.data();
+    final LockList list = new LockList();
+    for(final String name : reads) {
+      if(data != null && name.equals(data.meta.name)) continue;
+      final Data snapshot = ctx.datas.snapshot(name);
+      if(snapshot != null) {
+        snapshots.put(name, snapshot);
+        list.add(name);
+      }
+    }
+    reads.remove(list);
+  }
+
   @Override
   public String toString() {
     return "Reads: " + reads + ", Writes: " + writes;
@@ -34,6 +34,12 @@ public interface DataText {
   String DBUPDIDX = "UPDINDEX";
   /** Automatic optimization. */
   String DBAUTOOPT = "AUTOOPT";
+  /** Memory-mapped table access. */
+  String DBMMAP = "MMAP";
+  /** Block-compressed texts and attribute values. */
+  String DBCOMPRESS = "COMPRESS";
+  /** Checksums of table pages. */
+  String DBCHKSUMS = "CHECKSUMS";
   /** Text index. */
   String DBTXTIDX = "TXTINDEX";
   /** Attribute index. */
@@ -66,6 +72,8 @@ public interface DataText {
   String DBMAXCATS = "MAXCATS";
   /** Index split size. */
   String DBSPLITS = "SPLITS";
+  /** Numeric keys of value indexes. */
+  String DBNUMIDX = "NUMINDEX";
   /** Up-to-date flag. */
   String DBUPTODATE = "UPTODATE";
   /** Last (highest) id. */
@@ -102,6 +110,9 @@ public interface DataText {
   String DATATXT = "txt";
   /** Database - Attribute value index. */
   String DATAATV = "atv";
+  /** Database - Prefix for compressed texts and attribute values
+   * (a suffix would be matched by the file patterns of the value indexes). */
+  String DATAZIP = "zip";
   /** Database - Token index. */
   String DATATOK = "tok";
   /** Database - Full-text index. */
@@ -114,6 +125,12 @@ public interface DataText {
   String DATAPTH = "pth";
   /** Database - ID-PRE mapping. */
   String DATAIDP = "idp";
+  /** Database - Value histograms. */
+  String DATAHST = "hst";
+  /** Database - Write-ahead log. */
+  String DATAWAL = "wal";
+  /** Database - Suffix for spilled page versions of snapshots. */
+  String DATAVER = "ver";
 
   // XML SERIALIZATION ============================================================================
 
@@ -16,6 +16,7 @@ import org.basex.index.path.*;
 import org.basex.index.value.*;
 import org.basex.io.*;
 import org.basex.io.in.DataInput;
+import org.basex.io.out.*;
 import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.util.*;
@@ -53,9 +54,17 @@ import org.basex.util.*;
  */
 public final class DiskData extends Data {
   /** Texts access file. */
-  private DataAccess texts;
+  private HeapAccess texts;
   /** Values access file. */
-  private DataAccess values;
+  private HeapAccess values;
+  /** Write-ahead log. */
+  private final WriteAheadLog log;
+  /** Database of this snapshot ({@code null} if this instance is no snapshot). */
+  private final DiskData source;
+  /** Snapshot of the last committed state (only assigned while the database is updated). */
+  private DiskData snapshot;
+  /** Number of references to this snapshot. */
+  private int pins;
 
   /**
    * Default constructor, called from {@link Open#open}.
@@ -64,19 +73,19 @@ public final class DiskData extends Data {
    */
   public DiskData(final MetaData meta) throws IOException {
     super(meta);
+    // recover committed changes of a previous session
+    log = new WriteAheadLog(meta);
+    source = null;
 
     try(DataInput in = new DataInput(meta.dbFile(DATAINF))) {
-      meta.read(in);
-      while(true) {
-        final String k = string(in.readToken());
-        if(k.isEmpty()) break;
-        switch(k) {
-          case DBTAGS: elemNames = new Names(in, meta); break;
-          case DBATTS: attrNames = new Names(in, meta); break;
-          case DBPATH: paths = new PathIndex(this, in); break;
-          case DBNS:   nspaces = new Namespaces(in); break;
-          case DBDOCS: resources.read(in); break;
-        }
+      read(in);
+    }
+    // value histograms are missing in databases created by older versions
+    final IOFile histograms = meta.dbFile(DATAHST);
+    if(histograms.exists()) {
+      try(DataInput in = new DataInput(histograms)) {
+        elemNames.readHistograms(in);
+        attrNames.readHistograms(in);
       }
     }
 
@@ -114,17 +123,98 @@ public final class DiskData extends Data {
     this.nspaces = nspaces;
     paths.data(this);
     if(meta.updindex) idmap = new IdPreMap(meta.lastid);
+    log = new WriteAheadLog(meta);
+    source = null;
     init();
   }
 
+  /**
+   * Snapshot constructor, called from {@link #startUpdate}.
+   * The main memory structures of the database are copied, and the table and heap files
+   * are accessed via snapshots. Value indexes and the full-text index will not be available.
+   * @param data database
+   * @throws IOException I/O Exception
+   */
+  private DiskData(final DiskData data) throws IOException {
+    super(new MetaData(data.meta));
+    log = data.log;
+    source = data;
+    pins = 1;
+
+    final ArrayOutput ao = new ArrayOutput();
+    try(DataOutput out = new DataOutput(ao)) {
+      data.write(out);
+      if(data.idmap != null) data.idmap.write(out);
+    }
+    try(DataInput in = new DataInput(new IOContent(ao.finish()))) {
+      read(in);
+      if(data.idmap != null) idmap = new IdPreMap(in);
+    }
+    resources.paths(data.resources);
+    meta.textindex = false;
+    meta.attrindex = false;
+    meta.tokenindex = false;
+    meta.ftindex = false;
+
+    table = ((TableDiskAccess) data.table).snapshot(meta);
+    try {
+      texts = data.texts.snapshot();
+      values = data.values.snapshot();
+    } catch(final IOException ex) {
+      table.close();
+      if(texts != null) texts.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Reads the meta data and the main memory structures.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  private void read(final DataInput in) throws IOException {
+    meta.read(in);
+    while(true) {
+      final String k = string(in.readToken());
+      if(k.isEmpty()) break;
+      switch(k) {
+        case DBTAGS: elemNames = new Names(in, meta); break;
+        case DBATTS: attrNames = new Names(in, meta); break;
+        case DBPATH: paths = new PathIndex(this, in); break;
+        case DBNS:   nspaces = new Namespaces(in); break;
+        case DBDOCS: resources.read(in); break;
+      }
+    }
+  }
+
   /**
    * Initializes the database.
    * @throws IOException I/O exception
    */
   private void init() throws IOException {
-    table = new TableDiskAccess(meta, false);
-    texts = new DataAccess(meta.dbFile(DATATXT));
-    values = new DataAccess(meta.dbFile(DATAATV));
+    table = new TableDiskAccess(meta, false, log);
+    texts = heap(DATATXT);
+    values = heap(DATAATV);
+  }
+
+  /**
+   * Opens a heap file.
+   * @param name name of the heap file
+   * @return heap access
+   * @throws IOException I/O exception
+   */
+  private HeapAccess heap(final String name) throws IOException {
+    final IOFile file = meta.dbFile(name);
+    return meta.compress ? new BlockAccess(meta.dbFile(DATAZIP + name), file, meta.buffers,
+      meta.mmap, log) : new DataAccess(file, meta.buffers, meta.mmap, meta.readahead, log);
+  }
+
+  /**
+   * Returns the write-ahead log.
+   * @return log
+   */
+  public WriteAheadLog log() {
+    return log;
   }
 
   /**
@@ -134,31 +224,72 @@ public final class DiskData extends Data {
   private void write() throws IOException {
     if(!meta.dirty) return;
 
-    try(DataOutput out = new DataOutput(meta.dbFile(DATAINF))) {
-      meta.write(out);
-      out.writeToken(token(DBTAGS));
-      elemNames.write(out);
-      out.writeToken(token(DBATTS));
-      attrNames.write(out);
-      out.writeToken(token(DBPATH));
-      paths.write(out);
-      out.writeToken(token(DBNS));
-      nspaces.write(out);
-      out.writeToken(token(DBDOCS));
-      resources.write(out);
-      out.write(0);
+    try(DataOutput out = log.output(meta.dbFile(DATAINF))) {
+      write(out);
+    }
+    try(DataOutput out = log.output(meta.dbFile(DATAHST))) {
+      elemNames.writeHistograms(out);
+      attrNames.writeHistograms(out);
     }
     // file may be missing if flag was just enabled
-    if(meta.updindex && idmap != null) idmap.write(meta.dbFile(DATAIDP));
+    if(meta.updindex && idmap != null) {
+      try(DataOutput out = log.output(meta.dbFile(DATAIDP))) {
+        idmap.write(out);
+      }
+    }
     meta.dirty = false;
   }
 
+  /**
+   * Writes the meta data and the main memory structures.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out) throws IOException {
+    meta.write(out);
+    out.writeToken(token(DBTAGS));
+    elemNames.write(out);
+    out.writeToken(token(DBATTS));
+    attrNames.write(out);
+    out.writeToken(token(DBPATH));
+    paths.write(out);
+    out.writeToken(token(DBNS));
+    nspaces.write(out);
+    out.writeToken(token(DBDOCS));
+    resources.write(out);
+    out.write(0);
+  }
+
+  @Override
+  public synchronized Data snapshot() {
+    return snapshot != null ? snapshot.pin() : null;
+  }
+
+  /**
+   * Adds a reference to this snapshot.
+   * @return self reference
+   */
+  private synchronized DiskData pin() {
+    pins++;
+    return this;
+  }
+
   @Override
   public synchronized void close() {
     if(closed) return;
+    // snapshot: only close instance if it is not referenced anymore
+    if(source != null && --pins > 0) return;
+
     super.close();
     try {
-      write();
+      if(source == null) {
+        // release snapshot, write back logged changes
+        if(snapshot != null) snapshot.close();
+        snapshot = null;
+        if(log.active()) flush(true);
+        log.close();
+        write();
+      }
       table.close();
       texts.close();
       values.close();
@@ -185,26 +316,33 @@ public final class DiskData extends Data {
   }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
-    // close existing index
+  public void createIndex(final IndexType type, final int threads, final Command cmd)
+      throws IOException {
+    // close existing index, write back logged changes
     close(type);
+    log.checkpoint();
     final IndexBuilder ib;
     switch(type) {
-      case TEXT: case ATTRIBUTE: case TOKEN: ib = new DiskValuesBuilder(this, type); break;
-      case FULLTEXT: ib = new FTBuilder(this); break;
+      case TEXT: case ATTRIBUTE: case TOKEN: ib = new DiskValuesBuilder(this, type, threads); break;
+      case FULLTEXT: ib = new FTBuilder(this, threads); break;
       default: throw Util.notExpected();
     }
     try {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
   }
 
   @Override
   public void dropIndex(final IndexType type) throws BaseXException {
     close(type);
+    try {
+      log.checkpoint();
+    } catch(final IOException ex) {
+      throw new BaseXException(ex);
+    }
     final Index index = index(type);
     if(index != null && !index.drop()) throw new BaseXException(INDEX_NOT_DROPPED_X, type);
   }
@@ -228,11 +366,25 @@ public final class DiskData extends Data {
   @Override
   public void startUpdate(final MainOptions opts) throws BaseXException {
     if(!table.lock(true)) throw new BaseXException(DB_PINNED_X, meta.name);
-    if(opts.get(MainOptions.AUTOFLUSH)) {
+    try {
+      log.active(opts.get(MainOptions.WAL));
+    } catch(final IOException ex) {
+      throw new BaseXException(ex);
+    }
+    if(opts.get(MainOptions.AUTOFLUSH) && !log.active()) {
       final IOFile upd = meta.updateFile();
       if(upd.exists()) throw new BaseXException(DB_UPDATED_X, meta.name);
       if(!upd.touch()) throw Util.notExpected("%: could not create lock file.", meta.name);
     }
+    // create snapshot for concurrent readers
+    if(meta.snapshots && snapshot == null) {
+      try {
+        final DiskData snap = new DiskData(this);
+        synchronized(this) { snapshot = snap; }
+      } catch(final IOException ex) {
+        throw new BaseXException(ex);
+      }
+    }
   }
 
   @Override
@@ -242,27 +394,35 @@ public final class DiskData extends Data {
 
     // remove updating file
     final boolean auto = opts.get(MainOptions.AUTOFLUSH);
-    if(auto) {
+    if(auto && !log.active()) {
       final IOFile upd = meta.updateFile();
       if(!upd.exists()) throw Util.notExpected("%: lock file does not exist.", meta.name);
       if(!upd.delete()) throw Util.notExpected("%: could not delete lock file.", meta.name);
     }
 
     flush(auto);
+    // release snapshot
+    if(snapshot != null) snapshot.close();
+    snapshot = null;
     if(!table.lock(false)) throw Util.notExpected("Database '%': could not unlock.", meta.name);
   }
 
   @Override
   public synchronized void flush(final boolean all) {
     try {
-      table.flush(all);
-      if(all) {
+      // if changes are logged, all changes will be committed
+      final boolean logged = log.active();
+      table.flush(all || logged);
+      if(all || logged) {
         write();
         texts.flush();
         values.flush();
         if(textIndex != null) textIndex.flush();
         if(attrIndex != null) attrIndex.flush();
+        if(tokenIndex != null) tokenIndex.flush();
+        if(ftIndex != null) ftIndex.flush();
       }
+      if(logged) log.commit();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
@@ -291,10 +451,11 @@ public final class DiskData extends Data {
     final long value = textRef(pre);
     if(Inline.inlined(value)) return Inline.unpackLength(value);
 
-    final DataAccess da = text ? texts : values;
-    final int l = da.readNum(value & Compress.COMPRESS - 1);
+    final HeapAccess da = text ? texts : values;
+    final long pos = value & Compress.COMPRESS - 1;
+    final int l = da.readNum(pos);
     // if text is compressed, read number of compressed bytes
-    return Compress.compressed(value) ? da.readNum() : l;
+    return Compress.compressed(value) ? da.readNum(pos + Num.length(l)) : l;
   }
 
   /**
@@ -329,7 +490,7 @@ public final class DiskData extends Data {
     indexDelete(pre, -1, 1);
 
     // reference to heap file
-    final DataAccess store = kind == ATTR ? values : texts;
+    final HeapAccess store = kind == ATTR ? values : texts;
     // old entry (offset or value)
     final long oldRef = textRef(pre);
 
@@ -371,7 +532,7 @@ public final class DiskData extends Data {
 
     // store text in heap file
     final byte[] packed = Compress.pack(value);
-    final DataAccess store = text ? texts : values;
+    final HeapAccess store = text ? texts : values;
     final long offset = store.length();
     store.writeToken(offset, packed);
     return packed == value ? offset : Compress.COMPRESS | offset;
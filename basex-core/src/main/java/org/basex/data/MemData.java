@@ -18,14 +18,21 @@ import org.basex.util.hash.*;
  * for textual content in a compressed memory structure.
  * The table mapping is documented in {@link Data}.
  *
+ * If {@link MetaData#offheap} is enabled, the table and the texts of parsed documents are
+ * stored outside the Java heap. Texts are then not deduplicated.
+ *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
 public final class MemData extends Data {
-  /** Texts. */
+  /** Texts ({@code null} if texts are stored off-heap). */
   private final TokenSet texts;
-  /** Attribute Values. */
+  /** Attribute Values ({@code null} if values are stored off-heap). */
   private final TokenSet values;
+  /** Off-heap texts ({@code null} if texts are stored on the heap). */
+  private final DirectAccess directTexts;
+  /** Off-heap attribute values ({@code null} if values are stored on the heap). */
+  private final DirectAccess directValues;
 
   /**
    * Constructor.
@@ -34,15 +41,16 @@ public final class MemData extends Data {
    * @param options main options
    */
   public MemData(final PathIndex paths, final Namespaces nspaces, final MainOptions options) {
-    this(null, null, paths, nspaces, null, null, options);
+    this(null, null, paths, nspaces, null, null, options, options.get(MainOptions.OFFHEAP));
   }
 
   /**
    * Constructor for creating a new, empty database.
+   * The data will always be stored on the heap.
    * @param options main options
    */
   public MemData(final MainOptions options) {
-    this(null, null, options);
+    this(null, null, null, null, null, null, options, false);
   }
 
   /**
@@ -54,28 +62,33 @@ public final class MemData extends Data {
    * @param texts texts
    * @param values values
    * @param options main options
+   * @param offheap store data outside the Java heap
    */
   private MemData(final Names elemNames, final Names attrNames, final PathIndex paths,
       final Namespaces nspaces, final TokenSet texts, final TokenSet values,
-      final MainOptions options) {
+      final MainOptions options, final boolean offheap) {
 
     super(new MetaData(options));
+    meta.offheap = offheap;
     table = new TableMemAccess(meta);
     if(meta.updindex) idmap = new IdPreMap(meta.lastid);
-    this.texts = texts == null ? new TokenSet() : texts;
-    this.values = values == null ? new TokenSet() : values;
-    this.elemNames = elemNames == null ? new Names(meta) : elemNames;
-    this.attrNames = attrNames == null ? new Names(meta) : attrNames;
+    this.texts = offheap ? null : texts == null ? new TokenSet() : texts;
+    this.values = offheap ? null : values == null ? new TokenSet() : values;
+    directTexts = offheap ? new DirectAccess() : null;
+    directValues = offheap ? new DirectAccess() : null;
+    this.elemNames = elemNames == null ? new Names(meta, false) : elemNames;
+    this.attrNames = attrNames == null ? new Names(meta, false) : attrNames;
     this.paths = paths == null ? new PathIndex(this) : paths;
     this.nspaces = nspaces == null ? new Namespaces() : nspaces;
   }
 
   @Override
-  public void createIndex(final IndexType type, final Command cmd) throws IOException {
+  public void createIndex(final IndexType type, final int threads, final Command cmd)
+      throws IOException {
     final IndexBuilder ib;
     switch(type) {
       case TEXT: case ATTRIBUTE: case TOKEN:
-        ib = new MemValuesBuilder(this, type); break;
+        ib = new MemValuesBuilder(this, type, threads); break;
       case FULLTEXT:
         throw new BaseXException(NO_MAINMEM);
       default:
@@ -85,7 +98,7 @@ public final class MemData extends Data {
       if(cmd != null) cmd.pushJob(ib);
       set(type, ib.build());
     } finally {
-      if(cmd != null) cmd.popJob();
+      if(cmd != null) cmd.popJob(ib);
     }
   }
 
@@ -126,9 +139,20 @@ public final class MemData extends Data {
   @Override
   public void flush(final boolean all) { }
 
+  @Override
+  public void close() {
+    super.close();
+    if(meta.offheap) {
+      directTexts.close();
+      directValues.close();
+    }
+  }
+
   @Override
   public byte[] text(final int pre, final boolean text) {
-    return (text ? texts : values).key((int) textRef(pre));
+    final long ref = textRef(pre);
+    return meta.offheap ? (text ? directTexts : directValues).readToken(ref) :
+      (text ? texts : values).key((int) ref);
   }
 
   @Override
@@ -154,7 +178,7 @@ public final class MemData extends Data {
   /**
    * Returns the string values of the database.
    * @param text text/attribute flag
-   * @return set
+   * @return set, or {@code null} if values are stored off-heap
    */
   public TokenSet values(final boolean text) {
     return text ? texts : values;
@@ -163,17 +187,33 @@ public final class MemData extends Data {
   // UPDATE OPERATIONS ============================================================================
 
   @Override
-  protected void delete(final int pre, final boolean text) { }
+  protected void delete(final int pre, final boolean text) {
+    if(meta.offheap) (text ? directTexts : directValues).free(textRef(pre), 0);
+  }
 
   @Override
   protected void updateText(final int pre, final byte[] value, final int kind) {
     indexDelete(pre, -1, 1);
-    textRef(pre, textRef(value, kind != ATTR));
+    if(meta.offheap) {
+      // reuse space of old entry
+      final DirectAccess store = kind == ATTR ? directValues : directTexts;
+      final long off = store.free(textRef(pre), value.length + Num.length(value.length));
+      store.writeToken(off, value);
+      textRef(pre, off);
+    } else {
+      textRef(pre, textRef(value, kind != ATTR));
+    }
     indexAdd(pre, -1, 1, null);
   }
 
   @Override
   protected long textRef(final byte[] value, final boolean text) {
+    if(meta.offheap) {
+      final DirectAccess store = text ? directTexts : directValues;
+      final long off = store.length();
+      store.writeToken(off, value);
+      return off;
+    }
     return (text ? texts : values).put(value);
   }
 }
@@ -50,6 +50,24 @@ public final class MetaData {
   public boolean updindex;
   /** Flag for automatic index updating. */
   public boolean autooptimize;
+  /** Flag for memory-mapped table access. */
+  public boolean mmap;
+  /** Flag for block-compressed texts and attribute values. */
+  public boolean compress;
+  /** Flag for checksums of the table pages. */
+  public boolean checksums;
+  /** Number of buffered pages per database file (not stored on disk). */
+  public int buffers;
+  /** Number of pages that are read ahead during sequential scans (not stored on disk). */
+  public int readahead;
+  /** Flag for storing the table of main memory databases in columns (not stored on disk). */
+  public boolean columnar;
+  /** Flag for storing main memory databases outside the Java heap (not stored on disk). */
+  public boolean offheap;
+  /** Flag for creating snapshots while the database is updated (not stored on disk). */
+  public boolean snapshots;
+  /** Number of threads for creating index structures (not stored on disk). */
+  public int indexthreads;
 
   /** Indicates if the text index is to be recreated. */
   public boolean createtext;
@@ -81,6 +99,8 @@ public final class MetaData {
   public int maxcats;
   /** Maximum length of index entries. */
   public int maxlen;
+  /** Flag for indexing numeric keys of the text and attribute index. */
+  public boolean numindex;
   /** Split size for creating indexes. */
   public int splitsize;
 
@@ -120,6 +140,17 @@ public final class MetaData {
    */
   public MetaData(final String name, final MainOptions options, final StaticOptions sopts) {
     this(name, sopts.dbPath(name), options);
+    snapshots = sopts.get(StaticOptions.SNAPSHOTS);
+  }
+
+  /**
+   * Constructor for a snapshot of a disk-based database.
+   * The remaining properties will be assigned when the meta data is read.
+   * @param meta meta data of the database
+   */
+  MetaData(final MetaData meta) {
+    this(meta.name, meta.dir, new MainOptions(false));
+    buffers = meta.buffers;
   }
 
   /**
@@ -140,7 +171,16 @@ public final class MetaData {
     casesens = options.get(MainOptions.CASESENS);
     updindex = options.get(MainOptions.UPDINDEX);
     autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
+    mmap = options.get(MainOptions.MMAP);
+    compress = options.get(MainOptions.COMPRESSTEXTS);
+    checksums = options.get(MainOptions.CHECKSUMS);
+    buffers = options.get(MainOptions.BUFFERS);
+    readahead = options.get(MainOptions.READAHEAD);
+    indexthreads = options.get(MainOptions.INDEXTHREADS);
+    columnar = options.get(MainOptions.COLUMNAR);
+    offheap = options.get(MainOptions.OFFHEAP);
     maxlen = options.get(MainOptions.MAXLEN);
+    numindex = options.get(MainOptions.NUMINDEX);
     maxcats = options.get(MainOptions.MAXCATS);
     stopwords = options.get(MainOptions.STOPWORDS);
     language = Language.get(options);
@@ -387,6 +427,11 @@ public final class MetaData {
    */
   void read(final DataInput in) throws IOException {
     String storage = "", istorage = "";
+    // texts of databases without these properties are uncompressed, pages have no checksums,
+    // and numeric keys are not indexed
+    compress = false;
+    checksums = false;
+    numindex = false;
     while(true) {
       final String k = Token.string(in.readToken());
       if(k.isEmpty()) break;
@@ -407,6 +452,9 @@ public final class MetaData {
         case DBFTDC:     diacritics = isTrue(v); break;
         case DBUPDIDX:   updindex = isTrue(v); break;
         case DBAUTOOPT:  autooptimize = isTrue(v); break;
+        case DBMMAP:     mmap = isTrue(v); break;
+        case DBCOMPRESS: compress = isTrue(v); break;
+        case DBCHKSUMS:  checksums = isTrue(v); break;
         case DBTXTIDX:   textindex = isTrue(v); break;
         case DBATVIDX:   attrindex = isTrue(v); break;
         case DBTOKIDX:   tokenindex = isTrue(v); break;
@@ -416,6 +464,7 @@ public final class MetaData {
         case DBTOKINC:   tokeninclude = v; break;
         case DBFTXINC:   ftinclude = v; break;
         case DBSPLITS:   splitsize = toInt(v); break;
+        case DBNUMIDX:   numindex = isTrue(v); break;
         case DBCRTTXT:   createtext = isTrue(v); break;
         case DBCRTATV:   createattr = isTrue(v); break;
         case DBCRTTOK:   createtoken = isTrue(v); break;
@@ -450,6 +499,9 @@ public final class MetaData {
     writeInfo(out, DBSIZE,     size);
     writeInfo(out, DBUPDIDX,   updindex);
     writeInfo(out, DBAUTOOPT,  autooptimize);
+    writeInfo(out, DBMMAP,     mmap);
+    writeInfo(out, DBCOMPRESS, compress);
+    writeInfo(out, DBCHKSUMS,  checksums);
     writeInfo(out, DBTXTIDX,   textindex);
     writeInfo(out, DBATVIDX,   attrindex);
     writeInfo(out, DBTOKIDX,   tokenindex);
@@ -459,6 +511,7 @@ public final class MetaData {
     writeInfo(out, DBTOKINC,   tokeninclude);
     writeInfo(out, DBFTXINC,   ftinclude);
     writeInfo(out, DBSPLITS,   splitsize);
+    writeInfo(out, DBNUMIDX,   numindex);
     writeInfo(out, DBCRTTXT,   createtext);
     writeInfo(out, DBCRTATV,   createattr);
     writeInfo(out, DBCRTTOK,   createtoken);
@@ -487,8 +540,8 @@ public final class MetaData {
       textindex = false;
       attrindex = false;
       tokenindex = false;
+      ftindex = false;
     }
-    ftindex = false;
   }
 
   /**
@@ -60,6 +60,21 @@ public enum MetaProp {
     public Boolean value(final MetaData meta) { return meta.uptodate; }
   },
   /** Property. */
+  MMAP(false) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.mmap; }
+  },
+  /** Property. */
+  COMPRESS(false) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.compress; }
+  },
+  /** Property. */
+  CHECKSUMS(false) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.checksums; }
+  },
+  /** Property. */
   INPUTPATH(false) {
     @Override
     public String value(final MetaData meta) { return meta.original; }
@@ -164,6 +179,11 @@ public enum MetaProp {
   SPLITSIZE(true) {
     @Override
     public Integer value(final MetaData meta) { return meta.splitsize; }
+  },
+  /** Property. */
+  NUMINDEX(true) {
+    @Override
+    public Boolean value(final MetaData meta) { return meta.numindex; }
   };
 
   /** Index property. */
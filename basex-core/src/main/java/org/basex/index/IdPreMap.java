@@ -12,6 +12,11 @@ import org.basex.util.list.*;
 /**
  * Updatable ID-PRE mapping.
  *
+ * <p>The records are sorted by their PRE values. IDs that existed before the first update are
+ * looked up via the original ID values, which are sorted as well. IDs that have been inserted
+ * by updates are looked up via an additional index, which references the records in the order
+ * of their first ID values. This index is created on demand and updated incrementally.</p>
+ *
  * @author BaseX Team, BSD License
  * @author Dimitar Popov
  */
@@ -33,6 +38,11 @@ public class IdPreMap {
 
   /** Number of records in the table. */
   private int rows;
+  /** Indexes of the records with inserted IDs, sorted by their first ID values
+   * ({@code null} if not created yet). Should always be requested via {@link #order()}. */
+  private int[] order;
+  /** Number of entries in the {@link #order} array. */
+  private int orders;
 
   /**
    * Constructor.
@@ -54,16 +64,35 @@ public class IdPreMap {
    */
   public IdPreMap(final IOFile f) throws IOException {
     try(DataInput in = new DataInput(f)) {
-      baseid = in.readNum();
-      rows = in.readNum();
-      pres = in.readNums();
-      fids = in.readNums();
-      nids = in.readNums();
-      incs = in.readNums();
-      oids = in.readNums();
+      read(in);
     }
   }
 
+  /**
+   * Constructs a map by reading it from the specified input.
+   * @param in input stream
+   * @throws IOException I/O error while reading from the input
+   */
+  public IdPreMap(final DataInput in) throws IOException {
+    read(in);
+  }
+
+  /**
+   * Reads the map from the specified input.
+   * @param in input stream
+   * @throws IOException I/O error while reading from the input
+   */
+  private void read(final DataInput in) throws IOException {
+    order = null;
+    baseid = in.readNum();
+    rows = in.readNum();
+    pres = in.readNums();
+    fids = in.readNums();
+    nids = in.readNums();
+    incs = in.readNums();
+    oids = in.readNums();
+  }
+
   /**
    * Write the map to the specified file.
    * @param file file to write to
@@ -71,16 +100,25 @@ public class IdPreMap {
    */
   public final void write(final IOFile file) throws IOException {
     try(DataOutput out = new DataOutput(file)) {
-      out.writeNum(baseid);
-      out.writeNum(rows);
-      out.writeNums(pres);
-      out.writeNums(fids);
-      out.writeNums(nids);
-      out.writeNums(incs);
-      out.writeNums(oids);
+      write(out);
     }
   }
 
+  /**
+   * Write the map to the specified output.
+   * @param out output stream
+   * @throws IOException I/O error while writing to the output
+   */
+  public final void write(final DataOutput out) throws IOException {
+    out.writeNum(baseid);
+    out.writeNum(rows);
+    out.writeNums(pres);
+    out.writeNums(fids);
+    out.writeNums(nids);
+    out.writeNums(incs);
+    out.writeNums(oids);
+  }
+
   /**
    * Finishes database creation.
    * @param base last id
@@ -99,9 +137,12 @@ public class IdPreMap {
     if(rows == 0 || id < pres[0]) return id;
 
     if(id > baseid) {
-      // id was inserted by update
-      for(int i = 0; i < rows; ++i) {
-        if(fids[i] <= id && id <= nids[i]) return pres[i] + id - fids[i];
+      // id was inserted by update: find last record with a first ID that is not greater
+      final int[] ord = order();
+      final int o = lastOrder(id) - 1;
+      if(o >= 0) {
+        final int i = ord[o];
+        if(id <= nids[i]) return pres[i] + id - fids[i];
       }
     } else {
       // id is affected by updates
@@ -303,6 +344,53 @@ public class IdPreMap {
     return low; // key not found.
   }
 
+  /**
+   * Returns the indexes of the records with inserted IDs, sorted by their first ID values.
+   * @return indexes
+   */
+  private int[] order() {
+    if(order == null) {
+      final IntList list = new IntList(), ids = new IntList();
+      for(int i = 0; i < rows; i++) {
+        if(inserted(fids[i], nids[i])) {
+          list.add(i);
+          ids.add(fids[i]);
+        }
+      }
+      list.sort(ids.finish(), true);
+      orders = list.size();
+      order = list.finish();
+    }
+    return order;
+  }
+
+  /**
+   * Returns the position after the last entry in the {@link #order} array whose record has a
+   * first ID value that is equal to or smaller than the specified ID.
+   * @param id ID
+   * @return position
+   */
+  private int lastOrder(final int id) {
+    final int[] ord = order;
+    int low = 0, high = orders - 1;
+    while(low <= high) {
+      final int mid = low + high >>> 1;
+      if(fids[ord[mid]] <= id) low = mid + 1;
+      else high = mid - 1;
+    }
+    return low;
+  }
+
+  /**
+   * Checks if the specified ID values denote inserted records.
+   * @param fid first ID value
+   * @param nid last ID value
+   * @return result of check
+   */
+  private static boolean inserted(final int fid, final int nid) {
+    return fid != INV && fid <= nid;
+  }
+
   /**
    * Binary search of a key in a list. If there are several hits the last one is returned.
    * @param a array to search into
@@ -352,6 +440,21 @@ public class IdPreMap {
     incs[i] = inc;
     oids[i] = oid;
     ++rows;
+
+    int[] ord = order;
+    if(ord != null) {
+      // adjust indexes of the following records (branch-free, as the order is random)
+      final int os = orders;
+      for(int o = 0; o < os; o++) ord[o] += ~(ord[o] - i) >>> 31;
+      if(inserted(fid, nid)) {
+        // insert new record after all records with the same or smaller first ID
+        final int o = lastOrder(fid);
+        if(os == ord.length) order = ord = Arrays.copyOf(ord, Array.newCapacity(os));
+        Array.copy(ord, o, os - o, ord, o + 1);
+        ord[o] = i;
+        orders++;
+      }
+    }
   }
 
   /**
@@ -369,6 +472,18 @@ public class IdPreMap {
       Array.copy(incs, last, length, incs, s);
       Array.copy(oids, last, length, oids, s);
       rows -= last - s;
+
+      final int[] ord = order;
+      if(ord != null) {
+        // remove records, adjust indexes of the following records
+        final int os = orders, c = last - s;
+        int n = 0;
+        for(int o = 0; o < os; o++) {
+          final int r = ord[o];
+          if(r < s || r > e) ord[n++] = r - ((e - r) >>> 31) * c;
+        }
+        orders = n;
+      }
     }
   }
 
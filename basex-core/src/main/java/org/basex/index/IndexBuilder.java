@@ -3,6 +3,9 @@ package org.basex.index;
 import static org.basex.core.Text.*;
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
 
 import org.basex.core.*;
 import org.basex.core.jobs.*;
@@ -18,6 +21,9 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public abstract class IndexBuilder extends Job {
+  /** Minimum number of nodes of a table partition that is indexed by a separate thread. */
+  private static final int PARTITION = 1 << 16;
+
   /** Performance. */
   private final Performance perf = new Performance();
 
@@ -30,6 +36,8 @@ public abstract class IndexBuilder extends Job {
   /** Text node flag. */
   protected final boolean text;
 
+  /** Number of threads ({@code 0}: number of available processors). */
+  private final int threads;
   /** Number of index operations to perform before writing a partial index to disk. */
   private final int splitSize;
   /** Maximum memory to consume. */
@@ -47,14 +55,25 @@ public abstract class IndexBuilder extends Job {
   /** Threshold for freeing memory when estimating main memory consumption. */
   private int gcCount;
 
+  /** Number of partitions that are currently indexed. */
+  private int active;
+  /** Number of partitions that have not written their structures to disk since the last split. */
+  private int pending;
+  /** Number of splits that have been requested from the partitions. */
+  private int spills;
+  /** Indicates if indexing has been canceled. */
+  private volatile boolean canceled;
+
   /**
    * Constructor.
    * @param data reference
    * @param type index type
+   * @param threads number of threads ({@code 0}: number of available processors)
    */
-  protected IndexBuilder(final Data data, final IndexType type) {
+  protected IndexBuilder(final Data data, final IndexType type, final int threads) {
     this.data = data;
     this.type = type;
+    this.threads = threads;
     splitSize = (int) Math.min(Integer.MAX_VALUE, (long) data.meta.splitsize * splitFactor());
     size = data.meta.size;
     includeNames = new IndexNames(type, data);
@@ -86,7 +105,153 @@ public abstract class IndexBuilder extends Job {
    * @return result of check
    */
   protected final boolean indexEntry() {
-    return data.kind(pre) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(pre, text);
+    return indexEntry(pre);
+  }
+
+  /**
+   * Checks if the specified entry should be indexed.
+   * @param p pre value
+   * @return result of check
+   */
+  protected final boolean indexEntry(final int p) {
+    return data.kind(p) == (text ? Data.TEXT : Data.ATTR) && includeNames.contains(p, text);
+  }
+
+  /**
+   * Returns the number of partitions of the table that can be indexed in parallel.
+   * @return number of partitions ({@code 1} if the table is to be indexed sequentially)
+   */
+  protected final int partitions() {
+    final int ts = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+    return Math.max(1, Math.min(ts, size / PARTITION));
+  }
+
+  /**
+   * Indexes the table in partitions, which are processed by separate threads.
+   * The structures of a partition are written to disk as partial index whenever main memory
+   * is exhausted, and after the partition has been indexed.
+   * @param partitions number of partitions
+   * @param indexers function that creates the indexer for the partition with the specified number
+   * @throws IOException I/O Exception
+   */
+  protected final void index(final int partitions, final IntFunction<Partition> indexers)
+      throws IOException {
+
+    active = partitions;
+    final ArrayList<Callable<Void>> tasks = new ArrayList<>(partitions);
+    for(int p = 0; p < partitions; p++) {
+      final Partition partition = indexers.apply(p);
+      final int min = (int) ((long) size * p / partitions);
+      final int max = (int) ((long) size * (p + 1) / partitions);
+      tasks.add(() -> {
+        index(partition, min, max);
+        return null;
+      });
+    }
+    run(tasks, () -> canceled = true);
+  }
+
+  /**
+   * Runs tasks in the common fork/join pool and waits until all of them have finished.
+   * @param tasks tasks
+   * @param cancel invoked if a task fails (can be used to cancel the remaining tasks)
+   * @throws IOException I/O Exception
+   */
+  public static void run(final List<Callable<Void>> tasks, final Runnable cancel)
+      throws IOException {
+
+    // errors are caught by the tasks, as the pool may wrap them in new exceptions
+    final Throwable[] error = { null };
+    final ArrayList<ForkJoinTask<?>> futures = new ArrayList<>(tasks.size());
+    final ForkJoinPool pool = ForkJoinPool.commonPool();
+    for(final Callable<Void> task : tasks) {
+      futures.add(pool.submit(() -> {
+        try {
+          task.call();
+        } catch(final Throwable ex) {
+          synchronized(error) {
+            if(error[0] != null) return;
+            error[0] = ex;
+          }
+          cancel.run();
+        }
+      }));
+    }
+    // wait for all tasks, pass on the first error
+    for(final ForkJoinTask<?> future : futures) future.join();
+
+    final Throwable ex = error[0];
+    if(ex instanceof IOException) throw (IOException) ex;
+    if(ex instanceof RuntimeException) throw (RuntimeException) ex;
+    if(ex instanceof Error) throw (Error) ex;
+    if(ex != null) throw new BaseXException((Exception) ex);
+  }
+
+  /**
+   * Indexes a partition of the table.
+   * @param partition partition
+   * @param min first pre value
+   * @param max pre value after the last entry
+   * @throws IOException I/O Exception
+   */
+  private void index(final Partition partition, final int min, final int max)
+      throws IOException {
+
+    int last = min, spill = 0;
+    long ops = 0;
+    for(int p = min; p < max; p++) {
+      if((p & 0x0FFF) == 0) {
+        checkStop();
+        if(canceled) return;
+        final int s = split(p - last, ops, spill);
+        if(s != spill) {
+          partition.write();
+          clean();
+          spill = s;
+        }
+        last = p;
+        ops = 0;
+      }
+      ops += partition.index(p);
+    }
+    partition.write();
+    finish(max - last, ops, spill);
+  }
+
+  /**
+   * Registers the progress of a partition and checks if its structures must be written to disk.
+   * @param nodes number of nodes that have been indexed since the last call
+   * @param ops number of index operations since the last call
+   * @param spill number of splits that have been performed by the partition
+   * @return number of splits to be performed by the partition
+   * @throws IOException I/O Exception
+   */
+  private synchronized int split(final int nodes, final long ops, final int spill)
+      throws IOException {
+
+    pre += nodes;
+    count += ops;
+    if(spill == spills) {
+      // wait until all partitions have performed the last split
+      if(pending > 0 || !splitRequired(spills)) return spill;
+      spills++;
+      pending = active;
+    }
+    pending--;
+    return spills;
+  }
+
+  /**
+   * Registers the final progress of a partition.
+   * @param nodes number of nodes that have been indexed since the last call
+   * @param ops number of index operations since the last call
+   * @param spill number of splits that have been performed by the partition
+   */
+  private synchronized void finish(final int nodes, final long ops, final int spill) {
+    pre += nodes;
+    count += ops;
+    if(spill != spills) pending--;
+    active--;
   }
 
   /**
@@ -96,10 +261,21 @@ public abstract class IndexBuilder extends Job {
    * @throws IOException I/O Exception
    */
   protected final boolean splitRequired() throws IOException {
+    return splitRequired(splits);
+  }
+
+  /**
+   * Decides whether in-memory temporary index structures are so large
+   * that we must flush them to disk before continuing.
+   * @param performed number of performed splits
+   * @return true if structures shall be flushed to disk
+   * @throws IOException I/O Exception
+   */
+  private boolean splitRequired(final int performed) throws IOException {
     // checks if a fixed split size has been specified
     final boolean split;
     if(splitSize > 0) {
-      split = count >= (splits + 1L) * splitSize;
+      split = count >= (performed + 1L) * splitSize;
     } else {
       // if not, estimate how much main memory is left
       split = Performance.memory() >= maxMem;
@@ -173,4 +349,23 @@ public abstract class IndexBuilder extends Job {
       default: throw Util.notExpected();
     }
   }
+
+  /**
+   * Indexer for a partition of the table.
+   */
+  protected interface Partition {
+    /**
+     * Indexes the specified entry.
+     * @param pre pre value
+     * @return number of index operations
+     * @throws IOException I/O Exception
+     */
+    int index(int pre) throws IOException;
+
+    /**
+     * Writes the in-memory structures to disk as partial index.
+     * @throws IOException I/O Exception
+     */
+    void write() throws IOException;
+  }
 }
@@ -16,9 +16,10 @@ public abstract class ValuesBuilder extends IndexBuilder {
    * Constructor.
    * @param data reference
    * @param type index type
+   * @param threads number of threads ({@code 0}: number of available processors)
    */
-  protected ValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
+  protected ValuesBuilder(final Data data, final IndexType type, final int threads) {
+    super(data, type, threads);
     tokenize = type == IndexType.TOKEN;
   }
 }
@@ -9,6 +9,7 @@ import java.io.*;
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.io.*;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
 import org.basex.util.ft.*;
@@ -22,19 +23,23 @@ import org.basex.util.list.*;
  */
 public final class FTBuilder extends IndexBuilder {
   /** Value trees. */
-  private final FTIndexTrees tree;
+  private FTIndexTrees tree;
   /** Word parser. */
   private final FTLexer lexer;
+  /** Numbers of the partial indexes, sorted by the pre values of their entries
+   * ({@code null} if the partial indexes are written in this order). */
+  private IntList order;
   /** Number of indexed tokens. */
   private long ntok;
 
   /**
    * Constructor.
    * @param data data reference
+   * @param threads number of threads ({@code 0}: number of available processors)
    * @throws IOException IOException
    */
-  public FTBuilder(final Data data) throws IOException {
-    super(data, IndexType.FULLTEXT);
+  public FTBuilder(final Data data, final int threads) throws IOException {
+    super(data, IndexType.FULLTEXT, threads);
     final MetaData meta = data.meta;
     tree = new FTIndexTrees(data.meta.maxlen);
 
@@ -58,32 +63,34 @@ public final class FTBuilder extends IndexBuilder {
     Util.debugln(detailedInfo());
 
     try {
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(!indexEntry()) continue;
-
-        // current lexer position
-        final StopWords sw = lexer.ftOpt().sw;
-        lexer.init(data.text(pre, true));
-        int pos = -1;
-        while(lexer.hasNext()) {
-          final byte[] token = lexer.nextToken();
-          ++pos;
-          // skip too long and stopword tokens
-          if(token.length <= data.meta.maxlen && !sw.contains(token)) {
-            // check if main memory is exhausted
-            if((ntok++ & 0xFFFF) == 0 && splitRequired()) {
-              writeIndex(true);
-              clean();
-            }
-            tree.index(token, pre, pos, splits);
-            count++;
-          }
+      final int partitions = partitions();
+      if(partitions > 1) {
+        // index partitions of the table in parallel, merge partial indexes
+        tree = null;
+        final FTPartition[] parts = new FTPartition[partitions];
+        index(partitions, p -> parts[p] = new FTPartition());
+        // merge partial indexes in the order of their pre values
+        order = new IntList(splits);
+        for(final FTPartition part : parts) order.add(part.files.finish());
+        if(splits > 0) {
+          merge();
+        } else {
+          tree = new FTIndexTrees(data.meta.maxlen);
+          writeIndex(false);
+        }
+      } else {
+        for(pre = 0; pre < size; ++pre) {
+          if((pre & 0x0FFF) == 0) check();
+          index(tree, lexer, pre, -1);
         }
+        // finalize partial or all index structures
+        write(splits > 0);
       }
 
-      // finalize partial or all index structures
-      write(splits > 0);
+      // updatable index: create empty file for updates
+      final IOFile updates = data.meta.dbFile(DATAFTX + 'd');
+      if(data.meta.updindex) updates.write(EMPTY);
+      else updates.delete();
 
       finishIndex();
       return new FTIndex(data);
@@ -95,6 +102,47 @@ public final class FTBuilder extends IndexBuilder {
     }
   }
 
+  /**
+   * Adds the tokens of the specified entry to the index trees.
+   * @param trees index trees
+   * @param lex lexer
+   * @param p pre value
+   * @param split number of partial indexes written by a partition,
+   *   or {@code -1} if the table is indexed sequentially
+   * @return number of index operations
+   * @throws IOException I/O exception
+   */
+  private int index(final FTIndexTrees trees, final FTLexer lex, final int p, final int split)
+      throws IOException {
+
+    if(!indexEntry(p)) return 0;
+
+    final StopWords sw = lex.ftOpt().sw;
+    lex.init(data.text(p, true));
+    final int id = data.meta.updindex ? data.id(p) : p;
+    int pos = -1, ops = 0;
+    while(lex.hasNext()) {
+      final byte[] token = lex.nextToken();
+      ++pos;
+      // skip too long and stopword tokens
+      if(token.length <= data.meta.maxlen && !sw.contains(token)) {
+        if(split == -1) {
+          // check if main memory is exhausted
+          if((ntok++ & 0xFFFF) == 0 && splitRequired()) {
+            writeIndex(true);
+            clean();
+          }
+          trees.index(token, id, pos, splits);
+          count++;
+        } else {
+          trees.index(token, id, pos, split);
+        }
+        ops++;
+      }
+    }
+    return ops;
+  }
+
   /**
    * Writes the index data to disk.
    * @param partial write partial index
@@ -102,9 +150,14 @@ public final class FTBuilder extends IndexBuilder {
    */
   private void write(final boolean partial) throws IOException {
     writeIndex(partial);
-    if(!partial) return;
+    if(partial) merge();
+  }
 
-    // merges temporary index files
+  /**
+   * Merges the partial indexes.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
     try(DataOutput outX = new DataOutput(data.meta.dbFile(DATAFTX + 'x'));
         DataOutput outY = new DataOutput(data.meta.dbFile(DATAFTX + 'y'));
         DataOutput outZ = new DataOutput(data.meta.dbFile(DATAFTX + 'z'))) {
@@ -113,7 +166,7 @@ public final class FTBuilder extends IndexBuilder {
 
       // open all temporary sorted lists
       final FTList[] v = new FTList[splits];
-      for(int b = 0; b < splits; ++b) v[b] = new FTList(data, b);
+      for(int b = 0; b < splits; ++b) v[b] = new FTList(data, order != null ? order.get(b) : b);
 
       final IntList il = new IntList();
       while(check(v)) {
@@ -158,7 +211,7 @@ public final class FTBuilder extends IndexBuilder {
    * @param lp last offset
    * @throws IOException I/O exception
    */
-  private static void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
+  static void writeInd(final DataOutput outX, final IntList il, final int ls, final int lp)
       throws IOException {
 
     final int is = il.size();
@@ -177,17 +230,32 @@ public final class FTBuilder extends IndexBuilder {
    * @throws IOException I/O exception
    */
   private void writeIndex(final boolean partial) throws IOException {
-    final String name = DATAFTX + (partial ? splits : "");
+    writeIndex(tree, partial ? splits : -1, splits);
+    // increase split counter
+    splits++;
+  }
+
+  /**
+   * Writes index trees to disk.
+   * @param trees index trees
+   * @param split number of the partial index, or {@code -1} if the final index is written
+   * @param written number of partial indexes that have already been written for the trees
+   * @throws IOException I/O exception
+   */
+  private void writeIndex(final FTIndexTrees trees, final int split, final int written)
+      throws IOException {
+
+    final String name = DATAFTX + (split != -1 ? split : "");
     try(DataOutput outX = new DataOutput(data.meta.dbFile(name + 'x'));
         DataOutput outY = new DataOutput(data.meta.dbFile(name + 'y'));
         DataOutput outZ = new DataOutput(data.meta.dbFile(name + 'z'))) {
 
       final IntList ind = new IntList();
-      tree.init();
+      trees.init();
       long dr = 0;
       int tr = 0, j = 0;
-      while(tree.more(splits)) {
-        final FTIndexTree t = tree.nextTree();
+      while(trees.more(written)) {
+        final FTIndexTree t = trees.nextTree();
         t.next();
         final byte[] key = t.nextTok();
 
@@ -210,10 +278,7 @@ public final class FTBuilder extends IndexBuilder {
       }
       writeInd(outX, ind, ++j, tr);
     }
-    tree.initFT();
-
-    // increase split counter
-    splits++;
+    trees.initFT();
   }
 
   /**
@@ -281,4 +346,42 @@ public final class FTBuilder extends IndexBuilder {
     }
     return false;
   }
+
+  /**
+   * Returns the number of the next partial index.
+   * @return number
+   */
+  private synchronized int split() {
+    return splits++;
+  }
+
+  /**
+   * Indexer for a partition of the table.
+   */
+  private final class FTPartition implements Partition {
+    /** Index trees. */
+    private final FTIndexTrees trees = new FTIndexTrees(data.meta.maxlen);
+    /** Word parser. */
+    private final FTLexer lex = new FTLexer(lexer.ftOpt());
+    /** Numbers of the partial indexes written by this partition. */
+    private final IntList files = new IntList();
+    /** Indicates if tokens have been indexed since the last partial index was written. */
+    private boolean dirty;
+
+    @Override
+    public int index(final int pre) throws IOException {
+      final int ops = FTBuilder.this.index(trees, lex, pre, files.size());
+      if(ops > 0) dirty = true;
+      return ops;
+    }
+
+    @Override
+    public void write() throws IOException {
+      if(!dirty) return;
+      final int split = split();
+      writeIndex(trees, split, files.size());
+      files.add(split);
+      dirty = false;
+    }
+  }
 }
@@ -0,0 +1,233 @@
+package org.basex.index.ft;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * This class contains the updates of an updatable full-text index that have not been merged
+ * into the main index structure yet. Added tokens are stored in main memory, and ids of deleted
+ * nodes are stored as tombstones: the entries of the main index structure that refer to these
+ * ids are ignored.
+ *
+ * <p>All updates are appended as records to the {@code DATAFTX + 'd'} file, which is replayed
+ * when the index is opened. Each record starts with its type:</p>
+ * <ul>
+ *   <li> {@link #ADD}: token, id and position of an added token</li>
+ *   <li> {@link #REMOVE}: token and id of a removed token</li>
+ *   <li> {@link #DELETE}: id of a deleted node</li>
+ * </ul>
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class FTDelta {
+  /** Record type: added token. */
+  private static final int ADD = 0;
+  /** Record type: removed token. */
+  private static final int REMOVE = 1;
+  /** Record type: deleted node. */
+  private static final int DELETE = 2;
+
+  /** Added tokens, with ids and positions. */
+  private final TokenObjMap<IntList> tokens = new TokenObjMap<>();
+  /** Ids of deleted nodes. */
+  private Bitmap deleted = new Bitmap();
+  /** Update records. */
+  private DataAccess records;
+  /** Number of added tokens. */
+  private int size;
+
+  /**
+   * Constructor. Replays the update records.
+   * @param file file with update records
+   * @param log write-ahead log (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  FTDelta(final IOFile file, final WriteAheadLog log) throws IOException {
+    records = new DataAccess(file, log);
+    final long length = records.length();
+    records.cursor(0);
+    while(records.cursor() < length) {
+      final int type = records.readNum();
+      if(type == DELETE) {
+        deleted.add(records.readNum());
+      } else {
+        final byte[] token = records.readToken();
+        final int id = records.readNum();
+        if(type == ADD) add(token, id, records.readNum());
+        else remove(token, id);
+      }
+    }
+  }
+
+  /**
+   * Adds a token.
+   * @param token token
+   * @param id id of the node
+   * @param pos position of the token
+   */
+  void index(final byte[] token, final int id, final int pos) {
+    add(token, id, pos);
+    append(ADD, token, id, pos);
+  }
+
+  /**
+   * Removes the added tokens of a node.
+   * @param token token
+   * @param id id of the node
+   */
+  void unindex(final byte[] token, final int id) {
+    if(remove(token, id)) append(REMOVE, token, id, -1);
+  }
+
+  /**
+   * Marks the entries of a node in the main index structure as deleted.
+   * @param id id of the node
+   */
+  void delete(final int id) {
+    if(deleted.add(id)) append(DELETE, null, id, -1);
+  }
+
+  /**
+   * Checks if the entries of a node in the main index structure have been deleted.
+   * @param id id of the node
+   * @return result of check
+   */
+  boolean deleted(final int id) {
+    return deleted.contains(id);
+  }
+
+  /**
+   * Returns the ids and positions of an added token.
+   * @param token token
+   * @return ids and positions in alternating order, or {@code null}
+   */
+  IntList get(final byte[] token) {
+    return tokens.get(token);
+  }
+
+  /**
+   * Returns the number of ids of an added token.
+   * @param token token
+   * @return number of ids
+   */
+  int size(final byte[] token) {
+    final IntList list = tokens.get(token);
+    return list != null ? list.size() >>> 1 : 0;
+  }
+
+  /**
+   * Returns all added tokens.
+   * @return tokens
+   */
+  Iterable<byte[]> tokens() {
+    return tokens;
+  }
+
+  /**
+   * Indicates if no updates have been registered.
+   * @return result of check
+   */
+  boolean isEmpty() {
+    return size == 0 && deleted.isEmpty();
+  }
+
+  /**
+   * Returns the size of the update records.
+   * @return size in bytes
+   */
+  long length() {
+    return records.length();
+  }
+
+  /**
+   * Discards all updates after they have been merged into the main index structure.
+   * The closed update records must have been replaced with an empty file.
+   * @param file file with update records
+   * @param log write-ahead log (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  void reset(final IOFile file, final WriteAheadLog log) throws IOException {
+    records = new DataAccess(file, log);
+    tokens.clear();
+    deleted = new Bitmap();
+    size = 0;
+  }
+
+  /**
+   * Flushes the buffered data.
+   */
+  void flush() {
+    records.flush();
+  }
+
+  /**
+   * Closes the update records.
+   */
+  void close() {
+    records.close();
+  }
+
+  /**
+   * Adds a token to the main memory structures.
+   * @param token token
+   * @param id id of the node
+   * @param pos position of the token
+   */
+  private void add(final byte[] token, final int id, final int pos) {
+    tokens.computeIfAbsent(token, IntList::new).add(id, pos);
+    size++;
+  }
+
+  /**
+   * Removes the entries of a node from the main memory structures.
+   * @param token token
+   * @param id id of the node
+   * @return {@code true} if entries were removed
+   */
+  private boolean remove(final byte[] token, final int id) {
+    final IntList list = tokens.get(token);
+    if(list == null) return false;
+
+    final int ls = list.size();
+    int l = 0;
+    for(int i = 0; i < ls; i += 2) {
+      final int d = list.get(i);
+      if(d == id) continue;
+      list.set(l++, d);
+      list.set(l++, list.get(i + 1));
+    }
+    if(l == ls) return false;
+
+    size -= ls - l >>> 1;
+    if(l == 0) tokens.remove(token);
+    else list.size(l);
+    return true;
+  }
+
+  /**
+   * Appends an update record.
+   * @param type record type
+   * @param token token (ignored if the type is {@link #DELETE})
+   * @param id id of the node
+   * @param pos position of the token (ignored if the type is not {@link #ADD})
+   */
+  private void append(final int type, final byte[] token, final int id, final int pos) {
+    records.cursor(records.length());
+    records.writeNum(type);
+    if(type != DELETE) records.writeToken(records.cursor(), token);
+    records.writeNum(id);
+    if(type == ADD) records.writeNum(pos);
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (tokens: " + size + ", deleted: " + deleted.cardinality() +
+        ')';
+  }
+}
@@ -14,6 +14,8 @@ import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.index.value.*;
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
 import org.basex.io.random.*;
 import org.basex.query.expr.ft.*;
 import org.basex.query.util.ft.*;
@@ -48,12 +50,23 @@ import org.basex.util.similarity.*;
  *   {@code pre1/pos1, pre2/pos2, pre3/pos3, ...} [{@link Num}]</li>
  * </ul>
  *
+ * <p>If the index is updatable, ids are stored instead of pre values, and the file <b>d</b>
+ * contains the updates that have not been merged into the other files yet
+ * (see {@link FTDelta}).</p>
+ *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
 public final class FTIndex extends ValueIndex {
   /** Minimum fixed size for each token entry. */
   private static final int ENTRY = 9;
+  /** Minimum size of the update records before they are merged into the index files. */
+  private static final long MERGE = 1 << 16;
+  /** Suffixes of the files that are replaced by a merge (update records last). */
+  private static final char[] FILES = { 'x', 'y', 'z', 'd' };
+  /** Order of the tokens in the index files. */
+  private static final Comparator<byte[]> ORDER = (token1, token2) ->
+    token1.length != token2.length ? token1.length - token2.length : compare(token1, token2);
 
   /** Cached texts. Increases used memory, but speeds up repeated queries. */
   private final IntObjMap<byte[]> ctext = new IntObjMap<>();
@@ -62,16 +75,20 @@ public final class FTIndex extends ValueIndex {
 
   /** Index storing each unique token length and pointer
    * on the first token with this length. */
-  private final DataAccess dataX;
+  private DataAccess dataX;
   /** Index storing each token, its data size and pointer on the data. */
-  private final DataAccess dataY;
+  private DataAccess dataY;
   /** Storing pre and pos values for each token. */
-  private final DataAccess dataZ;
+  private DataAccess dataZ;
 
   /** Cache for number of hits and data reference per token. */
-  private final IndexCache cache = new IndexCache();
+  private IndexCache cache = new IndexCache();
   /** Token positions. */
   private final int[] positions;
+  /** Updates that have not been merged yet ({@code null} if the index is not updatable). */
+  private final FTDelta delta;
+  /** Lexer for updated texts (lazily instantiated). */
+  private FTLexer lexer;
 
   /**
    * Constructor, initializing the index structure.
@@ -80,11 +97,21 @@ public final class FTIndex extends ValueIndex {
    */
   public FTIndex(final Data data) throws IOException {
     super(data, IndexType.FULLTEXT);
-    // cache token length index
+    positions = new int[data.meta.maxlen + 3];
+    replace(data.meta);
+    open();
+    final IOFile file = data.meta.dbFile(DATAFTX + 'd');
+    delta = file.exists() ? new FTDelta(file, ((DiskData) data).log()) : null;
+  }
+
+  /**
+   * Opens the index files and caches the token length index.
+   * @throws IOException I/O Exception
+   */
+  private void open() throws IOException {
     dataX = new DataAccess(data.meta.dbFile(DATAFTX + 'x'));
     dataY = new DataAccess(data.meta.dbFile(DATAFTX + 'y'));
     dataZ = new DataAccess(data.meta.dbFile(DATAFTX + 'z'));
-    positions = new int[data.meta.maxlen + 3];
     final int pl = positions.length;
     for(int p = 0; p < pl; p++) positions[p] = -1;
     for(int is = dataX.readNum(); --is >= 0;) {
@@ -102,7 +129,7 @@ public final class FTIndex extends ValueIndex {
     // estimate costs for queries which stretch over multiple index entries
     final FTOpt opt = ((FTLexer) search).ftOpt();
     return IndexCosts.get(opt.is(FZ) || opt.is(WC) ? Math.max(1, data.meta.size >> 4) :
-      entry(token).size);
+      entry(token).size + (delta != null ? delta.size(token) : 0));
   }
 
   @Override
@@ -126,12 +153,12 @@ public final class FTIndex extends ValueIndex {
 
     // return cached or new result
     final IndexEntry entry = entry(token);
-    if(entry.size > 0) {
-      return iter(entry.offset, entry.size, dataZ, token);
-    }
+    final IntList pr = new IntList(entry.size), ps = new IntList(entry.size);
+    if(entry.size > 0) postings(entry.offset, entry.size, pr, ps);
+    if(delta != null) postings(token, pr, ps);
 
     // no results
-    return FTIndexIterator.FTEMPTY;
+    return pr.isEmpty() ? FTIndexIterator.FTEMPTY : iter(new FTCache(pr, ps), token);
   }
 
   /**
@@ -151,7 +178,15 @@ public final class FTIndex extends ValueIndex {
   @Override
   public EntryIterator entries(final IndexEntries entries) {
     final byte[] token = entries.token();
+    return delta == null || delta.isEmpty() ? entries(token) : updatedEntries(token);
+  }
 
+  /**
+   * Returns the entries of the index files.
+   * @param token prefix of the returned entries
+   * @return entry iterator
+   */
+  private EntryIterator entries(final byte[] token) {
     return new EntryIterator() {
       int p = token.length - 1, start, end, nr;
       boolean inner;
@@ -196,6 +231,50 @@ public final class FTIndex extends ValueIndex {
     };
   }
 
+  /**
+   * Returns the entries of the index files and the updates that have not been merged yet.
+   * @param prefix prefix of the returned entries
+   * @return entry iterator
+   */
+  private synchronized EntryIterator updatedEntries(final byte[] prefix) {
+    // sort entries in the order of the index files
+    final TreeMap<byte[], Integer> map = new TreeMap<>(ORDER);
+    final EntryIterator ei = entries(prefix);
+    for(byte[] token; (token = ei.next()) != null;) {
+      final IndexEntry entry = entry(token);
+      int count = 0;
+      dataZ.cursor(entry.offset);
+      for(int s = 0; s < entry.size; s++) {
+        if(!delta.deleted(dataZ.readNum())) count++;
+        dataZ.readNum();
+      }
+      map.put(token, count);
+    }
+    for(final byte[] token : delta.tokens()) {
+      if(startsWith(token, prefix)) map.merge(token, delta.size(token), Integer::sum);
+    }
+
+    final Iterator<Map.Entry<byte[], Integer>> iter = map.entrySet().iterator();
+    return new EntryIterator() {
+      int count;
+
+      @Override
+      public byte[] next() {
+        while(iter.hasNext()) {
+          final Map.Entry<byte[], Integer> entry = iter.next();
+          count = entry.getValue();
+          if(count > 0) return entry.getKey();
+        }
+        return null;
+      }
+
+      @Override
+      public int count() {
+        return count;
+      }
+    };
+  }
+
   /**
    * Binary search.
    * @param token token to look for
@@ -254,6 +333,7 @@ public final class FTIndex extends ValueIndex {
     dataX.close();
     dataY.close();
     dataZ.close();
+    if(delta != null) delta.close();
   }
 
   @Override
@@ -357,11 +437,22 @@ public final class FTIndex extends ValueIndex {
       while(t < pl && r == -1) r = positions[t++];
       while(p < r) {
         if(ls.similar(dataY.readBytes(p, s), token, k)) {
-          iters.add(iter(pointer(p, s), size(p, s), dataZ, token));
+          final IntList pr = new IntList(), ps = new IntList();
+          postings(pointer(p, s), size(p, s), pr, ps);
+          iters.add(iter(new FTCache(pr, ps), token));
         }
         p += s + ENTRY;
       }
     }
+    if(delta != null) {
+      for(final byte[] tok : delta.tokens()) {
+        if(ls.similar(tok, token, k)) {
+          final IntList pr = new IntList(), ps = new IntList();
+          postings(tok, pr, ps);
+          iters.add(iter(new FTCache(pr, ps), token));
+        }
+      }
+    }
     return iters.isEmpty() ? FTIndexIterator.FTEMPTY :
       FTIndexIterator.union(iters.toArray(FTIndexIterator[]::new));
   }
@@ -387,37 +478,54 @@ public final class FTIndex extends ValueIndex {
       while(start < end) {
         final byte[] t = dataY.readBytes(start, p);
         if(!startsWith(t, prefix)) break;
-        if(wc.match(t)) {
-          dataZ.cursor(pointer(start, p));
-          final int s = size(start, p);
-          for(int d = 0; d < s; d++) {
-            pr.add(dataZ.readNum());
-            ps.add(dataZ.readNum());
-          }
-        }
+        if(wc.match(t)) postings(pointer(start, p), size(start, p), pr, ps);
         start += p + ENTRY;
       }
     }
+    if(delta != null) {
+      for(final byte[] tok : delta.tokens()) {
+        if(wc.match(tok)) postings(tok, pr, ps);
+      }
+    }
     return iter(new FTCache(pr, ps), token);
   }
 
   /**
-   * Returns an iterator for an index entry.
+   * Adds the pre values and positions of an entry of the index files.
+   * If the index is updatable, ids are converted to pre values, and deleted entries are skipped.
    * @param off offset on entries
    * @param size number of id/pos entries
-   * @param da data source
-   * @param token index token
-   * @return iterator
+   * @param pr pre values
+   * @param ps positions
    */
-  private static FTIndexIterator iter(final long off, final int size, final DataAccess da,
-      final byte[] token) {
-    da.cursor(off);
-    final IntList pr = new IntList(size), ps = new IntList(size);
+  private void postings(final long off, final int size, final IntList pr, final IntList ps) {
+    dataZ.cursor(off);
     for(int c = 0; c < size; c++) {
-      pr.add(da.readNum());
-      ps.add(da.readNum());
+      final int id = dataZ.readNum(), pos = dataZ.readNum();
+      if(delta == null) {
+        pr.add(id);
+        ps.add(pos);
+      } else if(!delta.deleted(id)) {
+        pr.add(data.pre(id));
+        ps.add(pos);
+      }
+    }
+  }
+
+  /**
+   * Adds the pre values and positions of a token that has been added by updates.
+   * @param token token
+   * @param pr pre values
+   * @param ps positions
+   */
+  private void postings(final byte[] token, final IntList pr, final IntList ps) {
+    final IntList list = delta.get(token);
+    if(list == null) return;
+    final int ls = list.size();
+    for(int l = 0; l < ls; l += 2) {
+      pr.add(data.pre(list.get(l)));
+      ps.add(list.get(l + 1));
     }
-    return iter(new FTCache(pr, ps), token);
   }
 
   /**
@@ -448,6 +556,24 @@ public final class FTIndex extends ValueIndex {
         return true;
       }
 
+      @Override
+      public boolean advance(final int pr) {
+        // galloping search: find upper bound, continue with binary search
+        int l = c, h = l;
+        for(int step = 1; h < size && ftc.pre.get(ftc.order[h]) < pr; step <<= 1) {
+          l = h + 1;
+          h += step;
+        }
+        h = Math.min(h, size);
+        while(l < h) {
+          final int m = l + h >>> 1;
+          if(ftc.pre.get(ftc.order[m]) < pr) l = m + 1;
+          else h = m;
+        }
+        c = l;
+        return more();
+      }
+
       @Override
       public FTMatches matches() {
         return all;
@@ -502,15 +628,190 @@ public final class FTIndex extends ValueIndex {
   }
 
   @Override
-  public void add(final ValueCache values) {
-    throw Util.notExpected();
+  public synchronized void add(final ValueCache values) {
+    if(updatable()) update(values, true);
   }
 
   @Override
-  public void delete(final ValueCache values) {
-    throw Util.notExpected();
+  public synchronized void delete(final ValueCache values) {
+    if(updatable()) update(values, false);
   }
 
   @Override
-  public void flush() { }
+  public synchronized void flush() {
+    if(delta == null) return;
+    delta.flush();
+
+    // merge updates if they exceed a fraction of the index
+    final long length = delta.length();
+    if(length > MERGE && length > dataZ.length() >> 3) {
+      try {
+        // merged files are written directly: write back logged changes first
+        final WriteAheadLog log = ((DiskData) data).log();
+        if(log.active()) log.checkpoint();
+        merge();
+      } catch(final IOException ex) {
+        throw new RuntimeException(Util.info(ex));
+      }
+    }
+  }
+
+  /**
+   * Checks if the index can be updated. Indexes that store pre values are invalidated.
+   * @return result of check
+   */
+  private boolean updatable() {
+    if(delta != null) return true;
+    data.meta.ftindex = false;
+    return false;
+  }
+
+  /**
+   * Adds or deletes the tokens of the specified texts.
+   * @param values texts and ids
+   * @param add add or delete tokens
+   */
+  private void update(final ValueCache values, final boolean add) {
+    if(lexer == null) {
+      final FTOpt opt = new FTOpt().assign(data.meta);
+      opt.sw = new StopWords();
+      opt.sw.compile(data);
+      lexer = new FTLexer(opt);
+    }
+    final StopWords sw = lexer.ftOpt().sw;
+    for(final byte[] text : values) {
+      final IntList ids = values.ids(text);
+      final int is = ids.size();
+      // entries of deleted nodes in the index files will be ignored
+      if(!add) {
+        for(int i = 0; i < is; i++) delta.delete(ids.get(i));
+      }
+      lexer.init(text);
+      for(int pos = 0; lexer.hasNext(); pos++) {
+        final byte[] token = lexer.nextToken();
+        if(token.length <= data.meta.maxlen && !sw.contains(token)) {
+          for(int i = 0; i < is; i++) {
+            if(add) delta.index(token, ids.get(i), pos);
+            else delta.unindex(token, ids.get(i));
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Merges the updates into the index files.
+   * @throws IOException I/O exception
+   */
+  private void merge() throws IOException {
+    final TokenList list = new TokenList();
+    for(final byte[] token : delta.tokens()) list.add(token);
+    final byte[][] added = list.finish();
+    Arrays.sort(added, ORDER);
+
+    final String temp = DATAFTX + '_';
+    try(DataOutput outX = new DataOutput(data.meta.dbFile(temp + 'x'));
+        DataOutput outY = new DataOutput(data.meta.dbFile(temp + 'y'));
+        DataOutput outZ = new DataOutput(data.meta.dbFile(temp + 'z'))) {
+
+      final IntList ind = new IntList();
+      final int pl = positions.length, al = added.length;
+      int a = 0;
+      for(int p = 0; p < pl - 1; p++) {
+        int start = positions[p];
+        if(start == -1) continue;
+        int c = p + 1, end;
+        do end = positions[c++]; while(end == -1);
+
+        for(; start < end; start += p + ENTRY) {
+          final byte[] token = dataY.readBytes(start, p);
+          while(a < al && ORDER.compare(added[a], token) < 0) {
+            merge(added[a++], 0, 0, true, ind, outY, outZ);
+          }
+          final boolean add = a < al && eq(added[a], token);
+          if(add) a++;
+          merge(token, pointer(start, p), size(start, p), add, ind, outY, outZ);
+        }
+      }
+      while(a < al) merge(added[a++], 0, 0, true, ind, outY, outZ);
+      FTBuilder.writeInd(outX, ind, ind.isEmpty() ? 1 : ind.get(ind.size() - 2) + 1,
+          (int) outY.size());
+    } catch(final IOException ex) {
+      for(final char c : FILES) data.meta.dbFile(temp + c).delete();
+      throw ex;
+    }
+
+    // empty update records are written last: all merged files are complete
+    data.meta.dbFile(temp + 'd').write(EMPTY);
+    close();
+    replace(data.meta);
+    open();
+    cache = new IndexCache();
+    ctext.clear();
+    delta.reset(data.meta.dbFile(DATAFTX + 'd'), ((DiskData) data).log());
+  }
+
+  /**
+   * Replaces the index files with the files of a merge. If the merge was interrupted before
+   * all files were written, the written files are discarded. Otherwise, the replacement of the
+   * files will be completed if it was interrupted.
+   * @param meta meta data
+   * @throws IOException I/O exception
+   */
+  private static void replace(final MetaData meta) throws IOException {
+    final String temp = DATAFTX + '_';
+    final boolean complete = meta.dbFile(temp + 'd').exists();
+    for(final char c : FILES) {
+      final IOFile source = meta.dbFile(temp + c), target = meta.dbFile(DATAFTX + c);
+      if(!source.exists()) continue;
+      if(!complete) {
+        source.delete();
+      } else if(!target.delete() || !source.rename(target)) {
+        throw new IOException("Full-text index file could not be replaced: " + target);
+      }
+    }
+  }
+
+  /**
+   * Writes an entry of the merged index files.
+   * @param token token
+   * @param off offset of the entries in the index files
+   * @param size number of entries in the index files
+   * @param add add entries of the updates
+   * @param ind token length index
+   * @param outY output for tokens
+   * @param outZ output for ids and positions
+   * @throws IOException I/O exception
+   */
+  private void merge(final byte[] token, final long off, final int size, final boolean add,
+      final IntList ind, final DataOutput outY, final DataOutput outZ) throws IOException {
+
+    final long pointer = outZ.size();
+    int count = 0;
+    dataZ.cursor(off);
+    for(int s = 0; s < size; s++) {
+      final int id = dataZ.readNum(), pos = dataZ.readNum();
+      if(!delta.deleted(id)) {
+        outZ.writeNum(id);
+        outZ.writeNum(pos);
+        count++;
+      }
+    }
+    if(add) {
+      final IntList list = delta.get(token);
+      final int ls = list.size();
+      for(int l = 0; l < ls; l++) outZ.writeNum(list.get(l));
+      count += ls >>> 1;
+    }
+    if(count == 0) return;
+
+    final int tl = token.length;
+    if(ind.isEmpty() || ind.get(ind.size() - 2) < tl) {
+      ind.add(tl);
+      ind.add((int) outY.size());
+    }
+    outY.writeBytes(token);
+    outY.write5(pointer);
+    outY.write4(count);
+  }
 }
@@ -25,14 +25,14 @@ final class FTIndexTrees {
   /**
    * Indexes a token with full-text data.
    * @param token token to be indexed
-   * @param pre pre value for the token
+   * @param id id of the token (pre value if the index is not updatable)
    * @param pos pos value of the token
    * @param index current file id
    */
-  void index(final byte[] token, final int pre, final int pos, final int index) {
+  void index(final byte[] token, final int id, final int pos, final int index) {
     final int tl = token.length;
     if(trees[tl] == null) trees[tl] = new FTIndexTree();
-    trees[tl].add(token, pre, pos, index);
+    trees[tl].add(token, id, pos, index);
   }
 
   /**
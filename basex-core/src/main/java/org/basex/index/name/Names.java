@@ -25,13 +25,17 @@ public final class Names extends TokenSet implements Index {
   private Stats[] stats;
   /** Meta data. */
   private final MetaData meta;
+  /** Indicates if value histograms are created. */
+  private final boolean histograms;
 
   /**
    * Default constructor.
    * @param meta meta data
+   * @param histograms create value histograms
    */
-  public Names(final MetaData meta) {
+  public Names(final MetaData meta, final boolean histograms) {
     this.meta = meta;
+    this.histograms = histograms;
     stats = new Stats[Array.INITIAL_CAPACITY];
   }
 
@@ -44,6 +48,7 @@ public final class Names extends TokenSet implements Index {
   public Names(final DataInput in, final MetaData meta) throws IOException {
     super(in);
     this.meta = meta;
+    histograms = true;
     stats = new Stats[keys.length];
     for(int id = 1; id < size; id++) stats[id] = new Stats(in);
   }
@@ -52,7 +57,7 @@ public final class Names extends TokenSet implements Index {
    * Initializes the index.
    */
   public void init() {
-    for(int id = 1; id < size; id++) stats[id] = new Stats();
+    for(int id = 1; id < size; id++) stats[id] = stats();
   }
 
   /**
@@ -74,7 +79,7 @@ public final class Names extends TokenSet implements Index {
     final int id = put(name);
     Stats s = stats[id];
     if(s == null) {
-      s = new Stats();
+      s = stats();
       stats[id] = s;
     }
     if(value != null) s.add(value, meta);
@@ -82,6 +87,43 @@ public final class Names extends TokenSet implements Index {
     return id;
   }
 
+  /**
+   * Creates statistics, and a value histogram if histograms are enabled.
+   * @return statistics
+   */
+  private Stats stats() {
+    final Stats s = new Stats();
+    if(histograms) s.histogram = new Histogram();
+    return s;
+  }
+
+  /**
+   * Reads the value histograms.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  public void readHistograms(final DataInput in) throws IOException {
+    for(int id; (id = in.readNum()) != 0;) {
+      final Histogram histogram = new Histogram(in);
+      if(id < size && stats[id] != null) stats[id].histogram = histogram;
+    }
+  }
+
+  /**
+   * Writes the value histograms.
+   * @param out output stream
+   * @throws IOException I/O exception
+   */
+  public void writeHistograms(final DataOutput out) throws IOException {
+    for(int id = 1; id < size; id++) {
+      final Stats s = stats[id];
+      if(s == null || s.histogram == null) continue;
+      out.writeNum(id);
+      s.histogram.write(out, StatsType.isNumeric(s.type));
+    }
+    out.writeNum(0);
+  }
+
   @Override
   public void write(final DataOutput out) throws IOException {
     super.write(out);
@@ -130,20 +130,26 @@ public abstract class FTIndexIterator implements IndexIterator {
       final int dis) {
 
     return new FTIndexIterator() {
-      private FTIndexIterator iter1, iter2;
       private FTMatches all;
+      private int pre1, pre2 = -1;
 
       @Override
       public boolean more() {
-        int d = 0;
+        if(!i1.more()) return false;
+        pre1 = i1.pre();
         while(true) {
-          if(d <= 0) iter1 = i1.more() ? i1 : null;
-          if(d >= 0) iter2 = i2.more() ? i2 : null;
-          if(iter1 == null || iter2 == null) return false;
-          d = iter1.pre() - iter2.pre();
-          if(d != 0) continue;
-          all = iter1.matches();
-          final FTMatches all2 = iter2.matches();
+          // galloping intersection: skip results that cannot be part of the intersection
+          if(pre2 < pre1) {
+            if(!i2.advance(pre1)) return false;
+            pre2 = i2.pre();
+          }
+          if(pre1 < pre2) {
+            if(!i1.advance(pre2)) return false;
+            pre1 = i1.pre();
+            continue;
+          }
+          all = i1.matches();
+          final FTMatches all2 = i2.matches();
           if(dis == 0) {
             for(final FTMatch m1 : all) {
               for(final FTMatch m2 : all2) m1.add(m2);
@@ -152,6 +158,8 @@ public abstract class FTIndexIterator implements IndexIterator {
           } else if(all.phrase(all2, dis)) {
             return true;
           }
+          if(!i1.more()) return false;
+          pre1 = i1.pre();
         }
       }
 
@@ -162,7 +170,7 @@ public abstract class FTIndexIterator implements IndexIterator {
 
       @Override
       public int pre() {
-        return iter1.pre();
+        return pre1;
       }
 
       @Override
@@ -34,4 +34,19 @@ public interface IndexIterator {
    * @return approximate number of results
    */
   int size();
+
+  /**
+   * Moves to the next result with a pre value that is equal to or greater than the specified
+   * value. The call is equivalent to invoking {@link #more()} until {@link #pre()} returns a
+   * value that is large enough, but implementations may skip results without reading them.
+   * Must only be called if the pre values are returned in ascending order.
+   * @param pre pre value
+   * @return {@code true} if a result was found
+   */
+  default boolean advance(final int pre) {
+    while(more()) {
+      if(pre() >= pre) return true;
+    }
+    return false;
+  }
 }
@@ -6,6 +6,7 @@ import static org.basex.util.Token.*;
 import java.io.*;
 
 import org.basex.data.*;
+import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
@@ -16,9 +17,9 @@ import org.basex.util.list.*;
  * <p>This data structure contains references to all document nodes in a database.
  * The document nodes are incrementally updated.</p>
  *
- * <p>If updates are performed, the path order is discarded, as the update would be more expensive
- * in some cases (e.g. when bulk insertions of new documents are performed). A tree structure could
- * be introduced to offer better general performance.</p>
+ * <p>The path order, which references the document paths in lexicographical order, is updated
+ * along with the paths and stored in the same file. Documents can be looked up by their paths,
+ * and by path prefixes, via binary searches, no matter how many updates have been performed.</p>
  *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
@@ -35,7 +36,7 @@ final class Docs {
   private TokenList pathList;
   /** Mapping for path order (can be {@code null}).
    * This variable should always be requested via {@link #order()}. */
-  private int[] pathOrder;
+  private IntList pathOrder;
   /** Dirty flag. */
   private boolean dirty;
   /** Indicates if a path index is available. */
@@ -67,17 +68,32 @@ final class Docs {
   void write(final DataOutput out) throws IOException {
     out.writeDiffs(docs());
     if(dirty && pathIndex) {
-      // retrieve paths (must be called before file is opened for writing!)
+      // retrieve paths and order (must be called before file is opened for writing!)
       final TokenList paths = paths();
-      // write paths
-      try(DataOutput doc = new DataOutput(data.meta.dbFile(DATAPTH))) {
+      final IntList order = order();
+      // write paths (changes of disk-based databases may be logged)
+      final IOFile file = data.meta.dbFile(DATAPTH);
+      try(DataOutput doc = data instanceof DiskData ? ((DiskData) data).log().output(file) :
+        new DataOutput(file)) {
         doc.writeNum(paths.size());
         for(final byte[] path : paths) doc.writeToken(path);
+        // path order is appended (ignored by older versions)
+        doc.writeNums(order.toArray());
       }
       dirty = false;
     }
   }
 
+  /**
+   * Adopts the document paths of another instance of the same database.
+   * @param source document index of the other instance
+   */
+  synchronized void paths(final Docs source) {
+    pathList = new TokenList(source.paths().toArray());
+    pathOrder = new IntList(source.order().toArray());
+    pathIndex = true;
+  }
+
   /**
    * Returns a list with the {@code pre} values of all document nodes.
    * @return pre values
@@ -105,7 +121,13 @@ final class Docs {
     if(pathList == null && pathIndex) {
       // try to read paths from disk
       try(DataInput in = new DataInput(data.meta.dbFile(DATAPTH))) {
-        pathList = new TokenList(in.readTokens());
+        final TokenList paths = new TokenList(in.readTokens());
+        // path order is missing in files of older versions
+        if(in.size() < in.length()) {
+          final int[] order = in.readNums();
+          if(order.length == paths.size()) pathOrder = new IntList(order);
+        }
+        pathList = paths;
       } catch(final IOException ex) {
         Util.debug(ex);
       }
@@ -131,11 +153,83 @@ final class Docs {
    * Returns an array with offsets to the sorted document paths.
    * @return path order
    */
-  private synchronized int[] order() {
-    if(pathOrder == null) pathOrder = Array.createOrder(paths().toArray(), false, true);
+  private synchronized IntList order() {
+    if(pathOrder == null) {
+      pathOrder = new IntList(Array.createOrder(paths().toArray(), false, true));
+    }
     return pathOrder;
   }
 
+  /**
+   * Returns the offset of the first entry in the path order whose path is equal to or greater
+   * than the specified path.
+   * @param path path
+   * @return offset
+   */
+  private int first(final byte[] path) {
+    final TokenList paths = paths();
+    final IntList order = order();
+    int l = 0, h = order.size();
+    while(l < h) {
+      final int m = l + h >>> 1;
+      if(compare(paths.get(order.get(m)), path) < 0) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+
+  /**
+   * Adds entries to the path order.
+   * @param index index of the first added path
+   * @param size number of added paths
+   */
+  private void addOrder(final int index, final int size) {
+    final IntList order = pathOrder;
+    if(order == null) return;
+
+    // adjust offsets of following paths
+    final int os = order.size();
+    for(int o = 0; o < os; o++) {
+      final int p = order.get(o);
+      if(p >= index) order.set(o, p + size);
+    }
+
+    // sort added paths, merge them with existing paths
+    final TokenList paths = pathList;
+    final byte[][] added = new byte[size][];
+    for(int a = 0; a < size; a++) added[a] = paths.get(index + a);
+    final int[] sorted = Array.createOrder(added, false, true);
+    final IntList merged = new IntList(os + size);
+    int o = 0, a = 0;
+    while(o < os || a < size) {
+      if(a == size || o < os &&
+          compare(paths.get(order.get(o)), paths.get(index + sorted[a])) <= 0) {
+        merged.add(order.get(o++));
+      } else {
+        merged.add(index + sorted[a++]);
+      }
+    }
+    pathOrder = merged;
+  }
+
+  /**
+   * Removes an entry from the path order.
+   * @param index index of the removed path
+   */
+  private void removeOrder(final int index) {
+    final IntList order = pathOrder;
+    if(order == null) return;
+
+    // remove entry, adjust offsets of following paths
+    final int os = order.size();
+    int n = 0;
+    for(int o = 0; o < os; o++) {
+      final int p = order.get(o);
+      if(p != index) order.set(n++, p > index ? p - 1 : p);
+    }
+    order.size(n);
+  }
+
   /**
    * Adds entries to the index and updates subsequent nodes.
    * @param pre insertion position
@@ -164,6 +258,7 @@ final class Docs {
       final byte[][] tmp = new byte[ps][];
       for(int t = 0; t < ps; t++) tmp[t] = normalize(clip.data.text(pres[t] - pre, true));
       paths.insert(i, tmp);
+      addOrder(i, ps);
     }
 
     // insert pre values
@@ -186,7 +281,10 @@ final class Docs {
 
     // pre value points to a document node...
     if(doc >= 0) {
-      if(pathIndex) paths().remove(doc);
+      if(pathIndex) {
+        paths().remove(doc);
+        removeOrder(doc);
+      }
       docs.remove(doc);
     }
 
@@ -201,7 +299,12 @@ final class Docs {
    * @param value new name
    */
   void rename(final int pre, final byte[] value) {
-    if(pathIndex) paths().set(docs().sortedIndexOf(pre), normalize(value));
+    if(pathIndex) {
+      final int doc = docs().sortedIndexOf(pre);
+      removeOrder(doc);
+      paths().set(doc, normalize(value));
+      addOrder(doc, 1);
+    }
     update();
   }
 
@@ -209,7 +312,6 @@ final class Docs {
    * Notifies the meta structures of an update and invalidates the indexes.
    */
   private synchronized void update() {
-    pathOrder = null;
     data.meta.dirty = true;
     dirty = true;
   }
@@ -237,19 +339,26 @@ final class Docs {
     }
 
     // relevant paths: exact hits and prefixes
-    final TokenSet set = new TokenSet();
     final IntList il = new IntList();
     final TokenList paths = paths();
-    final int ps = paths.size();
-    for(int p = 0; p < ps; p++) {
+    final IntList order = order();
+    final int os = order.size();
+    if(exact.length != 0) {
+      for(int o = first(exact); o < os; o++) {
+        final int p = order.get(o);
+        if(!eq(paths.get(p), exact)) break;
+        il.add(docs.get(p));
+      }
+    }
+    final TokenSet set = new TokenSet();
+    for(int o = first(prefix); o < os; o++) {
+      final int p = order.get(o);
       final byte[] pt = paths.get(p);
-      boolean add = eq(pt, exact);
-      if(!add) {
-        add = startsWith(pt, prefix);
-        if(add && dir) {
-          final int i = indexOf(pt, cpToken('/'), prefix.length + 1);
-          if(i != -1) add = set.add(substring(pt, prefix.length, i));
-        }
+      if(!startsWith(pt, prefix)) break;
+      boolean add = true;
+      if(dir) {
+        final int i = indexOf(pt, cpToken('/'), prefix.length + 1);
+        if(i != -1) add = set.add(substring(pt, prefix.length, i));
       }
       if(add) il.add(docs.get(p));
     }
@@ -265,14 +374,11 @@ final class Docs {
     final String pth = MetaData.normPath(path);
     if(pth != null && !pth.isEmpty()) {
       final byte[] npth = normalize(token(pth));
-      final TokenList paths = paths();
-      final int[] order = order();
-      int l = 0, h = order.length - 1;
-      while(l <= h) {
-        final int m = l + h >>> 1, o = order[m], c = compare(paths.get(o), npth);
-        if(c == 0) return docs().get(o);
-        if(c < 0) l = m + 1;
-        else h = m - 1;
+      final IntList order = order();
+      final int o = first(npth);
+      if(o < order.size()) {
+        final int p = order.get(o);
+        if(eq(paths().get(p), npth)) return docs().get(p);
       }
     }
     return -1;
@@ -285,10 +391,9 @@ final class Docs {
    */
   synchronized boolean isDir(final String path) {
     final byte[] prefix = concat(path, cpToken('/'));
-    for(final byte[] pth : paths()) {
-      if(startsWith(pth, prefix)) return true;
-    }
-    return false;
+    final IntList order = order();
+    final int o = first(prefix);
+    return o < order.size() && startsWith(paths().get(order.get(o)), prefix);
   }
 
   /**
@@ -307,10 +412,15 @@ final class Docs {
     byte[] root = token(pth);
     if(root.length != 0) root = concat(root, cpToken('/'));
 
-    final IntList docs = docs();
-    final int ds = docs.size();
-    for(int d = 0; d < ds; d++) {
-      byte[] np = data.text(docs.get(d), true);
+    // normalized paths of all child documents start with the normalized root path
+    final byte[] prefix = normalize(root);
+    final IntList docs = docs(), order = order();
+    final TokenList paths = paths();
+    final int os = order.size();
+    for(int o = first(prefix); o < os; o++) {
+      final int p = order.get(o);
+      if(!startsWith(paths.get(p), prefix)) break;
+      byte[] np = data.text(docs.get(p), true);
       if(startsWith(np, root)) {
         np = substring(np, root.length, np.length);
         final int i = indexOf(np, cpToken('/'));
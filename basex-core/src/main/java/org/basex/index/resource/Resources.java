@@ -54,6 +54,14 @@ public final class Resources implements Index {
     docs.write(out);
   }
 
+  /**
+   * Adopts the document paths of another instance of the same database.
+   * @param resources resources of the other instance
+   */
+  public synchronized void paths(final Resources resources) {
+    docs.paths(resources.docs);
+  }
+
   /**
    * Returns the {@code pre} values of all document nodes.
    * @return document nodes (internal representation!)
@@ -0,0 +1,294 @@
+package org.basex.index.stats;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides a value histogram for the values of an element or attribute name,
+ * which is used to estimate the selectivity of comparisons.
+ *
+ * <ul>
+ *   <li> A random sample of the values is taken while the values are added. The sorted sample
+ *        is divided into {@link #BUCKETS} buckets with the same number of values, and the bucket
+ *        bounds are used to estimate the number of values in a range (equi-depth histogram).</li>
+ *   <li> The number of distinct values is estimated with a HyperLogLog sketch.</li>
+ * </ul>
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class Histogram {
+  /** Maximum number of sampled values. */
+  private static final int SAMPLE = 512;
+  /** Number of buckets. */
+  private static final int BUCKETS = 32;
+  /** Number of bits used for addressing the registers of the sketch. */
+  private static final int BITS = 7;
+  /** Number of registers of the sketch. */
+  private static final int REGISTERS = 1 << BITS;
+
+  /** Registers of the sketch (maximum number of leading zeros plus one). */
+  private final byte[] registers;
+  /** Sampled values ({@code null} if the histogram has been read from disk or written). */
+  private TokenList sample;
+  /** Number of values. */
+  private int count;
+  /** State of the random number generator. */
+  private long seed = 0x5DEECE66DL;
+
+  /** Numeric bucket bounds ({@code null} if they have not been computed yet). */
+  private double[] numbers;
+  /** String bucket bounds ({@code null} if they have not been computed yet). */
+  private byte[][] strings;
+
+  /**
+   * Default constructor.
+   */
+  public Histogram() {
+    registers = new byte[REGISTERS];
+    sample = new TokenList();
+  }
+
+  /**
+   * Constructor, specifying an input stream.
+   * @param in input stream
+   * @throws IOException I/O exception
+   */
+  public Histogram(final DataInput in) throws IOException {
+    count = in.readNum();
+    registers = in.readToken();
+    sample = null;
+    if(in.readBool()) {
+      final int nl = in.readNum();
+      numbers = new double[nl];
+      for(int n = 0; n < nl; n++) numbers[n] = in.readDouble();
+    } else {
+      strings = in.readTokens();
+    }
+  }
+
+  /**
+   * Writes the histogram to the specified output stream.
+   * The sample is dropped after the bucket bounds have been computed.
+   * @param out output stream
+   * @param numeric numeric flag
+   * @throws IOException I/O exception
+   */
+  public void write(final DataOutput out, final boolean numeric) throws IOException {
+    out.writeNum(count);
+    out.writeToken(registers);
+    out.writeBool(numeric);
+    if(numeric) {
+      final double[] bounds = numbers();
+      out.writeNum(bounds.length);
+      for(final double bound : bounds) out.writeDouble(bound);
+    } else {
+      out.writeTokens(strings());
+    }
+    sample = null;
+  }
+
+  /**
+   * Adds a value.
+   * @param value value
+   */
+  public void add(final byte[] value) {
+    // register value in sketch
+    final long hash = hash(value);
+    final int r = (int) (hash >>> 64 - BITS);
+    final byte z = (byte) (Long.numberOfLeadingZeros(hash << BITS | 1L << BITS - 1) + 1);
+    if(registers[r] < z) registers[r] = z;
+
+    // reservoir sampling
+    if(sample != null) {
+      if(count < SAMPLE) {
+        sample.add(value);
+      } else {
+        seed = seed * 6364136223846793005L + 1442695040888963407L;
+        final long s = ((seed >>> 33) * (count + 1L)) >>> 31;
+        if(s < SAMPLE) sample.set((int) s, value);
+      }
+      numbers = null;
+      strings = null;
+    }
+    count++;
+  }
+
+  /**
+   * Returns the number of values.
+   * @return number of values
+   */
+  public int count() {
+    return count;
+  }
+
+  /**
+   * Returns the estimated number of distinct values.
+   * @return number of distinct values (at least {@code 1})
+   */
+  public int distinct() {
+    double sum = 0;
+    int zeros = 0;
+    for(final byte register : registers) {
+      sum += 1d / (1L << register);
+      if(register == 0) zeros++;
+    }
+    final double m = REGISTERS;
+    double estimate = 0.7213 / (1 + 1.079 / m) * m * m / sum;
+    // small cardinalities: linear counting
+    if(estimate <= 2.5 * m && zeros > 0) estimate = m * Math.log(m / zeros);
+    return (int) Math.max(1, Math.min(count, Math.round(estimate)));
+  }
+
+  /**
+   * Estimates the number of values in the specified numeric range.
+   * @param min minimum (inclusive)
+   * @param max maximum (inclusive)
+   * @return estimated number of values ({@code 0} if the range is empty),
+   *   or {@code -1} if no numeric values have been sampled
+   */
+  public int count(final double min, final double max) {
+    final double[] bounds = numbers();
+    final int bl = bounds.length;
+    if(bl == 0) return -1;
+    if(min > max) return 0;
+    return estimate(rank(bounds, max, true) - rank(bounds, min, false));
+  }
+
+  /**
+   * Estimates the number of values in the specified string range.
+   * @param min minimum
+   * @param max maximum
+   * @return estimated number of values ({@code 0} if the range is empty),
+   *   or {@code -1} if no values have been sampled
+   */
+  public int count(final byte[] min, final byte[] max) {
+    final byte[][] bounds = strings();
+    final int bl = bounds.length;
+    if(bl == 0) return -1;
+    if(compare(min, max) > 0) return 0;
+    return estimate(rank(bounds, max, true) - rank(bounds, min, false));
+  }
+
+  /**
+   * Returns the estimated number of values for the specified fraction of the values.
+   * As the sample may not contain the smallest and largest values, each non-empty range
+   * is assumed to contain at least the average number of values per distinct value.
+   * @param fraction fraction
+   * @return estimated number of values
+   */
+  private int estimate(final double fraction) {
+    return (int) Math.max(Math.round(count * fraction), Math.max(1, count / distinct()));
+  }
+
+  /**
+   * Returns the estimated fraction of the values that are smaller than the specified value.
+   * @param bounds bucket bounds
+   * @param value value
+   * @param upper upper bound (include values that are equal to the specified value)
+   * @return fraction
+   */
+  private static double rank(final double[] bounds, final double value, final boolean upper) {
+    final int bl = bounds.length;
+    int k = 0;
+    while(k < bl && (upper ? bounds[k] <= value : bounds[k] < value)) k++;
+    if(k == 0) return 0;
+    if(k == bl) return 1;
+    // assume uniform distribution of the values inside a bucket
+    final double l = bounds[k - 1], r = bounds[k];
+    return (k - 1 + (r > l ? (value - l) / (r - l) : 0.5)) / (bl - 1);
+  }
+
+  /**
+   * Returns the estimated fraction of the values that are smaller than the specified value.
+   * @param bounds bucket bounds
+   * @param value value
+   * @param upper upper bound (include values that are equal to the specified value)
+   * @return fraction
+   */
+  private static double rank(final byte[][] bounds, final byte[] value, final boolean upper) {
+    final int bl = bounds.length;
+    int k = 0;
+    while(k < bl && (upper ? compare(bounds[k], value) <= 0 : compare(bounds[k], value) < 0)) k++;
+    if(k == 0) return 0;
+    if(k == bl) return 1;
+    // assume that the value is located in the middle of the bucket
+    return (k - 0.5) / (bl - 1);
+  }
+
+  /**
+   * Returns the numeric bucket bounds.
+   * @return bounds (empty if no numeric values have been sampled)
+   */
+  private double[] numbers() {
+    if(numbers == null) {
+      final DoubleList list = new DoubleList();
+      if(sample != null) {
+        for(final byte[] value : sample) {
+          final double d = toDouble(value);
+          if(!Double.isNaN(d)) list.add(d);
+        }
+      }
+      final double[] values = list.finish();
+      Arrays.sort(values);
+      final int vl = values.length, bl = vl == 0 ? 0 : Math.min(BUCKETS, vl - 1) + 1;
+      final double[] bounds = new double[bl];
+      for(int b = 0; b < bl; b++) bounds[b] = values[position(b, bl, vl)];
+      numbers = bounds;
+    }
+    return numbers;
+  }
+
+  /**
+   * Returns the string bucket bounds.
+   * @return bounds (empty if no values have been sampled)
+   */
+  private byte[][] strings() {
+    if(strings == null) {
+      final byte[][] values = sample != null ? sample.toArray() : new byte[0][];
+      Arrays.sort(values, Token::compare);
+      final int vl = values.length, bl = vl == 0 ? 0 : Math.min(BUCKETS, vl - 1) + 1;
+      final byte[][] bounds = new byte[bl][];
+      for(int b = 0; b < bl; b++) bounds[b] = values[position(b, bl, vl)];
+      strings = bounds;
+    }
+    return strings;
+  }
+
+  /**
+   * Returns the position of a bucket bound in the sorted sample.
+   * @param b index of the bound
+   * @param bl number of bounds
+   * @param vl number of sampled values
+   * @return position
+   */
+  private static int position(final int b, final int bl, final int vl) {
+    return bl == 1 ? 0 : (int) ((long) b * (vl - 1) / (bl - 1));
+  }
+
+  /**
+   * Computes a 64-bit hash value for the specified token.
+   * @param token token
+   * @return hash value
+   */
+  private static long hash(final byte[] token) {
+    // FNV-1a, followed by the finalization step of MurmurHash3
+    long h = 0xCBF29CE484222325L;
+    for(final byte b : token) h = (h ^ b & 0xFF) * 0x100000001B3L;
+    h = (h ^ h >>> 33) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ h >>> 33) * 0xC4CEB93FE1A85EC9L;
+    return h ^ h >>> 33;
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (values: " + count + ", distinct: " + distinct() + ')';
+  }
+}
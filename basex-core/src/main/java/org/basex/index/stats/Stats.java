@@ -27,6 +27,8 @@ public final class Stats {
   public int count;
   /** Data type. */
   public byte type;
+  /** Value histogram ({@code null} if not available). */
+  public Histogram histogram;
 
   /** Leaf node flag. Indicates if all nodes only have a text node as child. */
   private boolean leaf;
@@ -136,6 +138,7 @@ public final class Stats {
       t = STRING;
     }
     type = t;
+    if(histogram != null) histogram.add(value);
 
     // save distinct values
     if(values != null) {
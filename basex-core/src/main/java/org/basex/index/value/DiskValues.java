@@ -12,6 +12,7 @@ import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.io.*;
 import org.basex.io.random.*;
 import org.basex.query.util.index.*;
 import org.basex.util.*;
@@ -36,6 +37,12 @@ public class DiskValues extends ValueIndex {
   final IntObjMap<byte[]> ctext = new IntObjMap<>();
   /** Number of current index entries. */
   final AtomicInteger size = new AtomicInteger();
+  /** Numeric keys ({@code null} if they have not been indexed). */
+  NumericKeys numeric;
+  /** Key prefixes ({@code null} for indexes that have been created without prefixes). */
+  final KeyPrefixes prefixes;
+  /** Skip pointers ({@code null} for updatable indexes and indexes without skip pointers). */
+  final SkipPointers skips;
 
   /** Synchronization object. */
   private final Object monitor = new Object();
@@ -59,9 +66,15 @@ public class DiskValues extends ValueIndex {
    */
   DiskValues(final Data data, final IndexType type, final String prefix) throws IOException {
     super(data, type);
-    idxl = new DataAccess(data.meta.dbFile(prefix + 'l'));
-    idxr = new DataAccess(data.meta.dbFile(prefix + 'r'));
+    final WriteAheadLog log = ((DiskData) data).log();
+    idxl = new DataAccess(data.meta.dbFile(prefix + 'l'), log);
+    idxr = new DataAccess(data.meta.dbFile(prefix + 'r'), log);
     size.set(idxl.read4());
+    final IOFile file = data.meta.dbFile(prefix + 'n'), keys = data.meta.dbFile(prefix + 'k');
+    final IOFile blocks = data.meta.dbFile(prefix + 's');
+    if(file.exists()) numeric = new NumericKeys(file, log);
+    prefixes = keys.exists() ? new KeyPrefixes(keys, log) : null;
+    skips = blocks.exists() ? new SkipPointers(blocks, log) : null;
   }
 
   @Override
@@ -92,43 +105,34 @@ public class DiskValues extends ValueIndex {
 
   @Override
   public final IndexCosts costs(final IndexSearch search) {
+    if(search instanceof NumericRange) {
+      final NumericRange nr = (NumericRange) search;
+      synchronized(monitor) {
+        if(numeric != null) return IndexCosts.get(numeric.count(nr.min, nr.max));
+      }
+    }
     return IndexCosts.get(
       search instanceof StringRange ? Math.max(1, data.meta.size / 10) :
       search instanceof NumericRange ? Math.max(1, data.meta.size / 3) :
       entry(search.token()).size);
   }
 
-  @Override
-  public final IndexIterator iter(final IndexSearch search) {
-    final IntList pres;
-    if(search instanceof StringRange) {
-      pres = idRange((StringRange) search);
-    } else if(search instanceof NumericRange) {
-      pres = idRange((NumericRange) search);
-    } else {
-      final IndexEntry ie = entry(search.token());
-      pres = pres(ie.size, ie.offset);
+  /**
+   * Indicates if numeric range queries can be answered by the numeric keys of the index.
+   * @return result of check
+   */
+  public final boolean numeric() {
+    synchronized(monitor) {
+      return numeric != null;
     }
+  }
 
-    return new IndexIterator() {
-      final int sz = pres.size();
-      int c;
-
-      @Override
-      public boolean more() {
-        return c < sz;
-      }
-
-      @Override
-      public int pre() {
-        return pres.get(c++);
-      }
-
-      @Override
-      public int size() {
-        return sz;
-      }
-    };
+  @Override
+  public final IndexIterator iter(final IndexSearch search) {
+    if(search instanceof StringRange) return iter(idRange((StringRange) search));
+    if(search instanceof NumericRange) return iter(idRange((NumericRange) search));
+    final IndexEntry ie = entry(search.token());
+    return iter(ie.size, ie.offset);
   }
 
   @Override
@@ -141,6 +145,9 @@ public class DiskValues extends ValueIndex {
     synchronized(monitor) {
       idxl.close();
       idxr.close();
+      if(numeric != null) numeric.close();
+      if(prefixes != null) prefixes.close();
+      if(skips != null) skips.close();
     }
   }
 
@@ -169,6 +176,112 @@ public class DiskValues extends ValueIndex {
   public final void flush() {
     idxl.flush();
     idxr.flush();
+    if(prefixes != null) prefixes.flush();
+  }
+
+  /**
+   * Returns an iterator for the ids of an index entry.
+   * The ids are decoded block-wise, and skip pointers are used to skip blocks.
+   * <p><em>Important:</em> This method is thread-safe.</p>
+   * @param sz number of ids
+   * @param offset offset of the first id
+   * @return iterator
+   */
+  protected IndexIterator iter(final int sz, final long offset) {
+    return new IndexIterator() {
+      /** Pre values of the current block. */
+      final int[] block = new int[Math.min(sz, SkipPointers.BLOCK)];
+      /** Offset of the skip pointers ({@code -1}: none; {@code -2}: not requested yet). */
+      long table = -2;
+      /** Offset of the next block. */
+      long pos = offset;
+      /** Number of decoded ids, last decoded id, current position and size of the block. */
+      int decoded, id, b, bs;
+
+      @Override
+      public boolean more() {
+        if(++b < bs) return true;
+        if(decoded == sz) return false;
+        synchronized(monitor) {
+          idxl.cursor(pos);
+          bs = Math.min(SkipPointers.BLOCK, sz - decoded);
+          for(int i = 0; i < bs; i++) {
+            id += idxl.readNum();
+            // token index: skip position
+            if(type == IndexType.TOKEN) idxl.readNum();
+            block[i] = DiskValues.this.pre(id);
+          }
+          pos = idxl.cursor();
+        }
+        decoded += bs;
+        b = 0;
+        return true;
+      }
+
+      @Override
+      public int pre() {
+        return block[b];
+      }
+
+      @Override
+      public int size() {
+        return sz;
+      }
+
+      @Override
+      public boolean advance(final int pre) {
+        // jump to the last block with smaller ids if the current block contains no larger ids
+        // (skip pointers only exist for non-updatable indexes, in which ids are pre values)
+        if(skips != null && decoded < sz && (bs == 0 || block[bs - 1] < pre)) {
+          synchronized(monitor) {
+            if(table == -2) table = skips.table(offset);
+            final int entry = table == -1 ? -1 : skips.find(table, pre);
+            if(entry != -1 && (entry + 1) * SkipPointers.BLOCK >= decoded) {
+              id = skips.id(table, entry);
+              pos = skips.offset(table, entry);
+              decoded = (entry + 1) * SkipPointers.BLOCK;
+              b = bs = 0;
+            }
+          }
+        }
+        return IndexIterator.super.advance(pre);
+      }
+    };
+  }
+
+  /**
+   * Returns an iterator for pre values.
+   * @param pres pre values
+   * @return iterator
+   */
+  static IndexIterator iter(final Bitmap pres) {
+    return new IndexIterator() {
+      int pre, next;
+
+      @Override
+      public boolean more() {
+        return advance(next);
+      }
+
+      @Override
+      public int pre() {
+        return pre;
+      }
+
+      @Override
+      public int size() {
+        return pres.cardinality();
+      }
+
+      @Override
+      public boolean advance(final int pr) {
+        // negative cursor: iterator is exhausted
+        if(next < 0) return false;
+        pre = pres.next(Math.max(pr, next));
+        next = pre == -1 ? -1 : pre + 1;
+        return pre != -1;
+      }
+    };
   }
 
   /**
@@ -199,12 +312,12 @@ public class DiskValues extends ValueIndex {
    * @return index of the key, or (-(insertion point) - 1)
    */
   protected final int get(final byte[] key, final int first, final int last) {
+    final long prefix = prefixes != null ? KeyPrefixes.prefix(key) : 0;
     int l = first, h = last - 1;
     synchronized(monitor) {
       while(l <= h) {
         final int m = l + h >>> 1;
-        final byte[] txt = indexEntry(m).key;
-        final int d = compare(txt, key);
+        final int d = compare(m, key, prefix);
         if(d == 0) return m;
         if(d < 0) l = m + 1;
         else h = m - 1;
@@ -213,6 +326,44 @@ public class DiskValues extends ValueIndex {
     return -(l + 1);
   }
 
+  /**
+   * Indexes the numeric keys. Called after the index has been built.
+   * @throws IOException I/O exception
+   */
+  final void indexNumeric() throws IOException {
+    final DoubleList values = new DoubleList();
+    final IntList indexes = new IntList(), counts = new IntList();
+    final boolean text = type == IndexType.TEXT;
+    synchronized(monitor) {
+      final int entries = size();
+      for(int index = 0; index < entries; index++) {
+        final int count = idxl.readNum(idxr.read5(index * 5L));
+        final double v = data.textDbl(pre(idxl.readNum()), text);
+        if(!Double.isNaN(v)) {
+          values.add(v);
+          indexes.add(index);
+          counts.add(count);
+        }
+      }
+      final IOFile file = data.meta.dbFile(fileSuffix(type) + 'n');
+      NumericKeys.write(file, values, indexes, counts);
+      numeric = new NumericKeys(file, ((DiskData) data).log());
+    }
+  }
+
+  /**
+   * Drops the numeric keys. Called if the index is updated.
+   */
+  final void dropNumeric() {
+    synchronized(monitor) {
+      if(numeric != null) {
+        numeric.close();
+        numeric = null;
+        data.meta.dbFile(fileSuffix(type) + 'n').delete();
+      }
+    }
+  }
+
   // PRIVATE METHODS ==============================================================================
 
   /**
@@ -309,6 +460,23 @@ public class DiskValues extends ValueIndex {
     };
   }
 
+  /**
+   * Compares the key at the given position with the specified key. If key prefixes are available,
+   * the key is only read from the main table if the prefixes are equal and incomplete.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param index key position
+   * @param key key to be compared
+   * @param prefix prefix of the key (ignored if no prefixes are available)
+   * @return result of comparison
+   */
+  private int compare(final int index, final byte[] key, final long prefix) {
+    if(prefixes != null) {
+      final long p = prefixes.get(index);
+      if(p != prefix || KeyPrefixes.complete(p)) return Long.compareUnsigned(p, prefix);
+    }
+    return Token.compare(indexEntry(index).key, key);
+  }
+
   /**
    * Read a key at the given position.
    * <p><em>Important:</em> This method is NOT thread-safe, since it is used in loops.</p>
@@ -338,10 +506,10 @@ public class DiskValues extends ValueIndex {
    * <p><em>Important:</em> This method is thread-safe.</p>
    * @param sz number of values
    * @param offset offset
-   * @return sorted pre values
+   * @return pre values
    */
-  protected IntList pres(final int sz, final long offset) {
-    final IntList pres = new IntList(sz);
+  protected Bitmap pres(final int sz, final long offset) {
+    final Bitmap pres = new Bitmap();
     synchronized(monitor) {
       idxl.cursor(offset);
       for(int i = 0, id = 0; i < sz; i++) {
@@ -360,26 +528,27 @@ public class DiskValues extends ValueIndex {
    * @param tok index term
    * @return results
    */
-  private IntList idRange(final StringRange tok) {
-    // check if min and max are positive integers with the same number of digits
-    final IntList pres = new IntList();
+  private Bitmap idRange(final StringRange tok) {
+    final Bitmap pres = new Bitmap();
+    final long prefix = prefixes != null ? KeyPrefixes.prefix(tok.max) : 0;
     synchronized(monitor) {
       final int i = get(tok.min);
       final int entries = size();
       for(int index = i < 0 ? -i - 1 : tok.mni ? i : i + 1; index < entries; index++) {
-        final int count = idxl.readNum(idxr.read5(index * 5L));
-        int id = idxl.readNum();
         // skip traversal if value is too large
-        final int diff = compare(key(id), tok.max);
+        final int diff = compare(index, tok.max, prefix);
         if(diff > 0 || !tok.mxi && diff == 0) break;
         // add pre values
-        for(int c = 0; c < count; c++) {
-          pres.add(pre(id));
+        final int count = idxl.readNum(idxr.read5(index * 5L));
+        for(int c = 0, id = 0; c < count; c++) {
           id += idxl.readNum();
+          // token index: skip position
+          if(type == IndexType.TOKEN) idxl.readNum();
+          pres.add(pre(id));
         }
       }
     }
-    return pres.sort();
+    return pres;
   }
 
   /**
@@ -388,13 +557,29 @@ public class DiskValues extends ValueIndex {
    * @param tok index term
    * @return results
    */
-  private IntList idRange(final NumericRange tok) {
-    // check if min and max are positive integers with the same number of digits
+  private Bitmap idRange(final NumericRange tok) {
     final double min = tok.min, max = tok.max;
+    if(numeric != null) {
+      // numeric keys: binary search for first and last key in the range
+      final Bitmap pres = new Bitmap();
+      synchronized(monitor) {
+        final int[] range = numeric.range(min, max);
+        for(int entry = range[0]; entry < range[1]; entry++) {
+          final int count = idxl.readNum(idxr.read5(numeric.index(entry) * 5L));
+          for(int c = 0, id = 0; c < count; c++) {
+            id += idxl.readNum();
+            pres.add(pre(id));
+          }
+        }
+      }
+      return pres;
+    }
+
+    // check if min and max are positive integers with the same number of digits
     final int len = max > 0 && (long) max == max ? token(max).length : 0;
     final boolean simple = len != 0 && min > 0 && (long) min == min && token(min).length == len;
 
-    final IntList pres = new IntList();
+    final Bitmap pres = new Bitmap();
     synchronized(monitor) {
       final int entries = size();
       final boolean text = type == IndexType.TEXT;
@@ -418,7 +603,7 @@ public class DiskValues extends ValueIndex {
         }
       }
     }
-    return pres.sort();
+    return pres;
   }
 
   /**
@@ -26,6 +26,13 @@ import org.basex.util.list.*;
  *   structure. Instead, they can be found by following the id references to
  *   the main table.
  * </li>
+ * <li> {@code DATATXT/ATV + 'k'}: contains 8-byte prefixes of all keys, which are compared
+ *   before the keys are looked up in the main table. The format is described in the
+ *   {@link KeyPrefixes} class.</li>
+ * <li> {@code DATATXT/ATV + 's'}: contains skip pointers to the blocks of large id lists if the
+ *   index is not updatable. The format is described in the {@link SkipPointers} class.</li>
+ * <li> {@code DATATXT/ATV + 'n'}: contains the numeric keys, sorted by their values, if numeric
+ *   keys are indexed. The format is described in the {@link NumericKeys} class.</li>
  * </ul>
  *
  * @author BaseX Team, BSD License
@@ -39,9 +46,10 @@ public final class DiskValuesBuilder extends ValuesBuilder {
    * Constructor.
    * @param data data reference
    * @param type index type
+   * @param threads number of threads ({@code 0}: number of available processors)
    */
-  public DiskValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
+  public DiskValuesBuilder(final Data data, final IndexType type, final int threads) {
+    super(data, type, threads);
     index = new IndexTree(type);
   }
 
@@ -50,33 +58,35 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     Util.debugln(detailedInfo());
 
     try {
-      final boolean updindex = data.meta.updindex;
-      for(pre = 0; pre < size; ++pre) {
-        if((pre & 0x0FFF) == 0) check();
-        if(indexEntry()) {
-          final int id = updindex ? data.id(pre) : pre;
-          if(tokenize) {
-            int pos = 0;
-            for(final byte[] token : distinctTokens(data.text(pre, text))) {
-              index.add(token, id, pos++);
-              count++;
-            }
-          } else if(data.textLen(pre, text) <= data.meta.maxlen) {
-            index.add(data.text(pre, text), id, 0);
-            count++;
-          }
-        }
-      }
-
-      writeIndex(splits > 0);
-      if(splits > 1) {
+      final int partitions = partitions();
+      if(partitions > 1) {
+        // index partitions of the table in parallel, merge partial indexes
         index = null;
-        clean();
-        merge();
+        index(partitions, p -> new ValuesPartition());
+        if(splits > 0) {
+          merge();
+        } else {
+          index = new IndexTree(type);
+          writeIndex(false);
+        }
+      } else {
+        for(pre = 0; pre < size; ++pre) {
+          if((pre & 0x0FFF) == 0) check();
+          count += index(index, pre);
+        }
+        writeIndex(splits > 0);
+        if(splits > 1) {
+          index = null;
+          clean();
+          merge();
+        }
       }
 
       finishIndex();
-      return updindex ? new UpdatableDiskValues(data, type) : new DiskValues(data, type);
+      final DiskValues values = data.meta.updindex ? new UpdatableDiskValues(data, type) :
+        new DiskValues(data, type);
+      if(data.meta.numindex && !tokenize) values.indexNumeric();
+      return values;
 
     } catch(final Throwable th) {
       // drop index files
@@ -85,6 +95,26 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     }
   }
 
+  /**
+   * Adds the keys of the specified entry to an index tree.
+   * @param tree index tree
+   * @param p pre value
+   * @return number of index operations
+   */
+  private int index(final IndexTree tree, final int p) {
+    if(!indexEntry(p)) return 0;
+
+    final int id = data.meta.updindex ? data.id(p) : p;
+    int ops = 0;
+    if(tokenize) {
+      for(final byte[] token : distinctTokens(data.text(p, text))) tree.add(token, id, ops++);
+    } else if(data.textLen(p, text) <= data.meta.maxlen) {
+      tree.add(data.text(p, text), id, 0);
+      ops++;
+    }
+    return ops;
+  }
+
   @Override
   protected void check() throws IOException {
     super.check();
@@ -104,7 +134,9 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     final String f = DiskValues.fileSuffix(type);
     int entries = 0;
     try(DataOutput outL = new DataOutput(data.meta.dbFile(f + 'l'));
-        DataOutput outR = new DataOutput(data.meta.dbFile(f + 'r'))) {
+        DataOutput outR = new DataOutput(data.meta.dbFile(f + 'r'));
+        DataOutput outK = new DataOutput(data.meta.dbFile(f + 'k'));
+        SkipPointers.Output outS = skips(f)) {
       outL.write4(0);
 
       // initialize cached index iterators
@@ -136,6 +168,7 @@ public final class DiskValuesBuilder extends ValuesBuilder {
         }
 
         // parse through all values, cache and sort id values
+        final byte[] key = vm[min].key;
         final int ms = ml.size();
         for(int m = 0; m < ms; ++m) {
           final DiskValuesMerger t = vm[ml.get(m)];
@@ -151,7 +184,8 @@ public final class DiskValuesBuilder extends ValuesBuilder {
           t.next();
         }
         // write final structure to disk
-        write(outL, outR, id, pos);
+        write(outL, outR, outS, id, pos);
+        KeyPrefixes.write(outK, key);
         ++entries;
       }
     }
@@ -168,16 +202,32 @@ public final class DiskValuesBuilder extends ValuesBuilder {
    * @throws IOException I/O exception
    */
   private void writeIndex(final boolean partial) throws IOException {
+    writeIndex(index, partial ? splits : -1);
+    // increase split counter
+    splits++;
+  }
+
+  /**
+   * Writes an index tree to disk.
+   * @param tree index tree
+   * @param split number of the partial index, or {@code -1} if the final index is written
+   * @throws IOException I/O exception
+   */
+  private void writeIndex(final IndexTree tree, final int split) throws IOException {
+    final boolean partial = split != -1;
     // write id arrays and references
-    final String name = DiskValues.fileSuffix(type) + (partial ? splits : "");
+    final String name = DiskValues.fileSuffix(type) + (partial ? split : "");
     try(DataOutput outL = new DataOutput(data.meta.dbFile(name + 'l'));
-        DataOutput outR = new DataOutput(data.meta.dbFile(name + 'r'))) {
-      outL.write4(index.size());
+        DataOutput outR = new DataOutput(data.meta.dbFile(name + 'r'));
+        DataOutput outK = partial ? null : new DataOutput(data.meta.dbFile(name + 'k'));
+        SkipPointers.Output outS = partial ? null : skips(name)) {
+      outL.write4(tree.size());
 
       final IntList id = new IntList(), pos = tokenize ? new IntList() : null;
-      index.init();
-      while(index.more()) {
-        final byte[] values = index.ids.get(index.next());
+      tree.init();
+      while(tree.more()) {
+        final int i = tree.next();
+        final byte[] values = tree.ids.get(i);
         final int vs = Num.size(values);
 
         if(partial) {
@@ -194,7 +244,8 @@ public final class DiskValuesBuilder extends ValuesBuilder {
             }
           }
           // write final structure to disk
-          write(outL, outR, id, pos);
+          write(outL, outR, outS, id, pos);
+          KeyPrefixes.write(outK, tree.keys.get(i));
         }
       }
     }
@@ -202,24 +253,34 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     // temporarily write texts
     if(partial) {
       try(DataOutput outT = new DataOutput(data.meta.dbFile(name + 't'))) {
-        index.init();
-        while(index.more()) outT.writeToken(index.keys.get(index.next()));
+        tree.init();
+        while(tree.more()) outT.writeToken(tree.keys.get(tree.next()));
       }
     }
-    // increase split counter
-    splits++;
+  }
+
+  /**
+   * Returns an output stream for skip pointers. Skip pointers are only written if the index is
+   * not updatable, as the ids of updatable indexes are not sorted by their pre values.
+   * @param name file prefix
+   * @return output stream or {@code null}
+   * @throws IOException I/O exception
+   */
+  private SkipPointers.Output skips(final String name) throws IOException {
+    return data.meta.updindex ? null : new SkipPointers.Output(data.meta.dbFile(name + 's'));
   }
 
   /**
    * Writes the final value structure to disk.
    * @param outL index values
    * @param outR references
+   * @param outS skip pointers (can be {@code null})
    * @param id ids
    * @param pos positions (can be {@code null})
    * @throws IOException I/O exception
    */
-  private void write(final DataOutput outL, final DataOutput outR, final IntList id,
-      final IntList pos) throws IOException {
+  private void write(final DataOutput outL, final DataOutput outR,
+      final SkipPointers.Output outS, final IntList id, final IntList pos) throws IOException {
 
     // sort values before writing
     int[] order = null;
@@ -234,13 +295,44 @@ public final class DiskValuesBuilder extends ValuesBuilder {
     final int is = id.size();
     outR.write5(outL.size());
     outL.writeNum(is);
+    final long list = outL.size();
     for(int i = 0, old = 0; i < is; i++) {
+      if(outS != null && i > 0 && i % SkipPointers.BLOCK == 0) outS.add(old, outL.size());
       final int value = id.get(i);
       outL.writeNum(value - old);
       if(order != null) outL.writeNum(pos.get(order[i]));
       old = value;
     }
+    if(outS != null) outS.finish(list);
     id.reset();
     if(pos != null) pos.reset();
   }
+
+  /**
+   * Returns the number of the next partial index.
+   * @return number
+   */
+  private synchronized int split() {
+    return splits++;
+  }
+
+  /**
+   * Indexer for a partition of the table.
+   */
+  private final class ValuesPartition implements Partition {
+    /** Index tree. */
+    private IndexTree tree = new IndexTree(type);
+
+    @Override
+    public int index(final int pre) {
+      return DiskValuesBuilder.this.index(tree, pre);
+    }
+
+    @Override
+    public void write() throws IOException {
+      if(tree.size() == 0) return;
+      writeIndex(tree, split());
+      tree = new IndexTree(type);
+    }
+  }
 }
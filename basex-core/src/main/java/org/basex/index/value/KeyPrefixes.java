@@ -0,0 +1,149 @@
+package org.basex.index.value;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides access to the key prefixes of a value index. As the keys themselves are
+ * not stored in the index structure, the prefixes are consulted first when index entries are
+ * compared with a search key: the main table is only accessed if the prefixes are equal and do
+ * not cover the complete keys.
+ *
+ * <p>The prefixes are stored in the {@code DATATXT/ATV + 'k'} file, in the order of the
+ * references in the {@code DATATXT/ATV + 'r'} file. Each prefix is 8 bytes long and consists of
+ * the first 7 bytes of the key (padded with zeros) and the length of the key (8 if the key is
+ * longer than 7 bytes). The prefixes can be compared as unsigned numbers.</p>
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class KeyPrefixes {
+  /** Size of a prefix. */
+  private static final int PREFIX = 8;
+  /** Number of key bytes stored in a prefix. */
+  private static final int BYTES = PREFIX - 1;
+
+  /** Prefixes. */
+  private final DataAccess prefixes;
+
+  /**
+   * Constructor.
+   * @param file index file
+   * @param log write-ahead log (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  KeyPrefixes(final IOFile file, final WriteAheadLog log) throws IOException {
+    prefixes = new DataAccess(file, log);
+  }
+
+  /**
+   * Returns the prefix of a key.
+   * @param key key
+   * @return prefix
+   */
+  static long prefix(final byte[] key) {
+    final int kl = key.length;
+    long prefix = 0;
+    for(int k = 0; k < BYTES; k++) prefix = prefix << 8 | (k < kl ? key[k] & 0xFF : 0);
+    return prefix << 8 | Math.min(kl, PREFIX);
+  }
+
+  /**
+   * Indicates if a prefix covers the complete key.
+   * If two prefixes are equal and incomplete, the complete keys need to be compared.
+   * @param prefix prefix
+   * @return result of check
+   */
+  static boolean complete(final long prefix) {
+    return (prefix & 0xFF) < PREFIX;
+  }
+
+  /**
+   * Writes the prefix of a key to the specified output.
+   * @param out output stream
+   * @param key key
+   * @throws IOException I/O exception
+   */
+  static void write(final DataOutput out, final byte[] key) throws IOException {
+    final long prefix = prefix(key);
+    out.write4((int) (prefix >>> 32));
+    out.write4((int) prefix);
+  }
+
+  /**
+   * Returns the prefix of the specified entry.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param index index of the entry
+   * @return prefix
+   */
+  long get(final int index) {
+    final long pos = (long) index * PREFIX;
+    return (long) prefixes.read4(pos) << 32 | prefixes.read4(pos + 4) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Assigns the prefix of a key to the specified entry.
+   * @param index index of the entry
+   * @param key key
+   */
+  void set(final int index, final byte[] key) {
+    final long pos = (long) index * PREFIX, prefix = prefix(key);
+    prefixes.write4(pos, (int) (prefix >>> 32));
+    prefixes.write4(pos + 4, (int) prefix);
+  }
+
+  /**
+   * Copies the prefix of an entry to another entry.
+   * @param oldIndex index of the source entry
+   * @param newIndex index of the target entry
+   */
+  void copy(final int oldIndex, final int newIndex) {
+    final long pos = (long) newIndex * PREFIX, prefix = get(oldIndex);
+    prefixes.write4(pos, (int) (prefix >>> 32));
+    prefixes.write4(pos + 4, (int) prefix);
+  }
+
+  /**
+   * Removes entries.
+   * @param keys sorted indexes of the entries to be removed
+   * @param size number of entries before the removal
+   */
+  void delete(final IntList keys, final int size) {
+    final byte[] tmp = prefixes.readBytes(0, size * PREFIX);
+    final int kl = keys.size();
+    int k = 0, newIndex = keys.get(k++);
+    for(int oldIndex = newIndex + 1; oldIndex < size; oldIndex++) {
+      if(k < kl && oldIndex == keys.get(k)) {
+        k++;
+      } else {
+        Array.copy(tmp, oldIndex * PREFIX, PREFIX, tmp, newIndex++ * PREFIX);
+      }
+    }
+    prefixes.cursor(0);
+    prefixes.writeBytes(tmp, 0, (size - kl) * PREFIX);
+  }
+
+  /**
+   * Flushes the buffered data.
+   */
+  void flush() {
+    prefixes.flush();
+  }
+
+  /**
+   * Closes the index file.
+   */
+  void close() {
+    prefixes.close();
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (size: " + prefixes.length() / PREFIX + ')';
+  }
+}
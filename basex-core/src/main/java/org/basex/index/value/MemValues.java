@@ -24,6 +24,8 @@ import org.basex.util.list.*;
 public final class MemValues extends ValueIndex {
   /** Values. */
   private final TokenSet values;
+  /** Indicates if values are owned by the index (otherwise, they are shared with the database). */
+  private final boolean own;
   /** IDs lists. */
   private ArrayList<int[]> idsList;
   /** ID array lengths. */
@@ -38,9 +40,11 @@ public final class MemValues extends ValueIndex {
    */
   public MemValues(final Data data, final IndexType type) {
     super(data, type);
-    // token index: work extra token set instance
-    values = type == IndexType.TOKEN ? new TokenSet() :
+    // token index, off-heap texts: work with extra token set instance
+    final TokenSet set = type == IndexType.TOKEN ? null :
       ((MemData) data).values(type == IndexType.TEXT);
+    own = set == null;
+    values = own ? new TokenSet() : set;
     final int s = values.size() + 1;
     idsList = new ArrayList<>(s);
     lenList = new IntList(s);
@@ -63,11 +67,11 @@ public final class MemValues extends ValueIndex {
     }
 
     return new IndexIterator() {
-      int p;
+      int p = -1;
       @Override
-      public boolean more() { return p < len; }
+      public boolean more() { return ++p < len; }
       @Override
-      public int pre() { return pres[p++]; }
+      public int pre() { return pres[p]; }
       @Override
       public int size() { return len; }
     };
@@ -165,8 +169,8 @@ public final class MemValues extends ValueIndex {
    * @param vals sorted values
    */
   void add(final byte[] key, final int... vals) {
-    // token index: add values. otherwise, reference existing values
-    final int id = type == IndexType.TOKEN ? values.put(key) : values.id(key), vl = vals.length;
+    // own values: add values. otherwise, reference existing values
+    final int id = own ? values.put(key) : values.id(key), vl = vals.length;
     // updatable index: if required, resize existing arrays
     while(idsList.size() < id + 1) idsList.add(null);
     if(lenList.size() < id + 1) lenList.set(id, 0);
@@ -19,9 +19,10 @@ public final class MemValuesBuilder extends ValuesBuilder {
    * Constructor.
    * @param data data reference
    * @param type index type
+   * @param threads number of threads ({@code 0}: number of available processors)
    */
-  public MemValuesBuilder(final Data data, final IndexType type) {
-    super(data, type);
+  public MemValuesBuilder(final Data data, final IndexType type, final int threads) {
+    super(data, type, threads);
   }
 
   @Override
@@ -0,0 +1,157 @@
+package org.basex.index.value;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides access to the numeric keys of a value index, which are sorted by their
+ * numeric values. Numeric range queries are answered by two binary searches, and the number of
+ * results can be computed without accessing the id lists.
+ *
+ * <p>The keys are stored in the {@code DATATXT/ATV + 'n'} file in the following format:</p>
+ * <ul>
+ *   <li> the number of numeric keys (4 bytes)</li>
+ *   <li> for each key, in ascending numeric order: the numeric value (8 bytes), the index of the
+ *        key in the reference file (4 bytes), and the accumulated number of ids of all keys up
+ *        to and including this key (4 bytes)</li>
+ * </ul>
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class NumericKeys {
+  /** Size of an entry. */
+  private static final int ENTRY = 16;
+
+  /** Numeric keys. */
+  private final DataAccess keys;
+  /** Number of numeric keys. */
+  private final int size;
+
+  /**
+   * Constructor.
+   * @param file index file
+   * @param log write-ahead log (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  NumericKeys(final IOFile file, final WriteAheadLog log) throws IOException {
+    keys = new DataAccess(file, log);
+    size = keys.read4(0);
+  }
+
+  /**
+   * Writes the numeric keys of an index to disk.
+   * @param file index file
+   * @param values numeric values of the keys
+   * @param indexes indexes of the keys in the reference file
+   * @param counts number of ids of the keys
+   * @throws IOException I/O exception
+   */
+  static void write(final IOFile file, final DoubleList values, final IntList indexes,
+      final IntList counts) throws IOException {
+
+    final double[] dbls = values.finish();
+    final int[] order = Array.createOrder(dbls, true);
+    final int sz = order.length;
+    try(DataOutput out = new DataOutput(file)) {
+      out.write4(sz);
+      int total = 0;
+      for(int o = 0; o < sz; o++) {
+        final long bits = Double.doubleToLongBits(dbls[o]);
+        total += counts.get(order[o]);
+        out.write4((int) (bits >>> 32));
+        out.write4((int) bits);
+        out.write4(indexes.get(order[o]));
+        out.write4(total);
+      }
+    }
+  }
+
+  /**
+   * Returns the first and last entry (exclusive) with a value in the specified range.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param min minimum value (inclusive)
+   * @param max maximum value (inclusive)
+   * @return first and last entry
+   */
+  int[] range(final double min, final double max) {
+    final int first = find(min, true);
+    return new int[] { first, Math.max(first, find(max, false)) };
+  }
+
+  /**
+   * Returns the index of the key with the specified entry in the reference file.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param entry entry
+   * @return index of the key
+   */
+  int index(final int entry) {
+    return keys.read4((long) entry * ENTRY + 12);
+  }
+
+  /**
+   * Returns the number of ids of the keys with values in the specified range.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param min minimum value (inclusive)
+   * @param max maximum value (inclusive)
+   * @return number of ids
+   */
+  int count(final double min, final double max) {
+    final int[] range = range(min, max);
+    return total(range[1]) - total(range[0]);
+  }
+
+  /**
+   * Closes the index file.
+   */
+  void close() {
+    keys.close();
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (size: " + size + ')';
+  }
+
+  /**
+   * Returns the accumulated number of ids of all entries before the specified entry.
+   * @param entry entry
+   * @return number of ids
+   */
+  private int total(final int entry) {
+    return entry == 0 ? 0 : keys.read4((long) entry * ENTRY);
+  }
+
+  /**
+   * Returns the numeric value of the specified entry.
+   * @param entry entry
+   * @return value
+   */
+  private double value(final int entry) {
+    final long pos = (long) entry * ENTRY + 4, high = (long) keys.read4(pos) << 32;
+    return Double.longBitsToDouble(high | keys.read4(pos + 4) & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the first entry with a value that is greater than or equal to (if {@code min} is
+   * {@code true}), or greater than the specified value.
+   * @param value value
+   * @param min minimum flag
+   * @return entry (size of the index if no such entry exists)
+   */
+  private int find(final double value, final boolean min) {
+    int l = 0, h = size;
+    while(l < h) {
+      final int m = l + h >>> 1;
+      final double v = value(m);
+      if(min ? v < value : v <= value) l = m + 1;
+      else h = m;
+    }
+    return l;
+  }
+}
@@ -0,0 +1,188 @@
+package org.basex.index.value;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.io.out.DataOutput;
+import org.basex.io.random.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides access to the skip pointers of the id lists of a value index.
+ * Id lists are decoded in blocks of {@link #BLOCK} ids. For lists with more than one block,
+ * a skip pointer is stored for each further block, which allows index iterators to jump to the
+ * block that may contain a requested id without decoding the preceding blocks.
+ *
+ * <p>The skip pointers are stored in the {@code DATATXT/ATV + 's'} file in the following
+ * format:</p>
+ * <ul>
+ *   <li> for each id list with more than one block: the number of skip pointers (4 bytes), and
+ *        for each block after the first one: the last id of the preceding block (4 bytes) and
+ *        the offset of the block in the id list file (5 bytes)</li>
+ *   <li> a directory with an entry for each of these lists: the offset of the first id in the
+ *        id list file (5 bytes) and the offset of the skip pointers (5 bytes)</li>
+ *   <li> the number of directory entries (4 bytes)</li>
+ * </ul>
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class SkipPointers {
+  /** Number of ids in a block. */
+  static final int BLOCK = 128;
+  /** Size of a skip pointer. */
+  private static final int ENTRY = 9;
+  /** Size of a directory entry. */
+  private static final int DIR = 10;
+
+  /** Skip pointers. */
+  private final DataAccess skips;
+  /** Number of directory entries. */
+  private final int lists;
+  /** Offset of the directory. */
+  private final long dir;
+
+  /**
+   * Constructor.
+   * @param file index file
+   * @param log write-ahead log (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  SkipPointers(final IOFile file, final WriteAheadLog log) throws IOException {
+    skips = new DataAccess(file, log);
+    final long length = skips.length() - 4;
+    lists = skips.read4(length);
+    dir = length - (long) lists * DIR;
+  }
+
+  /**
+   * Returns the offset of the skip pointers of the specified id list.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param list offset of the first id in the id list file
+   * @return offset, or {@code -1} if the list has no skip pointers
+   */
+  long table(final long list) {
+    int l = 0, h = lists - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      final long pos = dir + (long) m * DIR, d = skips.read5(pos);
+      if(d == list) return skips.read5(pos + 5);
+      if(d < list) l = m + 1;
+      else h = m - 1;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the last skip pointer of a list that refers to a block with smaller ids than the
+   * specified id.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param table offset of the skip pointers
+   * @param id id
+   * @return index of the skip pointer, or {@code -1}
+   */
+  int find(final long table, final int id) {
+    int l = 0, h = skips.read4(table) - 1;
+    while(l <= h) {
+      final int m = l + h >>> 1;
+      if(id(table, m) < id) l = m + 1;
+      else h = m - 1;
+    }
+    return h;
+  }
+
+  /**
+   * Returns the last id of the block preceding the block of the specified skip pointer.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param table offset of the skip pointers
+   * @param entry index of the skip pointer
+   * @return id
+   */
+  int id(final long table, final int entry) {
+    return skips.read4(table + 4 + (long) entry * ENTRY);
+  }
+
+  /**
+   * Returns the offset of the block of the specified skip pointer.
+   * <p><em>Important:</em> This method is NOT thread-safe.</p>
+   * @param table offset of the skip pointers
+   * @param entry index of the skip pointer
+   * @return offset in the id list file
+   */
+  long offset(final long table, final int entry) {
+    return skips.read5(table + 8 + (long) entry * ENTRY);
+  }
+
+  /**
+   * Closes the index file.
+   */
+  void close() {
+    skips.close();
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (lists: " + lists + ')';
+  }
+
+  /**
+   * Writes skip pointers to disk.
+   */
+  static final class Output implements Closeable {
+    /** Output stream. */
+    private final DataOutput out;
+    /** Directory entries. */
+    private final LongList directory = new LongList();
+    /** Last ids of the preceding blocks. */
+    private final IntList ids = new IntList();
+    /** Offsets of the blocks. */
+    private final LongList offsets = new LongList();
+
+    /**
+     * Constructor.
+     * @param file index file
+     * @throws IOException I/O exception
+     */
+    Output(final IOFile file) throws IOException {
+      out = new DataOutput(file);
+    }
+
+    /**
+     * Adds a skip pointer for the current id list.
+     * @param id last id of the preceding block
+     * @param offset offset of the block in the id list file
+     */
+    void add(final int id, final long offset) {
+      ids.add(id);
+      offsets.add(offset);
+    }
+
+    /**
+     * Writes the skip pointers of the current id list, if any.
+     * @param list offset of the first id in the id list file
+     * @throws IOException I/O exception
+     */
+    void finish(final long list) throws IOException {
+      final int is = ids.size();
+      if(is == 0) return;
+      directory.add(list);
+      directory.add(out.size());
+      out.write4(is);
+      for(int i = 0; i < is; i++) {
+        out.write4(ids.get(i));
+        out.write5(offsets.get(i));
+      }
+      ids.reset();
+      offsets.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+      final int ds = directory.size();
+      for(int d = 0; d < ds; d++) out.write5(directory.get(d));
+      out.write4(ds >>> 1);
+      out.close();
+    }
+  }
+}
@@ -4,6 +4,7 @@ import java.io.*;
 
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.query.*;
 import org.basex.util.*;
 import org.basex.util.list.*;
 
@@ -35,6 +36,9 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void add(final ValueCache values) {
+    // numeric keys are not updated
+    dropNumeric();
+
     // create a sorted list of the new keys and update the old keys
     final TokenList newKeys = new TokenList();
 
@@ -79,6 +83,7 @@ public final class UpdatableDiskValues extends DiskValues {
       // create space for new entry
       while(oldIndex >= idx) {
         final long off = idxr.read5(oldIndex * 5L);
+        if(prefixes != null) prefixes.copy(oldIndex, newIndex);
         writeIndex(newIndex--, off, ctext.put(oldIndex--, null));
       }
       // add the new key and its ids
@@ -89,6 +94,8 @@ public final class UpdatableDiskValues extends DiskValues {
 
   @Override
   public synchronized void delete(final ValueCache values) {
+    dropNumeric();
+
     // create a list of the indexes of the keys which should be completely deleted
     final IntList keys = new IntList();
     int p = 0;
@@ -104,8 +111,9 @@ public final class UpdatableDiskValues extends DiskValues {
   }
 
   @Override
-  protected IntList pres(final int sz, final long offset) {
-    return super.pres(sz, offset).sort();
+  protected IndexIterator iter(final int sz, final long offset) {
+    // ids are not sorted by their pre values
+    return iter(pres(sz, offset));
   }
 
   /**
@@ -157,6 +165,7 @@ public final class UpdatableDiskValues extends DiskValues {
 
     int sz = size();
     final int kl = keys.size();
+    if(prefixes != null) prefixes.delete(keys, sz);
     final byte[] tmp = idxr.readBytes(0, sz * 5);
     for(int k = 0, newIndex = keys.get(k++), oldIndex = newIndex + 1; oldIndex < sz; oldIndex++) {
       if(k < kl && oldIndex == keys.get(k)) {
@@ -202,6 +211,7 @@ public final class UpdatableDiskValues extends DiskValues {
     // update key index and compressed numbers
     final int sz = ids.size();
     writeIndex(index, offset, key);
+    if(prefixes != null) prefixes.set(index, key);
     idxl.cursor(offset);
     idxl.writeNum(sz);
     for(final int num : nums) idxl.writeNum(num);
@@ -4,6 +4,8 @@ import java.io.*;
 
 import org.basex.data.*;
 import org.basex.io.*;
+import org.basex.io.random.*;
+import org.basex.util.list.*;
 
 /**
  * This class allows a blockwise output of the database table.
@@ -22,6 +24,8 @@ public final class TableOutput extends OutputStream {
   private final MetaData meta;
   /** Current filename. */
   private final String file;
+  /** Checksums of the written pages ({@code null} if checksums are disabled). */
+  private final IntList checksums;
 
   /** Current buffer position. */
   private int pos;
@@ -39,6 +43,7 @@ public final class TableOutput extends OutputStream {
     os = md.dbFile(fn).outputStream();
     meta = md;
     file = fn;
+    checksums = md.checksums ? new IntList() : null;
   }
 
   @Override
@@ -53,6 +58,7 @@ public final class TableOutput extends OutputStream {
    */
   private void writeBuffer() throws IOException {
     os.write(buffer);
+    if(checksums != null) checksums.add(TableDiskAccess.checksum(buffer));
     pages++;
     pos = 0;
   }
@@ -71,5 +77,11 @@ public final class TableOutput extends OutputStream {
       // number of used pages (0: empty table; MAX: no mapping)
       out.writeNum(empty ? 0 : Integer.MAX_VALUE);
     }
+    // create checksum file
+    if(checksums != null) {
+      try(DataOutput out = new DataOutput(meta.dbFile(file + 'c'))) {
+        out.writeNums(checksums.finish());
+      }
+    }
   }
 }
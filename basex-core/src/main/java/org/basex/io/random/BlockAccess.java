@@ -0,0 +1,281 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.util.zip.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * This class provides access to a heap file whose entries have been compressed in blocks.
+ *
+ * Entries are addressed by their offsets in the original file. A block index maps these offsets
+ * to the compressed blocks, so a single entry can be retrieved by decompressing a single block.
+ * Recently decompressed blocks are cached. Entries that are added after compression
+ * are appended to an uncompressed tail file. Space of entries in the compressed blocks will not
+ * be reused; it is reclaimed when the database is optimized.
+ *
+ * The file with the compressed blocks has the following structure:
+ * <ul>
+ *   <li> the compressed blocks, each with 64 KB of uncompressed data
+ *        (except for the last block)</li>
+ *   <li> the offsets to all blocks, and the offset to the end of the last block
+ *        (8 bytes each)</li>
+ *   <li> the size of the uncompressed data (8 bytes)</li>
+ *   <li> the number of blocks (4 bytes)</li>
+ * </ul>
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class BlockAccess implements HeapAccess {
+  /** Power of the size of uncompressed blocks. */
+  private static final int BLOCKPOWER = 16;
+  /** Size of uncompressed blocks. */
+  private static final int BLOCKSIZE = 1 << BLOCKPOWER;
+
+  /** Decompressed blocks. */
+  private final Buffers buffers;
+  /** Compressed blocks. */
+  private final RandomAccessFile blocks;
+  /** Offsets to the compressed blocks. */
+  private final long[] offsets;
+  /** Size of the compressed entries (offset of the first entry in the tail). */
+  private final long base;
+  /** Uncompressed tail. */
+  private final HeapAccess tail;
+  /** File with compressed blocks. */
+  private final IOFile file;
+  /** Decompressor. */
+  private final Inflater inflater = new Inflater();
+
+  /** Buffer for compressed data. */
+  private byte[] packed = new byte[BLOCKSIZE];
+  /** Offset in the current block. */
+  private int off;
+
+  /**
+   * Constructor.
+   * @param file file with compressed blocks
+   * @param tail tail file
+   * @param size number of cached blocks and buffered pages of the tail file
+   * @param mmap enable memory mapping of the tail file
+   * @param log write-ahead log for changes of the tail file (can be {@code null})
+   * @throws IOException I/O Exception
+   */
+  public BlockAccess(final IOFile file, final IOFile tail, final int size, final boolean mmap,
+      final WriteAheadLog log) throws IOException {
+
+    this.file = file;
+    buffers = new Buffers(size, BLOCKSIZE);
+    blocks = new RandomAccessFile(file.file(), "r");
+    try {
+      final long length = blocks.length();
+      blocks.seek(length - 12);
+      base = blocks.readLong();
+      final int bl = blocks.readInt();
+
+      final byte[] index = new byte[bl + 1 << 3];
+      blocks.seek(length - 12 - index.length);
+      blocks.readFully(index);
+      offsets = new long[bl + 1];
+      ByteBuffer.wrap(index).asLongBuffer().get(offsets);
+      this.tail = new DataAccess(tail, size, mmap, log);
+    } catch(final IOException ex) {
+      blocks.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Constructor for snapshots.
+   * @param access heap access
+   * @throws IOException I/O Exception
+   */
+  private BlockAccess(final BlockAccess access) throws IOException {
+    file = access.file;
+    offsets = access.offsets;
+    base = access.base;
+    buffers = new Buffers(access.buffers.all().length, BLOCKSIZE);
+    blocks = new RandomAccessFile(file.file(), "r");
+    try {
+      tail = access.tail.snapshot();
+    } catch(final IOException ex) {
+      blocks.close();
+      throw ex;
+    }
+  }
+
+  /**
+   * Compresses a heap file. The original file will be truncated.
+   * @param heap heap file
+   * @param file file with compressed blocks
+   * @throws IOException I/O Exception
+   */
+  public static void compress(final IOFile heap, final IOFile file) throws IOException {
+    final Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+    try(RandomAccessFile in = new RandomAccessFile(heap.file(), "rw");
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+          file.outputStream()))) {
+
+      final long length = in.length();
+      final byte[] data = new byte[BLOCKSIZE], buffer = new byte[BLOCKSIZE];
+      final LongList offsets = new LongList();
+      long offset = 0;
+      for(long pos = 0; pos < length; pos += BLOCKSIZE) {
+        final int l = (int) Math.min(BLOCKSIZE, length - pos);
+        in.readFully(data, 0, l);
+        deflater.reset();
+        deflater.setInput(data, 0, l);
+        deflater.finish();
+        offsets.add(offset);
+        while(!deflater.finished()) {
+          final int n = deflater.deflate(buffer);
+          out.write(buffer, 0, n);
+          offset += n;
+        }
+      }
+      offsets.add(offset);
+
+      for(final long o : offsets.finish()) out.writeLong(o);
+      out.writeLong(length);
+      out.writeInt(offsets.size() - 1);
+      in.setLength(0);
+    } finally {
+      deflater.end();
+    }
+  }
+
+  @Override
+  public synchronized HeapAccess snapshot() throws IOException {
+    // compressed blocks are never changed
+    return new BlockAccess(this);
+  }
+
+  @Override
+  public synchronized void flush() {
+    tail.flush();
+  }
+
+  @Override
+  public synchronized void close() {
+    tail.close();
+    inflater.end();
+    try {
+      blocks.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  @Override
+  public long length() {
+    return base + tail.length();
+  }
+
+  @Override
+  public int readNum(final long pos) {
+    if(pos >= base) return tail.readNum(pos - base);
+    synchronized(this) {
+      cursor(pos);
+      return readNum();
+    }
+  }
+
+  @Override
+  public byte[] readToken(final long pos) {
+    if(pos >= base) return tail.readToken(pos - base);
+    synchronized(this) {
+      cursor(pos);
+      final int len = readNum();
+      final byte[] token = new byte[len];
+      for(int t = 0; t < len;) {
+        if(off == BLOCKSIZE) cursor(buffers.current().pos + 1 << BLOCKPOWER);
+        final int l = Math.min(len - t, BLOCKSIZE - off);
+        Array.copy(buffers.current().data, off, l, token, t);
+        off += l;
+        t += l;
+      }
+      return token;
+    }
+  }
+
+  @Override
+  public void writeToken(final long pos, final byte[] value) {
+    tail.writeToken(pos - base, value);
+  }
+
+  @Override
+  public long free(final long pos, final int size) {
+    return pos >= base ? base + tail.free(pos - base, size) : length();
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (length: " + base + ", blocks: " + (offsets.length - 1) +
+        ")\n- " + buffers + "\n- " + tail;
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Sets the cursor to the specified position and decompresses the block if necessary.
+   * @param pos position
+   */
+  private void cursor(final long pos) {
+    final long b = pos >>> BLOCKPOWER;
+    off = (int) (pos & BLOCKSIZE - 1);
+    if(!buffers.cursor(b)) return;
+
+    final Buffer buffer = buffers.current();
+    buffer.pos = b;
+    try {
+      final int bl = (int) (offsets[(int) b + 1] - offsets[(int) b]);
+      if(packed.length < bl) packed = new byte[bl];
+      blocks.seek(offsets[(int) b]);
+      blocks.readFully(packed, 0, bl);
+      inflater.reset();
+      inflater.setInput(packed, 0, bl);
+      final int size = (int) Math.min(BLOCKSIZE, base - (b << BLOCKPOWER));
+      int s = 0;
+      while(s < size && !inflater.finished() && !inflater.needsInput() &&
+          !inflater.needsDictionary()) {
+        s += inflater.inflate(buffer.data, s, size - s);
+      }
+      if(s < size) throw new DataFormatException("Block " + b + " of " + file + " is truncated.");
+    } catch(final IOException | DataFormatException ex) {
+      // discard the partially inflated block
+      buffers.invalidate();
+      throw new RuntimeException(Util.info(ex));
+    }
+  }
+
+  /**
+   * Reads the next byte.
+   * @return next byte
+   */
+  private int read() {
+    if(off == BLOCKSIZE) cursor(buffers.current().pos + 1 << BLOCKPOWER);
+    return buffers.current().data[off++] & 0xFF;
+  }
+
+  /**
+   * Reads the next compressed number and returns it as integer.
+   * @return next integer
+   */
+  private int readNum() {
+    final int value = read();
+    switch(value & 0xC0) {
+    case 0:
+      return value;
+    case 0x40:
+      return (value - 0x40 << 8) + read();
+    case 0x80:
+      return (value - 0x80 << 24) + (read() << 16) + (read() << 8) + read();
+    default:
+      return (read() << 24) + (read() << 16) + (read() << 8) + read();
+    }
+  }
+}
@@ -10,9 +10,24 @@ import org.basex.io.*;
  */
 final class Buffer {
   /** Buffer data. */
-  final byte[] data = new byte[IO.BLOCKSIZE];
+  final byte[] data;
   /** Disk offset, or block position. */
   long pos = -1;
   /** Dirty flag. */
   boolean dirty;
+
+  /**
+   * Constructor for disk blocks.
+   */
+  Buffer() {
+    this(IO.BLOCKSIZE);
+  }
+
+  /**
+   * Constructor.
+   * @param size buffer size
+   */
+  Buffer(final int size) {
+    data = new byte[size];
+  }
 }
@@ -1,23 +1,79 @@
 package org.basex.io.random;
 
+import java.util.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
 /**
- * This class provides a simple, clock-based buffer management.
+ * This class provides a scan-resistant buffer management, based on two clocks.
+ *
+ * New blocks are added to a cold region. Blocks that are accessed again before they are
+ * evicted are promoted to a hot region, which takes up to three quarters of the buffers.
+ * Blocks that are only read once (e.g. by sequential scans) will never displace hot blocks.
  *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
 final class Buffers {
-  /** Number of buffers (must be 1 << n). */
-  private static final int BUFFERS = 1 << 4;
+  /** Default number of buffers. */
+  static final int DEFAULT = 1 << 4;
+
   /** Buffers. */
-  private final Buffer[] buffer = new Buffer[BUFFERS];
+  private final Buffer[] buffer;
+  /** Buffer size. */
+  private final int blocksize;
+  /** Block positions assigned to the buffers ({@code -1}: unassigned). */
+  private final long[] keys;
+  /** Hot flags. */
+  private final boolean[] hot;
+  /** Reference flags. */
+  private final boolean[] ref;
+  /** Hash table with buffer offsets, incremented by one ({@code 0}: empty slot). */
+  private final int[] table;
+  /** Maximum number of hot buffers. */
+  private final int maxHot;
+
   /** Current buffer offset. */
   private int offset;
+  /** Clock hand for cold buffers. */
+  private int coldHand;
+  /** Clock hand for hot buffers. */
+  private int hotHand;
+  /** Number of hot buffers. */
+  private int hots;
+
+  /** Number of buffer hits. */
+  private long hits;
+  /** Number of buffer misses. */
+  private long misses;
+  /** Number of evicted blocks. */
+  private long evictions;
+
+  /**
+   * Constructor for disk blocks.
+   * @param size number of buffers
+   */
+  Buffers(final int size) {
+    this(size, IO.BLOCKSIZE);
+  }
 
   /**
    * Constructor.
+   * @param size number of buffers
+   * @param blocksize buffer size
    */
-  Buffers() {
+  Buffers(final int size, final int blocksize) {
+    this.blocksize = blocksize;
+    final int s = Math.max(1, size);
+    buffer = new Buffer[s];
+    keys = new long[s];
+    hot = new boolean[s];
+    ref = new boolean[s];
+    int t = 2;
+    while(t < s << 1) t <<= 1;
+    table = new int[t];
+    maxHot = s - Math.max(Math.min(2, s), s >>> 2);
     init();
   }
 
@@ -25,9 +81,16 @@ final class Buffers {
    * Initializes the buffers.
    */
   void init() {
-    for(int b = 0; b < BUFFERS; ++b) {
-      buffer[b] = new Buffer();
-    }
+    final int s = buffer.length;
+    for(int b = 0; b < s; ++b) buffer[b] = new Buffer(blocksize);
+    Arrays.fill(keys, -1);
+    Arrays.fill(hot, false);
+    Arrays.fill(ref, false);
+    Arrays.fill(table, 0);
+    offset = 0;
+    coldHand = 0;
+    hotHand = 0;
+    hots = 0;
   }
 
   /**
@@ -48,17 +111,152 @@ final class Buffers {
 
   /**
    * Chooses a buffer and sets the offset.
+   * If {@code true} is returned, the caller is responsible for writing back the previous
+   * contents of the buffer (if dirty) and assigning the new position.
    * @param pos buffer position
    * @return true if cursor has changed
    */
   boolean cursor(final long pos) {
-    final int o = offset;
-    do {
-      if(buffer[offset].pos == pos) return false;
-      offset = offset + 1 & BUFFERS - 1;
-    } while(offset != o);
+    // current buffer: no need to update the statistics
+    if(keys[offset] == pos) return false;
 
-    offset = o + 1 & BUFFERS - 1;
+    final int b = find(pos);
+    if(b != -1) {
+      ++hits;
+      ref[b] = true;
+      offset = b;
+      return false;
+    }
+
+    ++misses;
+    final int v = victim();
+    if(keys[v] != -1) {
+      ++evictions;
+      remove(keys[v]);
+    }
+    keys[v] = pos;
+    ref[v] = false;
+    add(v);
+    offset = v;
     return true;
   }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (size: " + buffer.length + ", hot: " + hots +
+        ", hits: " + hits + ", misses: " + misses + ", evictions: " + evictions + ')';
+  }
+
+  /**
+   * Invalidates the current buffer, e.g. if its contents could not be read.
+   */
+  void invalidate() {
+    final int b = offset;
+    if(keys[b] != -1) {
+      remove(keys[b]);
+      keys[b] = -1;
+    }
+    if(hot[b]) {
+      hot[b] = false;
+      --hots;
+    }
+    ref[b] = false;
+    buffer[b].pos = -1;
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Chooses a cold buffer that will be replaced.
+   * Referenced cold buffers are promoted, and unreferenced hot buffers are demoted.
+   * @return buffer offset
+   */
+  private int victim() {
+    final int s = buffer.length;
+    while(true) {
+      final int b = coldHand;
+      if(++coldHand == s) coldHand = 0;
+      // skip hot buffers and the current buffer (unless there is only one buffer)
+      if(hot[b] || b == offset && s > 1) continue;
+      if(keys[b] == -1 || !ref[b]) return b;
+
+      // promote referenced cold buffer
+      ref[b] = false;
+      hot[b] = true;
+      if(++hots > maxHot) demote();
+    }
+  }
+
+  /**
+   * Demotes the next unreferenced hot buffer.
+   */
+  private void demote() {
+    final int s = buffer.length;
+    while(true) {
+      final int b = hotHand;
+      if(++hotHand == s) hotHand = 0;
+      if(!hot[b]) continue;
+      if(ref[b]) {
+        ref[b] = false;
+      } else {
+        hot[b] = false;
+        --hots;
+        return;
+      }
+    }
+  }
+
+  /**
+   * Returns the offset of the buffer assigned to the specified position.
+   * @param pos block position
+   * @return buffer offset or {@code -1}
+   */
+  private int find(final long pos) {
+    final int mask = table.length - 1;
+    for(int h = hash(pos) & mask;; h = h + 1 & mask) {
+      final int b = table[h] - 1;
+      if(b == -1 || keys[b] == pos) return b;
+    }
+  }
+
+  /**
+   * Adds the specified buffer to the hash table.
+   * @param b buffer offset
+   */
+  private void add(final int b) {
+    final int mask = table.length - 1;
+    int h = hash(keys[b]) & mask;
+    while(table[h] != 0) h = h + 1 & mask;
+    table[h] = b + 1;
+  }
+
+  /**
+   * Removes the buffer with the specified position from the hash table.
+   * @param pos block position
+   */
+  private void remove(final long pos) {
+    final int mask = table.length - 1;
+    int h = hash(pos) & mask;
+    while(keys[table[h] - 1] != pos) h = h + 1 & mask;
+
+    // close the gap by shifting subsequent entries of the probe sequence
+    for(int n = h + 1 & mask; table[n] != 0; n = n + 1 & mask) {
+      final int i = hash(keys[table[n] - 1]) & mask;
+      if((n - i & mask) >= (n - h & mask)) {
+        table[h] = table[n];
+        h = n;
+      }
+    }
+    table[h] = 0;
+  }
+
+  /**
+   * Computes a hash value for the specified block position.
+   * @param pos block position
+   * @return hash value
+   */
+  private static int hash(final long pos) {
+    final long h = pos * 0x9E3779B97F4A7C15L;
+    return (int) (h ^ h >>> 32);
+  }
 }
@@ -11,11 +11,25 @@ import org.basex.util.*;
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
-public final class DataAccess implements Closeable {
+public final class DataAccess implements HeapAccess {
   /** Buffer manager. */
-  private final Buffers buffers = new Buffers();
+  private final Buffers buffers;
   /** Reference to the data input stream. */
   private final RandomAccessFile raf;
+  /** Indicates if the file will be mapped into memory if it has no pending changes. */
+  private final boolean mmap;
+  /** Memory mapping ({@code null} if mapping is disabled or if file has pending changes). */
+  private volatile Mapping mapping;
+  /** Write-ahead log (can be {@code null}). */
+  private final WriteAheadLog log;
+  /** Name of the file. */
+  private final String name;
+  /** File reference. */
+  private final IOFile file;
+  /** Read-ahead of sequentially requested pages ({@code null} if disabled). */
+  private final ReadAhead ahead;
+  /** Preserved page versions of snapshots ({@code null} if no snapshot has been created). */
+  private Versions versions;
   /** File size. */
   private long length;
   /** Changed flag. */
@@ -29,12 +43,73 @@ public final class DataAccess implements Closeable {
    * @throws IOException I/O Exception
    */
   public DataAccess(final IOFile file) throws IOException {
+    this(file, null);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * @param file the file to be read
+   * @param log write-ahead log (can be {@code null})
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final WriteAheadLog log) throws IOException {
+    this(file, Buffers.DEFAULT, false, log);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * If memory mapping is enabled, positional read operations will be performed without
+   * synchronization as long as the file has no pending changes.
+   * @param file the file to be read
+   * @param size number of buffers
+   * @param mmap enable memory mapping
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final int size, final boolean mmap) throws IOException {
+    this(file, size, mmap, null);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * If a write-ahead log is specified, changes will be logged while logging is active.
+   * @param file the file to be read
+   * @param size number of buffers
+   * @param mmap enable memory mapping
+   * @param log write-ahead log (can be {@code null})
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final int size, final boolean mmap,
+      final WriteAheadLog log) throws IOException {
+    this(file, size, mmap, 0, log);
+  }
+
+  /**
+   * Constructor, initializing the file reader.
+   * If pages are read ahead, the pages following sequentially requested pages will be read
+   * in the background.
+   * @param file the file to be read
+   * @param size number of buffers
+   * @param mmap enable memory mapping
+   * @param pages number of pages to be read ahead (0: disabled)
+   * @param log write-ahead log (can be {@code null})
+   * @throws IOException I/O Exception
+   */
+  public DataAccess(final IOFile file, final int size, final boolean mmap, final int pages,
+      final WriteAheadLog log) throws IOException {
+    buffers = new Buffers(size);
+    this.mmap = mmap;
+    this.log = log;
+    this.file = file;
+    name = file.name();
     RandomAccessFile f = null;
     try {
       f = new RandomAccessFile(file.file(), "rw");
       length = f.length();
       raf = f;
+      ahead = pages > 0 && !mmap ? new ReadAhead(f.getChannel(), pages) : null;
+      if(log != null) log.register(name, f.getChannel());
       cursor(0);
+      map();
     } catch(final IOException ex) {
       if(f != null) f.close();
       throw ex;
@@ -44,23 +119,38 @@ public final class DataAccess implements Closeable {
   /**
    * Flushes the buffered data.
    */
+  @Override
   public synchronized void flush() {
     try {
       for(final Buffer buffer : buffers.all()) {
         if(buffer.dirty) writeBlock(buffer);
       }
       if(changed) {
-        raf.setLength(length);
+        // preserve pages that will be cut off for open snapshots
+        if(versions != null) versions.truncate(length, raf.getChannel());
+        if(ahead != null) ahead.invalidate();
+        if(logging()) log.length(name, length);
+        else raf.setLength(length);
         changed = false;
       }
+      map();
     } catch(final IOException ex) {
       Util.stack(ex);
     }
   }
 
+  @Override
+  public synchronized HeapAccess snapshot() throws IOException {
+    flush();
+    if(versions == null) versions = new Versions(file, log);
+    return new HeapSnapshot(file, versions, length, buffers.all().length);
+  }
+
   @Override
   public synchronized void close() {
     flush();
+    unmap();
+    if(log != null) log.register(name, null);
     try {
       raf.close();
     } catch(final IOException ex) {
@@ -80,6 +170,7 @@ public final class DataAccess implements Closeable {
    * Returns the file length.
    * @return file length
    */
+  @Override
   public long length() {
     return length;
   }
@@ -97,9 +188,13 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return integer value
    */
-  public synchronized byte read1(final long pos) {
-    cursor(pos);
-    return read1();
+  public byte read1(final long pos) {
+    final Mapping m = mapping;
+    if(m != null) return (byte) m.read1(pos);
+    synchronized(this) {
+      cursor(pos);
+      return read1();
+    }
   }
 
   /**
@@ -115,9 +210,13 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return integer value
    */
-  public synchronized int read4(final long pos) {
-    cursor(pos);
-    return read4();
+  public int read4(final long pos) {
+    final Mapping m = mapping;
+    if(m != null) return m.read4(pos);
+    synchronized(this) {
+      cursor(pos);
+      return read4();
+    }
   }
 
   /**
@@ -133,9 +232,13 @@ public final class DataAccess implements Closeable {
    * @param pos position
    * @return long value
    */
-  public synchronized long read5(final long pos) {
-    cursor(pos);
-    return read5();
+  public long read5(final long pos) {
+    final Mapping m = mapping;
+    if(m != null) return m.read5(pos);
+    synchronized(this) {
+      cursor(pos);
+      return read5();
+    }
   }
 
   /**
@@ -151,9 +254,14 @@ public final class DataAccess implements Closeable {
    * @param pos text position
    * @return read num
    */
-  public synchronized int readNum(final long pos) {
-    cursor(pos);
-    return readNum();
+  @Override
+  public int readNum(final long pos) {
+    final Mapping m = mapping;
+    if(m != null) return m.readNum(pos);
+    synchronized(this) {
+      cursor(pos);
+      return readNum();
+    }
   }
 
   /**
@@ -161,9 +269,17 @@ public final class DataAccess implements Closeable {
    * @param pos text position
    * @return text as byte array
    */
-  public synchronized byte[] readToken(final long pos) {
-    cursor(pos);
-    return readToken();
+  @Override
+  public byte[] readToken(final long pos) {
+    final Mapping m = mapping;
+    if(m != null) {
+      final int l = m.readNum(pos);
+      return m.readBytes(pos + Num.length(l), l);
+    }
+    synchronized(this) {
+      cursor(pos);
+      return readToken();
+    }
   }
 
   /**
@@ -181,9 +297,13 @@ public final class DataAccess implements Closeable {
    * @param len length
    * @return byte array
    */
-  public synchronized byte[] readBytes(final long pos, final int len) {
-    cursor(pos);
-    return readBytes(len);
+  public byte[] readBytes(final long pos, final int len) {
+    final Mapping m = mapping;
+    if(m != null) return m.readBytes(pos, len);
+    synchronized(this) {
+      cursor(pos);
+      return readBytes(len);
+    }
   }
 
   /**
@@ -221,6 +341,11 @@ public final class DataAccess implements Closeable {
     try {
       if(buffer.dirty) writeBlock(buffer);
       buffer.pos = b;
+      if(log != null && log.read(name, b, buffer.data)) return;
+      // files with logged changes will not be read ahead
+      if(ahead != null && ahead.read(b, buffer.data, length, log == null || !log.changed(name))) {
+        return;
+      }
       raf.seek(buffer.pos);
       if(buffer.pos < raf.length())
         raf.readFully(buffer.data, 0, (int) Math.min(length - buffer.pos, IO.BLOCKSIZE));
@@ -309,6 +434,7 @@ public final class DataAccess implements Closeable {
    * @param len number of bytes to be written
    */
   public void writeBytes(final byte[] data, final int offset, final int len) {
+    unmap();
     final int last = offset + len;
     int o = offset;
 
@@ -330,6 +456,7 @@ public final class DataAccess implements Closeable {
    * @param pos write position
    * @param value value to be written
    */
+  @Override
   public void writeToken(final long pos, final byte[] value) {
     cursor(pos);
     final int len = value.length;
@@ -344,9 +471,11 @@ public final class DataAccess implements Closeable {
    * @param size size of new text entry
    * @return new offset to store text
    */
+  @Override
   public long free(final long pos, final int size) {
     // old text size (available space)
-    int os = readNum(pos) + (int) (cursor() - pos);
+    final int l = readNum(pos);
+    int os = l + Num.length(l);
 
     // extend available space by subsequent zero-bytes
     cursor(pos + os);
@@ -381,11 +510,17 @@ public final class DataAccess implements Closeable {
    */
   private synchronized void length(final long len) {
     if(len != length) {
+      unmap();
       changed = true;
       length = len;
     }
   }
 
+  @Override
+  public String toString() {
+    return Util.className(this) + " (length: " + length + ")\n- " + buffers;
+  }
+
   // PRIVATE METHODS ==============================================================================
 
   /**
@@ -402,6 +537,7 @@ public final class DataAccess implements Closeable {
    * @param value byte to be written
    */
   private void write(final int value) {
+    unmap();
     final Buffer buffer = buffer();
     buffer.dirty = true;
     buffer.data[off++] = (byte) value;
@@ -409,6 +545,36 @@ public final class DataAccess implements Closeable {
     if(nl > length) length(nl);
   }
 
+  /**
+   * Maps the file into memory if mapping is enabled.
+   * @throws IOException I/O exception
+   */
+  private void map() throws IOException {
+    // files with logged changes will not be mapped
+    if(mmap && mapping == null && (log == null || !log.changed(name))) {
+      mapping = new Mapping(raf.getChannel(), length);
+    }
+  }
+
+  /**
+   * Checks if changes are written to the write-ahead log.
+   * @return result of check
+   */
+  private boolean logging() {
+    return log != null && log.active();
+  }
+
+  /**
+   * Drops the memory mapping. Must be called before the file contents are changed.
+   */
+  private void unmap() {
+    final Mapping m = mapping;
+    if(m != null) {
+      mapping = null;
+      m.close();
+    }
+  }
+
   /**
    * Writes the specified block to disk.
    * @param buffer buffer to write
@@ -416,8 +582,15 @@ public final class DataAccess implements Closeable {
    */
   private void writeBlock(final Buffer buffer) throws IOException {
     final long pos = buffer.pos, len = Math.min(IO.BLOCKSIZE, length - pos);
-    raf.seek(pos);
-    raf.write(buffer.data, 0, (int) len);
+    // preserve stored version for open snapshots
+    if(versions != null) versions.preserve(pos, raf.getChannel());
+    if(ahead != null) ahead.invalidate();
+    if(logging()) {
+      if(len > 0) log.page(name, pos, buffer.data, (int) len);
+    } else {
+      raf.seek(pos);
+      raf.write(buffer.data, 0, (int) len);
+    }
     buffer.dirty = false;
   }
 
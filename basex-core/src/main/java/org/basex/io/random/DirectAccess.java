@@ -0,0 +1,155 @@
+package org.basex.io.random;
+
+import java.nio.*;
+import java.util.*;
+
+import org.basex.util.*;
+
+/**
+ * This class provides positional access to texts and attribute values that are stored
+ * outside the Java heap. The data is organized in chunks of direct byte buffers,
+ * which do not need to be traversed by the garbage collector.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class DirectAccess implements HeapAccess {
+  /** Power of the chunk size. */
+  private static final int CHUNKPOWER = 16;
+  /** Chunk size. */
+  private static final int CHUNKSIZE = 1 << CHUNKPOWER;
+
+  /** Chunks. */
+  private ByteBuffer[] chunks = new ByteBuffer[1];
+  /** Length of the stored data. */
+  private long length;
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public int readNum(final long pos) {
+    final int value = read1(pos);
+    switch(value & 0xC0) {
+      case 0:
+        return value;
+      case 0x40:
+        return (value - 0x40 << 8) + read1(pos + 1);
+      case 0x80:
+        return (value - 0x80 << 24) + (read1(pos + 1) << 16) + (read1(pos + 2) << 8) +
+            read1(pos + 3);
+      default:
+        return (read1(pos + 1) << 24) + (read1(pos + 2) << 16) + (read1(pos + 3) << 8) +
+            read1(pos + 4);
+    }
+  }
+
+  @Override
+  public byte[] readToken(final long pos) {
+    final int len = readNum(pos);
+    final byte[] token = new byte[len];
+    long p = pos + Num.length(len);
+    for(int t = 0; t < len;) {
+      final int o = offset(p), l = Math.min(len - t, CHUNKSIZE - o);
+      final ByteBuffer bb = chunks[chunk(p)].duplicate();
+      bb.position(o);
+      bb.get(token, t, l);
+      t += l;
+      p += l;
+    }
+    return token;
+  }
+
+  @Override
+  public void writeToken(final long pos, final byte[] value) {
+    final int len = value.length;
+    final byte[] num = Num.num(len);
+    write(pos, num, num.length);
+    write(pos + num.length, value, len);
+  }
+
+  @Override
+  public long free(final long pos, final int size) {
+    final int l = readNum(pos), os = l + Num.length(l);
+    // entry is placed last: discard it
+    if(pos + os == length) {
+      length = pos;
+      return pos;
+    }
+    // reuse the space of the old entry, or place new entry after last entry
+    return size != 0 && size <= os ? pos : length;
+  }
+
+  @Override
+  public HeapAccess snapshot() {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void flush() { }
+
+  @Override
+  public void close() {
+    // drop references: off-heap memory is released when the buffers are garbage-collected
+    Arrays.fill(chunks, null);
+    length = 0;
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (length: " + length + ", chunks: " +
+        (length + CHUNKSIZE - 1 >>> CHUNKPOWER) + ')';
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Reads a byte value and returns it as an integer value.
+   * @param pos position
+   * @return integer value
+   */
+  private int read1(final long pos) {
+    return chunks[chunk(pos)].get(offset(pos)) & 0xFF;
+  }
+
+  /**
+   * Writes bytes to the specified position. Chunks are created if required.
+   * @param pos write position
+   * @param bytes bytes to be written
+   * @param len number of bytes
+   */
+  private void write(final long pos, final byte[] bytes, final int len) {
+    long p = pos;
+    for(int b = 0; b < len;) {
+      final int c = chunk(p), o = offset(p), l = Math.min(len - b, CHUNKSIZE - o);
+      if(c >= chunks.length) chunks = Arrays.copyOf(chunks, Array.newCapacity(c + 1));
+      if(chunks[c] == null) chunks[c] = ByteBuffer.allocateDirect(CHUNKSIZE);
+      final ByteBuffer bb = chunks[c].duplicate();
+      bb.position(o);
+      bb.put(bytes, b, l);
+      b += l;
+      p += l;
+    }
+    if(p > length) length = p;
+  }
+
+  /**
+   * Returns the index of the chunk containing the specified position.
+   * @param pos position
+   * @return chunk index
+   */
+  private static int chunk(final long pos) {
+    return (int) (pos >>> CHUNKPOWER);
+  }
+
+  /**
+   * Returns the offset of the specified position in its chunk.
+   * @param pos position
+   * @return offset
+   */
+  private static int offset(final long pos) {
+    return (int) (pos & CHUNKSIZE - 1);
+  }
+}
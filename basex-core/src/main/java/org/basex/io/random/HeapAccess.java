@@ -0,0 +1,65 @@
+package org.basex.io.random;
+
+import java.io.*;
+
+import org.basex.util.*;
+
+/**
+ * This interface provides positional access to the heap files of a database,
+ * in which texts and attribute values are stored as {@link Num}-prefixed tokens.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public interface HeapAccess extends Closeable {
+  /**
+   * Reads a {@link Num} value from the specified position.
+   * @param pos position
+   * @return read num
+   */
+  int readNum(long pos);
+
+  /**
+   * Reads a token from the specified position.
+   * @param pos position
+   * @return token
+   */
+  byte[] readToken(long pos);
+
+  /**
+   * Writes a token to the specified position.
+   * @param pos write position
+   * @param value value to be written
+   */
+  void writeToken(long pos, byte[] value);
+
+  /**
+   * Returns the offset to a free slot for writing an entry with the specified length.
+   * @param pos offset of the original entry
+   * @param size size of new entry
+   * @return new offset to store the entry
+   */
+  long free(long pos, int size);
+
+  /**
+   * Returns the length of the heap. New entries will be appended at this offset.
+   * @return length
+   */
+  long length();
+
+  /**
+   * Creates a read-only snapshot of the current state of the heap. Pages that are overwritten
+   * later on will be preserved until the snapshot is closed.
+   * @return snapshot
+   * @throws IOException I/O exception
+   */
+  HeapAccess snapshot() throws IOException;
+
+  /**
+   * Flushes the buffered data.
+   */
+  void flush();
+
+  @Override
+  void close();
+}
@@ -0,0 +1,152 @@
+package org.basex.io.random;
+
+import java.io.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides read-only access to a snapshot of a heap file.
+ * Pages that have been overwritten after the creation of the snapshot are retrieved from
+ * their preserved versions.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class HeapSnapshot implements HeapAccess {
+  /** Buffer manager. */
+  private final Buffers buffers;
+  /** Heap file. */
+  private final RandomAccessFile file;
+  /** Preserved page versions. */
+  private final Versions versions;
+  /** Version of this snapshot. */
+  private final Versions.Version version;
+  /** Length of the heap. */
+  private final long length;
+  /** Offset in the current page. */
+  private int off;
+
+  /**
+   * Constructor.
+   * @param file heap file
+   * @param versions preserved page versions
+   * @param length length of the heap
+   * @param size number of buffers
+   * @throws IOException I/O exception
+   */
+  HeapSnapshot(final IOFile file, final Versions versions, final long length, final int size)
+      throws IOException {
+    this.versions = versions;
+    this.length = length;
+    buffers = new Buffers(size);
+    this.file = new RandomAccessFile(file.file(), "r");
+    version = versions.open(length);
+  }
+
+  @Override
+  public synchronized int readNum(final long pos) {
+    cursor(pos);
+    return readNum();
+  }
+
+  @Override
+  public synchronized byte[] readToken(final long pos) {
+    cursor(pos);
+    final int len = readNum();
+    final byte[] token = new byte[len];
+    for(int t = 0; t < len;) {
+      if(off == IO.BLOCKSIZE) cursor(buffers.current().pos + IO.BLOCKSIZE);
+      final int l = Math.min(len - t, IO.BLOCKSIZE - off);
+      Array.copy(buffers.current().data, off, l, token, t);
+      off += l;
+      t += l;
+    }
+    return token;
+  }
+
+  @Override
+  public void writeToken(final long pos, final byte[] value) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public long free(final long pos, final int size) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public long length() {
+    return length;
+  }
+
+  @Override
+  public HeapAccess snapshot() {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void flush() { }
+
+  @Override
+  public synchronized void close() {
+    try {
+      versions.close(version);
+      file.close();
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (length: " + length + ")\n- " + buffers + "\n- " + versions;
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Sets the cursor to the specified position and reads the page if necessary.
+   * @param pos position
+   */
+  private void cursor(final long pos) {
+    off = (int) (pos & IO.BLOCKSIZE - 1);
+    final long b = pos - off;
+    if(!buffers.cursor(b)) return;
+
+    final Buffer buffer = buffers.current();
+    buffer.pos = b;
+    try {
+      versions.read(version, b, buffer.data, file.getChannel());
+    } catch(final IOException ex) {
+      Util.stack(ex);
+    }
+  }
+
+  /**
+   * Reads the next byte.
+   * @return next byte
+   */
+  private int read() {
+    if(off == IO.BLOCKSIZE) cursor(buffers.current().pos + IO.BLOCKSIZE);
+    return buffers.current().data[off++] & 0xFF;
+  }
+
+  /**
+   * Reads the next compressed number and returns it as integer.
+   * @return next integer
+   */
+  private int readNum() {
+    final int value = read();
+    switch(value & 0xC0) {
+    case 0:
+      return value;
+    case 0x40:
+      return (value - 0x40 << 8) + read();
+    case 0x80:
+      return (value - 0x80 << 24) + (read() << 16) + (read() << 8) + read();
+    default:
+      return (read() << 24) + (read() << 16) + (read() << 8) + read();
+    }
+  }
+}
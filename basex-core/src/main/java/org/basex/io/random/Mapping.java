@@ -0,0 +1,171 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.lang.reflect.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides positional read-only access to a memory-mapped file.
+ * The file is split into segments to stay below the size limit of a single mapping.
+ * As no cursor is maintained, the class can be accessed by multiple threads in parallel.
+ * The segments are unmapped when the mapping is closed. If this is not supported by the JVM,
+ * they are released by the garbage collector.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class Mapping {
+  /** Power of the segment size (must be larger than {@link IO#BLOCKPOWER}). */
+  private static final int SEGMENTPOWER = 30;
+  /** Segment size. */
+  private static final long SEGMENTSIZE = 1L << SEGMENTPOWER;
+  /** Instance for unmapping segments ({@code null} if not available). */
+  private static final Object UNSAFE;
+  /** Method for unmapping segments ({@code null} if not available). */
+  private static final Method UNMAP;
+
+  static {
+    final Class<?> clazz = Reflect.find("sun.misc.Unsafe");
+    Object unsafe = null;
+    try {
+      final Field field = clazz.getDeclaredField("theUnsafe");
+      field.setAccessible(true);
+      unsafe = field.get(null);
+    } catch(final Throwable ex) {
+      Util.debug(ex);
+    }
+    UNSAFE = unsafe;
+    UNMAP = unsafe != null ? Reflect.method(clazz, "invokeCleaner", ByteBuffer.class) : null;
+  }
+
+  /** Mapped segments. */
+  private final MappedByteBuffer[] segments;
+
+  /**
+   * Constructor.
+   * @param channel file channel
+   * @param size number of bytes to be mapped
+   * @throws IOException I/O exception
+   */
+  Mapping(final FileChannel channel, final long size) throws IOException {
+    final int sl = (int) (size + SEGMENTSIZE - 1 >>> SEGMENTPOWER);
+    segments = new MappedByteBuffer[sl];
+    for(int s = 0; s < sl; s++) {
+      final long pos = (long) s << SEGMENTPOWER;
+      segments[s] = channel.map(MapMode.READ_ONLY, pos, Math.min(SEGMENTSIZE, size - pos));
+    }
+  }
+
+  /**
+   * Reads a byte value and returns it as an integer value.
+   * @param pos file position
+   * @return integer value
+   */
+  int read1(final long pos) {
+    return segment(pos).get(offset(pos)) & 0xFF;
+  }
+
+  /**
+   * Reads a short value and returns it as an integer value.
+   * @param pos file position
+   * @return integer value
+   */
+  int read2(final long pos) {
+    final int o = offset(pos);
+    return o + 2 <= SEGMENTSIZE ? segment(pos).getShort(o) & 0xFFFF :
+      (read1(pos) << 8) + read1(pos + 1);
+  }
+
+  /**
+   * Reads an integer value.
+   * @param pos file position
+   * @return integer value
+   */
+  int read4(final long pos) {
+    final int o = offset(pos);
+    return o + 4 <= SEGMENTSIZE ? segment(pos).getInt(o) :
+      (read2(pos) << 16) + read2(pos + 2);
+  }
+
+  /**
+   * Reads a 5-byte value and returns it as a long value.
+   * @param pos file position
+   * @return long value
+   */
+  long read5(final long pos) {
+    return (long) read1(pos) << 32 | read4(pos + 1) & 0xFFFFFFFFL;
+  }
+
+  /**
+   * Reads a {@link org.basex.util.Num} value.
+   * @param pos file position
+   * @return integer value
+   */
+  int readNum(final long pos) {
+    final int value = read1(pos);
+    switch(value & 0xC0) {
+      case 0:
+        return value;
+      case 0x40:
+        return (value - 0x40 << 8) + read1(pos + 1);
+      case 0x80:
+        return (value - 0x80 << 24) + (read1(pos + 1) << 16) + read2(pos + 2);
+      default:
+        return read4(pos + 1);
+    }
+  }
+
+  /**
+   * Reads a number of bytes.
+   * @param pos file position
+   * @param len number of bytes
+   * @return byte array
+   */
+  byte[] readBytes(final long pos, final int len) {
+    final byte[] bytes = new byte[len];
+    long p = pos;
+    for(int b = 0; b < len;) {
+      final int o = offset(p), l = (int) Math.min(len - b, SEGMENTSIZE - o);
+      final ByteBuffer bb = segment(p).duplicate();
+      bb.position(o);
+      bb.get(bytes, b, l);
+      b += l;
+      p += l;
+    }
+    return bytes;
+  }
+
+  /**
+   * Unmaps all segments. Must only be called if no other threads access the mapping.
+   */
+  void close() {
+    final int sl = segments.length;
+    for(int s = 0; s < sl; s++) {
+      if(UNMAP != null) Reflect.invoke(UNMAP, UNSAFE, segments[s]);
+      segments[s] = null;
+    }
+  }
+
+  /**
+   * Returns the segment containing the specified position.
+   * @param pos file position
+   * @return segment
+   */
+  private ByteBuffer segment(final long pos) {
+    return segments[(int) (pos >>> SEGMENTPOWER)];
+  }
+
+  /**
+   * Returns the offset of the specified position in its segment.
+   * @param pos file position
+   * @return offset
+   */
+  private static int offset(final long pos) {
+    return (int) (pos & SEGMENTSIZE - 1);
+  }
+}
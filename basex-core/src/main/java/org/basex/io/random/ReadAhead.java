@@ -0,0 +1,132 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class reads pages of a database file ahead if they are accessed sequentially.
+ *
+ * If a page is requested that directly follows the previously requested pages, the next pages
+ * of the file are read by a background thread with a single positional read operation.
+ * Prefetched pages are kept until they are requested or until the file is changed.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class ReadAhead {
+  /** Number of consecutive page requests after which pages will be read ahead. */
+  private static final int SEQUENTIAL = 2;
+  /** Background thread for reading pages (shared by all files). */
+  private static final ExecutorService READER = Executors.newSingleThreadExecutor(r -> {
+    final Thread thread = new Thread(r, Util.className(ReadAhead.class));
+    thread.setDaemon(true);
+    return thread;
+  });
+
+  /** Prefetched pages, indexed by their file offsets. */
+  private final HashMap<Long, byte[]> cache = new HashMap<>();
+  /** File channel. */
+  private final FileChannel channel;
+  /** Number of pages to be read ahead. */
+  private final int pages;
+
+  /** File offset of the last requested page. */
+  private long last = -IO.BLOCKSIZE;
+  /** Number of consecutive page requests. */
+  private int run;
+  /** File offset of the first page that has not been scheduled yet. */
+  private long next;
+  /** Generation of the file contents (incremented whenever the file is changed). */
+  private int gen;
+
+  /**
+   * Constructor.
+   * @param channel file channel
+   * @param pages number of pages to be read ahead
+   */
+  ReadAhead(final FileChannel channel, final int pages) {
+    this.channel = channel;
+    this.pages = pages;
+  }
+
+  /**
+   * Registers a page request. If the page has been prefetched, it is copied to the specified
+   * array. If the requested pages are sequential, the next pages are read in the background.
+   * @param pos file offset of the page
+   * @param data array to be filled
+   * @param length length of the file
+   * @param prefetch indicates if pages may be read ahead
+   * @return {@code true} if the page was prefetched
+   */
+  synchronized boolean read(final long pos, final byte[] data, final long length,
+      final boolean prefetch) {
+    if(pos == last + IO.BLOCKSIZE) {
+      run++;
+    } else {
+      run = 0;
+      next = 0;
+    }
+    last = pos;
+
+    // schedule next pages when half of the prefetched pages have been requested
+    final long from = Math.max(next, pos + IO.BLOCKSIZE);
+    final long to = Math.min(pos + ((long) pages + 1 << IO.BLOCKPOWER), length);
+    if(prefetch && run >= SEQUENTIAL && from < to &&
+        next <= pos + ((long) (pages >> 1) << IO.BLOCKPOWER)) {
+      next = to;
+      final int g = gen;
+      READER.execute(() -> prefetch(from, to, g));
+    }
+
+    final byte[] page = cache.remove(pos);
+    if(page == null) return false;
+    System.arraycopy(page, 0, data, 0, IO.BLOCKSIZE);
+    return true;
+  }
+
+  /**
+   * Discards all prefetched pages. Must be called whenever the file is changed.
+   */
+  synchronized void invalidate() {
+    gen++;
+    next = 0;
+    cache.clear();
+  }
+
+  @Override
+  public synchronized String toString() {
+    return Util.className(this) + " (pages: " + pages + ", prefetched: " + cache.size() + ')';
+  }
+
+  /**
+   * Reads pages in the background.
+   * @param from file offset of the first page
+   * @param to file offset after the last byte to be read
+   * @param g generation of the file contents at the time the pages were scheduled
+   */
+  private void prefetch(final long from, final long to, final int g) {
+    final byte[] bytes = new byte[(int) (to - from)];
+    final ByteBuffer bb = ByteBuffer.wrap(bytes);
+    try {
+      while(bb.hasRemaining() && channel.read(bb, from + bb.position()) != -1);
+    } catch(final IOException ex) {
+      // file may have been closed in the meantime
+      Util.debug(ex);
+      return;
+    }
+    synchronized(this) {
+      // discard pages if the file has been changed, limit the number of cached pages
+      if(g != gen) return;
+      if(cache.size() >= pages << 1) cache.clear();
+      for(int o = 0; o < bytes.length; o += IO.BLOCKSIZE) {
+        cache.put(from + o, Arrays.copyOfRange(bytes, o, o + IO.BLOCKSIZE));
+      }
+    }
+  }
+}
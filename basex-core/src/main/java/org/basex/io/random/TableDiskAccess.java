@@ -5,6 +5,7 @@ import static org.basex.data.DataText.*;
 import java.io.*;
 import java.nio.channels.*;
 import java.util.*;
+import java.util.zip.*;
 
 import org.basex.core.*;
 import org.basex.data.*;
@@ -12,23 +13,39 @@ import org.basex.io.*;
 import org.basex.io.in.DataInput;
 import org.basex.io.out.DataOutput;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * This class stores the table on disk and reads it page-wise.
  *
+ * If checksums are enabled, a CRC32C checksum is stored for each physical page in a side file.
+ * A page is verified when it is read from disk for the first time, and its checksum is updated
+ * whenever it is written back.
+ *
+ * If read-ahead is enabled, the pages following sequentially requested pages are read in the
+ * background.
+ *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  * @author Tim Petrowsky
  */
 public final class TableDiskAccess extends TableAccess {
   /** Buffer manager. */
-  private final Buffers buffers = new Buffers();
+  private final Buffers buffers;
   /** File storing all pages. */
   private final RandomAccessFile file;
+  /** Name of the file storing all pages. */
+  private final String name;
+  /** Write-ahead log (can be {@code null}). */
+  private final WriteAheadLog log;
+  /** Read-ahead of sequentially requested pages ({@code null} if disabled). */
+  private final ReadAhead ahead;
   /** Bitmap storing free (=0) and used (=1) pages. */
   private BitArray usedPages;
   /** File lock. */
   private FileLock lock;
+  /** Memory mapping (only assigned if the table is read-locked and mapping is enabled). */
+  private volatile Mapping mapping;
 
   /** First pre values (ascending order); will be initialized with the first update. */
   private int[] fPreIndex;
@@ -39,6 +56,15 @@ public final class TableDiskAccess extends TableAccess {
   /** Number of used pages. */
   private int used;
 
+  /** Checksums of the physical pages ({@code null} if checksums are disabled). */
+  private int[] checksums;
+  /** Pages whose checksums have been verified or updated since the table was opened. */
+  private BitArray verified;
+  /** Indicates if checksums have been updated. */
+  private boolean updated;
+  /** Preserved page versions of snapshots ({@code null} if no snapshot has been created). */
+  private Versions versions;
+
   /** Pointer to current page. */
   private int page = -1;
   /** Pre value of the first entry in the current page. */
@@ -53,7 +79,22 @@ public final class TableDiskAccess extends TableAccess {
    * @throws IOException I/O exception
    */
   public TableDiskAccess(final MetaData meta, final boolean write) throws IOException {
+    this(meta, write, null);
+  }
+
+  /**
+   * Constructor.
+   * If a write-ahead log is specified, changes will be logged while logging is active.
+   * @param meta meta data
+   * @param write write lock
+   * @param log write-ahead log (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  public TableDiskAccess(final MetaData meta, final boolean write, final WriteAheadLog log)
+      throws IOException {
     super(meta);
+    this.log = log;
+    buffers = new Buffers(meta.buffers);
 
     // read meta and index data
     try(DataInput in = new DataInput(meta.dbFile(DATATBL + 'i'))) {
@@ -74,9 +115,22 @@ public final class TableDiskAccess extends TableAccess {
       }
     }
 
+    // read checksums
+    if(meta.checksums) {
+      try(DataInput in = new DataInput(meta.dbFile(DATATBL + 'c'))) {
+        checksums = in.readNums();
+      }
+      verified = new BitArray(Math.max(pages, checksums.length), false);
+    }
+
     // initialize data file
-    file = new RandomAccessFile(meta.dbFile(DATATBL).file(), "rw");
+    final IOFile tbl = meta.dbFile(DATATBL);
+    name = tbl.name();
+    file = new RandomAccessFile(tbl.file(), "rw");
     if(!lock(write)) throw new BaseXException(Text.DB_PINNED_X, meta.name);
+    ahead = meta.readahead > 0 && !meta.mmap ? new ReadAhead(file.getChannel(), meta.readahead) :
+      null;
+    if(log != null) log.register(name, file.getChannel());
   }
 
   /**
@@ -97,14 +151,75 @@ public final class TableDiskAccess extends TableAccess {
     }
   }
 
+  /**
+   * Computes the checksum of a page.
+   * @param page page
+   * @return checksum
+   */
+  public static int checksum(final byte[] page) {
+    final CRC32C crc = new CRC32C();
+    crc.update(page, 0, IO.BLOCKSIZE);
+    return (int) crc.getValue();
+  }
+
+  /**
+   * Verifies the checksums of all pages. Modified pages are written to disk before.
+   * @return physical indexes of the pages with invalid checksums
+   * @throws IOException I/O exception
+   */
+  public synchronized int[] verify() throws IOException {
+    final IntList invalid = new IntList();
+    if(checksums != null) {
+      for(final Buffer buffer : buffers.all()) {
+        write(buffer);
+      }
+      final byte[] data = new byte[IO.BLOCKSIZE];
+      final long length = file.length();
+      for(int p = 0; p < pages; p++) {
+        final long pos = (long) p << IO.BLOCKPOWER;
+        if(log == null || !log.read(name, pos, data)) {
+          if(pos >= length) continue;
+          file.seek(pos);
+          file.readFully(data);
+        }
+        if(p >= checksums.length || checksum(data) != checksums[p]) invalid.add(p);
+        else verified.set(p);
+      }
+    }
+    return invalid.finish();
+  }
+
+  /**
+   * Creates a read-only snapshot of the current state of the table. Pages that are overwritten
+   * later on will be preserved until the snapshot is closed.
+   * @param md meta data of the snapshot
+   * @return snapshot
+   * @throws IOException I/O exception
+   */
+  public synchronized TableAccess snapshot(final MetaData md) throws IOException {
+    for(final Buffer buffer : buffers.all()) {
+      write(buffer);
+    }
+    if(versions == null) versions = new Versions(meta.dbFile(DATATBL), log);
+    return fPreIndex == null ? new TableSnapshot(md, versions, pages, used, null, null) :
+      new TableSnapshot(md, versions, pages, used, Arrays.copyOf(fPreIndex, used),
+        Arrays.copyOf(pageIndex, used));
+  }
+
   @Override
   public synchronized void flush(final boolean all) throws IOException {
     for(final Buffer buffer : buffers.all()) {
       write(buffer);
     }
+    if(updated && all) {
+      try(DataOutput out = output(DATATBL + 'c')) {
+        out.writeNums(Arrays.copyOf(checksums, pages));
+      }
+      updated = false;
+    }
     if(!dirty || !all) return;
 
-    try(DataOutput out = new DataOutput(meta.dbFile(DATATBL + 'i'))) {
+    try(DataOutput out = output(DATATBL + 'i')) {
       final int p = pages;
       boolean regular = true;
 
@@ -135,56 +250,79 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public synchronized void close() throws IOException {
+    unmap();
     flush(true);
+    if(log != null) log.register(name, null);
     file.close();
   }
 
   @Override
-  public boolean lock(final boolean write) {
+  public synchronized boolean lock(final boolean write) {
     try {
       if(lock != null) {
         if(write != lock.isShared()) return true;
         lock.release();
       }
       lock = file.getChannel().tryLock(0, Long.MAX_VALUE, !write);
-      return lock != null;
+      if(lock == null) return false;
+      // pages are only mapped while the table is not updated
+      if(write) unmap();
+      else map();
+      return true;
     } catch(final IOException ex) {
       throw Util.notExpected(ex);
     }
   }
 
   @Override
-  public synchronized int read1(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return data[o] & 0xFF;
+  public int read1(final int pre, final int offset) {
+    final Mapping m = mapping;
+    if(m != null) return m.read1(position(pre, m) + offset);
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return data[o] & 0xFF;
+    }
   }
 
   @Override
-  public synchronized int read2(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+  public int read2(final int pre, final int offset) {
+    final Mapping m = mapping;
+    if(m != null) return m.read2(position(pre, m) + offset);
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized int read4(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
-      ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+  public int read4(final int pre, final int offset) {
+    final Mapping m = mapping;
+    if(m != null) return m.read4(position(pre, m) + offset);
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
+        ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+    }
   }
 
   @Override
-  public synchronized long read5(final int pre, final int offset) {
-    final int o = offset + cursor(pre);
-    final byte[] data = buffers.current().data;
-    return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
-      ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+  public long read5(final int pre, final int offset) {
+    final Mapping m = mapping;
+    if(m != null) return m.read5(position(pre, m) + offset);
+    synchronized(this) {
+      final int o = offset + cursor(pre);
+      final byte[] data = buffers.current().data;
+      return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
+        ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+    }
   }
 
   @Override
   public void write1(final int pre, final int offset, final int value) {
+    unmap();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     buffer.data[o] = (byte) value;
@@ -193,6 +331,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write2(final int pre, final int offset, final int value) {
+    unmap();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -203,6 +342,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write4(final int pre, final int offset, final int value) {
+    unmap();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -215,6 +355,7 @@ public final class TableDiskAccess extends TableAccess {
 
   @Override
   public void write5(final int pre, final int offset, final long value) {
+    unmap();
     final int o = offset + cursor(pre);
     final Buffer buffer = buffers.current();
     final byte[] data = buffer.data;
@@ -431,7 +572,9 @@ public final class TableDiskAccess extends TableAccess {
     final StringBuilder sb = new StringBuilder();
     sb.append(Util.className(this)).append(" (").append("pages: ").append(pages);
     sb.append(", used: ").append(used).append(", page: ").append(page);
-    sb.append(", firstPre: ").append(firstPre).append(", nextPre: ").append(nextPre).append(")");
+    sb.append(", firstPre: ").append(firstPre).append(", nextPre: ").append(nextPre);
+    sb.append(", mapped: ").append(mapping != null).append(")");
+    sb.append("\n- ").append(buffers);
     if(fPreIndex != null) sb.append("\n- FPres: ").append(Arrays.toString(fPreIndex));
     if(pageIndex != null) sb.append("\n- Pages: ").append(Arrays.toString(pageIndex));
     if(usedPages != null) sb.append("\n- Used Pages: ").append(usedPages);
@@ -444,6 +587,7 @@ public final class TableDiskAccess extends TableAccess {
    * Marks the data structures as dirty.
    */
   private void dirty() {
+    unmap();
     // initialize data structures required for performing updates
     if(fPreIndex == null) {
       fPreIndex = new int[pages];
@@ -505,6 +649,69 @@ public final class TableDiskAccess extends TableAccess {
     read(pageIndex == null ? pre : pageIndex[pre]);
   }
 
+  /**
+   * Returns the file position of the entry with the specified pre value.
+   * Does not change the cursor, and can thus be called by multiple threads in parallel.
+   * If checksums are enabled, the page will be verified when it is accessed for the first time.
+   * @param pre pre value
+   * @param m memory mapping
+   * @return file position
+   */
+  private long position(final int pre, final Mapping m) {
+    final long pos = position(pre);
+    if(checksums != null) {
+      final int p = (int) (pos >>> IO.BLOCKPOWER);
+      if(!verified.get(p)) {
+        synchronized(this) {
+          if(!verified.get(p)) verify(p, m.readBytes((long) p << IO.BLOCKPOWER, IO.BLOCKSIZE));
+        }
+      }
+    }
+    return pos;
+  }
+
+  /**
+   * Returns the file position of the entry with the specified pre value.
+   * @param pre pre value
+   * @return file position
+   */
+  private long position(final int pre) {
+    if(pre < 0 || pre >= meta.size) throw Util.notExpected(
+        "Data Access out of bounds:\n- pre value: " + pre + "\n- table size: " + meta.size);
+    if(fPreIndex == null) return (long) pre << IO.NODEPOWER;
+
+    // find last page with a first pre value that is smaller than or equal to the pre value
+    int l = 0, h = used - 1;
+    while(l < h) {
+      final int m = l + h + 1 >>> 1;
+      if(fPreIndex[m] <= pre) l = m;
+      else h = m - 1;
+    }
+    return ((long) pageIndex[l] << IO.BLOCKPOWER) + (pre - fPreIndex[l] << IO.NODEPOWER);
+  }
+
+  /**
+   * Maps the table file into memory if this is enabled for the database.
+   * @throws IOException I/O exception
+   */
+  private void map() throws IOException {
+    // the table will not be mapped if it has logged changes
+    if(meta.mmap && mapping == null && (log == null || !log.changed(name))) {
+      mapping = new Mapping(file.getChannel(), file.length());
+    }
+  }
+
+  /**
+   * Drops the memory mapping and switches back to buffered access.
+   */
+  private void unmap() {
+    final Mapping m = mapping;
+    if(m != null) {
+      mapping = null;
+      m.close();
+    }
+  }
+
   /**
    * Return the specified pre value.
    * @param pre index of the page to fetch
@@ -527,15 +734,32 @@ public final class TableDiskAccess extends TableAccess {
       buffer.pos = pre;
       if(pre >= pages) {
         pages = pre + 1;
-      } else {
-        file.seek(buffer.pos << IO.BLOCKPOWER);
-        file.readFully(buffer.data);
+      } else if(log == null || !log.read(name, buffer.pos << IO.BLOCKPOWER, buffer.data)) {
+        // tables with logged changes will not be read ahead
+        final long pos = buffer.pos << IO.BLOCKPOWER;
+        if(ahead == null || !ahead.read(pos, buffer.data, (long) pages << IO.BLOCKPOWER,
+            log == null || !log.changed(name))) {
+          file.seek(pos);
+          file.readFully(buffer.data);
+        }
+        if(checksums != null && !verified.get(pre)) verify(pre, buffer.data);
       }
     } catch(final IOException ex) {
       throw new RuntimeException(Util.info(ex));
     }
   }
 
+  /**
+   * Compares the checksum of a page that has been read from disk with the stored checksum.
+   * @param pre physical index of the page
+   * @param data page data
+   */
+  private void verify(final int pre, final byte[] data) {
+    if(pre >= checksums.length || checksum(data) != checksums[pre]) throw new RuntimeException(
+        Util.info("Database '%': checksum mismatch in page % of table.", meta.name, pre));
+    verified.set(pre);
+  }
+
   /**
    * Writes the specified buffer to disk and resets the dirty flag.
    * @param buffer buffer to write
@@ -544,9 +768,35 @@ public final class TableDiskAccess extends TableAccess {
   private void write(final Buffer buffer) throws IOException {
     if(!buffer.dirty) return;
 
-    file.seek(buffer.pos << IO.BLOCKPOWER);
-    file.write(buffer.data);
+    // preserve stored version for open snapshots
+    if(versions != null) versions.preserve(buffer.pos << IO.BLOCKPOWER, file.getChannel());
+    if(ahead != null) ahead.invalidate();
+    if(log != null && log.active()) {
+      log.page(name, buffer.pos << IO.BLOCKPOWER, buffer.data, IO.BLOCKSIZE);
+    } else {
+      file.seek(buffer.pos << IO.BLOCKPOWER);
+      file.write(buffer.data);
+    }
     buffer.dirty = false;
+
+    if(checksums != null) {
+      final int pre = (int) buffer.pos;
+      if(pre >= checksums.length) checksums = Arrays.copyOf(checksums, Array.newCapacity(pre + 1));
+      checksums[pre] = checksum(buffer.data);
+      verified.set(pre);
+      updated = true;
+    }
+  }
+
+  /**
+   * Returns an output stream for the specified database file.
+   * @param filename name of the database file
+   * @return output stream
+   * @throws IOException I/O exception
+   */
+  private DataOutput output(final String filename) throws IOException {
+    final IOFile target = meta.dbFile(filename);
+    return log != null ? log.output(target) : new DataOutput(target);
   }
 
   /**
@@ -8,7 +8,10 @@ import org.basex.util.*;
 
 /**
  * This class allows main memory access to the database table representation.
- * All table entries are stored in arrays
+ * All table entries are stored in arrays. If {@link MetaData#columnar} is enabled,
+ * the entries are split into integer columns (kind and name, distance, size, id), and operations
+ * that only access a single column (such as kind and name tests) touch less memory.
+ * If {@link MetaData#offheap} is enabled, the entries are stored in rows outside the Java heap.
  *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
@@ -16,6 +19,10 @@ import org.basex.util.*;
 public final class TableMemAccess extends TableAccess {
   /** Table blocks. */
   private final ArrayList<TableMemBlock> blocks = new ArrayList<>();
+  /** Table layout. */
+  private final TableMemBlock.Layout layout;
+  /** Columnar layout. */
+  private final boolean columnar;
   /** Dense flag (blocks contain no gaps). */
   private boolean dense = true;
   /** Current block index. */
@@ -27,6 +34,9 @@ public final class TableMemAccess extends TableAccess {
    */
   public TableMemAccess(final MetaData meta) {
     super(meta);
+    columnar = meta.columnar && !meta.offheap;
+    layout = meta.offheap ? TableMemBlock.Layout.DIRECT :
+      columnar ? TableMemBlock.Layout.COLUMNS : TableMemBlock.Layout.ROWS;
   }
 
   @Override
@@ -45,30 +55,38 @@ public final class TableMemAccess extends TableAccess {
   @Override
   public int read1(final int pre, final int offset) {
     final TableMemBlock block = block(pre);
+    if(columnar) return (int) read(block, pre, offset, 1);
     return (int) (block.value(pre, offset) >> ((offset < 8 ? 7 : 15) - offset << 3) & 0xFF);
   }
 
   @Override
   public int read2(final int pre, final int offset) {
     final TableMemBlock block = block(pre);
+    if(columnar) return (int) read(block, pre, offset, 2);
     return (int) (block.value(pre, offset) >> ((offset < 8 ? 6 : 14) - offset << 3) & 0xFFFF);
   }
 
   @Override
   public int read4(final int pre, final int offset) {
     final TableMemBlock block = block(pre);
+    if(columnar) return (int) read(block, pre, offset, 4);
     return (int) (block.value(pre, offset) >> ((offset < 8 ? 4 : 12) - offset << 3));
   }
 
   @Override
   public long read5(final int pre, final int offset) {
     final TableMemBlock block = block(pre);
+    if(columnar) return read(block, pre, offset, 5);
     return block.value(pre, offset) >> ((offset < 8 ? 3 : 11) - offset << 3) & 0xFFFFFFFFFFL;
   }
 
   @Override
   public void write1(final int pre, final int offset, final int value) {
     final TableMemBlock block = block(pre);
+    if(columnar) {
+      write(block, pre, offset, 1, value);
+      return;
+    }
     final long d = (long) (offset < 8 ? 7 : 15) - offset << 3;
     block.value(pre, offset, block.value(pre, offset) & ~(0xFFL << d) | (long) value << d);
   }
@@ -76,6 +94,10 @@ public final class TableMemAccess extends TableAccess {
   @Override
   public void write2(final int pre, final int offset, final int value) {
     final TableMemBlock block = block(pre);
+    if(columnar) {
+      write(block, pre, offset, 2, value);
+      return;
+    }
     final long d = (long) (offset < 8 ? 6 : 14) - offset << 3;
     block.value(pre, offset, block.value(pre, offset) & ~(0xFFFFL << d) | (long) value << d);
   }
@@ -83,6 +105,10 @@ public final class TableMemAccess extends TableAccess {
   @Override
   public void write4(final int pre, final int offset, final int value) {
     final TableMemBlock block = block(pre);
+    if(columnar) {
+      write(block, pre, offset, 4, value);
+      return;
+    }
     final long d = (long) (offset < 8 ? 4 : 12) - offset << 3;
     block.value(pre, offset, block.value(pre, offset) & ~(0xFFFFFFFFL << d) | (long) value << d);
   }
@@ -90,6 +116,10 @@ public final class TableMemAccess extends TableAccess {
   @Override
   public void write5(final int pre, final int offset, final long value) {
     final TableMemBlock block = block(pre);
+    if(columnar) {
+      write(block, pre, offset, 5, value);
+      return;
+    }
     final long d = (long) (offset < 8 ? 3 : 11) - offset << 3;
     block.value(pre, offset, block.value(pre, offset) & ~(0xFFFFFFFFFFL << d) | value << d);
   }
@@ -98,8 +128,14 @@ public final class TableMemAccess extends TableAccess {
   protected void copy(final byte[] entries, final int first, final int last) {
     for(int o = 0, pre = first; pre < last; pre++, o += IO.NODESIZE) {
       final TableMemBlock block = block(pre);
-      block.value(pre, 0, toLong(entries, o));
-      block.value(pre, 8, toLong(entries, o + 8));
+      if(columnar) {
+        for(int c = 0; c < TableMemBlock.COLUMNS; c++) {
+          block.column(pre, c, toInt(entries, o + (c << 2)));
+        }
+      } else {
+        block.value(pre, 0, toLong(entries, o));
+        block.value(pre, 8, toLong(entries, o + 8));
+      }
     }
   }
 
@@ -140,7 +176,7 @@ public final class TableMemAccess extends TableAccess {
       final int bs = blocks.size();
       final int remaining = bs == 0 ? 0 : blocks.get(bs - 1).remaining(size);
       if(remaining < count) {
-        blocks.addAll(bs, TableMemBlock.get(count - remaining, pre + remaining));
+        blocks.addAll(bs, TableMemBlock.get(count - remaining, pre + remaining, layout));
       }
     } else {
       // insert entries. if no space is left, insert new blocks
@@ -163,7 +199,8 @@ public final class TableMemAccess extends TableAccess {
   @Override
   public String toString() {
     final StringBuilder sb = new StringBuilder(Util.className(this));
-    sb.append("[size: ").append(meta.size).append("; current: ").append(current).append("; ");
+    sb.append("[size: ").append(meta.size).append("; layout: ").append(layout);
+    sb.append("; current: ").append(current).append("; ");
     sb.append(blocks.size()).append(" blocks: ");
     for(final TableMemBlock block : blocks) {
       sb.append(block.firstPre).append(' ');
@@ -213,6 +250,46 @@ public final class TableMemAccess extends TableAccess {
     return blocks.get(c);
   }
 
+  /**
+   * Reads a value from the columns of an entry.
+   * @param block block
+   * @param pre pre value
+   * @param offset offset
+   * @param len number of bytes (1-5)
+   * @return value
+   */
+  private static long read(final TableMemBlock block, final int pre, final int offset,
+      final int len) {
+    final int c = offset >>> 2, n = 4 - (offset & 3);
+    final long value = block.column(pre, c) & 0xFFFFFFFFL >>> (4 - n << 3);
+    return len <= n ? value >>> (n - len << 3) :
+      value << (len - n << 3) | read(block, pre, offset + n, len - n);
+  }
+
+  /**
+   * Writes a value to the columns of an entry.
+   * @param block block
+   * @param pre pre value
+   * @param offset offset
+   * @param len number of bytes (1-5)
+   * @param value value to be written
+   */
+  private static void write(final TableMemBlock block, final int pre, final int offset,
+      final int len, final long value) {
+    final int c = offset >>> 2, n = 4 - (offset & 3);
+    long v = value;
+    int l = len;
+    if(l > n) {
+      // write trailing bytes to next column
+      write(block, pre, offset + n, l - n, v);
+      v >>>= l - n << 3;
+      l = n;
+    }
+    final int shift = n - l << 3;
+    final long mask = 0xFFFFFFFFL >>> (4 - l << 3) << shift;
+    block.column(pre, c, (int) (block.column(pre, c) & ~mask | v << shift & mask));
+  }
+
   /**
    * Returns the first pre value of the specified block.
    * @param index block index
@@ -244,4 +321,15 @@ public final class TableMemAccess extends TableAccess {
         | (data[offset + 4] & 0xFFL) << 24 | (data[offset + 5] & 0xFFL) << 16
         | (data[offset + 6] & 0xFFL) << 8 | data[offset + 7] & 0xFFL;
   }
+
+  /**
+   * Converts values from the specified array to an integer value.
+   * @param data data
+   * @param offset offset (multiple of 4)
+   * @return integer value
+   */
+  private static int toInt(final byte[] data, final int offset) {
+    return (data[offset] & 0xFF) << 24 | (data[offset + 1] & 0xFF) << 16
+        | (data[offset + 2] & 0xFF) << 8 | data[offset + 3] & 0xFF;
+  }
 }
@@ -1,5 +1,6 @@
 package org.basex.io.random;
 
+import java.nio.*;
 import java.util.*;
 
 import org.basex.io.*;
@@ -8,35 +9,57 @@ import org.basex.util.list.*;
 
 /**
  * Organizes a single main memory table block.
- * All table entries are stored in arrays
+ * All table entries are stored in arrays: either in rows, with two long values per entry,
+ * or in columns, with four integer values per entry. Rows can also be stored off-heap.
  *
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
 final class TableMemBlock {
-  /** Table data, with two values for one XML node. */
+  /** Number of columns. */
+  static final int COLUMNS = IO.NODESIZE >>> 2;
+
+  /** Table layouts. */
+  enum Layout {
+    /** Rows, stored in a long array. */ ROWS,
+    /** Columns, stored in integer arrays. */ COLUMNS,
+    /** Rows, stored in a direct buffer outside the Java heap. */ DIRECT
+  }
+
+  /** Table data, with two values for one XML node ({@code null} if not used). */
   private long[] data;
+  /** Table columns, with one value per column for one XML node ({@code null} if not used). */
+  private int[][] columns;
+  /** Off-heap table data, with two values for one XML node ({@code null} if not used). */
+  private ByteBuffer direct;
   /** First pre value. */
   int firstPre;
 
   /**
    * Constructor with initial capacity.
-   * @param compact compact block size
+   * @param capacity number of entries
+   * @param layout table layout
    */
-  private TableMemBlock(final boolean compact) {
-    data = new long[(compact ? 1 : IO.BLOCKSIZE) << 1];
+  private TableMemBlock(final int capacity, final Layout layout) {
+    switch(layout) {
+      case COLUMNS: columns = new int[COLUMNS][capacity]; break;
+      case DIRECT:  direct = direct(capacity); break;
+      default:      data = new long[capacity << 1];
+    }
   }
 
   /**
    * Creates new blocks.
    * @param count number of entries to add
    * @param compact compact block size
+   * @param layout table layout
    * @return new blocks
    */
-  private static ArrayList<TableMemBlock> get(final int count, final boolean compact) {
+  private static ArrayList<TableMemBlock> get(final int count, final boolean compact,
+      final Layout layout) {
     final int bs = IO.BLOCKSIZE + count - 1 >>> IO.BLOCKPOWER;
     final ArrayList<TableMemBlock> list = new ArrayList<>(bs);
-    for(int b = 0; b < bs; b++) list.add(new TableMemBlock(compact));
+    for(int b = 0; b < bs; b++) list.add(new TableMemBlock(compact ? 1 : IO.BLOCKSIZE, layout));
     return list;
   }
 
@@ -44,10 +67,11 @@ final class TableMemBlock {
    * Creates new blocks with computed pre values.
    * @param count number of entries to add
    * @param pre pre value of first block (will be incremented for subsequent blocks)
+   * @param layout table layout
    * @return new blocks
    */
-  static ArrayList<TableMemBlock> get(final int count, final int pre) {
-    final ArrayList<TableMemBlock> blocks = get(count, true);
+  static ArrayList<TableMemBlock> get(final int count, final int pre, final Layout layout) {
+    final ArrayList<TableMemBlock> blocks = get(count, true, layout);
     int fp = pre;
     for(final TableMemBlock block : blocks) {
       block.firstPre = fp;
@@ -72,7 +96,8 @@ final class TableMemBlock {
    * @return value
    */
   long value(final int pre, final int offset) {
-    return data[index(pre, offset)];
+    final int i = index(pre, offset);
+    return data != null ? data[i] : direct.getLong(i << 3);
   }
 
   /**
@@ -83,8 +108,30 @@ final class TableMemBlock {
    */
   void value(final int pre, final int offset, final long value) {
     final int i = index(pre, offset);
+    resize(pre - firstPre + 1);
+    set(i, value);
+  }
+
+  /**
+   * Returns the value of the specified column.
+   * @param pre pre value
+   * @param column column
+   * @return value
+   */
+  int column(final int pre, final int column) {
+    return columns[column][pre - firstPre];
+  }
+
+  /**
+   * Assigns a value to the specified column.
+   * @param pre pre value
+   * @param column column
+   * @param value value
+   */
+  void column(final int pre, final int column, final int value) {
+    final int i = pre - firstPre;
     resize(i + 1);
-    data[i] = value;
+    columns[column][i] = value;
   }
 
   /**
@@ -97,7 +144,7 @@ final class TableMemBlock {
   int delete(final int pre, final int count, final int nextPre) {
     final int first = pre - firstPre, last = first + count, filled = nextPre - firstPre;
     if(last >= filled) return filled - first;
-    System.arraycopy(data, last << 1, data, first << 1, filled - last << 1);
+    move(last, this, first, filled - last);
     return count;
   }
 
@@ -114,47 +161,127 @@ final class TableMemBlock {
 
     // check if entries can be inserted into existing block
     if(count <= remaining) {
-      resize(last + copy << 1);
-      System.arraycopy(data, first << 1, data, last << 1, copy << 1);
+      resize(last + copy);
+      move(first, this, last, copy);
       return null;
     }
 
     // otherwise, create new blocks
-    resize(IO.BLOCKSIZE << 1);
-    final ArrayList<TableMemBlock> blocks = get(count - remaining, false);
-    // create temporary array with final entries
+    resize(IO.BLOCKSIZE);
+    final Layout layout = layout();
+    final ArrayList<TableMemBlock> blocks = get(count - remaining, false, layout);
+    // create temporary block with final entries (off-heap entries are buffered on the heap)
     final int total = filled + count;
-    final long[] longs = new long[total << 1];
-    System.arraycopy(data, 0, longs, 0, first << 1);
-    System.arraycopy(data, first << 1, longs, last << 1, copy << 1);
+    final TableMemBlock tmp = new TableMemBlock(total,
+        layout == Layout.DIRECT ? Layout.ROWS : layout);
+    move(0, tmp, 0, first);
+    move(first, tmp, last, copy);
 
     /* redistribute entries evenly:
      * 300 entries: 2 blocks with 150 entries each
      * 301 entries: 2 blocks with 151 and 150 entries
      * 514 entries: 3 blocks with 172, 172 and 170 entries */
     final int bs = blocks.size(), fill = (total + bs) / (bs + 1);
-    final int total2 = total << 1, fill2 = fill << 1;
     // populate original block
-    System.arraycopy(longs, 0, data, 0, fill2);
+    tmp.move(0, this, 0, fill);
     // populate new blocks
-    int copied = fill, copied2 = fill2;
+    int copied = fill;
     for(final TableMemBlock block : blocks) {
       block.firstPre = firstPre + copied;
-      System.arraycopy(longs, copied2, block.data, 0, Math.min(fill2, total2 - copied2));
+      tmp.move(copied, block, 0, Math.min(fill, total - copied));
       copied += fill;
-      copied2 += fill2;
     }
     return blocks;
   }
 
   /**
    * Resizes the table block.
-   * @param size minimum size
+   * @param size minimum number of entries
    */
   private void resize(final int size) {
-    final long[] dt = data;
-    final int dl = dt.length;
-    if(dl < size) data = Arrays.copyOf(dt, Math.min(Math.max(size, dl << 1), IO.BLOCKSIZE << 1));
+    final int capacity = capacity();
+    if(capacity >= size) return;
+
+    final int cap = Math.min(Math.max(size, capacity << 1), IO.BLOCKSIZE);
+    if(columns != null) {
+      for(int c = 0; c < COLUMNS; c++) columns[c] = Arrays.copyOf(columns[c], cap);
+    } else if(data != null) {
+      data = Arrays.copyOf(data, cap << 1);
+    } else {
+      final ByteBuffer bb = direct(cap);
+      bb.put(direct.clear()).clear();
+      direct = bb;
+    }
+  }
+
+  /**
+   * Allocates an off-heap buffer.
+   * @param capacity number of entries
+   * @return buffer
+   */
+  private static ByteBuffer direct(final int capacity) {
+    return ByteBuffer.allocateDirect(capacity << 4).order(ByteOrder.nativeOrder());
+  }
+
+  /**
+   * Returns the number of entries that can be stored without resizing the block.
+   * @return capacity
+   */
+  private int capacity() {
+    return columns != null ? columns[0].length : data != null ? data.length >>> 1 :
+      direct.capacity() >>> 4;
+  }
+
+  /**
+   * Returns the layout of this block.
+   * @return layout
+   */
+  private Layout layout() {
+    return columns != null ? Layout.COLUMNS : data != null ? Layout.ROWS : Layout.DIRECT;
+  }
+
+  /**
+   * Copies entries to the specified block.
+   * @param from index of first entry to copy
+   * @param target target block
+   * @param to index of first target entry
+   * @param count number of entries to copy
+   */
+  private void move(final int from, final TableMemBlock target, final int to, final int count) {
+    if(columns != null) {
+      for(int c = 0; c < COLUMNS; c++) {
+        System.arraycopy(columns[c], from, target.columns[c], to, count);
+      }
+    } else if(data != null && target.data != null) {
+      System.arraycopy(data, from << 1, target.data, to << 1, count << 1);
+    } else {
+      // off-heap data: copy single values, backwards if target range is located after source range
+      final int f = from << 1, t = to << 1, n = count << 1;
+      if(target == this && t > f) {
+        for(int i = n - 1; i >= 0; i--) target.set(t + i, get(f + i));
+      } else {
+        for(int i = 0; i < n; i++) target.set(t + i, get(f + i));
+      }
+    }
+  }
+
+  /**
+   * Returns a row value.
+   * @param index index of the value
+   * @return value
+   */
+  private long get(final int index) {
+    return data != null ? data[index] : direct.getLong(index << 3);
+  }
+
+  /**
+   * Assigns a row value.
+   * @param index index of the value
+   * @param value value
+   */
+  private void set(final int index, final long value) {
+    if(data != null) data[index] = value;
+    else direct.putLong(index << 3, value);
   }
 
   @Override
@@ -162,9 +289,9 @@ final class TableMemBlock {
     final StringBuilder sb = new StringBuilder(Util.className(this) + '[' + firstPre + ": ");
     final IntList ints = new IntList();
     int first = -1, last = 0;
-    final int dl = data.length;
+    final int dl = capacity();
     for(int d = 0; d < dl; d++) {
-      if(data[d] != 0) {
+      if(!empty(d)) {
         if(first == -1) first = d;
         last = d;
       } else if(first != -1) {
@@ -182,6 +309,19 @@ final class TableMemBlock {
 
   // PRIVATE METHODS ==============================================================================
 
+  /**
+   * Checks if the entry at the specified index contains only zero bytes.
+   * @param index index of entry
+   * @return result of check
+   */
+  private boolean empty(final int index) {
+    if(columns == null) return get(index << 1) == 0 && get(index << 1 | 1) == 0;
+    for(int c = 0; c < COLUMNS; c++) {
+      if(columns[c][index] != 0) return false;
+    }
+    return true;
+  }
+
   /**
    * Returns the index to the current table segment.
    * @param pre pre value
@@ -0,0 +1,176 @@
+package org.basex.io.random;
+
+import static org.basex.data.DataText.*;
+
+import java.io.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class provides read-only access to a snapshot of a table that is stored on disk.
+ * Pages that have been overwritten after the creation of the snapshot are retrieved from
+ * their preserved versions.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class TableSnapshot extends TableAccess {
+  /** Buffer manager. */
+  private final Buffers buffers;
+  /** File storing all pages. */
+  private final RandomAccessFile file;
+  /** Preserved page versions. */
+  private final Versions versions;
+  /** Version of this snapshot. */
+  private final Versions.Version version;
+  /** First pre values ({@code null} if pages are stored in ascending order). */
+  private final int[] fPreIndex;
+  /** Page index ({@code null} if pages are stored in ascending order). */
+  private final int[] pageIndex;
+  /** Number of used pages. */
+  private final int used;
+
+  /**
+   * Constructor.
+   * @param meta meta data of the snapshot
+   * @param versions preserved page versions
+   * @param pages total number of pages
+   * @param used number of used pages
+   * @param fPreIndex first pre values (can be {@code null})
+   * @param pageIndex page index (can be {@code null})
+   * @throws IOException I/O exception
+   */
+  TableSnapshot(final MetaData meta, final Versions versions, final int pages, final int used,
+      final int[] fPreIndex, final int[] pageIndex) throws IOException {
+    super(meta);
+    this.versions = versions;
+    this.used = used;
+    this.fPreIndex = fPreIndex;
+    this.pageIndex = pageIndex;
+    buffers = new Buffers(meta.buffers);
+    file = new RandomAccessFile(meta.dbFile(DATATBL).file(), "r");
+    version = versions.open((long) pages << IO.BLOCKPOWER);
+  }
+
+  @Override
+  public void flush(final boolean all) { }
+
+  @Override
+  public synchronized void close() throws IOException {
+    versions.close(version);
+    file.close();
+  }
+
+  @Override
+  public boolean lock(final boolean write) {
+    return !write;
+  }
+
+  @Override
+  public synchronized int read1(final int pre, final int offset) {
+    final int o = offset + cursor(pre);
+    final byte[] data = buffers.current().data;
+    return data[o] & 0xFF;
+  }
+
+  @Override
+  public synchronized int read2(final int pre, final int offset) {
+    final int o = offset + cursor(pre);
+    final byte[] data = buffers.current().data;
+    return ((data[o] & 0xFF) << 8) + (data[o + 1] & 0xFF);
+  }
+
+  @Override
+  public synchronized int read4(final int pre, final int offset) {
+    final int o = offset + cursor(pre);
+    final byte[] data = buffers.current().data;
+    return ((data[o] & 0xFF) << 24) + ((data[o + 1] & 0xFF) << 16) +
+      ((data[o + 2] & 0xFF) << 8) + (data[o + 3] & 0xFF);
+  }
+
+  @Override
+  public synchronized long read5(final int pre, final int offset) {
+    final int o = offset + cursor(pre);
+    final byte[] data = buffers.current().data;
+    return ((long) (data[o] & 0xFF) << 32) + ((long) (data[o + 1] & 0xFF) << 24) +
+      ((data[o + 2] & 0xFF) << 16) + ((data[o + 3] & 0xFF) << 8) + (data[o + 4] & 0xFF);
+  }
+
+  @Override
+  public void write1(final int pre, final int offset, final int value) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void write2(final int pre, final int offset, final int value) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void write4(final int pre, final int offset, final int value) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void write5(final int pre, final int offset, final long value) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  protected void copy(final byte[] entries, final int first, final int last) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void delete(final int pre, final int count) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public void insert(final int pre, final byte[] entries) {
+    throw Util.notExpected();
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (used: " + used + ")\n- " + buffers + "\n- " + versions;
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Reads the page containing the entry for the specified pre value and returns the offset
+   * of the entry in the page.
+   * @param pre pre value
+   * @return offset of the entry in the page
+   */
+  private int cursor(final int pre) {
+    if(pre < 0 || pre >= meta.size) throw Util.notExpected(
+        "Data Access out of bounds:\n- pre value: " + pre + "\n- table size: " + meta.size);
+
+    int page = pre / IO.ENTRIES, first = page * IO.ENTRIES;
+    if(fPreIndex != null) {
+      // find last page with a first pre value that is smaller than or equal to the pre value
+      int l = 0, h = used - 1;
+      while(l < h) {
+        final int m = l + h + 1 >>> 1;
+        if(fPreIndex[m] <= pre) l = m;
+        else h = m - 1;
+      }
+      page = pageIndex[l];
+      first = fPreIndex[l];
+    }
+    if(buffers.cursor(page)) {
+      final Buffer buffer = buffers.current();
+      buffer.pos = page;
+      try {
+        versions.read(version, (long) page << IO.BLOCKPOWER, buffer.data, file.getChannel());
+      } catch(final IOException ex) {
+        throw new RuntimeException(Util.info(ex));
+      }
+    }
+    return pre - first << IO.NODEPOWER;
+  }
+}
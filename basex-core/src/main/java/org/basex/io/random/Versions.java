@@ -0,0 +1,192 @@
+package org.basex.io.random;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.util.*;
+
+/**
+ * This class preserves the previous versions of the pages of a database file.
+ *
+ * If snapshots of a file are open, the stored version of a page is preserved for all
+ * snapshots before it is overwritten for the first time. Snapshots read preserved pages from
+ * memory and all other pages from the write-ahead log or the file itself. If the number of
+ * preserved pages exceeds a limit, further pages are spilled to a file, which is deleted when
+ * the last snapshot is closed.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+final class Versions {
+  /** Maximum number of preserved pages that are kept in main memory. */
+  private static final int MEMORY = 1 << 8;
+
+  /** Open snapshots. */
+  private final ArrayList<Version> versions = new ArrayList<>();
+  /** Preserved pages in main memory. */
+  private final ArrayList<byte[]> pages = new ArrayList<>();
+  /** Name of the file. */
+  private final String name;
+  /** File for spilled pages. */
+  private final IOFile spill;
+  /** Write-ahead log (can be {@code null}). */
+  private final WriteAheadLog log;
+
+  /** Access to spilled pages ({@code null} if no pages have been spilled). */
+  private RandomAccessFile spilled;
+  /** Number of preserved pages. */
+  private int size;
+
+  /**
+   * Constructor.
+   * @param file database file
+   * @param log write-ahead log (can be {@code null})
+   */
+  Versions(final IOFile file, final WriteAheadLog log) {
+    this.log = log;
+    name = file.name();
+    spill = new IOFile(file.parent(), name + '.' + DataText.DATAVER);
+  }
+
+  /**
+   * Registers a new snapshot.
+   * @param length length of the file at the time the snapshot is created
+   * @return version
+   */
+  synchronized Version open(final long length) {
+    final Version version = new Version(length);
+    versions.add(version);
+    return version;
+  }
+
+  /**
+   * Unregisters a snapshot. The preserved pages are discarded when the last snapshot is closed.
+   * @param version version
+   * @throws IOException I/O exception
+   */
+  synchronized void close(final Version version) throws IOException {
+    versions.remove(version);
+    if(!versions.isEmpty()) return;
+
+    pages.clear();
+    size = 0;
+    if(spilled != null) {
+      spilled.close();
+      spilled = null;
+      spill.delete();
+    }
+  }
+
+  /**
+   * Preserves the stored version of a page. Must be called before the page is overwritten.
+   * @param pos file offset of the page
+   * @param channel channel of the file
+   * @throws IOException I/O exception
+   */
+  synchronized void preserve(final long pos, final FileChannel channel) throws IOException {
+    int id = -1;
+    for(final Version version : versions) {
+      if(pos < version.length && !version.pages.containsKey(pos)) {
+        if(id == -1) id = store(pos, channel);
+        version.pages.put(pos, id);
+      }
+    }
+  }
+
+  /**
+   * Preserves the stored versions of all pages that will be cut off if the file is truncated.
+   * @param length new file length
+   * @param channel channel of the file
+   * @throws IOException I/O exception
+   */
+  synchronized void truncate(final long length, final FileChannel channel) throws IOException {
+    long max = 0;
+    for(final Version version : versions) max = Math.max(max, version.length);
+    for(long pos = length & -IO.BLOCKSIZE; pos < max; pos += IO.BLOCKSIZE) {
+      preserve(pos, channel);
+    }
+  }
+
+  /**
+   * Reads a page of a snapshot.
+   * @param version version
+   * @param pos file offset of the page
+   * @param data array to be filled
+   * @param channel channel of the file
+   * @throws IOException I/O exception
+   */
+  synchronized void read(final Version version, final long pos, final byte[] data,
+      final FileChannel channel) throws IOException {
+    final Integer id = version.pages.get(pos);
+    if(id == null) {
+      stored(pos, data, channel);
+    } else if(id < MEMORY) {
+      System.arraycopy(pages.get(id), 0, data, 0, IO.BLOCKSIZE);
+    } else {
+      spilled.seek((long) (id - MEMORY) << IO.BLOCKPOWER);
+      spilled.readFully(data, 0, IO.BLOCKSIZE);
+    }
+  }
+
+  @Override
+  public synchronized String toString() {
+    return Util.className(this) + " (file: " + name + ", snapshots: " + versions.size() + ')';
+  }
+
+  /**
+   * Preserves the stored version of a page in main memory or in the spill file.
+   * @param pos file offset of the page
+   * @param channel channel of the file
+   * @return id of the preserved page
+   * @throws IOException I/O exception
+   */
+  private int store(final long pos, final FileChannel channel) throws IOException {
+    final byte[] page = new byte[IO.BLOCKSIZE];
+    stored(pos, page, channel);
+    if(size < MEMORY) {
+      pages.add(page);
+    } else {
+      if(spilled == null) spilled = new RandomAccessFile(spill.file(), "rw");
+      spilled.seek((long) (size - MEMORY) << IO.BLOCKPOWER);
+      spilled.write(page);
+    }
+    return size++;
+  }
+
+  /**
+   * Reads the stored version of a page from the write-ahead log or the file.
+   * @param pos file offset of the page
+   * @param data array to be filled
+   * @param channel channel of the file
+   * @throws IOException I/O exception
+   */
+  private void stored(final long pos, final byte[] data, final FileChannel channel)
+      throws IOException {
+    if(log != null && log.read(name, pos, data)) return;
+    final ByteBuffer bb = ByteBuffer.wrap(data, 0,
+        (int) Math.max(0, Math.min(IO.BLOCKSIZE, channel.size() - pos)));
+    while(bb.hasRemaining() && channel.read(bb, pos + bb.position()) != -1);
+  }
+
+  /**
+   * Preserved pages of a snapshot.
+   */
+  static final class Version {
+    /** Ids of the preserved pages, indexed by their file offsets. */
+    private final HashMap<Long, Integer> pages = new HashMap<>();
+    /** File length at the time the snapshot was created. */
+    private final long length;
+
+    /**
+     * Constructor.
+     * @param length file length
+     */
+    private Version(final long length) {
+      this.length = length;
+    }
+  }
+}
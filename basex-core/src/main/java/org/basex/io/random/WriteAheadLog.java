@@ -0,0 +1,407 @@
+package org.basex.io.random;
+
+import static org.basex.util.Token.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.util.*;
+import java.util.zip.*;
+
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.out.*;
+import org.basex.io.out.DataOutput;
+import org.basex.util.*;
+
+/**
+ * This class provides a write-ahead log for the files of a disk-based database.
+ *
+ * If the log is active, modified pages of the table and the heap and index files are appended
+ * to the log instead of being written back to the database files. Smaller files (meta data,
+ * table index) are logged as a whole. A commit is completed with a single sequential write and a
+ * single sync operation. Pages that are requested again before they have been written back
+ * to the database files are read from the log.
+ *
+ * Logged changes are transferred to the database files by checkpoints. Checkpoints are
+ * performed in the background if the log exceeds a certain size, and when the database is
+ * closed. If a database is opened and a log exists, all committed changes will be recovered.
+ *
+ * Each record of the log consists of the following entries:
+ * <ul>
+ *   <li> the record type (1 byte)</li>
+ *   <li> the length and name of the database file (1 byte, n bytes)</li>
+ *   <li> the file offset of a page or the length of a file (5 bytes)</li>
+ *   <li> the length and bytes of the page or file (4 bytes, n bytes)</li>
+ *   <li> a CRC32C checksum of all previous bytes of the record (4 bytes)</li>
+ * </ul>
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class WriteAheadLog {
+  /** Record type: page. */
+  private static final int PAGE = 0;
+  /** Record type: file length. */
+  private static final int LENGTH = 1;
+  /** Record type: file contents. */
+  private static final int FILE = 2;
+  /** Record type: commit. */
+  private static final int COMMIT = 3;
+  /** Log size after which a checkpoint will be performed in the background. */
+  private static final long CHECKPOINT = 1L << 24;
+
+  /** Log file. */
+  private final IOFile file;
+  /** Channels of the opened database files. */
+  private final HashMap<String, FileChannel> channels = new HashMap<>();
+  /** Logged pages, indexed by file names: file offsets, mapped to log offsets and lengths. */
+  private final HashMap<String, HashMap<Long, long[]>> pages = new HashMap<>();
+  /** Names of files with logged changes. */
+  private final HashSet<String> changed = new HashSet<>();
+
+  /** Log access ({@code null} if no records have been written yet). */
+  private RandomAccessFile log;
+  /** Size of the log. */
+  private long size;
+  /** Size of the log after the last commit. */
+  private long committed;
+  /** Indicates if changes will be logged. */
+  private volatile boolean active;
+  /** Indicates if a checkpoint has been scheduled. */
+  private boolean scheduled;
+
+  /**
+   * Constructor. Committed changes of an existing log will be recovered.
+   * @param meta meta data
+   * @throws IOException I/O exception
+   */
+  public WriteAheadLog(final MetaData meta) throws IOException {
+    file = meta.dbFile(DataText.DATAWAL);
+    if(file.exists() && !pinned(meta.dbFile(DataText.DATATBL))) {
+      replay(file.length());
+      file.delete();
+    }
+  }
+
+  /**
+   * Indicates if changes will be logged.
+   * @return result of check
+   */
+  public boolean active() {
+    return active;
+  }
+
+  /**
+   * Activates or deactivates logging. If logging is deactivated, a checkpoint will be performed.
+   * @param activate activate or deactivate logging
+   * @throws IOException I/O exception
+   */
+  public synchronized void active(final boolean activate) throws IOException {
+    if(!activate) checkpoint();
+    active = activate;
+  }
+
+  /**
+   * Registers the channel of an opened database file. Registered channels will be used
+   * to write back changes.
+   * @param name name of the file
+   * @param channel file channel ({@code null} to unregister the channel)
+   */
+  public synchronized void register(final String name, final FileChannel channel) {
+    if(channel != null) channels.put(name, channel);
+    else channels.remove(name);
+  }
+
+  /**
+   * Checks if the log contains changes of the specified file.
+   * @param name name of the file
+   * @return result of check
+   */
+  public synchronized boolean changed(final String name) {
+    return changed.contains(name);
+  }
+
+  /**
+   * Appends a page.
+   * @param name name of the file
+   * @param pos file offset of the page
+   * @param data page data
+   * @param len number of bytes
+   * @throws IOException I/O exception
+   */
+  public synchronized void page(final String name, final long pos, final byte[] data,
+      final int len) throws IOException {
+    final long off = append(PAGE, name, pos, data, len);
+    pages.computeIfAbsent(name, n -> new HashMap<>()).put(pos, new long[] { off, len });
+  }
+
+  /**
+   * Appends a new file length.
+   * @param name name of the file
+   * @param length file length
+   * @throws IOException I/O exception
+   */
+  public synchronized void length(final String name, final long length) throws IOException {
+    append(LENGTH, name, length, EMPTY, 0);
+  }
+
+  /**
+   * Returns an output stream for the specified database file. If logging is active, the written
+   * bytes will be appended to the log when the stream is closed.
+   * @param target database file
+   * @return output stream
+   * @throws IOException I/O exception
+   */
+  public DataOutput output(final IOFile target) throws IOException {
+    if(!active) return new DataOutput(target);
+
+    final ArrayOutput ao = new ArrayOutput();
+    return new DataOutput(new OutputStream() {
+      @Override
+      public void write(final int b) {
+        ao.write(b);
+      }
+
+      @Override
+      public void close() throws IOException {
+        final byte[] contents = ao.finish();
+        synchronized(WriteAheadLog.this) {
+          append(FILE, target.name(), 0, contents, contents.length);
+        }
+      }
+    });
+  }
+
+  /**
+   * Reads a logged page.
+   * @param name name of the file
+   * @param pos file offset of the page
+   * @param data array to be filled
+   * @return {@code true} if the page was found in the log
+   * @throws IOException I/O exception
+   */
+  public synchronized boolean read(final String name, final long pos, final byte[] data)
+      throws IOException {
+    final HashMap<Long, long[]> map = pages.get(name);
+    final long[] entry = map != null ? map.get(pos) : null;
+    if(entry == null) return false;
+    log.seek(entry[0]);
+    log.readFully(data, 0, (int) entry[1]);
+    return true;
+  }
+
+  /**
+   * Commits all logged changes and syncs the log.
+   * If the log exceeds a certain size, a checkpoint will be performed in the background.
+   * @throws IOException I/O exception
+   */
+  public synchronized void commit() throws IOException {
+    if(size == committed) return;
+    append(COMMIT, "", 0, EMPTY, 0);
+    log.getChannel().force(false);
+    committed = size;
+
+    if(size >= CHECKPOINT && !scheduled) {
+      scheduled = true;
+      final Thread thread = new Thread(() -> {
+        synchronized(this) {
+          scheduled = false;
+          try {
+            // skip checkpoint if new changes have been logged in the meantime
+            if(size == committed) apply();
+          } catch(final IOException ex) {
+            Util.stack(ex);
+          }
+        }
+      });
+      thread.setDaemon(true);
+      thread.start();
+    }
+  }
+
+  /**
+   * Commits all logged changes and writes them back to the database files.
+   * @throws IOException I/O exception
+   */
+  public synchronized void checkpoint() throws IOException {
+    commit();
+    apply();
+  }
+
+  /**
+   * Performs a checkpoint and deletes the log file.
+   * @throws IOException I/O exception
+   */
+  public synchronized void close() throws IOException {
+    checkpoint();
+    active = false;
+    if(log != null) {
+      log.close();
+      log = null;
+      file.delete();
+    }
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + " (size: " + size + ", files: " + changed + ')';
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Appends a record to the log.
+   * @param type record type
+   * @param name name of the file
+   * @param pos file offset or length
+   * @param data data
+   * @param len number of bytes
+   * @return log offset of the data
+   * @throws IOException I/O exception
+   */
+  private long append(final int type, final String name, final long pos, final byte[] data,
+      final int len) throws IOException {
+
+    // assemble record, write it with a single call
+    final byte[] nm = token(name);
+    final int header = nm.length + 11, rl = header + len;
+    final byte[] record = new byte[rl + 4];
+    final ByteBuffer bb = ByteBuffer.wrap(record);
+    bb.put((byte) type).put((byte) nm.length).put(nm);
+    bb.put((byte) (pos >>> 32)).putInt((int) pos).putInt(len).put(data, 0, len);
+    bb.putInt(checksum(record, rl));
+
+    if(log == null) log = new RandomAccessFile(file.file(), "rw");
+    log.seek(size);
+    log.write(record);
+
+    final long off = size + header;
+    size += record.length;
+    if(type != COMMIT) changed.add(name);
+    return off;
+  }
+
+  /**
+   * Writes back all logged changes and truncates the log.
+   * @throws IOException I/O exception
+   */
+  private void apply() throws IOException {
+    if(log == null || size == 0) return;
+
+    replay(size);
+    log.setLength(0);
+    size = 0;
+    committed = 0;
+    pages.clear();
+    changed.clear();
+  }
+
+  /**
+   * Writes back all committed changes of the log file to the database files.
+   * @param length length of the log file
+   * @throws IOException I/O exception
+   */
+  private void replay(final long length) throws IOException {
+    final HashMap<String, FileChannel> opened = new HashMap<>();
+    try(DataAccess in = new DataAccess(file)) {
+      final ArrayList<long[]> pending = new ArrayList<>();
+      final ArrayList<String> names = new ArrayList<>();
+      for(long pos = 0; pos < length;) {
+        // parse record header; stop at first incomplete or invalid record
+        if(pos + 2 > length) break;
+        final int type = in.read1(pos), nl = in.read1(pos + 1) & 0xFF;
+        final long data = pos + 2 + nl + 9;
+        if(data > length) break;
+        final int len = in.read4(data - 4);
+        if(len < 0 || data + len + 4 > length) break;
+        final int rl = (int) (data - pos) + len;
+        if(checksum(in.readBytes(pos, rl), rl) != in.read4(pos + rl)) break;
+
+        if(type == COMMIT) {
+          // write back changes of committed transaction
+          final int ps = pending.size();
+          for(int p = 0; p < ps; p++) {
+            final long[] rec = pending.get(p);
+            final String name = names.get(p);
+            FileChannel channel = channels.get(name);
+            if(channel == null) channel = opened.get(name);
+            if(channel == null && rec[0] != FILE) {
+              final RandomAccessFile raf = new RandomAccessFile(
+                new IOFile(file.parent(), name).file(), "rw");
+              channel = raf.getChannel();
+              opened.put(name, channel);
+            }
+            write(in, (int) rec[0], name, rec[1], rec[2], (int) rec[3], channel);
+          }
+          pending.clear();
+          names.clear();
+        } else {
+          names.add(string(in.readBytes(pos + 2, nl)));
+          pending.add(new long[] { type, in.read5(pos + 2 + nl), data, len });
+        }
+        pos += rl + 4;
+      }
+      for(final FileChannel channel : channels.values()) channel.force(false);
+      for(final FileChannel channel : opened.values()) channel.force(false);
+    } finally {
+      for(final FileChannel channel : opened.values()) channel.close();
+    }
+  }
+
+  /**
+   * Writes back a single record.
+   * @param in log input
+   * @param type record type
+   * @param name name of the file
+   * @param pos file offset or length
+   * @param off log offset of the data
+   * @param len length of the data
+   * @param channel file channel ({@code null} for file records)
+   * @throws IOException I/O exception
+   */
+  private void write(final DataAccess in, final int type, final String name, final long pos,
+      final long off, final int len, final FileChannel channel) throws IOException {
+    switch(type) {
+      case PAGE:
+        final ByteBuffer bb = ByteBuffer.wrap(in.readBytes(off, len));
+        for(long p = pos; bb.hasRemaining();) p += channel.write(bb, p);
+        break;
+      case LENGTH:
+        if(pos < channel.size()) channel.truncate(pos);
+        break;
+      case FILE:
+        new IOFile(file.parent(), name).write(in.readBytes(off, len));
+        break;
+      default:
+        throw Util.notExpected();
+    }
+  }
+
+  /**
+   * Checks if the specified table file is pinned by another process.
+   * @param table table file
+   * @return result of check
+   */
+  private static boolean pinned(final IOFile table) {
+    if(!table.exists()) return false;
+    try(FileChannel fc = new RandomAccessFile(table.file(), "rw").getChannel()) {
+      return fc.tryLock() == null;
+    } catch(final IOException ex) {
+      Util.debug(ex);
+      return true;
+    }
+  }
+
+  /**
+   * Computes the checksum of a record.
+   * @param record record
+   * @param len length of the record
+   * @return checksum
+   */
+  private static int checksum(final byte[] record, final int len) {
+    final CRC32C crc = new CRC32C();
+    crc.update(record, 0, len);
+    return (int) crc.getValue();
+  }
+}
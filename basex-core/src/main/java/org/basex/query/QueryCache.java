@@ -0,0 +1,196 @@
+package org.basex.query;
+
+import static org.basex.util.Token.*;
+
+import java.util.*;
+import java.util.concurrent.atomic.*;
+
+import org.basex.core.*;
+import org.basex.util.*;
+
+/**
+ * This class caches the main modules of queries that are parsed repeatedly, such as queries
+ * that are evaluated with different values for their external variables.
+ *
+ * <ul>
+ *   <li> Queries are cached when they are parsed for the second time. Cached modules are never
+ *        compiled. Instead, a copy is created for each evaluation, as compiled expressions depend
+ *        on the bound values and the opened databases.</li>
+ *   <li> Queries are only cached if their parse result is self-contained, i.e., if they contain no
+ *        functions, module imports, context value declarations, options or full-text options.</li>
+ *   <li> The static context of a cached module is shared by its copies. As it is modified during
+ *        the construction of elements, a cached module can only be used by one query at a time.
+ *        Concurrent queries with the same query string are parsed again.</li>
+ * </ul>
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCache {
+  /** Cached queries, in the order of their last access. */
+  private final LinkedHashMap<String, Template> templates = new LinkedHashMap<>(16, 0.75f, true);
+  /** Static options. */
+  private final StaticOptions sopts;
+
+  /**
+   * Constructor.
+   * @param sopts static options
+   */
+  public QueryCache(final StaticOptions sopts) {
+    this.sopts = sopts;
+  }
+
+  /**
+   * Parses a query and assigns the main module to the specified query context.
+   * @param query query string
+   * @param sc static context
+   * @param qc query context
+   * @return cached query, which must be released after evaluation, or {@code null}
+   * @throws QueryException query exception
+   */
+  Template parse(final String query, final StaticContext sc, final QueryContext qc)
+      throws QueryException {
+
+    final int max = sopts.get(StaticOptions.QUERYCACHE);
+    if(max <= 0 || !initial(sc)) {
+      qc.parseMain(query, null, sc);
+      return null;
+    }
+
+    final String key = key(query, sc, qc);
+    final Template template;
+    synchronized(this) {
+      template = templates.get(key);
+    }
+    if(template == null) {
+      // first request: remember if the query can be cached
+      qc.parseMain(query, null, sc);
+      synchronized(this) {
+        templates.put(key, new Template(qc.cacheable()));
+        final Iterator<Template> values = templates.values().iterator();
+        for(int t = templates.size(); t > max; t--) {
+          values.next().discard();
+          values.remove();
+        }
+      }
+      return null;
+    }
+    if(!template.cacheable || !template.busy.compareAndSet(false, true)) {
+      qc.parseMain(query, null, sc);
+      return null;
+    }
+
+    boolean ok = false;
+    try {
+      if(template.qc == null) {
+        final QueryContext tqc = new QueryContext(qc.context);
+        tqc.parseMain(query, null, sc);
+        template.qc = tqc;
+      }
+      qc.copyMain(query, template.qc);
+      ok = true;
+      return template;
+    } finally {
+      if(!ok) template.release();
+    }
+  }
+
+  /**
+   * Returns the number of cached queries.
+   * @return number of queries
+   */
+  public synchronized int size() {
+    int size = 0;
+    for(final Template template : templates.values()) {
+      if(template.qc != null) size++;
+    }
+    return size;
+  }
+
+  /**
+   * Discards all cached queries.
+   */
+  public synchronized void clear() {
+    for(final Template template : templates.values()) template.discard();
+    templates.clear();
+  }
+
+  /**
+   * Checks if the static context has not been customized before parsing.
+   * @param sc static context
+   * @return result of check
+   */
+  private static boolean initial(final StaticContext sc) {
+    return sc.ns.list.size() == 0 && sc.elemNS == null && sc.collation == null &&
+        sc.decFormats.isEmpty() && sc.resolver == null;
+  }
+
+  /**
+   * Returns the cache key for a query.
+   * @param query query string
+   * @param sc static context
+   * @param qc query context
+   * @return key
+   */
+  private static String key(final String query, final StaticContext sc, final QueryContext qc) {
+    return new StringBuilder().append(sc.mixUpdates).append(sc.withdb).append(' ').
+      append(qc.context.options.get(MainOptions.CATALOG)).append('\0').
+      append(string(sc.baseURI().string())).append('\0').append(query).toString();
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + '[' + size() + ']';
+  }
+
+  /**
+   * Cached query.
+   *
+   * @author BaseX Team, BSD License
+   * @author Christian Gruen
+   */
+  static final class Template {
+    /** Indicates if the query can be cached. */
+    final boolean cacheable;
+    /** Indicates if the cached module is currently in use. */
+    final AtomicBoolean busy = new AtomicBoolean();
+    /** Query context with the parsed main module ({@code null} if not parsed yet). */
+    volatile QueryContext qc;
+    /** Indicates if the query has been removed from the cache. */
+    private boolean discarded;
+
+    /**
+     * Constructor.
+     * @param cacheable indicates if the query can be cached
+     */
+    Template(final boolean cacheable) {
+      this.cacheable = cacheable;
+    }
+
+    /**
+     * Releases the cached module after evaluation.
+     */
+    synchronized void release() {
+      busy.set(false);
+      if(discarded) close();
+    }
+
+    /**
+     * Discards the cached module. It will be closed when it is not in use anymore.
+     */
+    synchronized void discard() {
+      discarded = true;
+      if(!busy.get()) close();
+    }
+
+    /**
+     * Closes the query context of the cached module.
+     */
+    private void close() {
+      if(qc != null) {
+        qc.close();
+        qc = null;
+      }
+    }
+  }
+}
@@ -241,6 +241,33 @@ public final class QueryContext extends Job implements Closeable {
     });
   }
 
+  /**
+   * Assigns a copy of the main module of the specified query context.
+   * @param query query string
+   * @param template query context with a parsed main module
+   * @throws QueryException query exception
+   */
+  void copyMain(final String query, final QueryContext template) throws QueryException {
+    run(info.parsing, () -> {
+      info.query = query;
+      final CompileContext cc = new CompileContext(this, false);
+      vars.copy(template.vars, cc);
+      main = template.main.copy(cc);
+      if(template.updating) updating();
+      return main;
+    });
+  }
+
+  /**
+   * Indicates if the parsed main module can be copied to other query contexts.
+   * @return result of check
+   */
+  boolean cacheable() {
+    return functions.isEmpty() && main.modules.isEmpty() && libs.isEmpty() &&
+        modParsed.isEmpty() && contextType == null && contextValue == null && ftOpt == null &&
+        sopts == null && options.isEmpty() && !locks.local();
+  }
+
   /**
    * Creates a function call for the specified function and assigns it as root expression.
    * @param func user-defined function
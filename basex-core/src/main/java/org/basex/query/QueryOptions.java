@@ -58,6 +58,14 @@ final class QueryOptions {
     localOpts.put(option, dummyOptions.get(option));
   }
 
+  /**
+   * Indicates if no options have been declared.
+   * @return result of check
+   */
+  boolean isEmpty() {
+    return localOpts.isEmpty();
+  }
+
   /**
    * Compiles all options.
    */
@@ -27,6 +27,8 @@ public final class QueryProcessor extends Job implements Closeable {
   private final String query;
   /** Parsed flag. */
   private boolean parsed;
+  /** Cached query ({@code null} if the query has not been cached). */
+  private QueryCache.Template template;
 
   /**
    * Default constructor.
@@ -59,7 +61,7 @@ public final class QueryProcessor extends Job implements Closeable {
   public void parse() throws QueryException {
     if(parsed) return;
     try {
-      qc.parseMain(query, null, sc);
+      template = qc.context.queries.parse(query, sc, qc);
     } finally {
       parsed = true;
       updating = qc.updating;
@@ -221,6 +223,10 @@ public final class QueryProcessor extends Job implements Closeable {
   @Override
   public void close() {
     qc.close();
+    if(template != null) {
+      template.release();
+      template = null;
+    }
   }
 
   @Override
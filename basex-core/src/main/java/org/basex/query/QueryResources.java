@@ -188,7 +188,7 @@ public final class QueryResources {
     // open and register database
     if(!ctx.perm(Perm.READ, name)) throw BASEX_PERMISSION_X_X.get(info, Perm.READ, name);
     try {
-      return addData(Open.open(name, ctx, ctx.options, true, false));
+      return addData(open(name, true));
     } catch(final IOException ex) {
       throw DB_OPEN2_X.get(info, ex);
     }
@@ -424,7 +424,7 @@ public final class QueryResources {
     if(withdb && dbName != null) {
       if(!ctx.perm(Perm.READ, dbName)) throw BASEX_PERMISSION_X_X.get(info, Perm.READ, dbName);
       try {
-        final Data data = Open.open(dbName, ctx, ctx.options, false, false);
+        final Data data = open(dbName, false);
         if(data != null) return addData(data);
       } catch(final IOException ex) {
         throw IOERR_X.get(info, ex);
@@ -475,6 +475,21 @@ public final class QueryResources {
     return addData(data);
   }
 
+  /**
+   * Opens a database. If a snapshot of the database has been assigned to the current job,
+   * the snapshot is returned instead.
+   * @param name name of database
+   * @param exists raise error if database does not exist
+   * @return data reference, or {@code null} if database does not exist
+   * @throws IOException I/O exception
+   */
+  private Data open(final String name, final boolean exists) throws IOException {
+    final Data snapshot = qc.jc().locks.snapshots.get(name);
+    if(snapshot != null) return snapshot;
+    final Context ctx = qc.context;
+    return Open.open(name, ctx, ctx.options, exists, false);
+  }
+
   /**
    * Adds a data reference.
    * @param data data reference to be added
@@ -8,6 +8,7 @@ import org.basex.index.*;
 import org.basex.index.name.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
+import org.basex.index.value.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
 import org.basex.query.expr.CmpG.*;
@@ -228,13 +229,25 @@ public final class CmpR extends Single {
     ii.costs = IndexInfo.costs(data, nr);
     if(ii.costs == null) return false;
 
-    // skip if numbers are negative, doubles, or of different string length
-    final int mnl = min >= 0 && (long) min == min ? Token.token(min).length : -1;
-    final int mxl = max >= 0 && (long) max == max ? Token.token(max).length : -1;
-    if(mnl == -1 || mnl != mxl) return false;
-
-    // don't use index if min/max values are infinite
-    if(Token.token((int) nr.min).length != Token.token((int) nr.max).length) return false;
+    // numeric keys are indexed: all ranges can be answered by binary searches
+    final Index index = data.index(type);
+    if(!(index instanceof DiskValues && ((DiskValues) index).numeric())) {
+      // skip if numbers are negative, doubles, or of different string length
+      final int mnl = min >= 0 && (long) min == min ? Token.token(min).length : -1;
+      final int mxl = max >= 0 && (long) max == max ? Token.token(max).length : -1;
+      if(mnl == -1 || mnl != mxl) return false;
+
+      // don't use index if min/max values are infinite
+      if(Token.token((int) nr.min).length != Token.token((int) nr.max).length) return false;
+
+      // estimate costs with the value histogram; skip index if all values may be returned
+      final Histogram hist = ii.histogram();
+      final int results = hist != null ? hist.count(nr.min, nr.max) : -1;
+      if(results >= 0) {
+        if(results >= hist.count() && !ii.enforce()) return false;
+        ii.costs = IndexInfo.estimate(results);
+      }
+    }
 
     final TokenBuilder tb = new TokenBuilder();
     tb.add('[').add(min).add(',').add(max).add(']');
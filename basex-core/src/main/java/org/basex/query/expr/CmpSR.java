@@ -6,6 +6,7 @@ import static org.basex.query.QueryText.*;
 import org.basex.data.*;
 import org.basex.index.*;
 import org.basex.index.query.*;
+import org.basex.index.stats.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
 import org.basex.query.expr.CmpG.*;
@@ -204,6 +205,14 @@ public final class CmpSR extends Single {
     ii.costs = IndexInfo.costs(data, sr);
     if(ii.costs == null) return false;
 
+    // estimate costs with the value histogram; skip index if all values may be returned
+    final Histogram hist = ii.histogram();
+    final int results = hist != null ? hist.count(min, max) : -1;
+    if(results >= 0) {
+      if(results >= hist.count() && !ii.enforce()) return false;
+      ii.costs = IndexInfo.estimate(results);
+    }
+
     final TokenBuilder tb = new TokenBuilder();
     tb.add(mni ? '[' : '(').add(min).add(',').add(max).add(mxi ? ']' : ')');
     ii.create(new StringRangeAccess(info, sr, ii.db), true,
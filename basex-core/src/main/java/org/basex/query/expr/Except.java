@@ -76,8 +76,12 @@ public final class Except extends Set {
 
   @Override
   Value nodes(final QueryContext qc) throws QueryException {
+    final Value[] values = new Value[exprs.length];
+    final Value value = bitmaps(values, Bitmap::andNot, qc);
+    if(value != null) return value;
+
     final ANodeBuilder nodes = new ANodeBuilder();
-    Iter iter = exprs[0].iter(qc);
+    Iter iter = iter(values, 0, qc);
     for(Item item; (item = qc.next(iter)) != null;) {
       nodes.add(toNode(item));
     }
@@ -85,7 +89,7 @@ public final class Except extends Set {
 
     final int el = exprs.length;
     for(int e = 1; e < el && !nodes.isEmpty(); e++) {
-      iter = exprs[e].iter(qc);
+      iter = iter(values, e, qc);
       for(Item item; (item = qc.next(iter)) != null;) {
         nodes.removeAll(toNode(item));
       }
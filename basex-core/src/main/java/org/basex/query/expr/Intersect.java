@@ -80,8 +80,12 @@ public final class Intersect extends Set {
 
   @Override
   Value nodes(final QueryContext qc) throws QueryException {
+    final Value[] values = new Value[exprs.length];
+    final Value value = bitmaps(values, Bitmap::and, qc);
+    if(value != null) return value;
+
     ANodeBuilder nodes = new ANodeBuilder();
-    Iter iter = exprs[0].iter(qc);
+    Iter iter = iter(values, 0, qc);
     for(Item item; (item = qc.next(iter)) != null;) {
       nodes.add(toNode(item));
     }
@@ -90,7 +94,7 @@ public final class Intersect extends Set {
     for(int e = 1; e < el && !nodes.isEmpty(); ++e) {
       nodes.ddo();
       final ANodeBuilder tmp = new ANodeBuilder();
-      iter = exprs[e].iter(qc);
+      iter = iter(values, e, qc);
       for(Item item; (item = qc.next(iter)) != null;) {
         final ANode node = toNode(item);
         if(nodes.contains(node)) tmp.add(node);
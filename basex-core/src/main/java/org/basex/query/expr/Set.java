@@ -3,10 +3,12 @@ package org.basex.query.expr;
 import static org.basex.query.QueryText.*;
 
 import java.util.*;
+import java.util.function.*;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.expr.path.*;
-import org.basex.query.func.*;
+import org.basex.query.func.Function;
 import org.basex.query.iter.*;
 import org.basex.query.util.*;
 import org.basex.query.util.list.*;
@@ -84,6 +86,61 @@ abstract class Set extends Arr {
     return iters;
   }
 
+  /**
+   * Tries to combine the results of the operands via bitmaps. This is possible if all operands
+   * yield nodes of the same database: no nodes need to be compared and sorted, and the pre values
+   * of the result are returned in document order.
+   * @param values evaluated operands (will be assigned during evaluation)
+   * @param op combining function
+   * @param qc query context
+   * @return result, or {@code null} if the operands yield other items
+   * @throws QueryException query exception
+   */
+  final Value bitmaps(final Value[] values, final BinaryOperator<Bitmap> op,
+      final QueryContext qc) throws QueryException {
+
+    Data data = null;
+    Bitmap result = null;
+    final int el = exprs.length;
+    for(int e = 0; e < el; e++) {
+      final Value value = exprs[e].value(qc);
+      values[e] = value;
+      final Bitmap bitmap = new Bitmap();
+      if(value instanceof DBNodeSeq) {
+        final DBNodeSeq seq = (DBNodeSeq) value;
+        if(data == null) data = seq.data();
+        else if(data != seq.data()) return null;
+        for(final int pre : seq.pres()) bitmap.add(pre);
+      } else {
+        for(final Item item : value) {
+          qc.checkStop();
+          // nodes of main-memory instances may reference parent nodes of other instances
+          if(!(item instanceof DBNode) || item.data().inMemory()) return null;
+          if(data == null) data = item.data();
+          else if(data != item.data()) return null;
+          bitmap.add(((DBNode) item).pre());
+        }
+      }
+      result = result == null ? bitmap : op.apply(result, bitmap);
+      // skip remaining operands if the result will be empty
+      if(result.isEmpty() && !(this instanceof Union)) return Empty.VALUE;
+    }
+    return data == null ? Empty.VALUE : DBNodeSeq.get(result.toArray(), data, this);
+  }
+
+  /**
+   * Returns an iterator for the result of an operand.
+   * @param values evaluated operands
+   * @param e index of the operand
+   * @param qc query context
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  final Iter iter(final Value[] values, final int e, final QueryContext qc)
+      throws QueryException {
+    return values[e] != null ? values[e].iter() : exprs[e].iter(qc);
+  }
+
   /**
    * Evaluates the specified iterators.
    * @param qc query context
@@ -73,9 +73,14 @@ public final class Union extends Set {
 
   @Override
   Value nodes(final QueryContext qc) throws QueryException {
+    final Value[] values = new Value[exprs.length];
+    final Value value = bitmaps(values, Bitmap::or, qc);
+    if(value != null) return value;
+
     final ANodeBuilder nodes = new ANodeBuilder();
-    for(final Expr expr : exprs) {
-      final Iter iter = expr.iter(qc);
+    final int el = exprs.length;
+    for(int e = 0; e < el; e++) {
+      final Iter iter = iter(values, e, qc);
       for(Item item; (item = qc.next(iter)) != null;) {
         nodes.add(toNode(item));
       }
@@ -3,9 +3,11 @@ package org.basex.query.expr.gflwor;
 import java.util.*;
 import java.util.function.*;
 
+import org.basex.data.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
 import org.basex.query.expr.*;
+import org.basex.query.expr.CmpG.*;
 import org.basex.query.expr.path.*;
 import org.basex.query.func.Function;
 import org.basex.query.iter.*;
@@ -56,18 +58,34 @@ public final class GFLWOR extends ParseExpr {
 
   /**
    * Creates a new evaluator for this FLWOR expression.
+   * @param max maximum number of requested results
    * @return the evaluator
    */
-  private Eval newEval() {
+  private Eval newEval(final long max) {
     Eval eval = new StartEval();
-    for(final Clause clause : clauses) eval = clause.eval(eval);
+    final Clause last = clauses.peekLast();
+    for(final Clause clause : clauses) {
+      // order by is the last clause, and each tuple yields one result: sort only first tuples
+      eval = clause == last && clause instanceof OrderBy && max != Long.MAX_VALUE &&
+        rtrn.seqType().one() ? ((OrderBy) clause).eval(eval, max) : clause.eval(eval);
+    }
     return eval;
   }
 
   @Override
   public Iter iter(final QueryContext qc) {
+    return iter(qc, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns an iterator for the first results of this expression.
+   * @param qc query context
+   * @param max maximum number of requested results
+   * @return iterator
+   */
+  public Iter iter(final QueryContext qc, final long max) {
     return new Iter() {
-      private final Eval eval = newEval();
+      private final Eval eval = newEval(max);
       private Iter iter = Empty.ITER;
 
       @Override
@@ -87,7 +105,7 @@ public final class GFLWOR extends ParseExpr {
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
-    final Eval eval = newEval();
+    final Eval eval = newEval(Long.MAX_VALUE);
     final ValueBuilder vb = new ValueBuilder(qc);
     while(eval.next(qc)) vb.add(rtrn.value(qc));
     return vb.value(this);
@@ -116,9 +134,9 @@ public final class GFLWOR extends ParseExpr {
 
     // apply all optimizations in a row until nothing changes anymore
     while(flattenReturn(cc) | flattenFor(cc) | unnestFLWR(cc) | unnestLets(cc) | ifToWhere(cc) |
-        forToLet(cc) | slideLetsOut(cc) | inlineForLet(cc) | unusedClauses(cc) | unusedVars(cc) |
-        cleanDeadVars() | optimizeCond(cc, true) | optimizeCond(cc, false) | optimizePos(cc) |
-        optimizeOrderBy(cc));
+        hashJoin(cc) | forToLet(cc) | slideLetsOut(cc) | inlineForLet(cc) | unusedClauses(cc) |
+        unusedVars(cc) | cleanDeadVars() | optimizeCond(cc, true) | optimizeCond(cc, false) |
+        optimizePos(cc) | optimizeOrderBy(cc));
 
     mergeWheres(cc, true);
     mergeWheres(cc, false);
@@ -592,9 +610,9 @@ public final class GFLWOR extends ParseExpr {
       for(int d = c; --d >= 0;) {
         final Clause curr = clauses.get(d);
         if(!curr.skippable(let)) break;
-        // insert directly above the highest skippable 'for' or 'window' clause
+        // insert directly above the highest skippable 'for', 'window' or join clause
         // this guarantees that no unnecessary swaps occur
-        if(curr instanceof For || curr instanceof Window) insert = d;
+        if(curr instanceof For || curr instanceof Window || curr instanceof Join) insert = d;
       }
 
       if(insert >= 0) {
@@ -809,6 +827,109 @@ public final class GFLWOR extends ParseExpr {
     return changed;
   }
 
+  /**
+   * Rewrites equi-joins between independent 'for' clauses to hash joins.
+   * @param cc compilation context
+   * @return change flag
+   * @throws QueryException query exception
+   */
+  private boolean hashJoin(final CompileContext cc) throws QueryException {
+    boolean changed = false;
+    int first = -1;
+    for(int c = 0; c < clauses.size(); c++) {
+      final Clause clause = clauses.get(c);
+      if(clause instanceof Join && indexed(((Join) clause).expr)) {
+        // restore 'for' and 'where' clauses if the database is known and has value indexes:
+        // the comparison may then be rewritten for index access
+        final Join join = (Join) clause;
+        final InputInfo ii = join.info();
+        final Expr cmp = new CmpG(ii, join.key, join.probe, OpG.EQ).optimize(cc);
+        cc.info(QueryText.OPTREWRITE_X_X, (Supplier<?>) join::description, cmp);
+        clauses.set(c, new For(join.var, join.expr).optimize(cc));
+        clauses.add(c + 1, new Where(cmp, ii).optimize(cc));
+        changed = true;
+      } else if(first != -1 && clause instanceof For) {
+        // rewrite 'for' clauses that are preceded by multiple tuples
+        final Join join = hashJoin((For) clause, first, c, cc);
+        if(join != null) {
+          cc.info(QueryText.OPTREWRITE_X_X, (Supplier<?>) join::description, join);
+          clauses.set(c, join);
+          changed = true;
+        }
+      }
+      if(first == -1 && (clause instanceof For || clause instanceof Window ||
+          clause instanceof Join)) first = c;
+    }
+    return changed;
+  }
+
+  /**
+   * Tries to rewrite a 'for' clause and a subsequent 'where' clause to a hash join.
+   * @param fr for clause
+   * @param first position of the first clause that creates multiple tuples
+   * @param c position of the clause
+   * @param cc compilation context
+   * @return join clause or {@code null}
+   * @throws QueryException query exception
+   */
+  private Join hashJoin(final For fr, final int first, final int c, final CompileContext cc)
+      throws QueryException {
+
+    // bound expression must be independent of the incoming tuples
+    final Var var = fr.var;
+    if(fr.vars.length != 1 || fr.empty || var.declType != null ||
+        fr.has(Flag.NDT, Flag.CNS) || uses(fr.expr, first, c) || indexed(fr.expr)) return null;
+
+    // for $a in A for $c in C where $a/@id = $c/@id  ->  hash join on $c/@id
+    for(int w = c + 1; w < clauses.size() && clauses.get(w) instanceof Where; w++) {
+      final Expr expr = ((Where) clauses.get(w)).expr;
+      if(!(expr instanceof CmpG) || expr.has(Flag.NDT)) continue;
+      final CmpG cmp = (CmpG) expr;
+      if(cmp.opG() != OpG.EQ || cmp.sc().collation != null) continue;
+
+      for(int o = 0; o < 2; o++) {
+        // key must only reference the item variable, probe must not reference it
+        final Expr key = cmp.arg(o), probe = cmp.arg(1 - o);
+        if(!key.uses(var) || probe.uses(var) || uses(key, first, c)) continue;
+        final SeqType st1 = key.seqType(), st2 = probe.seqType();
+        final Type type1 = st1.type, type2 = st2.type;
+        if(st1.mayBeArray() || st2.mayBeArray() || !(type1.isNumber() && type2.isNumber() ||
+            type1.isStringOrUntyped() && type2.isStringOrUntyped())) continue;
+
+        clauses.remove(w);
+        return new Join(var, fr.expr, key, probe, cmp.info()).optimize(cc);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Checks if the nodes of an expression are stored in a database with value indexes.
+   * In this case, predicates may be rewritten for index access.
+   * @param expr expression
+   * @return result of check
+   */
+  private static boolean indexed(final Expr expr) {
+    final Data data = expr.data();
+    return data != null && (data.meta.textindex || data.meta.attrindex);
+  }
+
+  /**
+   * Checks if an expression references a variable declared by the specified clauses.
+   * @param expr expression
+   * @param from position of the first clause
+   * @param to position after the last clause
+   * @return result of check
+   */
+  private boolean uses(final Expr expr, final int from, final int to) {
+    for(int d = from; d < to; d++) {
+      for(final Var var : clauses.get(d).vars()) {
+        if(expr.uses(var)) return true;
+      }
+    }
+    return false;
+  }
+
   /**
    * Flatten FLWOR expressions in 'for' clauses.
    * @param cc compilation context
@@ -1047,7 +1168,8 @@ public final class GFLWOR extends ParseExpr {
     // check if an outer clause can prevent the error
     while(iter.hasPrevious()) {
       final Clause b4 = iter.previous();
-      if(b4 instanceof For || b4 instanceof Window || b4 instanceof Where || b4 instanceof While) {
+      if(b4 instanceof For || b4 instanceof Join || b4 instanceof Window || b4 instanceof Where ||
+          b4 instanceof While) {
         iter.next();
         while(iter.hasNext()) {
           iter.next();
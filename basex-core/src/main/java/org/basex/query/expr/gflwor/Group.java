@@ -14,6 +14,8 @@ final class Group {
   final Item[] key;
   /** Non-grouping variables. */
   final ValueBuilder[] ngv;
+  /** Index of the first tuple of the group. */
+  final int id;
   /** Overflow list. */
   Group next;
 
@@ -21,9 +23,11 @@ final class Group {
    * Constructor.
    * @param k grouping key
    * @param ng non-grouping variables
+   * @param i index of the first tuple
    */
-  Group(final Item[] k, final ValueBuilder[] ng) {
+  Group(final Item[] k, final ValueBuilder[] ng, final int i) {
     key = k;
     ngv = ng;
+    id = i;
   }
 }
@@ -3,7 +3,9 @@ package org.basex.query.expr.gflwor;
 import static org.basex.query.QueryText.*;
 
 import java.util.*;
+import java.util.concurrent.*;
 
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.util.*;
@@ -14,6 +16,7 @@ import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.basex.util.hash.*;
+import org.basex.util.list.*;
 
 /**
  * The GFLWOR {@code group by} expression.
@@ -118,67 +121,165 @@ public final class GroupBy extends Clause {
        * @throws QueryException query exception
        */
       private Group[] init(final QueryContext qc) throws QueryException {
+        final int threads = threads(qc);
+        if(threads > 1) return init(qc, threads);
+
         final ArrayList<Group> grps = new ArrayList<>();
         final IntObjMap<Group> map = new IntObjMap<>();
-        final DeepEqual[] deeps = new DeepEqual[nonOcc];
-        int c = 0;
-        for(final GroupSpec spec : specs) {
-          if(!spec.occluded) deeps[c++] = new DeepEqual(info, spec.coll, qc);
+        final DeepEqual[] deeps = deeps(qc);
+        final int pl = preExpr.length;
+        for(int t = 0; sub.next(qc); t++) {
+          final Item[] key = new Item[nonOcc];
+          final Group grp = group(key, hash(key, qc), t, map, grps, deeps, qc);
+          // add values of non-grouping variables to the group
+          for(int g = 0; g < pl; g++) {
+            grp.ngv[g].add(preExpr[g].value(qc));
+          }
         }
 
+        // we're finished, copy the array so the list can be garbage-collected
+        return grps.toArray(Group[]::new);
+      }
+
+      /**
+       * Builds up the groups in parallel.
+       * The keys and values of all tuples are evaluated first. The tuples are then distributed
+       * to partitions by the hash values of their keys, and the partitions are grouped by
+       * separate tasks of the common fork/join pool. A single partition is grouped by the
+       * calling thread.
+       * @param qc query context
+       * @param threads number of threads
+       * @throws QueryException query exception
+       */
+      private Group[] init(final QueryContext qc, final int threads) throws QueryException {
+        final ArrayList<Item[]> keys = new ArrayList<>();
+        final ArrayList<Value[]> values = new ArrayList<>();
+        final IntList hashes = new IntList();
+        final int pl = preExpr.length;
         while(sub.next(qc)) {
           final Item[] key = new Item[nonOcc];
-          int p = 0, hash = 1;
-          for(final GroupSpec spec : specs) {
-            final Item atom = spec.atomItem(qc, info);
-            if(!spec.occluded) {
-              key[p++] = atom;
-              // If the values are compared using a special collation, we let them collide
-              // here and let the comparison do all the work later.
-              // This enables other non-collation specs to avoid the collision.
-              hash = 31 * hash + (atom.isEmpty() || spec.coll != null ? 0 : atom.hashCode());
-            }
-            qc.set(spec.var, atom);
-          }
+          hashes.add(hash(key, qc));
+          keys.add(key);
+          final Value[] vals = new Value[pl];
+          for(int g = 0; g < pl; g++) vals[g] = preExpr[g].value(qc);
+          values.add(vals);
+        }
 
-          // find the group for this key
-          final Group fst;
-          Group grp = null;
-          // no collations, so we can use hashing
-          for(Group g = fst = map.get(hash); g != null; g = g.next) {
-            if(eq(key, g.key, deeps)) {
-              grp = g;
-              break;
-            }
+        final int size = keys.size(), partitions = Math.max(1, Math.min(threads, size >> 12));
+        final QueryFunction<Integer, ArrayList<Group>> partition = p -> {
+          final ArrayList<Group> list = new ArrayList<>();
+          final IntObjMap<Group> map = new IntObjMap<>();
+          final DeepEqual[] deeps = deeps(qc);
+          for(int t = 0; t < size; t++) {
+            final int hash = hashes.get(t);
+            if(Integer.remainderUnsigned(hash, partitions) != p) continue;
+            final Group grp = group(keys.get(t), hash, t, map, list, deeps, qc);
+            final Value[] vals = values.get(t);
+            for(int g = 0; g < pl; g++) grp.ngv[g].add(vals[g]);
           }
+          return list;
+        };
+        if(partitions == 1) return partition.apply(0).toArray(Group[]::new);
 
-          final int pl = preExpr.length;
-          if(grp == null) {
-            // new group, add it to the list
-            final ValueBuilder[] ngs = new ValueBuilder[pl];
-            final int nl = ngs.length;
-            for(int n = 0; n < nl; n++) ngs[n] = new ValueBuilder(qc);
-            grp = new Group(key, ngs);
-            grps.add(grp);
-
-            // insert the group into the hash table
-            if(fst == null) {
-              map.put(hash, grp);
-            } else {
-              final Group nxt = fst.next;
-              fst.next = grp;
-              grp.next = nxt;
-            }
+        final ArrayList<ForkJoinTask<ArrayList<Group>>> tasks = new ArrayList<>(partitions);
+        final ForkJoinPool pool = ForkJoinPool.commonPool();
+        final ArrayList<Group> grps = new ArrayList<>();
+        try {
+          for(int p = 0; p < partitions; p++) {
+            final int pt = p;
+            tasks.add(pool.submit(() -> {
+              try {
+                return partition.apply(pt);
+              } catch(final QueryException ex) {
+                throw new QueryRTException(ex);
+              }
+            }));
           }
+          for(final ForkJoinTask<ArrayList<Group>> task : tasks) grps.addAll(task.join());
+        } catch(final QueryRTException ex) {
+          throw ex.getCause();
+        }
+        // return groups in the order of their first tuples
+        final Group[] groups = grps.toArray(Group[]::new);
+        Arrays.sort(groups, (group1, group2) -> Integer.compare(group1.id, group2.id));
+        return groups;
+      }
 
-          // add values of non-grouping variables to the group
-          for(int g = 0; g < pl; g++) {
-            grp.ngv[g].add(preExpr[g].value(qc));
+      /**
+       * Evaluates the grouping key of the current tuple and binds the grouping variables.
+       * @param key array for the non-occluded key items
+       * @param qc query context
+       * @return hash value of the key
+       * @throws QueryException query exception
+       */
+      private int hash(final Item[] key, final QueryContext qc) throws QueryException {
+        int p = 0, hash = 1;
+        for(final GroupSpec spec : specs) {
+          final Item atom = spec.atomItem(qc, info);
+          if(!spec.occluded) {
+            key[p++] = atom;
+            // If the values are compared using a special collation, we let them collide
+            // here and let the comparison do all the work later.
+            // This enables other non-collation specs to avoid the collision.
+            hash = 31 * hash + (atom.isEmpty() || spec.coll != null ? 0 : atom.hashCode());
           }
+          qc.set(spec.var, atom);
         }
+        return hash;
+      }
 
-        // we're finished, copy the array so the list can be garbage-collected
-        return grps.toArray(Group[]::new);
+      /**
+       * Returns the group for the specified key. A new group is created if none is found.
+       * @param key key
+       * @param hash hash value of the key
+       * @param id index of the tuple
+       * @param map hash table
+       * @param grps list of groups
+       * @param deeps deep equality comparisons
+       * @param qc query context
+       * @return group
+       * @throws QueryException query exception
+       */
+      private Group group(final Item[] key, final int hash, final int id,
+          final IntObjMap<Group> map, final ArrayList<Group> grps, final DeepEqual[] deeps,
+          final QueryContext qc) throws QueryException {
+
+        // find the group for this key
+        final Group fst = map.get(hash);
+        for(Group g = fst; g != null; g = g.next) {
+          if(eq(key, g.key, deeps)) return g;
+        }
+
+        // new group, add it to the list
+        final int pl = preExpr.length;
+        final ValueBuilder[] ngs = new ValueBuilder[pl];
+        for(int n = 0; n < pl; n++) ngs[n] = new ValueBuilder(qc);
+        final Group grp = new Group(key, ngs, id);
+        grps.add(grp);
+
+        // insert the group into the hash table
+        if(fst == null) {
+          map.put(hash, grp);
+        } else {
+          final Group nxt = fst.next;
+          fst.next = grp;
+          grp.next = nxt;
+        }
+        return grp;
+      }
+
+      /**
+       * Creates the deep equality comparisons for the non-occluded grouping specs.
+       * @param qc query context
+       * @return comparisons
+       */
+      private DeepEqual[] deeps(final QueryContext qc) {
+        final DeepEqual[] deeps = new DeepEqual[nonOcc];
+        int c = 0;
+        for(final GroupSpec spec : specs) {
+          if(!spec.occluded) deeps[c++] = new DeepEqual(info, spec.coll, qc);
+        }
+        return deeps;
       }
 
       /**
@@ -203,6 +304,21 @@ public final class GroupBy extends Clause {
     };
   }
 
+  /**
+   * Returns the number of threads for grouping the tuples.
+   * Tuples are only grouped in parallel if the grouping keys are deterministic.
+   * @param qc query context
+   * @return number of threads
+   */
+  private int threads(final QueryContext qc) {
+    final int threads = qc.context.options.get(MainOptions.SORTTHREADS);
+    if(threads == 1) return 1;
+    for(final GroupSpec spec : specs) {
+      if(spec.has(Flag.NDT)) return 1;
+    }
+    return threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+  }
+
   @Override
   public boolean has(final Flag... flags) {
     for(final Expr expr : preExpr) {
@@ -0,0 +1,233 @@
+package org.basex.query.expr.gflwor;
+
+import static org.basex.query.QueryText.*;
+
+import java.util.*;
+
+import org.basex.query.*;
+import org.basex.query.expr.*;
+import org.basex.query.iter.*;
+import org.basex.query.util.*;
+import org.basex.query.util.hash.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.type.*;
+import org.basex.query.var.*;
+import org.basex.util.*;
+import org.basex.util.hash.*;
+import org.basex.util.list.*;
+
+/**
+ * FLWOR hash join clause, iterating over the items of a sequence whose key equals a probe value.
+ * Represents the clauses {@code for $c in C where K = P}, in which {@code C} and {@code K}
+ * are independent of the incoming tuples, and {@code P} does not reference {@code $c}.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class Join extends Clause {
+  /** No matches. */
+  private static final int[] NONE = {};
+
+  /** Item variable. */
+  Var var;
+  /** Bound expression. */
+  Expr expr;
+  /** Key expression, referencing the item variable. */
+  Expr key;
+  /** Probe expression, referencing the incoming tuples. */
+  Expr probe;
+
+  /**
+   * Constructor.
+   * @param var item variable
+   * @param expr bound expression
+   * @param key key expression
+   * @param probe probe expression
+   * @param info input info (can be {@code null})
+   */
+  Join(final Var var, final Expr expr, final Expr key, final Expr probe, final InputInfo info) {
+    super(info, SeqType.ITEM_ZO, var);
+    this.var = var;
+    this.expr = expr;
+    this.key = key;
+    this.probe = probe;
+  }
+
+  @Override
+  Eval eval(final Eval sub) {
+    return new Eval() {
+      /** Items of the bound expression (assigned when the first tuple arrives). */
+      private Value items;
+      /** Hashed keys. */
+      private HashItemSet keys;
+      /** Positions of the items with a specific key (index: key id). */
+      private ArrayList<int[]> positions;
+      /** Positions of the matching items. */
+      private int[] matches = NONE;
+      /** Index of the next matching item. */
+      private int m;
+
+      @Override
+      public boolean next(final QueryContext qc) throws QueryException {
+        while(true) {
+          if(m < matches.length) {
+            qc.set(var, items.itemAt(matches[m++]));
+            return true;
+          }
+          if(!sub.next(qc)) return false;
+          if(items == null) index(qc);
+          matches = matches(qc);
+          m = 0;
+        }
+      }
+
+      /**
+       * Evaluates the bound expression and indexes the keys of its items.
+       * @param qc query context
+       * @throws QueryException query exception
+       */
+      private void index(final QueryContext qc) throws QueryException {
+        items = expr.value(qc);
+        keys = new HashItemSet(ItemSet.Mode.EQUAL, info);
+        final ArrayList<IntList> lists = new ArrayList<>();
+        lists.add(null);
+        final long is = items.size();
+        for(int i = 0; i < is; i++) {
+          qc.set(var, items.itemAt(i));
+          final Iter iter = key.atomIter(qc, info);
+          for(Item item; (item = qc.next(iter)) != null;) {
+            final int id = keys.put(item);
+            if(id == lists.size()) lists.add(new IntList(1));
+            final IntList list = lists.get(id);
+            if(list.isEmpty() || list.peek() != i) list.add(i);
+          }
+        }
+        positions = new ArrayList<>(lists.size());
+        for(final IntList list : lists) positions.add(list != null ? list.finish() : null);
+      }
+
+      /**
+       * Returns the positions of the items whose keys match the probe value, in ascending order.
+       * @param qc query context
+       * @return positions
+       * @throws QueryException query exception
+       */
+      private int[] matches(final QueryContext qc) throws QueryException {
+        int[] first = null;
+        IntList list = null;
+        final Iter iter = probe.atomIter(qc, info);
+        for(Item item; (item = qc.next(iter)) != null;) {
+          final int id = keys.id(item);
+          if(id == 0) continue;
+          final int[] pos = positions.get(id);
+          if(first == null) {
+            first = pos;
+          } else if(pos != first) {
+            if(list == null) list = new IntList().add(first);
+            list.add(pos);
+          }
+        }
+        return list != null ? list.ddo().finish() : first != null ? first : NONE;
+      }
+    };
+  }
+
+  @Override
+  public boolean has(final Flag... flags) {
+    return expr.has(flags) || key.has(flags) || probe.has(flags);
+  }
+
+  @Override
+  public Join compile(final CompileContext cc) throws QueryException {
+    expr = expr.compile(cc);
+    key = key.compile(cc);
+    probe = probe.compile(cc);
+    return optimize(cc);
+  }
+
+  @Override
+  public Join optimize(final CompileContext cc) throws QueryException {
+    final SeqType st = expr.seqType();
+    exprType.assign(st.with(Occ.EXACTLY_ONE));
+    var.refineType(seqType(), size(), cc);
+    var.expr(expr);
+    return this;
+  }
+
+  @Override
+  public boolean inlineable(final InlineContext ic) {
+    return expr.inlineable(ic) && key.inlineable(ic) && probe.inlineable(ic);
+  }
+
+  @Override
+  public VarUsage count(final Var v) {
+    return VarUsage.sum(v, expr, key, probe);
+  }
+
+  @Override
+  public Clause inline(final InlineContext ic) throws QueryException {
+    final Expr inlined1 = expr.inline(ic), inlined2 = key.inline(ic), inlined3 = probe.inline(ic);
+    if(inlined1 == null && inlined2 == null && inlined3 == null) return null;
+    if(inlined1 != null) expr = inlined1;
+    if(inlined2 != null) key = inlined2;
+    if(inlined3 != null) probe = inlined3;
+    return optimize(ic.cc);
+  }
+
+  @Override
+  public Join copy(final CompileContext cc, final IntObjMap<Var> vm) {
+    final Expr ex = expr.copy(cc, vm);
+    final Var vr = cc.copy(var, vm);
+    return copyType(new Join(vr, ex, key.copy(cc, vm), probe.copy(cc, vm), info));
+  }
+
+  @Override
+  public boolean accept(final ASTVisitor visitor) {
+    return expr.accept(visitor) && visitor.declared(var) && key.accept(visitor) &&
+        probe.accept(visitor);
+  }
+
+  @Override
+  public void checkUp() throws QueryException {
+    checkNoneUp(expr, key, probe);
+  }
+
+  @Override
+  public void calcSize(final long[] minMax) {
+    minMax[0] = 0;
+    final long size = expr.size(), max = minMax[1];
+    if(size == 0) minMax[1] = 0;
+    else if(max > 0) minMax[1] = size > 0 ? max * size : -1;
+  }
+
+  @Override
+  public int exprSize() {
+    return expr.exprSize() + key.exprSize() + probe.exprSize();
+  }
+
+  @Override
+  public boolean equals(final Object obj) {
+    if(this == obj) return true;
+    if(!(obj instanceof Join)) return false;
+    final Join j = (Join) obj;
+    return var.equals(j.var) && expr.equals(j.expr) && key.equals(j.key) &&
+        probe.equals(j.probe);
+  }
+
+  @Override
+  public String description() {
+    return "hash join";
+  }
+
+  @Override
+  public void toXml(final QueryPlan plan) {
+    plan.add(plan.attachVariable(plan.create(this), var, false), expr, key, probe);
+  }
+
+  @Override
+  public void toString(final QueryString qs) {
+    qs.token(FOR).token(var).token(IN).token(expr).token(WHERE).token(key).token("=").
+      token(probe);
+  }
+}
@@ -4,9 +4,6 @@ import static org.basex.query.QueryError.*;
 import static org.basex.query.QueryText.*;
 import static org.basex.query.func.Function.*;
 
-import java.util.*;
-import java.util.List;
-
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.util.*;
@@ -44,19 +41,24 @@ public final class OrderBy extends Clause {
 
   @Override
   Eval eval(final Eval sub) {
+    return eval(sub, Long.MAX_VALUE);
+  }
+
+  /**
+   * Returns an evaluator that only returns the first sorted tuples.
+   * @param sub wrapped evaluator
+   * @param max maximum number of tuples to be returned
+   * @return evaluator
+   */
+  Eval eval(final Eval sub, final long max) {
     return new Eval() {
-      private Value[][] tpls;
-      private Integer[] perm;
-      int pos;
+      private QuerySupplier<Value[]> tuples;
 
       @Override
       public boolean next(final QueryContext qc) throws QueryException {
-        if(tpls == null) sort(qc);
-        if(pos == tpls.length) return false;
-        final int p = perm[pos++];
-        final Value[] tuple = tpls[p];
-        // free the space occupied by the tuple
-        tpls[p] = null;
+        if(tuples == null) tuples = sort(qc);
+        final Value[] tuple = tuples.get();
+        if(tuple == null) return false;
         final int rl = refs.length;
         for(int r = 0; r < rl; r++) qc.set(refs[r].var, tuple[r]);
         return true;
@@ -65,60 +67,41 @@ public final class OrderBy extends Clause {
       /**
        * Caches and sorts all incoming tuples.
        * @param qc query context
+       * @return supplier for the sorted tuples
        * @throws QueryException evaluation exception
        */
-      private void sort(final QueryContext qc) throws QueryException {
-        // keys are stored at odd positions, values at even ones
-        List<Value[]> tuples = new ArrayList<>();
+      private QuerySupplier<Value[]> sort(final QueryContext qc) throws QueryException {
+        final TupleSort tuple = new TupleSort(qc, info, max, !has(Flag.NDT)) {
+          @Override
+          protected int compare(final Value[] keys1, final Value[] keys2) throws QueryException {
+            final int kl = keys.length;
+            for(int k = 0; k < kl; k++) {
+              final OrderKey key = keys[k];
+              Item m = (Item) keys1[k], n = (Item) keys2[k];
+              if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
+              if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
+              if(!m.isEmpty() && !n.isEmpty() && !m.comparable(n))
+                throw typeError(n, m.type, key.info());
+
+              final int c = m.isEmpty()
+                  ? n.isEmpty() ? 0             : key.least ? -1 : 1
+                  : n.isEmpty() ? key.least ? 1 : -1 : m.compare(n, key.coll, true, key.info());
+              if(c != 0) return key.desc ? -c : c;
+            }
+            return 0;
+          }
+        };
         while(sub.next(qc)) {
           final int kl = keys.length;
           final Item[] key = new Item[kl];
           for(int k = 0; k < kl; k++) key[k] = keys[k].expr.atomItem(qc, keys[k].info());
-          tuples.add(key);
 
           final int rl = refs.length;
           final Value[] vals = new Value[rl];
           for(int r = 0; r < rl; r++) vals[r] = refs[r].value(qc);
-          tuples.add(vals);
-        }
-
-        final int len = tuples.size() >>> 1;
-        final Item[][] ks = new Item[len][];
-        perm = new Integer[len];
-        tpls = new Value[len][];
-        for(int i = 0; i < len; i++) {
-          perm[i] = i;
-          tpls[i] = tuples.get(i << 1 | 1);
-          ks[i] = (Item[]) tuples.get(i << 1);
-        }
-        // be nice to the garbage collector
-        tuples = null;
-        try {
-          Arrays.sort(perm, (x, y) -> {
-            try {
-              final Item[] a = ks[x], b = ks[y];
-              final int kl = keys.length;
-              for(int k = 0; k < kl; k++) {
-                final OrderKey key = keys[k];
-                Item m = a[k], n = b[k];
-                if(m == Dbl.NAN || m == Flt.NAN) m = Empty.VALUE;
-                if(n == Dbl.NAN || n == Flt.NAN) n = Empty.VALUE;
-                if(!m.isEmpty() && !n.isEmpty() && !m.comparable(n))
-                  throw typeError(n, m.type, key.info());
-
-                final int c = m.isEmpty()
-                    ? n.isEmpty() ? 0             : key.least ? -1 : 1
-                    : n.isEmpty() ? key.least ? 1 : -1 : m.compare(n, key.coll, true, key.info());
-                if(c != 0) return key.desc ? -c : c;
-              }
-              return 0;
-            } catch(final QueryException ex) {
-              throw new QueryRTException(ex);
-            }
-          });
-        } catch(final QueryRTException ex) {
-          throw ex.getCause();
+          tuple.add(key, vals);
         }
+        return tuple.sort();
       }
     };
   }
@@ -27,6 +27,7 @@ import org.basex.query.value.seq.*;
 import org.basex.query.value.type.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
+import org.basex.util.list.*;
 
 /**
  * Path expression.
@@ -35,6 +36,9 @@ import org.basex.util.*;
  * @author Christian Gruen
  */
 public abstract class Path extends ParseExpr {
+  /** Maximum ratio between the results of a joined and the cheapest index access. */
+  private static final int JOIN = 4;
+
   /** Root expression (can be {@code null}). */
   public Expr root;
   /** Path steps. */
@@ -750,6 +754,9 @@ public abstract class Path extends ParseExpr {
     IndexInfo index = null;
     // cheapest predicate and step
     int predIndex = 0, stepIndex = 0;
+    // all possible index accesses and the positions of their predicates
+    final ArrayList<IndexInfo> infos = new ArrayList<>();
+    final IntList positions = new IntList();
 
     // check if path can be converted to an index access
     final Data data = data();
@@ -771,6 +778,8 @@ public abstract class Path extends ParseExpr {
         for(int e = 0; e < el; e++) {
           final IndexInfo ii = new IndexInfo(db, cc, step);
           if(!step.exprs[e].indexAccessible(ii)) continue;
+          infos.add(ii);
+          positions.add(e);
 
           if(ii.costs.results() == 0) {
             // no results...
@@ -795,10 +804,31 @@ public abstract class Path extends ParseExpr {
     // rewrite for index access
     cc.info(index.optInfo);
 
+    // join index accesses of further predicates of the same step
+    final Expr[] preds = index.step.exprs;
+    final boolean[] joined = new boolean[preds.length];
+    final ExprList joins = new ExprList().add(index.expr);
+    joined[predIndex] = true;
+    if(data != null) {
+      final long max = (long) index.costs.results() * JOIN;
+      final int is = infos.size();
+      for(int i = 0; i < is; i++) {
+        final IndexInfo ii = infos.get(i);
+        final int results = ii.costs.results();
+        if(ii != index && ii.step == index.step && results > 0 && results <= max) {
+          cc.info(ii.optInfo);
+          joins.add(ii.expr);
+          joined[positions.get(i)] = true;
+        }
+      }
+    }
+
     // create new root expression
     final ExprList indexSteps = new ExprList();
     final Expr indexRoot;
-    if(index.expr instanceof Path) {
+    if(joins.size() > 1) {
+      indexRoot = new Intersect(info, joins.finish()).optimize(cc);
+    } else if(index.expr instanceof Path) {
       final Path path = (Path) index.expr;
       indexRoot = path.root;
       indexSteps.add(path.steps);
@@ -850,7 +880,10 @@ public abstract class Path extends ParseExpr {
       lastPreds.add(cc.get(indexStep != null ? indexStep : indexRoot, true,
         () -> get(cc, info, null, invSteps.finish())));
     }
-    lastPreds.add(Array.remove(index.step.exprs, predIndex));
+    final int pl = preds.length;
+    for(int p = 0; p < pl; p++) {
+      if(!joined[p]) lastPreds.add(preds[p]);
+    }
 
     // attach predicates to last step or new self::node() step
     if(!lastPreds.isEmpty()) {
@@ -103,6 +103,14 @@ public final class StaticFuncs extends ExprInfo {
     }
   }
 
+  /**
+   * Indicates if no functions, function calls or closures have been registered.
+   * @return result of check
+   */
+  public boolean isEmpty() {
+    return caches.isEmpty();
+  }
+
   /**
    * Returns the function with the given name and arity.
    * @param qname function name
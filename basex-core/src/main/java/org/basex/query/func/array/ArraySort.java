@@ -4,7 +4,6 @@ import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.fn.*;
 import org.basex.query.iter.*;
-import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.array.*;
 import org.basex.query.value.type.*;
@@ -27,14 +26,11 @@ public final class ArraySort extends FnSort {
     final long as = array.structSize();
     if(as == 0) return array;
 
-    final ValueList list = new ValueList(as);
-    for(final Value member : array.iterable()) list.add(member);
-    final Value[] values = list.finish();
-    final Integer[] index = index(values, qc);
-    if(sorted(index)) return array;
+    final QuerySupplier<Value[]> sorted = sort(array.iterable(), Long.MAX_VALUE, qc);
+    if(sorted == null) return array;
 
     final ArrayBuilder ab = new ArrayBuilder();
-    for(final int i : index) ab.append(values[i]);
+    for(Value[] value; (value = sorted.get()) != null;) ab.append(value[0]);
     return ab.array(this);
   }
 
@@ -3,15 +3,14 @@ package org.basex.query.func.fn;
 import static org.basex.query.QueryError.*;
 import static org.basex.query.func.Function.*;
 
-import java.util.*;
-
+import org.basex.core.*;
 import org.basex.query.*;
 import org.basex.query.CompileContext.*;
 import org.basex.query.expr.*;
 import org.basex.query.func.*;
 import org.basex.query.iter.*;
+import org.basex.query.util.*;
 import org.basex.query.util.collation.*;
-import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
@@ -40,70 +39,80 @@ public class FnSort extends StandardFunc {
   @Override
   public Iter iter(final QueryContext qc) throws QueryException {
     final Value input = arg(0).value(qc), value = quickValue(input);
-    return value != null ? value.iter() : iter(input, qc);
+    return value != null ? value.iter() : iter(input, Long.MAX_VALUE, qc);
   }
 
   @Override
   public Value value(final QueryContext qc) throws QueryException {
     final Value input = arg(0).value(qc), value = quickValue(input);
-    return value != null ? value : iter(input, qc).value(qc, this);
+    return value != null ? value : iter(input, Long.MAX_VALUE, qc).value(qc, this);
+  }
+
+  /**
+   * Returns an iterator for the first items of the sorted input.
+   * @param qc query context
+   * @param max maximum number of requested items
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  public final Iter iter(final QueryContext qc, final long max) throws QueryException {
+    final Value input = arg(0).value(qc), value = quickValue(input);
+    return value != null ? value.iter() : iter(input, max, qc);
   }
 
   /**
    * Sort the input data and returns an iterator.
    * @param input items to be sorted
+   * @param max maximum number of requested items
    * @param qc query context
    * @return iterator with ordered items
    * @throws QueryException query exception
    */
-  private Iter iter(final Value input, final QueryContext qc) throws QueryException {
-    final long is = input.size();
-    final ItemList list = new ItemList(is);
-    for(final Item item : input) list.add(item);
-    final Item[] values = list.finish();
-    final Integer[] index = index(values, qc);
-    return sorted(index) ? input.iter() : new BasicIter<>(is) {
+  private Iter iter(final Value input, final long max, final QueryContext qc)
+      throws QueryException {
+    final QuerySupplier<Value[]> sorted = sort(input, max, qc);
+    if(sorted == null) return input.iter();
+    if(max >= input.size() || max > Array.MAX_SIZE) {
+      return new Iter() {
+        @Override
+        public Item next() throws QueryException {
+          final Value[] value = sorted.get();
+          return value != null ? (Item) value[0] : null;
+        }
+      };
+    }
+
+    // truncated result: return the first sorted items
+    final Item[] items = new Item[(int) max];
+    for(int i = 0; i < max; i++) items[i] = (Item) sorted.get()[0];
+    return new BasicIter<>(max) {
       @Override
-      public Item get(final long l) {
-        return values[index[(int) l]];
+      public Item get(final long i) {
+        return items[(int) i];
       }
     };
   }
 
   /**
-   * Checks if the index is sorted.
-   * @param index index
-   * @return result of check
-   */
-  protected final boolean sorted(final Integer[] index) {
-    final int il = index.length;
-    for(int i = 0; i < il; i++) {
-      if(index[i] != i) return false;
-    }
-    return true;
-  }
-
-  /**
-   * Returns an array with an index to the original values.
+   * Sorts the specified values.
    * @param values values
+   * @param max maximum number of requested values
    * @param qc query context
-   * @return index
+   * @return supplier for the sorted values, or {@code null} if the values are already sorted
    * @throws QueryException query exception
    */
-  protected final Integer[] index(final Value[] values, final QueryContext qc)
-      throws QueryException {
+  protected final QuerySupplier<Value[]> sort(final Iterable<? extends Value> values,
+      final long max, final QueryContext qc) throws QueryException {
 
     final Value keys = arg(2).value(qc);
-    final int levels = (int) Math.max(1, keys.size()), size = values.length;
+    final int levels = (int) Math.max(1, keys.size());
     final Value collations = arg(1).value(qc), order = arg(3).value(qc);
 
-    final Value[][] cached = new Value[levels][];
     final FItem[] key = new FItem[levels];
     final Collation[] collation = new Collation[levels];
     final boolean[] invert = new boolean[levels];
 
     for(int l = 0; l < levels; l++) {
-      cached[l] = new Value[size];
       if(l < keys.size()) key[l] = toFunction(keys.itemAt(l), 1, qc);
       collation[l] = l < collations.size() ? toCollation(collations.itemAt(l), qc) :
         l > 0 ? collation[l - 1] : null;
@@ -111,35 +120,51 @@ public class FnSort extends StandardFunc {
         l > 0 && invert[l - 1];
     }
 
-    final Integer[] indexes = new Integer[size];
-    for(int o = 0; o < size; o++) indexes[o] = o;
-    try {
-      Arrays.sort(indexes, (i1, i2) -> {
-        qc.checkStop();
-        try {
-          for(int l = 0; l < levels; l++) {
-            final int ll = l;
-            final QueryFunction<Integer, Value> value = i -> {
-              Value val = cached[ll][i];
-              if(val == null) {
-                final FItem k = key[ll];
-                val = (k == null ? values[i] : k.invoke(qc, info, values[i])).atomValue(qc, info);
-                cached[ll][i] = val;
-              }
-              return val;
-            };
-            final int diff = compare(value.apply(i1), value.apply(i2), collation[l], info);
-            if(diff != 0) return invert[l] ? -diff : diff;
-          }
-          return 0;
-        } catch(final QueryException ex) {
-          throw new QueryRTException(ex);
+    // keys are computed lazily, or in advance if they are compared in parallel;
+    // the last entry references the value
+    final boolean parallel = qc.context.options.get(MainOptions.SORTTHREADS) != 1 &&
+        !has(Flag.NDT);
+    final TupleSort tuples = new TupleSort(qc, info, max, parallel) {
+      @Override
+      protected int compare(final Value[] keys1, final Value[] keys2) throws QueryException {
+        for(int l = 0; l < levels; l++) {
+          final int diff = FnSort.compare(sortKey(keys1, l, key[l], qc),
+              sortKey(keys2, l, key[l], qc), collation[l], info);
+          if(diff != 0) return invert[l] ? -diff : diff;
         }
-      });
-    } catch(final QueryRTException ex) {
-      throw ex.getCause();
+        return 0;
+      }
+    };
+    for(final Value value : values) {
+      final Value[] tuple = new Value[levels + 1];
+      tuple[levels] = value;
+      if(parallel) {
+        for(int l = 0; l < levels; l++) sortKey(tuple, l, key[l], qc);
+      }
+      tuples.add(tuple, new Value[] { value });
+    }
+    final QuerySupplier<Value[]> sorted = tuples.sort();
+    return tuples.sorted() ? null : sorted;
+  }
+
+  /**
+   * Returns a sort key of a tuple. The key is computed if it has not been assigned yet.
+   * @param tuple tuple with keys and the value
+   * @param l level of the key
+   * @param key key function (can be {@code null})
+   * @param qc query context
+   * @return key
+   * @throws QueryException query exception
+   */
+  private Value sortKey(final Value[] tuple, final int l, final FItem key, final QueryContext qc)
+      throws QueryException {
+    Value val = tuple[l];
+    if(val == null) {
+      final Value value = tuple[tuple.length - 1];
+      val = (key == null ? value : key.invoke(qc, info, value)).atomValue(qc, info);
+      tuple[l] = val;
     }
-    return indexes;
+    return val;
   }
 
   /**
@@ -7,6 +7,7 @@ import java.util.*;
 import org.basex.query.*;
 import org.basex.query.expr.*;
 import org.basex.query.expr.List;
+import org.basex.query.expr.gflwor.*;
 import org.basex.query.func.*;
 import org.basex.query.func.file.*;
 import org.basex.query.iter.*;
@@ -35,7 +36,7 @@ public class FnSubsequence extends StandardFunc {
     if(sr == EMPTY) return Empty.ITER;
 
     // return iterator if all results are returned, of it iterator yields no items
-    final Iter input = arg(0).iter(qc);
+    final Iter input = input(sr, qc);
     if(sr == ALL) return input;
 
     // return empty iterator if no items remain
@@ -92,7 +93,7 @@ public class FnSubsequence extends StandardFunc {
     if(sr == ALL) return input.value(qc);
 
     // return empty iterator if no items remain
-    final Iter iter = input.iter(qc);
+    final Iter iter = input(sr, qc);
     final long size = sr.adjust(iter.size());
     if(sr.length == 0) return Empty.VALUE;
 
@@ -117,6 +118,25 @@ public class FnSubsequence extends StandardFunc {
     return vb.value(this);
   }
 
+  /**
+   * Returns an iterator for the input.
+   * If the input is sorted, only the items that contribute to the result will be sorted.
+   * @param sr range
+   * @param qc query context
+   * @return iterator
+   * @throws QueryException query exception
+   */
+  private Iter input(final SeqRange sr, final QueryContext qc) throws QueryException {
+    final Expr input = arg(0);
+    if(sr != ALL && sr.end != Long.MAX_VALUE) {
+      // (for $i in E order by $i/@date return $i)[position() <= 10]
+      if(input instanceof GFLWOR) return ((GFLWOR) input).iter(qc, sr.end);
+      // subsequence(sort(E), 1, 20)
+      if(SORT.is(input)) return ((FnSort) input).iter(qc, sr.end);
+    }
+    return input.iter(qc);
+  }
+
   /**
    * Returns the start position and length of the requested subsequence.
    * @param cc compilation context
@@ -11,6 +11,7 @@ import org.basex.query.util.*;
 import org.basex.query.value.*;
 import org.basex.query.value.item.*;
 import org.basex.query.var.*;
+import org.basex.util.hash.*;
 
 /**
  * An XQuery main module.
@@ -42,6 +43,26 @@ public class MainModule extends AModule {
     return null;
   }
 
+  /**
+   * Creates a copy of this module for the query context of the specified compilation context.
+   * The static variables must already have been copied to the target context.
+   * @param cc compilation context
+   * @return copy
+   */
+  public MainModule copy(final CompileContext cc) {
+    final VarScope vsc = new VarScope();
+    cc.pushScope(vsc);
+    try {
+      final MainModule mm = new MainModule(expr.copy(cc, new IntObjMap<>()), vsc, sc);
+      final ArrayList<StaticVar> vrs = new ArrayList<>(vars.size());
+      for(final StaticVar sv : cc.qc.vars) vrs.add(sv);
+      mm.set(funcs, vrs, types, modules, namespaces, null);
+      return mm;
+    } finally {
+      cc.removeScope();
+    }
+  }
+
   /**
    * Creates a result iterator which lazily evaluates this module.
    * @param qc query context
@@ -63,6 +63,7 @@ public final class DBOptimize extends DBUpdate {
     dbopts.assignIfAbsent(MainOptions.SPLITSIZE, meta.splitsize);
     dbopts.assignIfAbsent(MainOptions.MAXCATS, meta.maxcats);
     dbopts.assignIfAbsent(MainOptions.MAXLEN, meta.maxlen);
+    dbopts.assignIfAbsent(MainOptions.NUMINDEX, meta.numindex);
     options = dbopts.assignTo(new MainOptions(qc.context.options, false));
   }
 
@@ -85,11 +86,14 @@ public final class DBOptimize extends DBUpdate {
     final String stopwords = options.get(MainOptions.STOPWORDS);
 
     final MetaData meta = data.meta;
-    final boolean rebuild = maxlen != meta.maxlen;
-    final boolean rebuildText = !meta.textinclude.equals(textinclude) || rebuild;
-    final boolean rebuildAttr = !meta.attrinclude.equals(attrinclude) || rebuild;
+    final boolean numindex = options.get(MainOptions.NUMINDEX);
+    final boolean rebuild = maxlen != meta.maxlen, rebuildNum = numindex != meta.numindex;
+    final boolean rebuildText = !meta.textinclude.equals(textinclude) || rebuild || rebuildNum;
+    final boolean rebuildAttr = !meta.attrinclude.equals(attrinclude) || rebuild || rebuildNum;
     final boolean rebuildToken = !meta.tokeninclude.equals(tokeninclude);
+    final boolean updindex = options.get(MainOptions.UPDINDEX);
     final boolean rebuildFt = !meta.ftinclude.equals(ftinclude) || rebuild ||
+        updindex != meta.updindex ||
         stemming != meta.stemming || casesens != meta.casesens || diacritics != meta.diacritics ||
         !language.equals(meta.language) || !stopwords.equals(meta.stopwords);
 
@@ -99,13 +103,14 @@ public final class DBOptimize extends DBUpdate {
     meta.createtoken = options.get(MainOptions.TOKENINDEX);
     meta.createft = options.get(MainOptions.FTINDEX);
     meta.maxcats = options.get(MainOptions.MAXCATS);
-    meta.updindex = options.get(MainOptions.UPDINDEX);
+    meta.updindex = updindex;
     meta.autooptimize = options.get(MainOptions.AUTOOPTIMIZE);
     meta.splitsize = options.get(MainOptions.SPLITSIZE);
     meta.textinclude = textinclude;
     meta.attrinclude = attrinclude;
     meta.tokeninclude = tokeninclude;
     meta.maxlen = maxlen;
+    meta.numindex = numindex;
     meta.ftinclude = ftinclude;
     meta.stemming   = stemming;
     meta.casesens   = casesens;
@@ -0,0 +1,596 @@
+package org.basex.query.util;
+
+import static org.basex.query.QueryError.*;
+
+import java.io.*;
+import java.math.*;
+import java.util.*;
+
+import org.basex.core.*;
+import org.basex.data.*;
+import org.basex.io.*;
+import org.basex.io.in.DataInput;
+import org.basex.io.out.DataOutput;
+import org.basex.query.*;
+import org.basex.query.value.*;
+import org.basex.query.value.item.*;
+import org.basex.query.value.node.*;
+import org.basex.query.value.seq.*;
+import org.basex.query.value.type.*;
+import org.basex.util.*;
+import org.basex.util.list.*;
+
+/**
+ * Stable sort of tuples, which consist of sort keys and values.
+ *
+ * <ul>
+ *   <li> Tuples are buffered in main memory. If {@link MainOptions#SORTLIMIT} is positive,
+ *        and if the number of buffered tuples reaches the limit, or if it is {@code 0}, and if
+ *        main memory runs low, the buffered tuples are sorted and written to a temporary
+ *        file.</li>
+ *   <li> If the sorted tuples are requested, the remaining tuples are sorted in main memory,
+ *        and all sorted runs are merged.</li>
+ *   <li> Runs are only written as long as all keys and values can be restored from disk, i.e.,
+ *        if they are short sequences of database nodes, strings, untyped atomics, integers,
+ *        decimals, doubles and booleans. Otherwise, all tuples are sorted in main memory.</li>
+ *   <li> If {@link MainOptions#SORTTHREADS} is enabled, and if the keys can be compared by
+ *        concurrent threads, the buffered tuples are sorted in parallel.</li>
+ *   <li> If only the first tuples are requested, the best tuples are kept in a bounded heap,
+ *        and all other tuples are discarded.</li>
+ * </ul>
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public abstract class TupleSort {
+  /** Minimum number of tuples that will be written if main memory runs low. */
+  private static final int MINRUN = 1 << 14;
+  /** Maximum number of tuples that will be kept in a bounded heap. */
+  private static final int MAXTOP = 1 << 16;
+  /** Maximum number of items of a value that will be written to disk. */
+  private static final int MAXITEMS = 16;
+  /** Atomic types. */
+  private static final AtomType[] TYPES = AtomType.values();
+
+  /** Item tag: database node. */
+  private static final int NODE = 0;
+  /** Item tag: string. */
+  private static final int STR = 1;
+  /** Item tag: untyped atomic. */
+  private static final int ATM = 2;
+  /** Item tag: integer. */
+  private static final int INT = 3;
+  /** Item tag: decimal. */
+  private static final int DEC = 4;
+  /** Item tag: double. */
+  private static final int DBL = 5;
+  /** Item tag: boolean. */
+  private static final int BLN = 6;
+
+  /** Query context. */
+  protected final QueryContext qc;
+  /** Input info (can be {@code null}). */
+  protected final InputInfo info;
+
+  /** Keys of the buffered tuples. */
+  private final ArrayList<Value[]> keys = new ArrayList<>();
+  /** Values of the buffered tuples. */
+  private final ArrayList<Value[]> values = new ArrayList<>();
+  /** Written runs. */
+  private final ArrayList<FileRun> runs = new ArrayList<>(0);
+  /** Databases of written nodes. */
+  private final ArrayList<Data> datas = new ArrayList<>(1);
+  /** Maximum number of buffered tuples (0: until main memory runs low, -1: no limit). */
+  private final int limit;
+  /** Number of threads for sorting the buffered tuples. */
+  private final int threads;
+  /** Indicates if the buffered tuples can be written to disk. */
+  private boolean spill;
+  /** Indicates if the tuples were already sorted. */
+  private boolean sorted;
+
+  /** Bounded heap with the best tuples, or {@code null} if all tuples will be returned. */
+  private final MinHeap<Tuple, Tuple> heap;
+  /** Maximum number of tuples in the heap. */
+  private final int top;
+  /** Number of added tuples. */
+  private int count;
+
+  /**
+   * Constructor.
+   * @param qc query context
+   * @param info input info (can be {@code null})
+   */
+  protected TupleSort(final QueryContext qc, final InputInfo info) {
+    this(qc, info, Long.MAX_VALUE, false);
+  }
+
+  /**
+   * Constructor.
+   * @param qc query context
+   * @param info input info (can be {@code null})
+   * @param max maximum number of tuples to be returned
+   * @param parallel indicates if the keys are deterministic and can be compared by concurrent
+   *   threads, i.e., if {@link #compare} does not evaluate any expressions
+   */
+  protected TupleSort(final QueryContext qc, final InputInfo info, final long max,
+      final boolean parallel) {
+    this.qc = qc;
+    this.info = info;
+    final MainOptions options = qc.context.options;
+    limit = options.get(MainOptions.SORTLIMIT);
+    spill = limit >= 0;
+    final int t = parallel ? options.get(MainOptions.SORTTHREADS) : 1;
+    threads = t > 0 ? t : Runtime.getRuntime().availableProcessors();
+    top = (int) Math.min(max, MAXTOP + 1);
+    // the worst tuple (larger key, or later insertion for equal keys) is placed on top
+    heap = top > MAXTOP ? null : new MinHeap<>((tuple1, tuple2) -> {
+      try {
+        final int c = compare(tuple2.key, tuple1.key);
+        return c != 0 ? c : tuple2.id - tuple1.id;
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+    });
+  }
+
+  /**
+   * Compares the keys of two tuples.
+   * Entries of the key arrays can be {@code null} and lazily assigned by the implementation.
+   * @param keys1 keys of the first tuple
+   * @param keys2 keys of the second tuple
+   * @return result of comparison
+   * @throws QueryException query exception
+   */
+  protected abstract int compare(Value[] keys1, Value[] keys2) throws QueryException;
+
+  /**
+   * Adds a tuple.
+   * @param key keys
+   * @param value values
+   * @throws QueryException query exception
+   */
+  public final void add(final Value[] key, final Value[] value) throws QueryException {
+    if(heap != null) {
+      final Tuple tuple = new Tuple(key, value, count++);
+      try {
+        heap.insert(tuple, tuple);
+        if(heap.size() > top) heap.removeMin();
+      } catch(final QueryRTException ex) {
+        throw ex.getCause();
+      }
+      return;
+    }
+    keys.add(key);
+    values.add(value);
+    if(spill) {
+      spill = storable(key) && storable(value);
+      final int size = keys.size();
+      if(spill && (limit > 0 ? size >= limit : size >= MINRUN && (size & 0x3FF) == 0 &&
+          memoryLow())) write();
+    }
+  }
+
+  /**
+   * Checks if main memory runs low. Garbage is collected before the final decision is made.
+   * @return result of check
+   */
+  private static boolean memoryLow() {
+    final long max = (long) (Runtime.getRuntime().maxMemory() * 0.8);
+    if(Performance.memory() < max) return false;
+    Performance.gc(2);
+    return Performance.memory() >= max;
+  }
+
+  /**
+   * Sorts the tuples and returns a supplier for their values.
+   * @return supplier, returning the values of the next tuple or {@code null}
+   * @throws QueryException query exception
+   */
+  public final QuerySupplier<Value[]> sort() throws QueryException {
+    if(heap != null) {
+      // remove worst tuples first
+      final int hs = heap.size();
+      final Tuple[] tuples = new Tuple[hs];
+      try {
+        for(int h = hs; --h >= 0;) tuples[h] = heap.removeMin();
+      } catch(final QueryRTException ex) {
+        throw ex.getCause();
+      }
+      return new QuerySupplier<>() {
+        private int t;
+
+        @Override
+        public Value[] get() {
+          if(t == hs) return null;
+          final Value[] value = tuples[t].value;
+          tuples[t++] = null;
+          return value;
+        }
+      };
+    }
+
+    final int[] order = order();
+    final MemRun mem = new MemRun(order, runs.size());
+    if(runs.isEmpty()) {
+      sorted = true;
+      final int ol = order.length;
+      for(int o = 0; o < ol && sorted; o++) sorted = order[o] == o;
+      return () -> mem.next() ? mem.value : null;
+    }
+
+    final MinHeap<Run, Run> heap = new MinHeap<>((run1, run2) -> {
+      try {
+        final int c = compare(run1.key, run2.key);
+        return c != 0 ? c : run1.id - run2.id;
+      } catch(final QueryException ex) {
+        throw new QueryRTException(ex);
+      }
+    });
+    try {
+      for(final Run run : runs) {
+        if(run.next()) heap.insert(run, run);
+      }
+      if(mem.next()) heap.insert(mem, mem);
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+    return () -> {
+      if(heap.isEmpty()) return null;
+      qc.checkStop();
+      try {
+        final Run run = heap.removeMin();
+        final Value[] value = run.value;
+        if(run.next()) heap.insert(run, run);
+        return value;
+      } catch(final QueryRTException ex) {
+        throw ex.getCause();
+      }
+    };
+  }
+
+  /**
+   * Indicates if the tuples were already supplied in their sorted order.
+   * Must be called after {@link #sort()}.
+   * @return result of check
+   */
+  public final boolean sorted() {
+    return sorted;
+  }
+
+  /**
+   * Returns the order of the buffered tuples.
+   * @return order
+   * @throws QueryException query exception
+   */
+  private int[] order() throws QueryException {
+    final IntList list = Array.number(keys.size());
+    try {
+      list.sort((i1, i2) -> {
+        qc.checkStop();
+        try {
+          return compare(keys.get(i1), keys.get(i2));
+        } catch(final QueryException ex) {
+          throw new QueryRTException(ex);
+        }
+      }, threads);
+    } catch(final QueryRTException ex) {
+      throw ex.getCause();
+    }
+    return list.finish();
+  }
+
+  /**
+   * Sorts the buffered tuples and writes them to a temporary file.
+   * @throws QueryException query exception
+   */
+  private void write() throws QueryException {
+    final int[] order = order();
+    try {
+      final IOFile file = new IOFile(File.createTempFile(Prop.NAME + '-', IO.TMPSUFFIX));
+      final FileRun run = new FileRun(file, order.length, runs.size());
+      qc.resources.index(Runs.class).add(run);
+      runs.add(run);
+      try(DataOutput out = new DataOutput(file)) {
+        for(final int o : order) {
+          write(out, keys.get(o));
+          write(out, values.get(o));
+        }
+      }
+    } catch(final IOException ex) {
+      throw IOERR_X.get(info, ex);
+    }
+    keys.clear();
+    values.clear();
+  }
+
+  /**
+   * Checks if the specified values can be written to disk.
+   * @param vals values
+   * @return result of check
+   */
+  private static boolean storable(final Value[] vals) {
+    for(final Value value : vals) {
+      if(value == null) continue;
+      if(value.size() > MAXITEMS) return false;
+      for(final Item item : value) {
+        final Class<?> type = item.getClass();
+        if(!(type == DBNode.class ? !((DBNode) item).attached() : type == Str.class ||
+          type == Atm.class || type == Int.class || type == Dec.class || type == Dbl.class ||
+          item == Bln.TRUE || item == Bln.FALSE)) return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Writes values.
+   * @param out output stream
+   * @param vals values (entries can be {@code null})
+   * @throws IOException I/O exception
+   */
+  private void write(final DataOutput out, final Value[] vals) throws IOException {
+    out.writeNum(vals.length);
+    for(final Value value : vals) {
+      if(value == null) {
+        out.writeNum(0);
+        continue;
+      }
+      out.writeNum((int) value.size() + 1);
+      for(final Item item : value) {
+        if(item instanceof DBNode) {
+          final DBNode node = (DBNode) item;
+          final Data data = node.data();
+          int d = datas.size();
+          while(--d >= 0 && datas.get(d) != data);
+          if(d == -1) {
+            d = datas.size();
+            datas.add(data);
+          }
+          out.write(NODE);
+          out.writeNum(d);
+          out.writeNum(node.pre());
+        } else if(item instanceof Str) {
+          out.write(STR);
+          out.writeNum(((AtomType) item.type).ordinal());
+          out.writeToken(((Str) item).string());
+        } else if(item instanceof Atm) {
+          out.write(ATM);
+          out.writeToken(((Atm) item).string(info));
+        } else if(item instanceof Int) {
+          out.write(INT);
+          out.writeNum(((AtomType) item.type).ordinal());
+          out.writeLong(((Int) item).itr());
+        } else if(item instanceof Dec) {
+          out.write(DEC);
+          out.writeToken(Token.token(((Dec) item).dec(info).toString()));
+        } else if(item instanceof Dbl) {
+          out.write(DBL);
+          out.writeLong(Double.doubleToRawLongBits(((Dbl) item).dbl()));
+        } else {
+          out.write(BLN);
+          out.writeBool(item == Bln.TRUE);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads values.
+   * @param in input stream
+   * @return values
+   * @throws IOException I/O exception
+   */
+  private Value[] read(final DataInput in) throws IOException {
+    final int vl = in.readNum();
+    final Value[] vals = new Value[vl];
+    for(int v = 0; v < vl; v++) {
+      final int size = in.readNum() - 1;
+      if(size == -1) continue;
+      if(size == 0) {
+        vals[v] = Empty.VALUE;
+      } else if(size == 1) {
+        vals[v] = readItem(in);
+      } else {
+        final ValueBuilder vb = new ValueBuilder(qc);
+        for(int s = 0; s < size; s++) vb.add(readItem(in));
+        vals[v] = vb.value();
+      }
+    }
+    return vals;
+  }
+
+  /**
+   * Reads an item.
+   * @param in input stream
+   * @return item
+   * @throws IOException I/O exception
+   */
+  private Item readItem(final DataInput in) throws IOException {
+    switch(in.read()) {
+      case NODE:
+        final Data data = datas.get(in.readNum());
+        return new DBNode(data, in.readNum());
+      case STR:
+        final AtomType type = TYPES[in.readNum()];
+        return Str.get(in.readToken(), type);
+      case ATM:
+        return Atm.get(in.readToken());
+      case INT:
+        final AtomType itype = TYPES[in.readNum()];
+        return Int.get(in.readLong(), itype);
+      case DEC:
+        return Dec.get(new BigDecimal(Token.string(in.readToken())));
+      case DBL:
+        return Dbl.get(Double.longBitsToDouble(in.readLong()));
+      default:
+        return Bln.get(in.readBool());
+    }
+  }
+
+  /**
+   * Tuple in a bounded heap.
+   */
+  private static final class Tuple {
+    /** Keys. */
+    final Value[] key;
+    /** Values. */
+    final Value[] value;
+    /** Index of the tuple (used to preserve the input order of equal tuples). */
+    final int id;
+
+    /**
+     * Constructor.
+     * @param key keys
+     * @param value values
+     * @param id index of the tuple
+     */
+    Tuple(final Value[] key, final Value[] value, final int id) {
+      this.key = key;
+      this.value = value;
+      this.id = id;
+    }
+  }
+
+  /**
+   * Sorted run.
+   */
+  private abstract static class Run {
+    /** Index of the run (used to preserve the input order of equal tuples). */
+    final int id;
+    /** Keys of the current tuple. */
+    Value[] key;
+    /** Values of the current tuple. */
+    Value[] value;
+
+    /**
+     * Constructor.
+     * @param id index of the run
+     */
+    Run(final int id) {
+      this.id = id;
+    }
+
+    /**
+     * Moves to the next tuple.
+     * @return {@code true} if another tuple was found
+     * @throws QueryException query exception
+     */
+    abstract boolean next() throws QueryException;
+  }
+
+  /**
+   * Run in main memory.
+   */
+  private final class MemRun extends Run {
+    /** Order of the buffered tuples. */
+    private final int[] order;
+    /** Current position. */
+    private int pos;
+
+    /**
+     * Constructor.
+     * @param order order of the buffered tuples
+     * @param id index of the run
+     */
+    MemRun(final int[] order, final int id) {
+      super(id);
+      this.order = order;
+    }
+
+    @Override
+    boolean next() {
+      if(pos == order.length) return false;
+      // free the space occupied by the tuple
+      final int o = order[pos++];
+      key = keys.set(o, null);
+      value = values.set(o, null);
+      return true;
+    }
+  }
+
+  /**
+   * Run in a temporary file.
+   */
+  private final class FileRun extends Run {
+    /** File. */
+    private final IOFile file;
+    /** Number of tuples. */
+    private final int size;
+    /** Input stream ({@code null} if not opened yet or closed). */
+    private DataInput in;
+    /** Current position. */
+    private int pos;
+
+    /**
+     * Constructor.
+     * @param file file
+     * @param size number of tuples
+     * @param id index of the run
+     */
+    FileRun(final IOFile file, final int size, final int id) {
+      super(id);
+      this.file = file;
+      this.size = size;
+    }
+
+    @Override
+    boolean next() throws QueryException {
+      if(pos == size) {
+        close();
+        return false;
+      }
+      try {
+        if(in == null) in = new DataInput(file);
+        key = read(in);
+        value = read(in);
+        pos++;
+        return true;
+      } catch(final IOException ex) {
+        close();
+        throw IOERR_X.get(info, ex);
+      }
+    }
+
+    /**
+     * Closes the input stream and deletes the file.
+     */
+    synchronized void close() {
+      if(in != null) {
+        try {
+          in.close();
+        } catch(final IOException ex) {
+          Util.debug(ex);
+        }
+        in = null;
+      }
+      file.delete();
+      pos = size;
+    }
+  }
+
+  /**
+   * Temporary files of a query, which are deleted when the query is closed.
+   *
+   * @author BaseX Team, BSD License
+   * @author Christian Gruen
+   */
+  public static final class Runs implements QueryResource {
+    /** Runs. */
+    private final ArrayList<FileRun> list = new ArrayList<>();
+
+    /**
+     * Adds a run.
+     * @param run run
+     */
+    synchronized void add(final FileRun run) {
+      list.add(run);
+    }
+
+    @Override
+    public synchronized void close() {
+      for(final FileRun run : list) run.close();
+      list.clear();
+    }
+  }
+}
@@ -5,6 +5,7 @@ import static org.basex.query.QueryText.*;
 import org.basex.core.*;
 import org.basex.data.*;
 import org.basex.index.*;
+import org.basex.index.name.*;
 import org.basex.index.query.*;
 import org.basex.index.stats.*;
 import org.basex.query.*;
@@ -187,9 +188,15 @@ public final class IndexInfo {
       if(!search.seqType().type.isStringOrUntyped() || search.has(Flag.CTX, Flag.NDT))
         return false;
 
-      // estimate costs for dynamic query terms
-      costs = enforce() ? IndexCosts.ENFORCE_DYNAMIC :
-        IndexCosts.get(Math.max(1, data.meta.size / 10));
+      // estimate costs for dynamic query terms:
+      // average number of values per distinct value, or a fixed fraction of the database size
+      if(enforce()) {
+        costs = IndexCosts.ENFORCE_DYNAMIC;
+      } else {
+        final Histogram hist = type != IndexType.TOKEN ? histogram() : null;
+        costs = hist != null ? estimate(hist.count() / hist.distinct()) :
+          IndexCosts.get(Math.max(1, data.meta.size / 10));
+      }
       va = new ValueAccess(info, search, type, test, db);
     }
 
@@ -219,6 +226,35 @@ public final class IndexInfo {
     optInfo = opt;
   }
 
+  /**
+   * Returns the value histogram of the element or attribute name that is addressed by the
+   * predicate. Must be called after {@link #type(Expr, IndexType)}.
+   * @return histogram, or {@code null} if no histogram is available
+   */
+  public Histogram histogram() {
+    // statistics are not up-to-date, or name cannot be uniquely assigned
+    final Data data = db.data();
+    if(pred == null || data == null || !data.meta.uptodate || !data.nspaces.isEmpty())
+      return null;
+    final Step st = pred.qname();
+    if(st == null || !(st.test instanceof NameTest)) return null;
+    final NameTest nt = (NameTest) st.test;
+    if(nt.part() != NamePart.LOCAL) return null;
+
+    final Names names = text ? data.elemNames : data.attrNames;
+    final Stats stats = names.stats(names.id(nt.local));
+    return stats != null ? stats.histogram : null;
+  }
+
+  /**
+   * Returns the costs for a number of estimated results.
+   * @param results estimated number of results
+   * @return costs (at least {@code 2}, as a single result indicates an exact hit)
+   */
+  public static IndexCosts estimate(final int results) {
+    return IndexCosts.get(Math.max(2, results));
+  }
+
   /**
    * Computes costs if the specified data reference exists.
    * @param data data reference
@@ -244,6 +244,14 @@ public class DBNode extends ANode {
     root = par;
   }
 
+  /**
+   * Indicates if the database instance of this node has been attached to a parent fragment.
+   * @return result of check
+   */
+  public final boolean attached() {
+    return root != null;
+  }
+
   @Override
   public final boolean hasChildren() {
     final int kind = kind();
@@ -11,6 +11,7 @@ import org.basex.query.util.*;
 import org.basex.query.util.list.*;
 import org.basex.query.value.*;
 import org.basex.util.*;
+import org.basex.util.hash.*;
 
 /**
  * Static variable to which an expression can be assigned.
@@ -41,6 +42,32 @@ public final class StaticVar extends StaticDecl {
     lazy = anns.contains(Annotation._BASEX_LAZY);
   }
 
+  /**
+   * Constructor for a copy of a variable in another query context.
+   * The expression is assigned via {@link #copy(StaticVar, CompileContext)}.
+   * @param sv variable to be copied
+   * @param qc query context
+   */
+  StaticVar(final StaticVar sv, final QueryContext qc) {
+    this(new Var(sv.name, sv.declType, qc, sv.info), null, sv.anns, sv.external,
+        new VarScope(), null);
+  }
+
+  /**
+   * Assigns a copy of the expression of the specified variable.
+   * @param sv variable to be copied
+   * @param cc compilation context
+   */
+  void copy(final StaticVar sv, final CompileContext cc) {
+    if(sv.expr == null) return;
+    cc.pushScope(vs);
+    try {
+      expr = sv.expr.copy(cc, new IntObjMap<>());
+    } finally {
+      cc.removeScope();
+    }
+  }
+
   @Override
   public Expr compile(final CompileContext cc) throws QueryException {
     if(expr == null) throw VAREMPTY_X.get(info, name());
@@ -76,7 +76,7 @@ final class StaticVarRef extends ParseExpr {
   @Override
   public Expr copy(final CompileContext cc, final IntObjMap<Var> vm) {
     final StaticVarRef ref = new StaticVarRef(info, name, hasImport);
-    ref.var = var;
+    ref.var = cc.qc.vars.copied(var);
     return copyType(ref);
   }
 
@@ -21,6 +21,8 @@ import org.basex.util.*;
 public final class Variables extends ExprInfo implements Iterable<StaticVar> {
   /** The variables. */
   private final QNmMap<VarEntry> vars = new QNmMap<>();
+  /** Copied variables, indexed by the variables of the source context (can be {@code null}). */
+  private IdentityHashMap<StaticVar, StaticVar> copies;
 
   /**
    * Declares a new static variable.
@@ -40,6 +42,35 @@ public final class Variables extends ExprInfo implements Iterable<StaticVar> {
     return sv;
   }
 
+  /**
+   * Declares copies of the static variables of another query context.
+   * @param source variables to be copied
+   * @param cc compilation context of the target query context
+   * @throws QueryException query exception
+   */
+  public void copy(final Variables source, final CompileContext cc) throws QueryException {
+    copies = new IdentityHashMap<>();
+    for(final VarEntry ve : source.vars.values()) {
+      final StaticVar sv = new StaticVar(ve.var, cc.qc);
+      varEntry(sv.name).setVar(sv);
+      copies.put(ve.var, sv);
+    }
+    // copy expressions after all variables have been declared, as they may reference each other
+    for(final Map.Entry<StaticVar, StaticVar> entry : copies.entrySet()) {
+      entry.getValue().copy(entry.getKey(), cc);
+    }
+  }
+
+  /**
+   * Returns the variable that will be referenced by the copy of a variable reference.
+   * @param var referenced variable
+   * @return copy of the variable, or the variable itself if it has not been copied
+   */
+  StaticVar copied(final StaticVar var) {
+    final StaticVar sv = copies != null ? copies.get(var) : null;
+    return sv != null ? sv : var;
+  }
+
   /**
    * Ensures that none of the variable expressions is updating.
    * @throws QueryException query exception
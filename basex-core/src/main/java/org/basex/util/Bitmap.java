@@ -0,0 +1,431 @@
+package org.basex.util;
+
+import java.util.*;
+
+/**
+ * Compressed bitmap for non-negative integers, such as pre values or ids. The structure is
+ * inspired by Roaring bitmaps: the values are partitioned by their upper 16 bits into containers.
+ * Sparse containers store the lower 16 bits of their values in sorted arrays. Dense containers
+ * with more than {@link #ARRAY} values are represented as bit arrays with 2<sup>16</sup> bits.
+ *
+ * Values can be added in arbitrary order, and they are returned in ascending order.
+ * Unions, intersections and differences are computed per container.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class Bitmap {
+  /** Maximum number of values in an array container. */
+  private static final int ARRAY = 4096;
+  /** Number of words of a bit array container. */
+  private static final int WORDS = 1 << 10;
+
+  /** Upper 16 bits of the values of the containers, sorted. */
+  private char[] keys;
+  /** Containers: sorted arrays ({@code char[]}) or bit arrays ({@code long[]}). */
+  private Object[] containers;
+  /** Number of values of the containers. */
+  private int[] sizes;
+  /** Number of containers. */
+  private int size;
+  /** Number of values. */
+  private int cardinality;
+  /** Index of the last accessed container. */
+  private int last;
+
+  /**
+   * Constructor.
+   */
+  public Bitmap() {
+    this(1);
+  }
+
+  /**
+   * Constructor.
+   * @param capacity initial number of containers
+   */
+  private Bitmap(final int capacity) {
+    keys = new char[capacity];
+    containers = new Object[capacity];
+    sizes = new int[capacity];
+  }
+
+  /**
+   * Adds a value.
+   * @param value value to be added (must be non-negative)
+   * @return {@code true} if the value was added, {@code false} if it already existed
+   */
+  public boolean add(final int value) {
+    final char key = (char) (value >>> 16), low = (char) value;
+    int c = find(key);
+    if(c < 0) {
+      c = -c - 1;
+      insert(c, key, new char[4], 0);
+    }
+    final Object container = containers[c];
+    if(container instanceof long[]) {
+      final long[] words = (long[]) container;
+      final long bit = 1L << low;
+      if((words[low >>> 6] & bit) != 0) return false;
+      words[low >>> 6] |= bit;
+    } else {
+      char[] array = (char[]) container;
+      final int sz = sizes[c], i = Arrays.binarySearch(array, 0, sz, low);
+      if(i >= 0) return false;
+      if(sz == ARRAY) {
+        final long[] words = words(array, sz);
+        words[low >>> 6] |= 1L << low;
+        containers[c] = words;
+      } else {
+        final int p = -i - 1;
+        if(sz == array.length) {
+          array = Arrays.copyOf(array, Math.min(ARRAY, sz << 1));
+          containers[c] = array;
+        }
+        System.arraycopy(array, p, array, p + 1, sz - p);
+        array[p] = low;
+      }
+    }
+    sizes[c]++;
+    cardinality++;
+    return true;
+  }
+
+  /**
+   * Checks if the specified value is contained in the bitmap.
+   * @param value value
+   * @return result of check
+   */
+  public boolean contains(final int value) {
+    final int c = find((char) (value >>> 16));
+    if(c < 0) return false;
+    final char low = (char) value;
+    final Object container = containers[c];
+    return container instanceof long[] ? (((long[]) container)[low >>> 6] & 1L << low) != 0 :
+      Arrays.binarySearch((char[]) container, 0, sizes[c], low) >= 0;
+  }
+
+  /**
+   * Returns the smallest value that is equal to or greater than the specified value.
+   * @param value value (must be non-negative)
+   * @return value, or {@code -1} if no such value exists
+   */
+  public int next(final int value) {
+    int c = find((char) (value >>> 16)), low = value & 0xFFFF;
+    if(c < 0) {
+      c = -c - 1;
+      low = 0;
+    }
+    for(; c < size; c++, low = 0) {
+      final int l = next(c, low);
+      if(l != -1) return keys[c] << 16 | l;
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the number of values.
+   * @return number of values
+   */
+  public int cardinality() {
+    return cardinality;
+  }
+
+  /**
+   * Checks if the bitmap contains no values.
+   * @return result of check
+   */
+  public boolean isEmpty() {
+    return cardinality == 0;
+  }
+
+  /**
+   * Returns all values in ascending order.
+   * @return values
+   */
+  public int[] toArray() {
+    final int[] values = new int[cardinality];
+    int v = 0;
+    for(int c = 0; c < size; c++) {
+      final int high = keys[c] << 16;
+      final Object container = containers[c];
+      if(container instanceof long[]) {
+        final long[] words = (long[]) container;
+        for(int w = 0; w < WORDS; w++) {
+          for(long word = words[w]; word != 0; word &= word - 1) {
+            values[v++] = high | w << 6 | Long.numberOfTrailingZeros(word);
+          }
+        }
+      } else {
+        final char[] array = (char[]) container;
+        final int sz = sizes[c];
+        for(int a = 0; a < sz; a++) values[v++] = high | array[a];
+      }
+    }
+    return values;
+  }
+
+  /**
+   * Returns a new bitmap with the values that are contained in this or the specified bitmap.
+   * @param bitmap bitmap
+   * @return new bitmap
+   */
+  public Bitmap or(final Bitmap bitmap) {
+    final Bitmap result = new Bitmap(size + bitmap.size);
+    int c1 = 0, c2 = 0;
+    while(c1 < size || c2 < bitmap.size) {
+      final int d = c1 == size ? 1 : c2 == bitmap.size ? -1 : keys[c1] - bitmap.keys[c2];
+      if(d < 0) {
+        result.append(keys[c1], copy(containers[c1], sizes[c1]), sizes[c1]);
+        c1++;
+      } else if(d > 0) {
+        result.append(bitmap.keys[c2], copy(bitmap.containers[c2], bitmap.sizes[c2]),
+            bitmap.sizes[c2]);
+        c2++;
+      } else {
+        result.append(keys[c1], containers[c1], sizes[c1], bitmap.containers[c2],
+            bitmap.sizes[c2], 0);
+        c1++;
+        c2++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns a new bitmap with the values that are contained in this and the specified bitmap.
+   * @param bitmap bitmap
+   * @return new bitmap
+   */
+  public Bitmap and(final Bitmap bitmap) {
+    final Bitmap result = new Bitmap(Math.max(1, Math.min(size, bitmap.size)));
+    for(int c1 = 0, c2 = 0; c1 < size && c2 < bitmap.size;) {
+      final int d = keys[c1] - bitmap.keys[c2];
+      if(d < 0) {
+        c1++;
+      } else if(d > 0) {
+        c2++;
+      } else {
+        result.append(keys[c1], containers[c1], sizes[c1], bitmap.containers[c2],
+            bitmap.sizes[c2], 1);
+        c1++;
+        c2++;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns a new bitmap with the values that are contained in this, but not in the specified
+   * bitmap.
+   * @param bitmap bitmap
+   * @return new bitmap
+   */
+  public Bitmap andNot(final Bitmap bitmap) {
+    final Bitmap result = new Bitmap(Math.max(1, size));
+    for(int c1 = 0, c2 = 0; c1 < size; c1++) {
+      while(c2 < bitmap.size && bitmap.keys[c2] < keys[c1]) c2++;
+      if(c2 < bitmap.size && bitmap.keys[c2] == keys[c1]) {
+        result.append(keys[c1], containers[c1], sizes[c1], bitmap.containers[c2],
+            bitmap.sizes[c2], 2);
+      } else {
+        result.append(keys[c1], copy(containers[c1], sizes[c1]), sizes[c1]);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public String toString() {
+    return Util.className(this) + "[cardinality: " + cardinality + ", containers: " + size + ']';
+  }
+
+  // PRIVATE METHODS ==============================================================================
+
+  /**
+   * Returns the index of the container with the specified key.
+   * @param key key
+   * @return index, or {@code -(insertion point) - 1}
+   */
+  private int find(final char key) {
+    // values are often added or requested in ascending order: check last container first
+    final int l = last;
+    if(l < size && keys[l] == key) return l;
+    final int c = Arrays.binarySearch(keys, 0, size, key);
+    if(c >= 0) last = c;
+    return c;
+  }
+
+  /**
+   * Returns the smallest lower value of a container that is equal to or greater than the
+   * specified value.
+   * @param c index of the container
+   * @param low lower 16 bits of the value
+   * @return lower value, or {@code -1}
+   */
+  private int next(final int c, final int low) {
+    final Object container = containers[c];
+    if(container instanceof long[]) {
+      final long[] words = (long[]) container;
+      int w = low >>> 6;
+      long word = words[w] & -1L << low;
+      while(word == 0) {
+        if(++w == WORDS) return -1;
+        word = words[w];
+      }
+      return w << 6 | Long.numberOfTrailingZeros(word);
+    }
+    final int sz = sizes[c];
+    int i = Arrays.binarySearch((char[]) container, 0, sz, (char) low);
+    if(i < 0) i = -i - 1;
+    return i < sz ? ((char[]) container)[i] : -1;
+  }
+
+  /**
+   * Inserts a container.
+   * @param c index of the container
+   * @param key key
+   * @param container container
+   * @param sz number of values
+   */
+  private void insert(final int c, final char key, final Object container, final int sz) {
+    if(size == keys.length) {
+      final int capacity = Array.newCapacity(size);
+      keys = Arrays.copyOf(keys, capacity);
+      containers = Arrays.copyOf(containers, capacity);
+      sizes = Arrays.copyOf(sizes, capacity);
+    }
+    final int move = size - c;
+    System.arraycopy(keys, c, keys, c + 1, move);
+    System.arraycopy(containers, c, containers, c + 1, move);
+    System.arraycopy(sizes, c, sizes, c + 1, move);
+    keys[c] = key;
+    containers[c] = container;
+    sizes[c] = sz;
+    last = c;
+    size++;
+  }
+
+  /**
+   * Appends a container if it is not empty.
+   * @param key key
+   * @param container container
+   * @param sz number of values
+   */
+  private void append(final char key, final Object container, final int sz) {
+    if(sz == 0) return;
+    insert(size, key, container, sz);
+    cardinality += sz;
+  }
+
+  /**
+   * Combines two containers and appends the result.
+   * @param key key
+   * @param cont1 first container
+   * @param size1 number of values of the first container
+   * @param cont2 second container
+   * @param size2 number of values of the second container
+   * @param op operation (0: union, 1: intersection, 2: difference)
+   */
+  private void append(final char key, final Object cont1, final int size1, final Object cont2,
+      final int size2, final int op) {
+
+    if(cont1 instanceof char[] && cont2 instanceof char[]) {
+      // merge sorted arrays
+      final char[] array1 = (char[]) cont1, array2 = (char[]) cont2;
+      final char[] array = new char[op == 0 ? size1 + size2 : size1];
+      int a1 = 0, a2 = 0, a = 0;
+      while(a1 < size1 && a2 < size2) {
+        final int d = array1[a1] - array2[a2];
+        if(d == 0) {
+          if(op != 2) array[a++] = array1[a1];
+          a1++;
+          a2++;
+        } else if(d < 0) {
+          if(op != 1) array[a++] = array1[a1];
+          a1++;
+        } else {
+          if(op == 0) array[a++] = array2[a2];
+          a2++;
+        }
+      }
+      if(op != 1) while(a1 < size1) array[a++] = array1[a1++];
+      if(op == 0) while(a2 < size2) array[a++] = array2[a2++];
+      append(key, a > ARRAY ? words(array, a) : array, a);
+    } else if(op == 1 && cont1 instanceof char[] || op == 2 && cont2 instanceof long[] &&
+        cont1 instanceof char[]) {
+      // filter sorted array with bit array
+      final char[] array1 = (char[]) cont1, array = new char[size1];
+      final long[] words2 = (long[]) cont2;
+      int a = 0;
+      for(int a1 = 0; a1 < size1; a1++) {
+        final char low = array1[a1];
+        if((words2[low >>> 6] & 1L << low) != 0 == (op == 1)) array[a++] = low;
+      }
+      append(key, array, a);
+    } else if(op == 1 && cont2 instanceof char[]) {
+      append(key, cont2, size2, cont1, size1, 1);
+    } else {
+      // combine bit arrays
+      final long[] words = cont1 instanceof long[] ? ((long[]) cont1).clone() : words(cont1, size1);
+      if(cont2 instanceof char[]) {
+        final char[] array2 = (char[]) cont2;
+        for(int a2 = 0; a2 < size2; a2++) {
+          final char low = array2[a2];
+          if(op == 0) words[low >>> 6] |= 1L << low;
+          else words[low >>> 6] &= ~(1L << low);
+        }
+      } else {
+        final long[] words2 = (long[]) cont2;
+        for(int w = 0; w < WORDS; w++) {
+          words[w] = op == 0 ? words[w] | words2[w] : op == 1 ? words[w] & words2[w] :
+            words[w] & ~words2[w];
+        }
+      }
+      int sz = 0;
+      for(final long word : words) sz += Long.bitCount(word);
+      append(key, sz > ARRAY ? words : array(words, sz), sz);
+    }
+  }
+
+  /**
+   * Returns a copy of a container.
+   * @param container container
+   * @param sz number of values
+   * @return copy
+   */
+  private static Object copy(final Object container, final int sz) {
+    return container instanceof long[] ? ((long[]) container).clone() :
+      Arrays.copyOf((char[]) container, sz);
+  }
+
+  /**
+   * Converts a container to a bit array.
+   * @param container container
+   * @param sz number of values
+   * @return bit array
+   */
+  private static long[] words(final Object container, final int sz) {
+    final char[] array = (char[]) container;
+    final long[] words = new long[WORDS];
+    for(int a = 0; a < sz; a++) words[array[a] >>> 6] |= 1L << array[a];
+    return words;
+  }
+
+  /**
+   * Converts a bit array to a sorted array.
+   * @param words bit array
+   * @param sz number of values
+   * @return sorted array
+   */
+  private static char[] array(final long[] words, final int sz) {
+    final char[] array = new char[sz];
+    int a = 0;
+    for(int w = 0; w < WORDS; w++) {
+      for(long word = words[w]; word != 0; word &= word - 1) {
+        array[a++] = (char) (w << 6 | Long.numberOfTrailingZeros(word));
+      }
+    }
+    return array;
+  }
+}
@@ -1,6 +1,8 @@
 package org.basex.util.list;
 
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.function.*;
 
 import org.basex.util.*;
 
@@ -270,6 +272,37 @@ public final class IntList extends ElementList {
     return this;
   }
 
+  /**
+   * Sorts the data with the specified comparator.
+   * The sort is stable: equal elements will not be reordered.
+   * The algorithm is derived from the legacy merge sort of {@link Arrays#sort(Object[])}.
+   * @param comp comparator
+   * @return self reference
+   */
+  public IntList sort(final IntBinaryOperator comp) {
+    final int s = size;
+    if(s > 1) sort(Arrays.copyOf(list, s), list, 0, s, comp);
+    return this;
+  }
+
+  /**
+   * Sorts the data with the specified comparator in the common fork/join pool.
+   * The number of threads determines the number of parallel tasks.
+   * The sort is stable: equal elements will not be reordered.
+   * Runtime exceptions raised by the comparator are passed on.
+   * @param comp comparator (will be called by concurrent threads)
+   * @param threads number of threads
+   * @return self reference
+   */
+  public IntList sort(final IntBinaryOperator comp, final int threads) {
+    // minimum number of elements that are sorted by a single thread
+    final int s = size, min = Math.max(1 << 12, s / Math.max(1, threads << 2));
+    if(threads < 2 || s <= min) return sort(comp);
+
+    ForkJoinPool.commonPool().invoke(new SortTask(Arrays.copyOf(list, s), list, 0, s, comp, min));
+    return this;
+  }
+
   /**
    * Sorts the data in the order of the specified token array.
    * Note that the input array will be resorted as well.
@@ -439,6 +472,106 @@ public final class IntList extends ElementList {
     if((k = d - c) > 1) sort(values, asc, n - k, k);
   }
 
+  /**
+   * Sorts a range of the array with the specified comparator.
+   * @param src source array
+   * @param dest destination array
+   * @param low start position (inclusive)
+   * @param high end position (exclusive)
+   * @param comp comparator
+   */
+  private static void sort(final int[] src, final int[] dest, final int low, final int high,
+      final IntBinaryOperator comp) {
+    if(high - low < 7) {
+      for(int i = low; i < high; i++) {
+        for(int j = i; j > low && comp.applyAsInt(dest[j - 1], dest[j]) > 0; j--) {
+          final int t = dest[j];
+          dest[j] = dest[j - 1];
+          dest[j - 1] = t;
+        }
+      }
+      return;
+    }
+
+    // sort halves with swapped roles of source and destination
+    final int mid = low + high >>> 1;
+    sort(dest, src, low, mid, comp);
+    sort(dest, src, mid, high, comp);
+
+    merge(src, dest, low, mid, high, comp);
+  }
+
+  /**
+   * Merges two sorted ranges of the source array into the destination array.
+   * @param src source array
+   * @param dest destination array
+   * @param low start position of the first range (inclusive)
+   * @param mid start position of the second range
+   * @param high end position of the second range (exclusive)
+   * @param comp comparator
+   */
+  private static void merge(final int[] src, final int[] dest, final int low, final int mid,
+      final int high, final IntBinaryOperator comp) {
+    // skip merge if halves are already ordered
+    if(comp.applyAsInt(src[mid - 1], src[mid]) <= 0) {
+      System.arraycopy(src, low, dest, low, high - low);
+      return;
+    }
+    for(int i = low, p = low, q = mid; i < high; i++) {
+      dest[i] = q >= high || p < mid && comp.applyAsInt(src[p], src[q]) <= 0 ? src[p++] : src[q++];
+    }
+  }
+
+  /**
+   * Task for sorting a range of an array in parallel.
+   */
+  private static final class SortTask extends RecursiveAction {
+    /** Source array. */
+    private final int[] src;
+    /** Destination array. */
+    private final int[] dest;
+    /** Start position (inclusive). */
+    private final int low;
+    /** End position (exclusive). */
+    private final int high;
+    /** Comparator. */
+    private final IntBinaryOperator comp;
+    /** Minimum number of elements that are sorted by a single thread. */
+    private final int min;
+
+    /**
+     * Constructor.
+     * @param src source array
+     * @param dest destination array
+     * @param low start position (inclusive)
+     * @param high end position (exclusive)
+     * @param comp comparator
+     * @param min minimum number of elements that are sorted by a single thread
+     */
+    SortTask(final int[] src, final int[] dest, final int low, final int high,
+        final IntBinaryOperator comp, final int min) {
+      this.src = src;
+      this.dest = dest;
+      this.low = low;
+      this.high = high;
+      this.comp = comp;
+      this.min = min;
+    }
+
+    @Override
+    protected void compute() {
+      if(high - low <= min) {
+        sort(src, dest, low, high, comp);
+      } else {
+        // sort halves with swapped roles of source and destination
+        final int mid = low + high >>> 1;
+        invokeAll(new SortTask(dest, src, low, mid, comp, min),
+            new SortTask(dest, src, mid, high, comp, min));
+        merge(src, dest, low, mid, high, comp);
+      }
+    }
+  }
+
   /**
    * Sorts the array.
    * @param values values to sort by
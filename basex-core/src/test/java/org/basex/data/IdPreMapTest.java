@@ -5,8 +5,10 @@ import static org.junit.jupiter.api.Assertions.*;
 import java.util.*;
 
 import org.basex.index.*;
+import org.basex.util.*;
 import org.basex.util.list.*;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
 
 /**
  * ID -> PRE mapping test.
@@ -126,6 +128,32 @@ public final class IdPreMapTest {
     searchPerformance(basemap);
   }
 
+  /**
+   * Lookup performance: prints the time needed for updates and lookups,
+   * with an increasing number of updates at random positions.
+   */
+  @Test @Disabled("Benchmark, prints the time needed for updates and lookups")
+  public void lookupBenchmark() {
+    final Random random = new Random(0);
+    for(int updates = 1000; updates <= 128000; updates <<= 1) {
+      final int n = BASEID + updates;
+      final IdPreMap map = new IdPreMap(BASEID);
+      final Performance perf = new Performance();
+      for(int id = BASEID + 1; id <= n; ++id) map.insert(random.nextInt(id), id, 1);
+      final long update = perf.ns() / updates;
+      for(int id = 0; id <= n; ++id) map.pre(id);
+      final long lookup = perf.ns() / (n + 1);
+      // further updates and lookups, alternating
+      for(int id = n + 1; id <= n + 1000; ++id) {
+        map.insert(random.nextInt(id), id, 1);
+        map.pre(id);
+      }
+      final long mixed = perf.ns() / 1000;
+      Util.println("% updates: % ns per update, % ns per lookup, % ns per update and lookup",
+          updates, update, lookup, mixed);
+    }
+  }
+
   /**
    * Insert performance: insert at random positions.
    * @param m tested map
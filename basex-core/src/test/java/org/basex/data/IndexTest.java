@@ -1,11 +1,16 @@
 package org.basex.data;
 
 import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
 
 import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
+import org.basex.io.*;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.*;
 import org.junit.jupiter.params.provider.*;
 
@@ -22,7 +27,9 @@ public final class IndexTest extends SandboxTest {
   @AfterEach public void after() {
     execute(new DropDB(NAME));
     set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.FTINDEX, false);
     set(MainOptions.UPDINDEX, false);
+    set(MainOptions.WAL, false);
     set(MainOptions.AUTOOPTIMIZE, false);
     set(MainOptions.MAINMEM, false);
   }
@@ -199,6 +206,88 @@ public final class IndexTest extends SandboxTest {
     execute(new Delete("A"));
   }
 
+  /**
+   * Updatable full-text index.
+   */
+  @Test public void updindexFullText() {
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, "<x><a>hello world</a><b>hello</b></x>"));
+    final String world = _FT_SEARCH.args(NAME, "world") + " ! name(..)";
+    query(world, "a");
+
+    query("insert node <c>brave new world</c> into /x");
+    query(world, "a\nc");
+    query("delete node /x/a");
+    query(world, "c");
+    query("replace value of node /x/b/text() with 'goodbye world'");
+    query(world, "b\nc");
+    query(_FT_SEARCH.args(NAME, "hello"), "");
+    query(_FT_SEARCH.args(NAME, "wor.*", " { 'wildcards': true() }") + " ! name(..)", "b\nc");
+    query(_FT_SEARCH.args(NAME, "wrld", " { 'fuzzy': true() }") + " ! name(..)", "b\nc");
+    query(_FT_SEARCH.args(NAME, "new world", " { 'mode': 'phrase' }") + " ! name(..)", "c");
+    query(_FT_TOKENS.args(NAME, "w") + " ! string()", "world");
+    query(_FT_TOKENS.args(NAME, "w") + " ! @count ! string()", 2);
+    query(_DB_INFO.args(NAME) + "//ftindex/text()", true);
+
+    // updates are persistent
+    execute(new Close());
+    execute(new Open(NAME));
+    query(world, "b\nc");
+    query(_FT_SEARCH.args(NAME, "hello"), "");
+  }
+
+  /**
+   * Updatable full-text index: merge updates into the index files.
+   */
+  @Test public void updindexFullTextMerge() {
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    execute(new CreateDB(NAME, "<x><a>abc</a></x>"));
+    final IOFile updates = context.data().meta.dbFile(DataText.DATAFTX + 'd');
+    assertEquals(0, updates.length());
+
+    query("insert node (1 to 20000) ! <n>{ 't' || . mod 100 } common</n> into /x");
+    assertEquals(0, updates.length());
+    query("count(" + _FT_SEARCH.args(NAME, "common") + ')', 20000);
+    query("count(" + _FT_SEARCH.args(NAME, "t7") + ')', 200);
+
+    query("delete node /x/n[. contains text 't7']");
+    assertTrue(updates.length() > 0);
+    query("count(" + _FT_SEARCH.args(NAME, "common") + ')', 19800);
+    query("count(" + _FT_SEARCH.args(NAME, "t7") + ')', 0);
+    query(_FT_SEARCH.args(NAME, "abc") + " ! name(..)", "a");
+
+    execute(new Close());
+    execute(new Open(NAME));
+    query("count(" + _FT_SEARCH.args(NAME, "common") + ')', 19800);
+    query("count(" + _FT_SEARCH.args(NAME, "t7") + ')', 0);
+    query("count(" + _FT_SEARCH.args(NAME, "t71") + ')', 200);
+  }
+
+  /**
+   * Updatable full-text index: merge updates if changes are logged.
+   * @throws IOException I/O exception
+   */
+  @Test public void updindexFullTextMergeWal() throws IOException {
+    set(MainOptions.UPDINDEX, true);
+    set(MainOptions.FTINDEX, true);
+    set(MainOptions.WAL, true);
+    execute(new CreateDB(NAME, "<x><a>abc</a></x>"));
+    final IOFile updates = context.data().meta.dbFile(DataText.DATAFTX + 'd');
+    query("insert node (1 to 20000) ! <n>{ 't' || . mod 100 } common</n> into /x");
+    assertEquals(0, updates.length());
+    query("count(" + _FT_SEARCH.args(NAME, "common") + ')', 20000);
+
+    // files of an incomplete merge are discarded
+    execute(new Close());
+    final IOFile merged = MetaData.file(context.soptions.dbPath(NAME), DataText.DATAFTX + "_x");
+    merged.write(new byte[] { 1 });
+    execute(new Open(NAME));
+    query("count(" + _FT_SEARCH.args(NAME, "t7") + ')', 200);
+    assertFalse(merged.exists());
+  }
+
   /**
    * Test.
    * @param mainmem main memory flag.
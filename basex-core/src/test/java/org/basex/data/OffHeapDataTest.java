@@ -0,0 +1,28 @@
+package org.basex.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.junit.jupiter.api.*;
+
+/**
+ * Test index updates when using off-heap memory storage ({@link MemData}).
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class OffHeapDataTest extends MemDataTest {
+  @Override
+  @BeforeEach public void setUp() {
+    set(MainOptions.MAINMEM, true);
+    set(MainOptions.OFFHEAP, true);
+    try {
+      execute(new CreateDB(NAME, XMLSTR));
+      assertTrue(context.data().meta.offheap);
+    } finally {
+      set(MainOptions.MAINMEM, false);
+      set(MainOptions.OFFHEAP, false);
+    }
+  }
+}
@@ -0,0 +1,161 @@
+package org.basex.data;
+
+import static org.basex.util.Token.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests snapshots of databases that are currently updated.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class SnapshotTest extends SandboxTest {
+  /** Database XML file. */
+  private static final String DBFILE = "src/test/resources/factbook.zip";
+  /** Query for serializing all texts and attribute values. */
+  private static final String VALUES =
+      "string-join(db:get('" + NAME + "')//(@*, text()[normalize-space()]), '|')";
+
+  /**
+   * Initializes a test.
+   */
+  @BeforeEach public void setUp() {
+    context.soptions.set(StaticOptions.SNAPSHOTS, true);
+  }
+
+  /**
+   * Finishes a test.
+   */
+  @AfterEach public void tearDown() {
+    execute(new DropDB(NAME));
+    context.soptions.set(StaticOptions.SNAPSHOTS, false);
+    set(MainOptions.WAL, false);
+    set(MainOptions.COMPRESSTEXTS, false);
+  }
+
+  /**
+   * Reads a snapshot while the database is updated.
+   * @throws BaseXException database exception
+   */
+  @Test public void update() throws BaseXException {
+    run();
+  }
+
+  /**
+   * Reads a snapshot while the database is updated and changes are logged.
+   * @throws BaseXException database exception
+   */
+  @Test public void wal() throws BaseXException {
+    set(MainOptions.WAL, true);
+    run();
+  }
+
+  /**
+   * Reads a snapshot of a database with compressed texts.
+   * @throws BaseXException database exception
+   */
+  @Test public void compress() throws BaseXException {
+    set(MainOptions.COMPRESSTEXTS, true);
+    run();
+  }
+
+  /**
+   * No snapshots are created if the option is disabled.
+   * @throws BaseXException database exception
+   */
+  @Test public void disabled() throws BaseXException {
+    context.soptions.set(StaticOptions.SNAPSHOTS, false);
+    execute(new CreateDB(NAME, DBFILE));
+    final Data data = context.data();
+    data.startUpdate(context.options);
+    try {
+      assertNull(data.snapshot());
+    } finally {
+      data.finishUpdate(context.options);
+    }
+  }
+
+  /**
+   * Updates the database and compares the results of the live database and the snapshot.
+   * @throws BaseXException database exception
+   */
+  private static void run() throws BaseXException {
+    execute(new CreateDB(NAME, DBFILE));
+    final Data data = context.data();
+    final String values = query(VALUES), count = query("count(db:get('" + NAME + "')//*)");
+    assertNull(data.snapshot());
+
+    final Data snapshot;
+    data.startUpdate(context.options);
+    try {
+      snapshot = data.snapshot();
+      assertNotNull(snapshot);
+      assertEquals(values, values(snapshot));
+
+      // replace texts and attribute values, delete the last child of the root element
+      for(int pre = data.meta.size - 1; pre >= 0; pre -= 7) {
+        final int kind = data.kind(pre);
+        if(kind == Data.TEXT || kind == Data.ATTR) data.update(pre, kind, token("value " + pre));
+      }
+      int last = data.meta.size - 1;
+      while(data.parent(last, data.kind(last)) != 1) last--;
+      data.delete(last);
+      data.flush(false);
+      assertNotEquals(values, values(data));
+      // preserved pages that exceed the main memory limit are spilled to disk
+      assertTrue(spill().exists());
+
+      // a client without opened database reads the snapshot
+      final Context ctx = new Context(context);
+      assertEquals(values, new XQuery(VALUES).execute(ctx));
+      assertEquals(count, new XQuery("count(db:get('" + NAME + "')//*)").execute(ctx));
+    } finally {
+      data.finishUpdate(context.options);
+    }
+
+    // snapshot remains valid until it is closed
+    assertNull(data.snapshot());
+    assertEquals(values, values(snapshot));
+    snapshot.close();
+    assertTrue(snapshot.closed());
+    assertFalse(spill().exists());
+    assertNotEquals(values, query(VALUES));
+  }
+
+  /**
+   * Returns the file with the spilled page versions of the table.
+   * @return file
+   */
+  private static IOFile spill() {
+    final IOFile table = context.data().meta.dbFile(DataText.DATATBL);
+    return new IOFile(table.parent(), table.name() + '.' + DataText.DATAVER);
+  }
+
+  /**
+   * Serializes all texts and attribute values of a database.
+   * @param data data reference
+   * @return string
+   */
+  private static String values(final Data data) {
+    final TokenBuilder tb = new TokenBuilder();
+    for(int pre = 0; pre < data.meta.size; pre++) {
+      final int kind = data.kind(pre);
+      if(kind == Data.ATTR || kind == Data.TEXT) {
+        final byte[] value = data.text(pre, kind == Data.TEXT);
+        if(kind == Data.ATTR || !ws(value)) {
+          if(!tb.isEmpty()) tb.add('|');
+          tb.add(value);
+        }
+      }
+    }
+    return tb.toString();
+  }
+}
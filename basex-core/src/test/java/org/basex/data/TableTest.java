@@ -2,9 +2,13 @@ package org.basex.data;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.*;
+
 import org.basex.*;
+import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.io.*;
+import org.basex.io.random.*;
 import org.junit.jupiter.api.*;
 import org.junit.jupiter.api.Test;
 
@@ -57,4 +61,199 @@ public final class TableTest extends SandboxTest {
 
     assertEquals(s, tbl.length(), "Database size changed: ");
   }
+
+  /**
+   * Tests memory-mapped table access, including updates and reopening.
+   */
+  @Test public void mmap() throws IOException {
+    set(MainOptions.MMAP, true);
+    try {
+      execute(new CreateDB(NAME, DBFILE));
+      assertTrue(context.data().meta.mmap);
+      assertTrue(mapped());
+
+      // the mapping is dropped while the table is updated, and restored for reading
+      final TableAccess table = context.data().table;
+      assertTrue(table.lock(true));
+      table.write1(0, 0, table.read1(0, 0));
+      assertFalse(mapped());
+      table.flush(false);
+      assertTrue(table.lock(false));
+      assertTrue(mapped());
+
+      final String values = "string-join(" + SELECT + "//(@*, text()[normalize-space()]), '|')";
+      final String n = query(SELECT), string = query(values), count = query("count(//*)");
+      query(DELETE);
+      assertEquals("", query(SELECT));
+      query(String.format(INSERT, n));
+      assertEquals(string, query(values));
+      assertEquals(count, query("count(//*)"));
+
+      execute(new Close());
+      set(MainOptions.MMAP, false);
+      execute(new Open(NAME));
+      assertTrue(context.data().meta.mmap);
+      assertTrue(mapped());
+      assertEquals(string, query(values));
+    } finally {
+      set(MainOptions.MMAP, false);
+    }
+  }
+
+  /**
+   * Checks if the table is read via a memory mapping.
+   * @return result of check
+   */
+  private static boolean mapped() {
+    return context.data().table.toString().contains("mapped: true");
+  }
+
+  /**
+   * Tests block-compressed texts and attribute values, including updates and reopening.
+   */
+  @Test public void compress() {
+    final String values = "string-join(//(@*, text()[normalize-space()]), '|')";
+    final String string = query(values), n = query(SELECT);
+    final IOFile txt = context.data().meta.dbFile(DataText.DATATXT);
+    final long size = txt.length();
+
+    set(MainOptions.COMPRESSTEXTS, true);
+    try {
+      execute(new CreateDB(NAME, DBFILE));
+      assertTrue(context.data().meta.compress);
+      assertEquals(string, query(values));
+      assertEquals(0, txt.length());
+      assertTrue(context.data().meta.dbFile(DataText.DATAZIP + DataText.DATATXT).length() < size);
+
+      query(DELETE);
+      query(String.format(INSERT, n));
+      query("replace value of node (//@name)[1] with 'X'");
+      query("replace value of node (//@name)[1] with 'Y'");
+      final String updated = query(values);
+      assertTrue(updated.contains("|Y|"));
+
+      execute(new Close());
+      set(MainOptions.COMPRESSTEXTS, false);
+      execute(new Open(NAME));
+      assertTrue(context.data().meta.compress);
+      assertEquals(updated, query(values));
+
+      execute(new OptimizeAll());
+      assertTrue(context.data().meta.compress);
+      assertEquals(updated, query(values));
+    } finally {
+      set(MainOptions.COMPRESSTEXTS, false);
+    }
+  }
+
+  /**
+   * Tests checksums of table pages, including updates, reopening and corrupted pages.
+   * @throws IOException I/O exception
+   */
+  @Test public void checksums() throws IOException {
+    set(MainOptions.CHECKSUMS, true);
+    try {
+      execute(new CreateDB(NAME, DBFILE));
+      assertTrue(context.data().meta.checksums);
+      assertTrue(context.data().meta.dbFile(DataText.DATATBL + 'c').exists());
+
+      final String n = query(SELECT), count = query("count(//*)");
+      query(DELETE);
+      query(String.format(INSERT, n));
+      query("replace value of node (//@name)[1] with 'X'");
+      assertEquals(0, verify().length);
+
+      execute(new Close());
+      execute(new Open(NAME));
+      assertEquals(count, query("count(//*)"));
+      assertEquals(0, verify().length);
+
+      // recreate database with regular page layout
+      execute(new CreateDB(NAME, DBFILE));
+      execute(new Close());
+
+      // corrupt an entry in the second page
+      final int pre = IO.ENTRIES + 1;
+      try(RandomAccessFile raf = new RandomAccessFile(tbl.file(), "rw")) {
+        final long pos = ((long) pre << IO.NODEPOWER) + 12;
+        raf.seek(pos);
+        final int b = raf.read();
+        raf.seek(pos);
+        raf.write(b ^ 0xFF);
+      }
+      execute(new Open(NAME));
+      final Data data = context.data();
+      assertArrayEquals(new int[] { 1 }, verify());
+      assertThrows(RuntimeException.class, () -> data.kind(pre));
+    } finally {
+      set(MainOptions.CHECKSUMS, false);
+    }
+  }
+
+  /**
+   * Tests if storage options are preserved by {@link OptimizeAll}.
+   */
+  @Test public void optimizeAll() {
+    set(MainOptions.COMPRESSTEXTS, true);
+    set(MainOptions.CHECKSUMS, true);
+    try {
+      execute(new CreateDB(NAME, DBFILE));
+      query(DELETE);
+    } finally {
+      set(MainOptions.COMPRESSTEXTS, false);
+      set(MainOptions.CHECKSUMS, false);
+    }
+    final String values = "string-join(//(@*, text()[normalize-space()]), '|')";
+    final String string = query(values);
+
+    execute(new OptimizeAll());
+    final MetaData meta = context.data().meta;
+    assertTrue(meta.compress);
+    assertTrue(meta.checksums);
+    assertTrue(meta.dbFile(DataText.DATAZIP + DataText.DATATXT).exists());
+    assertTrue(meta.dbFile(DataText.DATATBL + 'c').exists());
+    assertEquals(string, query(values));
+  }
+
+  /**
+   * Tests the read-ahead of table and text pages, including updates and reopening.
+   */
+  @Test public void readAhead() {
+    final String values = "string-join(//(@*, text()[normalize-space()]), '|')";
+    final String string = query(values), count = query("count(//*)"), n = query(SELECT);
+
+    set(MainOptions.READAHEAD, 4);
+    set(MainOptions.BUFFERS, 2);
+    try {
+      execute(new CreateDB(NAME, DBFILE));
+      assertEquals(4, context.data().meta.readahead);
+      assertEquals(string, query(values));
+      assertEquals(count, query("count(//*)"));
+
+      // pages that have been read ahead must not be returned after updates
+      query(DELETE);
+      query(String.format(INSERT, n));
+      query("for $n in (//@name)[position() <= 100] return replace value of node $n with 'X'");
+      final String updated = query(values);
+      assertTrue(updated.contains("|X|"));
+      assertEquals(updated, query(values));
+      assertEquals(count, query("count(//*)"));
+
+      execute(new Close());
+      execute(new Open(NAME));
+      assertEquals(updated, query(values));
+    } finally {
+      set(MainOptions.READAHEAD, 0);
+      set(MainOptions.BUFFERS, 16);
+    }
+  }
+
+  /**
+   * Verifies the checksums of the table pages of the opened database.
+   * @return physical indexes of invalid pages
+   * @throws IOException I/O exception
+   */
+  private static int[] verify() throws IOException {
+    return ((TableDiskAccess) context.data().table).verify();
+  }
 }
@@ -0,0 +1,132 @@
+package org.basex.data;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests the write-ahead log of disk-based databases.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class WriteAheadLogTest extends SandboxTest {
+  /** Database XML file. */
+  private static final String DBFILE = "src/test/resources/factbook.zip";
+  /** Name of the database copy. */
+  private static final String COPY = NAME + "Copy";
+  /** Query for serializing all texts and attribute values. */
+  private static final String VALUES = "string-join(//(@*, text()[normalize-space()]), '|')";
+  /** Updating query. */
+  private static final String UPDATE = "delete node //country[@name='Germany'], "
+      + "insert node <country name='X'><city>Y</city></country> into /mondial, "
+      + "for $n in (//@name)[position() <= 100] return replace value of node $n with 'Z'";
+
+  /**
+   * Initializes a test.
+   */
+  @BeforeEach public void setUp() {
+    set(MainOptions.WAL, true);
+    set(MainOptions.UPDINDEX, true);
+    execute(new CreateDB(NAME, DBFILE));
+  }
+
+  /**
+   * Finishes a test.
+   */
+  @AfterEach public void tearDown() {
+    execute(new DropDB(NAME));
+    execute(new DropDB(COPY));
+    set(MainOptions.WAL, false);
+    set(MainOptions.UPDINDEX, false);
+  }
+
+  /**
+   * Logs updates and writes them back when the database is closed.
+   */
+  @Test public void update() {
+    final IOFile tbl = context.data().meta.dbFile(DataText.DATATBL);
+    final long time = tbl.timeStamp(), length = tbl.length();
+
+    query(UPDATE);
+    final String values = query(VALUES), text = query("//country[@name = 'X'] ! string()");
+    assertTrue(wal(NAME).length() > 0);
+    assertEquals(time, tbl.timeStamp());
+    assertEquals(length, tbl.length());
+    assertEquals("Y", text);
+    assertEquals("Z", query("data((//@name)[1])"));
+
+    execute(new Close());
+    assertFalse(wal(NAME).exists());
+    execute(new Open(NAME));
+    assertEquals(values, query(VALUES));
+    assertEquals(text, query("//country[@name = 'X'] ! string()"));
+  }
+
+  /**
+   * Recovers committed changes after a simulated crash.
+   * @throws IOException I/O exception
+   */
+  @Test public void recover() throws IOException {
+    query(UPDATE);
+    final String values = query(VALUES);
+
+    // copy database files, including the log, and append an incomplete record
+    copy();
+    final IOFile wal = wal(COPY);
+    assertTrue(wal.length() > 0);
+    try(RandomAccessFile raf = new RandomAccessFile(wal.file(), "rw")) {
+      raf.seek(raf.length());
+      raf.write(new byte[] { 0, 3, 't', 'b' });
+    }
+
+    execute(new Open(COPY));
+    assertFalse(wal.exists());
+    assertEquals(values, query(VALUES));
+    assertEquals("1", query("count(//country[@name = 'X'])"));
+  }
+
+  /**
+   * Deactivates the log.
+   */
+  @Test public void deactivate() {
+    query(UPDATE);
+    final String values = query(VALUES);
+    set(MainOptions.WAL, false);
+    query("insert node <a/> into /mondial");
+    assertFalse(wal(NAME).exists() && wal(NAME).length() > 0);
+
+    execute(new Close());
+    execute(new Open(NAME));
+    assertEquals(values, query(VALUES));
+    assertEquals("1", query("count(//a)"));
+  }
+
+  /**
+   * Copies the files of the test database.
+   * @throws IOException I/O exception
+   */
+  private static void copy() throws IOException {
+    final IOFile source = context.soptions.dbPath(NAME), target = context.soptions.dbPath(COPY);
+    target.md();
+    for(final IOFile file : source.children()) {
+      if(!file.isDir()) file.copyTo(new IOFile(target, file.name()));
+    }
+  }
+
+  /**
+   * Returns the log file of a database.
+   * @param db name of database
+   * @return log file
+   */
+  private static IOFile wal(final String db) {
+    return MetaData.file(context.soptions.dbPath(db), DataText.DATAWAL);
+  }
+}
@@ -0,0 +1,57 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the path lookups of documents after updates.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class DocsTest extends SandboxTest {
+  /** Checks if all documents are found via their paths and via the paths of their directories. */
+  private static final String CHECK = "let $docs := " + _DB_GET.args(NAME) + " return ("
+      + "every $doc in $docs satisfies " + _DB_GET.args(NAME, " " + _DB_PATH.args(" $doc"))
+      + " is $doc) and (every $dir in ('d0', 'd1/', 'd2', 'dx', 'd1/doc1') satisfies "
+      + "count(" + _DB_GET.args(NAME, " $dir") + ") = count($docs[" + _DB_PATH.args(" .")
+      + " ! (. = $dir or starts-with(., replace($dir, '([^/])$', '$1/')))]))";
+
+  /** Drops the test database. */
+  @AfterEach public void after() {
+    execute(new DropDB(NAME));
+  }
+
+  /** Adds, deletes and renames documents. */
+  @Test public void update() {
+    execute(new CreateDB(NAME));
+    query(_DB_ADD.args(NAME, " <a/>", "d1/doc0"));
+    query(CHECK, true);
+
+    // add documents in descending and random path order
+    query("for $i in reverse(1 to 100) return " +
+        _DB_ADD.args(NAME, " <a/>", " 'd' || $i mod 3 || '/doc' || $i"));
+    query(CHECK, true);
+    query("for $i in 101 to 200 let $p := 'd' || $i * 7 mod 5 || '/doc' || $i * 13 mod 200 "
+        + "return " + _DB_PUT.args(NAME, " <b/>", " $p"));
+    query(CHECK, true);
+
+    // delete and rename documents
+    query("for $i in 1 to 50 return " + _DB_DELETE.args(NAME, " 'd1/doc' || $i * 3"));
+    query(CHECK, true);
+    query(_DB_RENAME.args(NAME, "d2", "dx"));
+    query(_DB_RENAME.args(NAME, "d0/doc3", "d2/doc3"));
+    query(CHECK, true);
+
+    // reopen database
+    execute(new Close());
+    execute(new Open(NAME));
+    query(CHECK, true);
+    query(_DB_ADD.args(NAME, " <a/>", "d0/doc999"));
+    query(CHECK, true);
+  }
+}
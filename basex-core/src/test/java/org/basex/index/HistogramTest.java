@@ -0,0 +1,79 @@
+package org.basex.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.index.stats.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for value histograms and the cost estimations of index accesses.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class HistogramTest extends SandboxTest {
+  /** Query with two string ranges of different selectivity. */
+  private static final String RANGES =
+      "count(//e[@a >= 'a1' and @a <= 'a1'][@b >= 'b100' and @b <= 'b101'])";
+
+  /** Drops the test database. */
+  @AfterEach public void after() {
+    set(MainOptions.MAINMEM, false);
+    execute(new DropDB(NAME));
+  }
+
+  /** Estimations of the number of distinct values and of ranges. */
+  @Test public void estimate() {
+    final Histogram hist = new Histogram();
+    for(int i = 0; i < 100000; i++) hist.add(Token.token(i % 20000));
+    assertEquals(100000, hist.count());
+    assertEquals(20000, hist.distinct(), 2000);
+
+    // numeric ranges
+    assertEquals(50000, hist.count(0, 9999), 10000);
+    assertEquals(100000, hist.count(-1, 20000));
+    assertEquals(0, hist.count(10, 5));
+    // ranges outside the sampled values: average number of values per distinct value
+    assertEquals(5, hist.count(1e9, 2e9), 1);
+
+    // string ranges
+    assertEquals(100000, hist.count(Token.token(""), Token.token("a")));
+    assertEquals(0, hist.count(Token.token("b"), Token.token("a")));
+  }
+
+  /** No histograms are created for main-memory databases. */
+  @Test public void memory() {
+    set(MainOptions.MAINMEM, true);
+    execute(new CreateDB(NAME, "<x><e a='1'/></x>"));
+    final Data data = context.data();
+    assertNull(data.attrNames.stats(data.attrNames.id(Token.token("a"))).histogram);
+    query("count(//e[@a >= 1 and @a <= 1])", 1);
+  }
+
+  /** The most selective predicate is chosen for index access. */
+  @Test public void select() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 1; i <= 10000; i++) {
+      sb.append("<e a='a").append(i % 2).append("' b='b").append(i).append("'/>");
+    }
+    execute(new CreateDB(NAME, sb.append("</x>").toString()));
+
+    final String selective = "exists(//StringRangeAccess[@min = 'b100'])";
+    final String unselective = "empty(//StringRangeAccess[@min = 'a1'])";
+    check(RANGES, 6, selective, unselective);
+
+    // histograms are persistent
+    execute(new Close());
+    execute(new Open(NAME));
+    check(RANGES, 6, selective, unselective);
+
+    // ranges that cover all values are evaluated sequentially
+    check("count(//e[@a >= 'a0' and @a <= 'a1'])", 10000, "empty(//StringRangeAccess)");
+  }
+}
@@ -0,0 +1,105 @@
+package org.basex.index;
+
+import static org.basex.query.func.Function.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for building index structures in parallel ({@link MainOptions#INDEXTHREADS}).
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class IndexBuilderTest extends SandboxTest {
+  /** Query for the contents of all index structures. */
+  private static final String QUERY = "string-join(("
+      + _INDEX_TEXTS.args(NAME) + " ! (. || @count), "
+      + _INDEX_ATTRIBUTES.args(NAME) + " ! (. || @count), "
+      + _INDEX_TOKENS.args(NAME) + " ! (. || @count), "
+      + _FT_TOKENS.args(NAME) + " ! (. || @count), "
+      + "for $q in ('text 7', 'text 777') return " + _DB_TEXT.args(NAME, " $q") + " ! "
+      + _DB_NODE_PRE.args(" .") + ", "
+      + _DB_ATTRIBUTE.args(NAME, "a7") + " ! " + _DB_NODE_PRE.args(" .") + ", "
+      + _DB_TOKEN.args(NAME, "t3") + " ! " + _DB_NODE_PRE.args(" .") + ", "
+      + _FT_SEARCH.args(NAME, "w5") + " ! " + _DB_NODE_PRE.args(" .") + ", "
+      + _FT_SEARCH.args(NAME, "text w5", " { 'mode': 'phrase' }") + " ! "
+      + _DB_NODE_PRE.args(" .") + "), ' ')";
+
+  /** Document with 280000 nodes. */
+  private static String doc;
+
+  /** Creates the test document. */
+  @BeforeAll public static void init() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 1; i <= 70000; i++) {
+      sb.append("<e a='a").append(i % 100).append("' t='t").append(i % 7).append(" t");
+      sb.append(i % 11).append("'>text ").append(i % 1000).append(" w").append(i % 37);
+      sb.append("</e>");
+    }
+    doc = sb.append("</x>").toString();
+  }
+
+  /** Prepares a test. */
+  @BeforeEach public void before() {
+    set(MainOptions.TOKENINDEX, true);
+    set(MainOptions.FTINDEX, true);
+  }
+
+  /** Finalizes a test. */
+  @AfterEach public void after() {
+    execute(new DropDB(NAME));
+    set(MainOptions.TOKENINDEX, false);
+    set(MainOptions.FTINDEX, false);
+    set(MainOptions.UPDINDEX, false);
+    set(MainOptions.INDEXTHREADS, 1);
+    set(MainOptions.SPLITSIZE, 0);
+  }
+
+  /** Compares index structures that have been built sequentially and in parallel. */
+  @Test public void parallel() {
+    final String expected = contents(1, 0);
+    // build index structures concurrently
+    assertEquals(expected, contents(4, 0));
+    // build index structures concurrently, and partitions in parallel
+    assertEquals(expected, contents(16, 0));
+    // write partial indexes
+    assertEquals(expected, contents(12, 1));
+  }
+
+  /** Compares updatable index structures that have been built sequentially and in parallel. */
+  @Test public void updindex() {
+    set(MainOptions.UPDINDEX, true);
+    final String expected = contents(1, 0);
+    assertEquals(expected, contents(16, 1));
+  }
+
+  /** Recreates single index structures in parallel. */
+  @Test public void createIndex() {
+    final String expected = contents(1, 0);
+    set(MainOptions.INDEXTHREADS, 4);
+    execute(new DropIndex(CmdIndex.FULLTEXT));
+    execute(new DropIndex(CmdIndex.TEXT));
+    execute(new CreateIndex(CmdIndex.TEXT));
+    execute(new CreateIndex(CmdIndex.FULLTEXT));
+    assertEquals(expected, query(QUERY));
+  }
+
+  /**
+   * Creates a database and returns the contents of its index structures.
+   * @param threads number of threads
+   * @param splitsize split size
+   * @return contents
+   */
+  private static String contents(final int threads, final int splitsize) {
+    set(MainOptions.INDEXTHREADS, threads);
+    set(MainOptions.SPLITSIZE, splitsize);
+    execute(new CreateDB(NAME, doc));
+    return query(QUERY);
+  }
+}
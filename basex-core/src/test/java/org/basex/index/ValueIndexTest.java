@@ -10,6 +10,7 @@ import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.core.cmd.Set;
+import org.basex.data.*;
 import org.basex.index.query.*;
 import org.basex.index.value.*;
 import org.basex.util.hash.*;
@@ -117,6 +118,100 @@ public final class ValueIndexTest extends SandboxTest {
     valueIndexTest(IndexType.TOKEN, tokens, paramSet);
   }
 
+  /**
+   * Tests lookups and string ranges with keys that share their prefixes.
+   * @param updindex UPDINDEX option
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = { false, true })
+  public void keyPrefixes(final boolean updindex) {
+    set(MainOptions.UPDINDEX, updindex);
+    final TreeMap<String, Integer> keys = new TreeMap<>();
+    final String[] strings = { "a", "abc", "abcdef", "abcdefg", "abcdefgh", "abcdefgi",
+      "abcdefghij", "abcdefghik", "abcdefgz", "abcdeg", "b", "\u00e4bcdefgh", "\u00e4bcdefg" };
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int s = 0; s < strings.length; s++) {
+      for(int c = 0; c <= s; c++) sb.append("<k>").append(strings[s]).append("</k>");
+      keys.put(strings[s], s + 1);
+    }
+    execute(new CreateDB(NAME, sb.append("</x>").toString()));
+    assertTrue(context.data().meta.dbFile(DataText.DATATXT + 'k').exists());
+    checkKeys(keys);
+
+    if(updindex) {
+      query("delete node //k[. = 'abcdefgh']");
+      query("insert node (<k>abcdefgb</k>, <k>abcdefga</k>, <k>0</k>) into /x");
+      query("replace value of node (//k[. = 'abcdefghij'])[1] with 'abcdefghii'");
+      keys.remove("abcdefgh");
+      keys.put("abcdefgb", 1);
+      keys.put("abcdefga", 1);
+      keys.put("0", 1);
+      keys.put("abcdefghij", keys.get("abcdefghij") - 1);
+      keys.put("abcdefghii", 1);
+      checkKeys(keys);
+    }
+  }
+
+  /**
+   * Tests skipping of index results.
+   * @param updindex UPDINDEX option
+   */
+  @ParameterizedTest
+  @ValueSource(booleans = { false, true })
+  public void advance(final boolean updindex) {
+    set(MainOptions.UPDINDEX, updindex);
+    execute(new CreateDB(NAME, "<x>" + "<a>A</a><b>B</b>".repeat(2000) + "<c>A</c></x>"));
+    assertEquals(!updindex, context.data().meta.dbFile(DataText.DATATXT + 's').exists());
+
+    final ValueIndex index = (ValueIndex) context.data().index(IndexType.TEXT);
+    final int[] pres = new int[2001];
+    final IndexIterator all = index.iter(new IndexEntries(token("A"), IndexType.TEXT));
+    for(int p = 0; all.more(); p++) pres[p] = all.pre();
+    assertFalse(all.more());
+
+    // skip results with different distances
+    for(final int step : new int[] { 1, 3, 100, 127, 128, 129, 500, 1999 }) {
+      final IndexIterator iter = index.iter(new IndexEntries(token("A"), IndexType.TEXT));
+      for(int p = 0; p < pres.length; p += step) {
+        assertTrue(iter.advance(pres[p] - 1));
+        assertEquals(pres[p], iter.pre());
+        if(p + 1 < pres.length) {
+          assertTrue(iter.advance(pres[p] + 1));
+          assertEquals(pres[p + 1], iter.pre());
+          p++;
+        }
+      }
+      assertFalse(iter.advance(pres[pres.length - 1] + 1));
+    }
+  }
+
+  /**
+   * Checks lookups and string ranges of the text index against the expected keys.
+   * @param keys expected keys and number of occurrences
+   */
+  private static void checkKeys(final TreeMap<String, Integer> keys) {
+    final ValueIndex index = (ValueIndex) context.data().index(IndexType.TEXT);
+    final ArrayList<String> all = new ArrayList<>(keys.keySet());
+    for(final String key : new String[] { "abcd", "abcdefga", "abcdefgh", "abcdefghi", "c" }) {
+      if(!keys.containsKey(key)) all.add(key);
+    }
+    for(final String key : all) {
+      final Integer count = keys.get(key);
+      final IndexIterator iter = index.iter(new IndexEntries(token(key), IndexType.TEXT));
+      assertEquals(count != null ? count : 0, iter.size(), "Key: " + key);
+    }
+    for(final String min : all) {
+      for(final String max : all) {
+        int count = 0;
+        if(min.compareTo(max) < 0) {
+          for(final int value : keys.subMap(min, true, max, false).values()) count += value;
+        }
+        final String query = "count(//k[text() >= '" + min + "' and text() < '" + max + "'])";
+        assertEquals(Integer.toString(count), query(query), query);
+      }
+    }
+  }
+
   /**
    * Tests the index: fetch results for different tokens, compare whether the right node was
    * returned and verify against the expected result size.
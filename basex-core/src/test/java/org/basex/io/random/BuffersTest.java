@@ -0,0 +1,67 @@
+package org.basex.io.random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for class {@link Buffers}.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class BuffersTest {
+  /**
+   * Checks if blocks are found again after they have been assigned.
+   */
+  @Test public void lookup() {
+    final Buffers buffers = new Buffers(8);
+    for(int p = 0; p < 8; p++) {
+      assertTrue(buffers.cursor(p));
+      buffers.current().pos = p;
+    }
+    for(int p = 7; p >= 0; p--) {
+      assertFalse(buffers.cursor(p));
+      assertEquals(p, buffers.current().pos);
+    }
+  }
+
+  /**
+   * Checks if frequently accessed blocks survive a sequential scan.
+   */
+  @Test public void scanResistance() {
+    final Buffers buffers = new Buffers(16);
+    // access hot blocks repeatedly, interleaved with other blocks
+    for(int r = 0; r < 4; r++) {
+      for(int p = 0; p < 4; p++) {
+        load(buffers, p);
+        load(buffers, 1000 + r * 4 + p);
+      }
+    }
+    // sequential scan
+    for(int p = 100; p < 10000; p++) load(buffers, p);
+    // hot blocks are still available
+    for(int p = 0; p < 4; p++) assertFalse(buffers.cursor(p), "Block evicted: " + p);
+  }
+
+  /**
+   * Checks the single-buffer case.
+   */
+  @Test public void single() {
+    final Buffers buffers = new Buffers(1);
+    for(int p = 0; p < 10; p++) {
+      load(buffers, p);
+      assertFalse(buffers.cursor(p));
+    }
+  }
+
+  /**
+   * Assigns a block to a buffer.
+   * @param buffers buffers
+   * @param pos block position
+   */
+  private static void load(final Buffers buffers, final long pos) {
+    if(buffers.cursor(pos)) buffers.current().pos = pos;
+    assertEquals(pos, buffers.current().pos);
+  }
+}
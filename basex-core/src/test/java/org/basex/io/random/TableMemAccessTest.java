@@ -15,7 +15,7 @@ import org.junit.jupiter.api.*;
  * @author BaseX Team, BSD License
  * @author Christian Gruen
  */
-public final class TableMemAccessTest extends SandboxTest {
+public class TableMemAccessTest extends SandboxTest {
   /** Test entry. */
   private static final byte[] ENTRY = {
     101, 102, 103, 104, 105, 106, 107, 108, 109, 110, 111, 112, 113, 127, -128, -1
@@ -25,7 +25,47 @@ public final class TableMemAccessTest extends SandboxTest {
 
   /** Set up method. */
   @BeforeEach public void setUp() {
-    table = new TableMemAccess(new MetaData(context.options));
+    final MetaData meta = new MetaData(context.options);
+    init(meta);
+    table = new TableMemAccess(meta);
+  }
+
+  /**
+   * Assigns the table layout.
+   * @param meta meta data
+   */
+  void init(final MetaData meta) {
+    meta.columnar = false;
+  }
+
+  /** Test method. */
+  @Test public void readWrite() {
+    table.insert(0, ENTRY);
+    table.insert(1, ENTRY);
+    for(int o = 0; o < 16; o++) assertEquals(ENTRY[o] & 0xFF, table.read1(0, o));
+    assertEquals((ENTRY[1] & 0xFF) << 8 | ENTRY[2] & 0xFF, table.read2(0, 1));
+    assertEquals((ENTRY[3] & 0xFFL) << 32 | table.read4(0, 4) & 0xFFFFFFFFL, table.read5(0, 3));
+
+    // write values of all sizes at all offsets that do not cross the middle of an entry
+    final long value = 0x123456789AL;
+    for(int o = 0; o < 16; o++) {
+      table.write1(0, o, (int) value);
+      assertEquals(0x9A, table.read1(0, o));
+      if((o & 7) <= 6) {
+        table.write2(0, o, (int) value);
+        assertEquals(0x789A, table.read2(0, o));
+      }
+      if((o & 7) <= 4) {
+        table.write4(0, o, (int) value);
+        assertEquals(0x3456789A, table.read4(0, o));
+      }
+      if((o & 7) <= 3) {
+        table.write5(0, o, value);
+        assertEquals(value, table.read5(0, o));
+      }
+    }
+    // second entry is unchanged
+    for(int o = 0; o < 16; o++) assertEquals(ENTRY[o] & 0xFF, table.read1(1, o));
   }
 
   /** Test method. */
@@ -0,0 +1,16 @@
+package org.basex.io.random;
+
+import org.basex.data.*;
+
+/**
+ * Tests for {@link TableMemAccess} class, with table entries stored in columns.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class TableMemColumnsTest extends TableMemAccessTest {
+  @Override
+  void init(final MetaData meta) {
+    meta.columnar = true;
+  }
+}
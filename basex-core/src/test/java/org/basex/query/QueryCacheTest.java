@@ -0,0 +1,111 @@
+package org.basex.query;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for caching parsed queries ({@link StaticOptions#QUERYCACHE}).
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class QueryCacheTest extends SandboxTest {
+  /** Query with external and dependent static variables. */
+  private static final String QUERY = "declare variable $y := $x * 2; "
+      + "declare variable $x as xs:integer external; "
+      + "<a x='{ $x }'>{ for $i in 1 to $y return $i * $x }</a> ! string-join((@x, .), '/')";
+
+  /** Enables the cache. */
+  @BeforeEach public void enable() {
+    context.soptions.set(StaticOptions.QUERYCACHE, 100);
+  }
+
+  /** Disables and clears the cache. */
+  @AfterEach public void disable() {
+    context.soptions.set(StaticOptions.QUERYCACHE, 0);
+    context.queries.clear();
+  }
+
+  /** External variables are bound to copies of cached queries. */
+  @Test public void bind() {
+    final int size = context.queries.size();
+    for(int i = 1; i <= 5; i++) {
+      assertEquals(i + "/" + expected(i), eval(QUERY, i));
+    }
+    assertEquals(size + 1, context.queries.size());
+  }
+
+  /** Queries with prolog declarations that cannot be copied are not cached. */
+  @Test public void uncached() {
+    final int size = context.queries.size();
+    final String query = "declare variable $x external; "
+        + "declare function local:f($n) { $n + $x }; local:f($x)";
+    for(int i = 1; i <= 3; i++) assertEquals(String.valueOf(i * 2), eval(query, i));
+    assertEquals(size, context.queries.size());
+  }
+
+  /** Disabled cache. */
+  @Test public void disabled() {
+    context.soptions.set(StaticOptions.QUERYCACHE, 0);
+    final int size = context.queries.size();
+    final String query = QUERY + " || ''";
+    for(int i = 1; i <= 3; i++) eval(query, i);
+    assertEquals(size, context.queries.size());
+  }
+
+  /** Least recently used queries are evicted. */
+  @Test public void evict() {
+    context.soptions.set(StaticOptions.QUERYCACHE, 1);
+    for(int i = 1; i <= 2; i++) assertEquals(i + "/" + expected(i), eval(QUERY, i));
+    assertEquals(1, context.queries.size());
+    final String query = QUERY + " || ''";
+    eval(query, 1);
+    assertEquals(0, context.queries.size());
+    eval(query, 1);
+    assertEquals(1, context.queries.size());
+    assertEquals("3/" + expected(3), eval(QUERY, 3));
+  }
+
+  /** Copies of updating queries. */
+  @Test public void updating() {
+    final String query = "declare variable $x external; insert node <b>{ $x }</b> into $x";
+    for(int i = 1; i <= 3; i++) {
+      try(QueryProcessor qp = new QueryProcessor(query, context)) {
+        qp.parse();
+        assertTrue(qp.updating);
+      } catch(final QueryException ex) {
+        fail(Util.message(ex));
+      }
+    }
+  }
+
+  /**
+   * Evaluates a query with the specified value bound to the variable {@code $x}.
+   * @param query query
+   * @param value value
+   * @return result
+   */
+  private static String eval(final String query, final int value) {
+    try(QueryProcessor qp = new QueryProcessor(query, context)) {
+      return qp.variable("x", value).value().serialize().toString();
+    } catch(final QueryException | QueryIOException ex) {
+      throw new AssertionError(Util.message(ex), ex);
+    }
+  }
+
+  /**
+   * Returns the expected result of the test query.
+   * @param x value of the external variable
+   * @return result
+   */
+  private static String expected(final int x) {
+    final StringBuilder sb = new StringBuilder();
+    for(int i = 1; i <= x * 2; i++) sb.append(i == 1 ? "" : " ").append(i * x);
+    return sb.toString();
+  }
+}
@@ -5,14 +5,17 @@ import static org.basex.query.func.Function.*;
 import static org.junit.jupiter.api.Assertions.*;
 
 import org.basex.*;
+import org.basex.core.cmd.*;
 import org.basex.query.expr.constr.*;
 import org.basex.query.expr.gflwor.*;
+import org.basex.query.expr.index.*;
 import org.basex.query.up.expr.*;
 import org.basex.query.value.item.*;
 import org.basex.query.value.seq.*;
 import org.basex.query.var.*;
 import org.basex.util.*;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
 
 /**
  * Test cases for FLWOR expressions.
@@ -512,4 +515,45 @@ public final class GFLWORTest extends SandboxTest {
         "1\n2", exists(Pipeline.class));
     check("let $a := <a/>[text()] while $a return $a", "", root(IterFilter.class));
   }
+
+  /** Hash joins. */
+  @Test public void hashJoin() {
+    final String orders = "(1 to 6) ! <o c='{ . mod 4 }' n='{ . }'/>";
+    final String customers = "(0 to 4) ! <c id='{ . }' n='{ . * 10 }'/>";
+    check("let $o := " + orders + " let $c := " + customers + " "
+        + "for $a in $o for $b in $c where $a/@c = $b/@id return $a/@n || ':' || $b/@n",
+        "1:10\n2:20\n3:30\n4:0\n5:10\n6:20", exists(Join.class));
+    check("let $c := " + customers + " for $a in (1 to 3, 2) for $b in $c "
+        + "where xs:integer($b/@n) = ($a * 10, 0) return $a || ':' || $b/@id",
+        "1:0\n1:1\n2:0\n2:2\n3:0\n3:3\n2:0\n2:2", exists(Join.class));
+    // numeric keys of different types; sequences of keys
+    check("for $a in (1, 2.0, 3e0) for $b in (3, 2, 1, 2) where $a = $b return $a || ':' || $b",
+        "1:1\n2:2\n2:2\n3:3", exists(Join.class));
+    check("for $a in 1 to 3 for $b in ('1', '2') where $a = xs:integer($b) return $b",
+        "1\n2", exists(Join.class));
+    check("let $x := (<x>1 2</x>, <x>3</x>, <x>2 2</x>) for $a in 1 to 3 for $b in $x "
+        + "where tokenize($b) = string($a) return $a || ':' || $b",
+        "1:1 2\n2:1 2\n2:2 2\n3:3", exists(Join.class));
+    check("for $a in 1 to 3 for $b in (1, 4) where $a = $b return $a", 1, exists(Join.class));
+    check("for $a in 1 to 3 for $b in () where $a = $b return $a", "", empty());
+    check("for $a in () for $b in 1 to 3 where $a = $b return error()", "", empty());
+    check("for $a in (1, xs:double('NaN')) for $b in (xs:double('NaN'), 1) "
+        + "where $a = $b return $b", 1, exists(Join.class));
+
+    // no rewrite: dependent expression, single tuple
+    check("for $a in 1 to 3 for $b in 1 to $a where $a = $b return $b",
+        "1\n2\n3", empty(Join.class));
+    check("let $a := 2 for $b in 1 to 3 where $a = $b return $b", 2, empty(Join.class));
+  }
+
+  /** Hash joins: database with value indexes. */
+  @Test public void hashJoinIndex() {
+    execute(new CreateDB(NAME, "<x><o c='1'/><o c='2'/><o c='2'/><c id='1'/><c id='2'/></x>"));
+    try {
+      check("for $o in //o for $c in //c where $o/@c = $c/@id return $c/@id",
+          "id=\"1\"\nid=\"2\"\nid=\"2\"", empty(Join.class), exists(ValueAccess.class));
+    } finally {
+      execute(new DropDB(NAME));
+    }
+  }
 }
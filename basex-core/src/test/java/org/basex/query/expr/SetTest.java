@@ -0,0 +1,68 @@
+package org.basex.query.expr;
+
+import org.basex.*;
+import org.basex.core.cmd.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for the set expressions with operands that are not in document order.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class SetTest extends SandboxTest {
+  /** Nodes in reverse document order. */
+  private static final String ODD = "reverse(//n[@v mod 2 = 1])";
+  /** Nodes in reverse document order. */
+  private static final String THIRD = "reverse(//n[@v mod 3 = 0])";
+
+  /** Creates a database. */
+  @BeforeAll public static void setUp() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 1; i <= 100000; i++) sb.append("<n v='").append(i).append("'/>");
+    execute(new CreateDB(NAME, sb.append("</x>").toString()));
+  }
+
+  /** Drops the database. */
+  @AfterAll public static void tearDown() {
+    execute(new DropDB(NAME));
+  }
+
+  /** Union. */
+  @Test public void union() {
+    query("count(" + ODD + " | " + THIRD + ')', 66666);
+    query("(" + ODD + " | " + THIRD + ")[position() <= 4] ! @v ! string()", "1\n3\n5\n6");
+    query("(" + ODD + " | " + THIRD + " | reverse(//x))[1] ! name()", "x");
+    query("(reverse(//n[@v = (2, 1)]) | <n v='0'/>) ! @v ! string() => sort()", "0\n1\n2");
+  }
+
+  /** Intersection. */
+  @Test public void intersect() {
+    query("count(" + ODD + " intersect " + THIRD + ')', 16667);
+    query("(" + ODD + " intersect " + THIRD + ")[position() <= 3] ! @v ! string()", "3\n9\n15");
+    query("(" + ODD + " intersect reverse(//n[@v mod 2 = 0])) => count()", 0);
+    query("(" + ODD + " intersect reverse(//n[@v = 0]) intersect error()) => count()", 0);
+  }
+
+  /** Difference. */
+  @Test public void except() {
+    query("count(" + ODD + " except " + THIRD + ')', 33333);
+    query("(" + ODD + " except " + THIRD + ")[position() <= 3] ! @v ! string()", "1\n5\n7");
+    query("(reverse(//n[@v = 0]) except error()) => count()", 0);
+  }
+
+  /** Operands with nodes of different databases. */
+  @Test public void databases() {
+    execute(new CreateDB(NAME + '2', "<x><n v='1'/></x>"));
+    try {
+      query("count(reverse(db:get('" + NAME + "')//n[@v <= 2]) | db:get('" + NAME + "2')//n)",
+          3);
+      query("count(reverse(db:get('" + NAME + "')//n[@v <= 2]) intersect db:get('" + NAME +
+          "2')//n)", 0);
+    } finally {
+      execute(new DropDB(NAME + '2'));
+      execute(new Open(NAME));
+    }
+  }
+}
@@ -0,0 +1,175 @@
+package org.basex.query.expr;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.*;
+import java.util.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.io.*;
+import org.basex.query.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * Tests for sorting tuples that are partially written to disk ({@link MainOptions#SORTLIMIT}),
+ * and for sorting and grouping tuples in parallel ({@link MainOptions#SORTTHREADS}).
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class SortTest extends SandboxTest {
+  /** Creates a database. */
+  @BeforeAll public static void setUp() {
+    final StringBuilder sb = new StringBuilder("<x>");
+    for(int i = 1; i <= 1000; i++) {
+      sb.append("<n v='").append(i * 7919 % 101).append("' w='").append(i % 3 == 0 ? "" : i % 5).
+        append("'>").append(i).append("</n>");
+    }
+    execute(new CreateDB(NAME, sb.append("</x>").toString()));
+  }
+
+  /** Drops the database. */
+  @AfterAll public static void tearDown() {
+    execute(new DropDB(NAME));
+  }
+
+  /** Order by clauses. */
+  @Test public void orderBy() {
+    check("for $n in //n order by $n/@v return $n/text()");
+    check("for $n in //n order by $n/@v descending, $n/@w return $n/text()");
+    check("for $n in //n order by xs:double($n/@w[data()]) empty greatest, $n/@v return $n/text()");
+    check("for $n in //n order by xs:double($n/@w[data()]) empty least, number($n) descending "
+        + "return $n/text()");
+    check("for $n in //n order by boolean($n/@w/data()) return $n/text()");
+    check("for $n in //n order by xs:decimal($n/@v) div 3 return $n/text()");
+    check("for $i in 1 to 1000 let $s := string($i) order by $i mod 13 "
+        + "return $s || ':' || $i");
+    check("for $n at $p in //n let $v := $n/@v order by $v, $p descending "
+        + "return ($n, $p)");
+    // items that cannot be written to disk
+    check("for $n in //n order by $n/@v return <m>{ $n/text() }</m>");
+    check("for $n in //n order by $n/@v return function() { $n }() ! text()");
+  }
+
+  /** Sort functions. */
+  @Test public void sort() {
+    check("sort(//n ! xs:integer(@v))");
+    check("sort(//n, (), function($n) { $n/@v }) ! text()");
+    check("sort(//n, (), (function($n) { $n/@w }, function($n) { -$n }), 'descending') ! text()");
+    check("array:sort(array { //n ! (@v, @w) ! data() }, (), string#1) => array:flatten()");
+  }
+
+  /** Sorting of the first tuples. */
+  @Test public void top() {
+    top("for $n in //n order by $n/@v return $n/text()");
+    top("for $n in //n order by $n/@v descending, $n/@w return string($n)");
+    top("for $n in //n order by xs:double($n/@w[data()]) empty greatest return $n/text()");
+    top("for $i in 1 to 1000 order by $i mod 13 return $i");
+    top("sort(//n, (), function($n) { $n/@v }) ! text()");
+    top("sort(1 to 1000, (), function($i) { -$i mod 11 })");
+    // no truncation if the return expression yields multiple items
+    top("for $n in //n order by $n/@v return ($n/@w, $n/text())");
+
+    query("(for $i in 1 to 10 order by $i return ($i, $i))[position() <= 3]", "1\n1\n2");
+    query("(for $i in 1 to 10 order by $i descending count $c return $c)[2]", 2);
+    query("subsequence(sort(1 to 1000, (), function($i) { -$i }), 1, 3) => count()", 3);
+    query("subsequence(sort(1 to 1000, (), function($i) { -$i }), 1, 3) => reverse()",
+        "998\n999\n1000");
+  }
+
+  /** Parallel sorting and grouping. */
+  @Test public void parallel() {
+    parallel("for $i in 1 to 100000 order by $i mod 1009, $i mod 7 descending return $i");
+    parallel("for $i in 1 to 100000 order by string($i mod 997) return $i");
+    parallel("sort(1 to 100000, (), function($i) { $i mod 10007 })");
+    parallel("sort((1 to 100000) ! string(. mod 2003))");
+    parallel("for $i in 1 to 100000 group by $g := $i mod 1013 return $g || ':' || sum($i)");
+    parallel("for $i in 1 to 100000 let $s := string($i) group by $g := $i mod 17, $h := $i mod 3 "
+        + "return $g || '/' || $h || ':' || string-join($s[position() <= 5], ',')");
+    parallel("for $i in 1 to 100000 group by $g := ($i mod 101, 'x')[$i mod 2 + 1] "
+        + "return $g || ':' || count($i)");
+    // comparison errors
+    set(MainOptions.SORTTHREADS, 4);
+    try {
+      error("for $i in 1 to 100000 order by (if($i = 50000) then 'x' else $i) return $i",
+          QueryError.INVCONVERT_X_X_X);
+    } finally {
+      set(MainOptions.SORTTHREADS, 1);
+    }
+  }
+
+  /** Errors are raised for spilled tuples as well. */
+  @Test public void error() {
+    set(MainOptions.SORTLIMIT, 10);
+    try {
+      error("for $i in 1 to 100 order by (if($i = 50) then 'x' else $i) return $i",
+          QueryError.INVCONVERT_X_X_X);
+    } finally {
+      set(MainOptions.SORTLIMIT, -1);
+    }
+  }
+
+  /**
+   * Compares the results of a query with and without written runs.
+   * @param query query
+   */
+  private static void check(final String query) {
+    final int files = files();
+    set(MainOptions.SORTLIMIT, -1);
+    final String expected = query(query);
+    for(final int limit : new int[] { 7, 100, 999 }) {
+      set(MainOptions.SORTLIMIT, limit);
+      try {
+        assertEquals(expected, query(query), "SORTLIMIT: " + limit);
+      } finally {
+        set(MainOptions.SORTLIMIT, -1);
+      }
+    }
+    assertEquals(files, files(), "Temporary files were not deleted.");
+  }
+
+  /**
+   * Compares truncated results of a sorting query with the complete result.
+   * @param query query
+   */
+  private static void top(final String query) {
+    final String[] results = query(query).split("\n");
+    for(final int[] range : new int[][] { { 1, 1 }, { 1, 10 }, { 5, 20 }, { 990, 20 } }) {
+      final int start = range[0] - 1, end = Math.min(start + range[1], results.length);
+      final String expected = String.join("\n", Arrays.copyOfRange(results, start, end));
+      assertEquals(expected, query("subsequence((" + query + "), " + range[0] + ", " +
+          range[1] + ")"));
+      if(start == 0) {
+        assertEquals(expected, query("(" + query + ")[position() <= " + range[1] + ']'));
+      }
+    }
+  }
+
+  /**
+   * Compares the results of a query with and without parallel evaluation.
+   * @param query query
+   */
+  private static void parallel(final String query) {
+    final String expected = query(query);
+    set(MainOptions.SORTTHREADS, 4);
+    try {
+      assertEquals(expected, query(query));
+    } finally {
+      set(MainOptions.SORTTHREADS, 1);
+    }
+  }
+
+  /**
+   * Returns the number of temporary files.
+   * @return number of files
+   */
+  private static int files() {
+    final File[] files = new File(System.getProperty("java.io.tmpdir")).listFiles((dir, name) ->
+      name.startsWith(Prop.NAME + '-') && name.endsWith(IO.TMPSUFFIX));
+    return files == null ? 0 : files.length;
+  }
+}
@@ -6,6 +6,7 @@ import org.basex.*;
 import org.basex.core.*;
 import org.basex.core.cmd.*;
 import org.basex.index.*;
+import org.basex.query.expr.*;
 import org.basex.query.expr.ft.*;
 import org.basex.query.expr.index.*;
 import org.basex.util.*;
@@ -324,6 +325,29 @@ public final class IndexOptimizeTest extends SandboxTest {
     query("M/descendant-or-self::M[contains-token(@v, 'a')]", xml);
   }
 
+  /** Index access for several predicates of the same step. */
+  @Test public void joinPredicates() {
+    final StringBuilder sb = new StringBuilder("<orders>");
+    for(int o = 0; o < 100; o++) {
+      sb.append("<order customer='c").append(o % 10).append("'><status>");
+      sb.append(o % 3 == 0 ? "open" : "closed").append("</status></order>");
+    }
+    execute(new CreateDB(NAME, sb.append("</orders>").toString()));
+
+    // similar costs: predicates are joined
+    final String query = "//order[@customer = 'c1'][status = 'open']";
+    check("count(" + query + ')', 3,
+        count(ValueAccess.class, 2),
+        exists(Intersect.class));
+    query(query + "/@customer ! string()", "c1\nc1\nc1");
+    check("count(//order[@customer = ('c1', 'c2')][status = 'closed'][not(@x)])", 14,
+        count(ValueAccess.class, 2));
+    // different costs: second predicate is evaluated as filter
+    check("count(//order[@customer = 'c1'][status = ('open', 'closed')])", 10,
+        count(ValueAccess.class, 1),
+        empty(Intersect.class));
+  }
+
   /**
    * Creates a test database.
    */
@@ -0,0 +1,135 @@
+package org.basex.query.index;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.core.parse.Commands.*;
+import org.basex.data.*;
+import org.basex.index.*;
+import org.basex.index.query.*;
+import org.basex.index.value.*;
+import org.basex.query.expr.index.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class tests if numeric range queries are correctly evaluated with indexed numeric keys.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class NumericRangeTest extends SandboxTest {
+  /** Query for counting texts in a range. */
+  private static final String TEXTS = "count(//n[text() >= % and text() <= %])";
+  /** Query for counting attributes in a range. */
+  private static final String ATTS = "count(//n[@v > % and @v < %])";
+
+  /**
+   * Initializes the tests.
+   */
+  @BeforeAll public static void start() {
+    final TokenBuilder tb = new TokenBuilder();
+    tb.add("<xml>");
+    for(int i = -500; i < 500; i++) {
+      tb.add("<n v='").add(Token.token(i / 4.0)).add("'>").addInt(i).add("</n>");
+      tb.add("<n v='").addInt(i).add("'>").add(Token.token(i * 1.5)).add("</n>");
+    }
+    // non-numeric keys are not indexed
+    tb.add("<s w='x'>x</s>");
+    tb.add("</xml>");
+    set(MainOptions.NUMINDEX, true);
+    execute(new CreateDB(NAME, tb.toString()));
+  }
+
+  /**
+   * Finishes the tests.
+   */
+  @AfterAll public static void finish() {
+    execute(new DropDB(NAME));
+    set(MainOptions.NUMINDEX, false);
+    set(MainOptions.UPDINDEX, false);
+  }
+
+  /**
+   * Ranges with negative numbers, doubles, and numbers of different lengths.
+   */
+  @Test public void ranges() {
+    assertTrue(numeric(IndexType.TEXT));
+    assertTrue(numeric(IndexType.ATTRIBUTE));
+
+    test(TEXTS, "-10", "10", 34);
+    test(TEXTS, "-1.5", "1.5", 6);
+    test(TEXTS, "0.5", "1", 1);
+    test(TEXTS, "-1000", "1000", 2000);
+    test(TEXTS, "400", "499", 166);
+    test(ATTS, "-2", "2", 18);
+    test(ATTS, "-125.5", "-124.25", 4);
+    test(ATTS, "99.9", "1000", 500);
+  }
+
+  /**
+   * Checks that the index returns exact costs.
+   */
+  @Test public void costs() {
+    final Data data = context.data();
+    assertEquals(34, data.costs(new NumericRange(IndexType.TEXT, -10, 10)).results());
+    assertEquals(0, data.costs(new NumericRange(IndexType.TEXT, 0.5, 0.75)).results());
+    // no results: index access is skipped
+    check(Util.info(TEXTS, 0.5, 0.75), 0, empty(Util.className(RangeAccess.class)));
+    assertEquals(2000, data.costs(new NumericRange(IndexType.ATTRIBUTE, -1e9, 1e9)).results());
+  }
+
+  /**
+   * Numeric keys are dropped if an updatable index is updated, and rebuilt by an optimization.
+   */
+  @Test public void update() {
+    set(MainOptions.UPDINDEX, true);
+    try {
+      execute(new OptimizeAll());
+      assertTrue(numeric(IndexType.TEXT));
+
+      query("insert node <n v='0.1'>0.1</n> into /xml");
+      assertFalse(numeric(IndexType.TEXT));
+      assertEquals("1", query("count(//n[text() >= 0.05 and text() <= 0.15])"));
+
+      execute(new OptimizeAll());
+      assertTrue(numeric(IndexType.TEXT));
+      assertEquals("1", query("count(//n[text() >= 0.05 and text() <= 0.15])"));
+      query("delete node //n[. = '0.1']");
+    } finally {
+      set(MainOptions.UPDINDEX, false);
+      execute(new OptimizeAll());
+    }
+  }
+
+  /**
+   * Tests a query with and without numeric keys.
+   * @param query query pattern
+   * @param min minimum value
+   * @param max maximum value
+   * @param result expected result
+   */
+  private static void test(final String query, final String min, final String max,
+      final int result) {
+    final String q = Util.info(query, min, max);
+    check(q, result, exists(Util.className(RangeAccess.class)));
+    execute(new DropIndex(CmdIndex.TEXT));
+    execute(new DropIndex(CmdIndex.ATTRIBUTE));
+    check(q, result);
+    execute(new CreateIndex(CmdIndex.TEXT));
+    execute(new CreateIndex(CmdIndex.ATTRIBUTE));
+  }
+
+  /**
+   * Checks if the numeric keys of the specified index are available.
+   * @param type index type
+   * @return result of check
+   */
+  private static boolean numeric(final IndexType type) {
+    final Index index = context.data().index(type);
+    return index instanceof DiskValues && ((DiskValues) index).numeric();
+  }
+}
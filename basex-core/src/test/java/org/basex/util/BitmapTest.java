@@ -0,0 +1,104 @@
+package org.basex.util;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+
+import org.junit.jupiter.api.*;
+
+/**
+ * Tests for {@link Bitmap}.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class BitmapTest {
+  /** Random number generator. */
+  private static final Random RANDOM = new Random(1);
+
+  /** Test method for {@link Bitmap#add(int)} and {@link Bitmap#contains(int)}. */
+  @Test public void add() {
+    final Bitmap bm = new Bitmap();
+    assertTrue(bm.isEmpty());
+    assertTrue(bm.add(70000));
+    assertTrue(bm.add(3));
+    assertFalse(bm.add(3));
+    assertTrue(bm.add(Integer.MAX_VALUE));
+    assertEquals(3, bm.cardinality());
+    assertTrue(bm.contains(3));
+    assertTrue(bm.contains(70000));
+    assertFalse(bm.contains(4));
+    assertFalse(bm.contains(70000 - 65536));
+    assertArrayEquals(new int[] { 3, 70000, Integer.MAX_VALUE }, bm.toArray());
+  }
+
+  /** Test method for {@link Bitmap#next(int)}. */
+  @Test public void next() {
+    final Bitmap bm = new Bitmap();
+    for(int i = 0; i < 10000; i += 2) bm.add(i * 3);
+    bm.add(1 << 20);
+    assertEquals(0, bm.next(0));
+    assertEquals(6, bm.next(1));
+    assertEquals(29994, bm.next(29989));
+    assertEquals(1 << 20, bm.next(29995));
+    assertEquals(-1, bm.next((1 << 20) + 1));
+  }
+
+  /** Compares sparse and dense bitmaps with sorted sets. */
+  @Test public void random() {
+    for(final int range : new int[] { 1000, 100000, 1 << 20 }) {
+      for(final int count : new int[] { 0, 10, 5000, 100000 }) {
+        final TreeSet<Integer> set1 = new TreeSet<>(), set2 = new TreeSet<>();
+        final Bitmap bm1 = bitmap(set1, range, count), bm2 = bitmap(set2, range, count / 2);
+        check(set1, bm1);
+
+        final TreeSet<Integer> or = new TreeSet<>(set1), and = new TreeSet<>(set1);
+        final TreeSet<Integer> andNot = new TreeSet<>(set1);
+        or.addAll(set2);
+        and.retainAll(set2);
+        andNot.removeAll(set2);
+        check(or, bm1.or(bm2));
+        check(and, bm1.and(bm2));
+        check(and, bm2.and(bm1));
+        check(andNot, bm1.andNot(bm2));
+        // operands must not be changed
+        check(set1, bm1);
+        check(set2, bm2);
+      }
+    }
+  }
+
+  /**
+   * Creates a bitmap and a set with random values.
+   * @param set set to be filled
+   * @param range range of values
+   * @param count number of values to be added
+   * @return bitmap
+   */
+  private static Bitmap bitmap(final TreeSet<Integer> set, final int range, final int count) {
+    final Bitmap bm = new Bitmap();
+    for(int c = 0; c < count; c++) {
+      final int value = RANDOM.nextInt(range);
+      assertEquals(set.add(value), bm.add(value));
+    }
+    return bm;
+  }
+
+  /**
+   * Compares a bitmap with a set.
+   * @param set expected values
+   * @param bm bitmap
+   */
+  private static void check(final TreeSet<Integer> set, final Bitmap bm) {
+    final int[] values = set.stream().mapToInt(Integer::intValue).toArray();
+    assertEquals(values.length, bm.cardinality());
+    assertArrayEquals(values, bm.toArray());
+    int v = -1;
+    for(final int value : values) {
+      v = bm.next(v + 1);
+      assertEquals(value, v);
+      assertTrue(bm.contains(value));
+    }
+    assertEquals(-1, bm.next(v + 1));
+  }
+}
@@ -0,0 +1,96 @@
+package org.basex.local.multiple;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import org.basex.*;
+import org.basex.core.*;
+import org.basex.core.cmd.*;
+import org.basex.data.*;
+import org.basex.util.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.Test;
+
+/**
+ * This class benchmarks parallel read access to a single disk-based database.
+ * Each thread performs random node lookups (kind, size, text) on the same {@link Data} instance.
+ *
+ * @author BaseX Team, BSD License
+ * @author Christian Gruen
+ */
+public final class ParallelReadTest extends SandboxTest {
+  /** Input document. */
+  private static final String INPUT = "src/test/resources/factbook.zip";
+  /** Number of lookups per thread. */
+  private static final int LOOKUPS = 2000000;
+
+  /**
+   * Drops the test database.
+   */
+  @AfterEach public void drop() {
+    execute(new DropDB(NAME));
+    set(MainOptions.MMAP, false);
+  }
+
+  /**
+   * Buffered access.
+   * @throws Exception exception
+   */
+  @Test public void buffered() throws Exception {
+    run(false);
+  }
+
+  /**
+   * Memory-mapped access.
+   * @throws Exception exception
+   */
+  @Test public void mapped() throws Exception {
+    run(true);
+  }
+
+  /**
+   * Runs the benchmark with an increasing number of threads.
+   * @param mmap memory mapping
+   * @throws Exception exception
+   */
+  private static void run(final boolean mmap) throws Exception {
+    set(MainOptions.MMAP, mmap);
+    execute(new CreateDB(NAME, INPUT));
+    final Data data = context.data();
+    final long expected = lookups(data, 0);
+
+    Util.println((mmap ? "Memory-mapped" : "Buffered") + " access:");
+    final int cores = Runtime.getRuntime().availableProcessors();
+    for(int threads = 1; threads <= cores; threads <<= 1) {
+      final ExecutorService pool = Executors.newFixedThreadPool(threads);
+      final ArrayList<Future<Long>> results = new ArrayList<>();
+      final Performance perf = new Performance();
+      for(int t = 0; t < threads; t++) results.add(pool.submit(() -> lookups(data, 0)));
+      for(final Future<Long> result : results) assertEquals(expected, (long) result.get());
+      final double ms = perf.ns() / 1000000d;
+      pool.shutdown();
+      Util.println("- " + threads + " thread(s): " + (long) (threads * LOOKUPS / ms) +
+          " lookups/ms");
+    }
+  }
+
+  /**
+   * Performs random lookups and returns a checksum.
+   * @param data data reference
+   * @param seed random seed
+   * @return checksum
+   */
+  private static long lookups(final Data data, final long seed) {
+    final Random rnd = new Random(seed);
+    final int size = data.meta.size;
+    long sum = 0;
+    for(int l = 0; l < LOOKUPS; l++) {
+      final int pre = rnd.nextInt(size), kind = data.kind(pre);
+      sum += kind + data.size(pre, kind);
+      if(kind == Data.TEXT || kind == Data.ATTR) sum += data.text(pre, kind == Data.TEXT).length;
+    }
+    return sum;
+  }
+}